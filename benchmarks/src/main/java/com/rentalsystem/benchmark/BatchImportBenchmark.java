@@ -0,0 +1,71 @@
+package com.rentalsystem.benchmark;
+
+import com.rentalsystem.manager.*;
+import com.rentalsystem.util.FileHandler;
+import com.rentalsystem.util.Logger;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk import of a synthetic dataset (in data-file CSV) into empty managers, including validation,
+ * the commit and the journal or snapshot writes. Rows per second is the total row count (about 1.3x
+ * {@code rows}) divided by the reported time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BatchImportBenchmark {
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"JOURNAL", "SNAPSHOT"})
+    public FileHandler.PersistenceMode mode;
+
+    private Path input;
+    private Path directory;
+    private FileHandler fileHandler;
+    private BatchImporter importer;
+
+    @Setup(Level.Trial)
+    public void writeInput() throws IOException {
+        Logger.setLevel(Logger.Level.WARN);
+        input = SyntheticDataset.generate(rows, 42).writeTo(Files.createTempDirectory("rental-import"));
+    }
+
+    @Setup(Level.Invocation)
+    public void createManagers() throws IOException {
+        directory = Files.createTempDirectory("rental-bench");
+        fileHandler = new FileHandler(directory.toString(), mode, FileHandler.StorageFormat.CSV);
+        ReferenceIndex references = new ReferenceIndex();
+        importer = new BatchImporter(
+                new TenantManagerImpl(fileHandler, references, Collections.emptyList()),
+                new HostManagerImpl(fileHandler, references, Collections.emptyList()),
+                new PropertyManagerImpl(fileHandler, references, Collections.emptyList()),
+                new RentalManagerImpl(fileHandler, references, Collections.emptyList(), Collections.emptyList()))
+                .sourcesIn(input);
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteManagers() throws IOException {
+        fileHandler.shutdown();
+        SyntheticDataset.deleteRecursively(directory);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteInput() throws IOException {
+        SyntheticDataset.deleteRecursively(input);
+    }
+
+    @Benchmark
+    public BatchImporter.Result importAll() throws IOException {
+        return importer.run(null, true);
+    }
+}
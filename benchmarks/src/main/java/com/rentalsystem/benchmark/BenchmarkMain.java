@@ -0,0 +1,29 @@
+package com.rentalsystem.benchmark;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of benchmarks.jar. Same options as the JMH runner, but results are also written as JSON
+ * to jmh-result.json (unless -rf/-rff say otherwise) so runs can be compared between releases.
+ */
+public final class BenchmarkMain {
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!arguments.contains("-rf")) {
+            arguments.add("-rf");
+            arguments.add("json");
+        }
+        if (!arguments.contains("-rff")) {
+            arguments.add("-rff");
+            arguments.add("jmh-result.json");
+        }
+        Main.main(arguments.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,239 @@
+package com.rentalsystem.benchmark;
+
+import com.rentalsystem.manager.*;
+import com.rentalsystem.model.*;
+import com.rentalsystem.util.FileHandler;
+import com.rentalsystem.util.LoadedData;
+import com.rentalsystem.util.StartupLoader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs concurrent readers and writers against one set of managers backed by a journaling FileHandler,
+ * then checks that the stores, the reference indexes and the reloaded files all agree.
+ * Exits with status 1 when an operation threw or an invariant does not hold.
+ *
+ * <pre>java -cp benchmarks/target/benchmarks.jar com.rentalsystem.benchmark.ConcurrencyStressTest [threads] [seconds] [rows]</pre>
+ */
+public final class ConcurrencyStressTest {
+    private final int threads;
+    private final long durationMillis;
+    private final SyntheticDataset dataset;
+    private final ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<>();
+    private final AtomicLong operations = new AtomicLong();
+    private final AtomicLong nextId = new AtomicLong();
+
+    private TenantManager tenantManager;
+    private RentalManager rentalManager;
+
+    private ConcurrencyStressTest(int threads, int seconds, int rows) {
+        this.threads = threads;
+        this.durationMillis = seconds * 1000L;
+        this.dataset = SyntheticDataset.generate(rows, 42);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int rows = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        boolean passed = new ConcurrencyStressTest(threads, seconds, rows).run();
+        System.exit(passed ? 0 : 1);
+    }
+
+    private boolean run() throws Exception {
+        Path directory = Files.createTempDirectory("rental-stress");
+        try {
+            dataset.writeTo(directory);
+            FileHandler fileHandler = new FileHandler(directory.toString(), FileHandler.PersistenceMode.JOURNAL,
+                    FileHandler.StorageFormat.CSV);
+            LoadedData data = new StartupLoader(fileHandler).load();
+            ReferenceIndex references = new ReferenceIndex();
+            tenantManager = new TenantManagerImpl(fileHandler, references, data.getTenants());
+            new HostManagerImpl(fileHandler, references, data.getHosts());
+            new PropertyManagerImpl(fileHandler, references, data.getProperties());
+            rentalManager = new RentalManagerImpl(fileHandler, references, data.getRentalAgreements(), data.getPayments());
+
+            System.out.println("Running " + threads + " threads for " + durationMillis / 1000 + " s over "
+                    + rentalManager.countRentalAgreements() + " agreements...");
+            long deadline = System.currentTimeMillis() + durationMillis;
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Thread worker = new Thread(() -> work(start, deadline), "stress-" + i);
+                worker.start();
+                workers.add(worker);
+            }
+            start.countDown();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            System.out.println(operations.get() + " operations, " + errors.size() + " errors");
+
+            checkIndexes();
+            fileHandler.shutdown();
+            checkReload(directory);
+        } finally {
+            SyntheticDataset.deleteRecursively(directory);
+        }
+        errors.stream().limit(20).forEach(error -> System.out.println("FAIL: " + error));
+        System.out.println(errors.isEmpty() ? "PASSED" : "FAILED");
+        return errors.isEmpty();
+    }
+
+    // Random mix of lookups, snapshot reads and writes over existing and newly added records
+    private void work(CountDownLatch start, long deadline) {
+        try {
+            start.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                step(random);
+                operations.incrementAndGet();
+            } catch (RuntimeException e) {
+                errors.add(Thread.currentThread().getName() + ": " + e);
+            }
+        }
+    }
+
+    private void step(ThreadLocalRandom random) {
+        String agreementId = SyntheticDataset.agreementId(random.nextInt(dataset.agreements.size()));
+        int choice = random.nextInt(100);
+        if (choice < 30) {
+            tenantManager.getTenant(SyntheticDataset.tenantId(random.nextInt(dataset.tenants.size())));
+            RentalAgreement agreement = rentalManager.getRentalAgreement(agreementId);
+            if (agreement != null && agreement.getMainTenant().countRentalAgreements() < 0) {
+                errors.add("negative count for " + agreement.getMainTenant().getId());
+            }
+        } else if (choice < 40) {
+            List<RentalAgreement> all = rentalManager.getAllRentalAgreements();
+            Set<String> ids = new HashSet<>();
+            for (RentalAgreement agreement : all) {
+                if (!ids.add(agreement.getId())) {
+                    errors.add("duplicate " + agreement.getId() + " in snapshot");
+                }
+            }
+        } else if (choice < 50) {
+            for (Payment payment : rentalManager.getPaymentsForRentalAgreement(agreementId)) {
+                if (!agreementId.equals(payment.getRentalAgreementId())) {
+                    errors.add("payment " + payment.getId() + " indexed under " + agreementId);
+                }
+            }
+        } else if (choice < 70) {
+            rentalManager.addPayment(new Payment("SP" + nextId.incrementAndGet(), 100 + random.nextInt(900), new Date(),
+                    "Cash", agreementId));
+        } else if (choice < 82) {
+            RentalAgreement current = rentalManager.getRentalAgreement(agreementId);
+            if (current != null) {
+                rentalManager.updateRentalAgreement(new RentalAgreement(current.getId(), current.getMainTenant(),
+                        current.getProperty(), current.getPeriod(), current.getContractDate(),
+                        current.getRentingFee() + 1, current.getStatus()));
+            }
+        } else if (choice < 90) {
+            Tenant tenant = dataset.tenants.get(random.nextInt(dataset.tenants.size()));
+            Property property = dataset.properties.get(random.nextInt(dataset.properties.size()));
+            rentalManager.addRentalAgreement(new RentalAgreement("SRA" + nextId.incrementAndGet(), tenant, property,
+                    RentalAgreement.Period.MONTHLY, new Date(), property.getPrice(), RentalAgreement.Status.NEW));
+        } else if (choice < 95) {
+            rentalManager.deleteRentalAgreement(agreementId);
+        } else {
+            Tenant current = tenantManager.getTenant(SyntheticDataset.tenantId(random.nextInt(dataset.tenants.size())));
+            tenantManager.updateTenant(new Tenant(current.getId(), current.getFullName() + "'",
+                    current.getDateOfBirth(), current.getContactInformation()));
+        }
+    }
+
+    // Every stored agreement and payment must sit in exactly the index buckets its keys point to
+    private void checkIndexes() {
+        List<RentalAgreement> agreements = rentalManager.getAllRentalAgreements();
+        expect(agreements.size() == rentalManager.countRentalAgreements(), "agreement snapshot size "
+                + agreements.size() + " != count " + rentalManager.countRentalAgreements());
+        Set<String> tenantIds = new HashSet<>();
+        for (RentalAgreement agreement : agreements) {
+            String tenantId = agreement.getMainTenant().getId();
+            tenantIds.add(tenantId);
+            expect(containsSame(rentalManager.getRentalAgreementsForTenant(tenantId), agreement),
+                    "agreement " + agreement.getId() + " missing from tenant index");
+        }
+        int indexed = 0;
+        for (String tenantId : tenantIds) {
+            indexed += rentalManager.getRentalAgreementsForTenant(tenantId).size();
+        }
+        expect(indexed == agreements.size(), "tenant index holds " + indexed + " agreements, store " + agreements.size());
+
+        List<Payment> payments = rentalManager.getAllPayments();
+        expect(payments.size() == rentalManager.countPayments(), "payment snapshot size " + payments.size()
+                + " != count " + rentalManager.countPayments());
+        Map<String, Integer> perAgreement = new HashMap<>();
+        for (Payment payment : payments) {
+            perAgreement.merge(payment.getRentalAgreementId(), 1, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> entry : perAgreement.entrySet()) {
+            int size = rentalManager.getPaymentsForRentalAgreement(entry.getKey()).size();
+            expect(size == entry.getValue(), "payment index for " + entry.getKey() + " holds " + size
+                    + ", store " + entry.getValue());
+        }
+    }
+
+    // The journals written during the run must reload to exactly the in-memory state
+    private void checkReload(Path directory) {
+        FileHandler reloaded = new FileHandler(directory.toString(), FileHandler.PersistenceMode.JOURNAL,
+                FileHandler.StorageFormat.CSV);
+        try {
+            LoadedData data = new StartupLoader(reloaded).load();
+            expect(ids(data.getRentalAgreements()).equals(ids(rentalManager.getAllRentalAgreements())),
+                    "reloaded agreements differ from memory");
+            expect(data.getPayments().size() == rentalManager.countPayments(), "reloaded " + data.getPayments().size()
+                    + " payments, memory " + rentalManager.countPayments());
+            Map<String, Double> fees = new HashMap<>();
+            for (RentalAgreement agreement : rentalManager.getAllRentalAgreements()) {
+                fees.put(agreement.getId(), agreement.getRentingFee());
+            }
+            for (RentalAgreement agreement : data.getRentalAgreements()) {
+                Double fee = fees.get(agreement.getId());
+                expect(fee != null && Math.abs(fee - agreement.getRentingFee()) < 0.005,
+                        "reloaded fee of " + agreement.getId() + " is " + agreement.getRentingFee() + ", memory " + fee);
+            }
+        } finally {
+            reloaded.shutdown();
+        }
+    }
+
+    private static Set<String> ids(List<RentalAgreement> agreements) {
+        Set<String> ids = new HashSet<>();
+        for (RentalAgreement agreement : agreements) {
+            ids.add(agreement.getId());
+        }
+        return ids;
+    }
+
+    private static boolean containsSame(List<RentalAgreement> agreements, RentalAgreement agreement) {
+        for (RentalAgreement candidate : agreements) {
+            if (candidate == agreement) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void expect(boolean condition, String message) {
+        if (!condition) {
+            errors.add(message);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.rentalsystem.benchmark;
+
+import com.rentalsystem.manager.*;
+import com.rentalsystem.model.*;
+import com.rentalsystem.util.FileHandler;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Manager reads and writes from several threads at once. Run with {@code -t 1}, {@code -t 2}, ... to see
+ * how reads scale with cores; the {@code mixed} group runs three readers against one writer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentAccessBenchmark {
+    @Param({"100000"})
+    public int rows;
+
+    private Path directory;
+    private FileHandler fileHandler;
+    private TenantManager tenantManager;
+    private RentalManager rentalManager;
+    private SyntheticDataset data;
+
+    @Setup
+    public void setUp() throws IOException {
+        data = SyntheticDataset.generate(rows, 42);
+        directory = Files.createTempDirectory("rental-bench");
+        fileHandler = new FileHandler(directory.toString(), FileHandler.PersistenceMode.JOURNAL,
+                FileHandler.StorageFormat.CSV);
+        ReferenceIndex references = new ReferenceIndex();
+        tenantManager = new TenantManagerImpl(fileHandler, references, data.tenants);
+        new HostManagerImpl(fileHandler, references, data.hosts);
+        new PropertyManagerImpl(fileHandler, references, data.properties);
+        rentalManager = new RentalManagerImpl(fileHandler, references, data.agreements, data.payments);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        fileHandler.shutdown();
+        SyntheticDataset.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public Tenant getTenant() {
+        return tenantManager.getTenant(SyntheticDataset.tenantId(ThreadLocalRandom.current().nextInt(data.tenants.size())));
+    }
+
+    @Benchmark
+    public List<RentalAgreement> getAllRentalAgreements() {
+        return rentalManager.getAllRentalAgreements();
+    }
+
+    @Benchmark
+    public List<Payment> getPaymentsForRentalAgreement() {
+        return rentalManager.getPaymentsForRentalAgreement(randomAgreementId());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public RentalAgreement mixedRead() {
+        return rentalManager.getRentalAgreement(randomAgreementId());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public boolean mixedWrite() {
+        RentalAgreement current = rentalManager.getRentalAgreement(randomAgreementId());
+        return rentalManager.updateRentalAgreement(new RentalAgreement(current.getId(), current.getMainTenant(),
+                current.getProperty(), current.getPeriod(), current.getContractDate(), current.getRentingFee(),
+                current.getStatus()));
+    }
+
+    private String randomAgreementId() {
+        return SyntheticDataset.agreementId(ThreadLocalRandom.current().nextInt(data.agreements.size()));
+    }
+}
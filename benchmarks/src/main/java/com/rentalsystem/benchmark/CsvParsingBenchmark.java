@@ -0,0 +1,113 @@
+package com.rentalsystem.benchmark;
+
+import com.rentalsystem.model.*;
+import com.rentalsystem.util.CsvTokenizer;
+import com.rentalsystem.util.DateUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the CsvTokenizer load path with the String.split path FileHandler used before it,
+ * over the same in-memory property and payment rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvParsingBenchmark {
+    private static final Property.Status[] PROPERTY_STATUSES = Property.Status.values();
+
+    @Param({"100000"})
+    public int rows;
+
+    private String properties;
+    private String payments;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder propertyRows = new StringBuilder();
+        StringBuilder paymentRows = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            if (i % 2 == 0) {
+                propertyRows.append(String.format("R%06d,%d Main St,%.2f,%s,H%03d,%d,%b,%b%n", i, i,
+                        1000 + random.nextInt(4000) + 0.5, PROPERTY_STATUSES[i % 3], i % 500,
+                        1 + random.nextInt(5), random.nextBoolean(), random.nextBoolean()));
+            } else {
+                propertyRows.append(String.format("C%06d,%d Market Ave,%.2f,%s,H%03d,Retail,%d,%.2f%n", i, i,
+                        2000 + random.nextInt(8000) + 0.25, PROPERTY_STATUSES[i % 3], i % 500,
+                        random.nextInt(50), 500 + random.nextInt(5000) + 0.75));
+            }
+            paymentRows.append(String.format("P%07d,%.2f,2023-%02d-%02d,Bank Transfer,RA%06d%n", i,
+                    500 + random.nextInt(5000) + 0.99, 1 + i % 12, 1 + i % 28, i % 50000));
+        }
+        properties = propertyRows.toString();
+        payments = paymentRows.toString();
+    }
+
+    @Benchmark
+    public void propertiesSplit(Blackhole blackhole) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new StringReader(properties))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",");
+                if (parts[0].startsWith("R")) {
+                    blackhole.consume(new ResidentialProperty(parts[0], parts[1], Double.parseDouble(parts[2]),
+                            Property.Status.valueOf(parts[3]), parts[4], Integer.parseInt(parts[5]),
+                            Boolean.parseBoolean(parts[6]), Boolean.parseBoolean(parts[7])));
+                } else {
+                    blackhole.consume(new CommercialProperty(parts[0], parts[1], Double.parseDouble(parts[2]),
+                            Property.Status.valueOf(parts[3]), parts[4], parts[5],
+                            Integer.parseInt(parts[6]), Double.parseDouble(parts[7])));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void propertiesTokenizer(Blackhole blackhole) throws IOException {
+        try (CsvTokenizer csv = new CsvTokenizer(new StringReader(properties))) {
+            while (csv.next()) {
+                if (csv.startsWith(0, 'R')) {
+                    blackhole.consume(new ResidentialProperty(csv.getString(0), csv.getString(1), csv.getDouble(2),
+                            csv.getEnum(3, PROPERTY_STATUSES), csv.getString(4), csv.getInt(5),
+                            csv.getBoolean(6), csv.getBoolean(7)));
+                } else {
+                    blackhole.consume(new CommercialProperty(csv.getString(0), csv.getString(1), csv.getDouble(2),
+                            csv.getEnum(3, PROPERTY_STATUSES), csv.getString(4), csv.getString(5),
+                            csv.getInt(6), csv.getDouble(7)));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void paymentsSplit(Blackhole blackhole) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new StringReader(payments))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",");
+                blackhole.consume(new Payment(parts[0], Double.parseDouble(parts[1]),
+                        DateUtil.parseDate(parts[2]), parts[3], parts[4]));
+            }
+        }
+    }
+
+    @Benchmark
+    public void paymentsTokenizer(Blackhole blackhole) throws IOException {
+        try (CsvTokenizer csv = new CsvTokenizer(new StringReader(payments))) {
+            while (csv.next()) {
+                blackhole.consume(new Payment(csv.getString(0), csv.getDouble(1),
+                        csv.getDate(2), csv.getString(3), csv.getString(4)));
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.rentalsystem.benchmark;
+
+import com.rentalsystem.manager.*;
+import com.rentalsystem.model.*;
+import com.rentalsystem.util.FileHandler;
+import com.rentalsystem.util.Logger;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dashboard figures read from the running totals, next to the same figures computed by scanning the
+ * managers as the screens used to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DashboardBenchmark {
+    @Param({"1000000"})
+    public int rows;
+
+    private Path directory;
+    private FileHandler fileHandler;
+    private PropertyManager propertyManager;
+    private RentalManager rentalManager;
+    private DashboardAggregates aggregates;
+
+    @Setup
+    public void setUp() throws IOException {
+        Logger.setLevel(Logger.Level.WARN);
+        SyntheticDataset data = SyntheticDataset.generate(rows, 42);
+        directory = Files.createTempDirectory("rental-bench");
+        fileHandler = new FileHandler(directory.toString(), FileHandler.PersistenceMode.SNAPSHOT,
+                FileHandler.StorageFormat.CSV);
+        ReferenceIndex references = new ReferenceIndex();
+        new TenantManagerImpl(fileHandler, references, data.tenants);
+        new HostManagerImpl(fileHandler, references, data.hosts);
+        propertyManager = new PropertyManagerImpl(fileHandler, references, data.properties);
+        rentalManager = new RentalManagerImpl(fileHandler, references, data.agreements, data.payments);
+        aggregates = references.getAggregates();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        fileHandler.shutdown();
+        SyntheticDataset.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public int countAvailableProperties() {
+        return aggregates.countProperties(Property.Status.AVAILABLE);
+    }
+
+    @Benchmark
+    public int scanAvailableProperties() {
+        int count = 0;
+        for (Property property : propertyManager.getAllProperties()) {
+            if (property.getStatus() == Property.Status.AVAILABLE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public Map<String, DashboardAggregates.Total> paymentsByMethod() {
+        return aggregates.getPaymentsByMethod();
+    }
+
+    @Benchmark
+    public Map<String, Double> scanPaymentsByMethod() {
+        Map<String, Double> totals = new HashMap<>();
+        for (Payment payment : rentalManager.getAllPayments()) {
+            totals.merge(payment.getPaymentMethod(), payment.getAmount(), Double::sum);
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,71 @@
+package com.rentalsystem.benchmark;
+
+import com.rentalsystem.manager.*;
+import com.rentalsystem.model.RentalAgreement;
+import com.rentalsystem.util.FileHandler;
+import com.rentalsystem.util.LoadedData;
+import com.rentalsystem.util.Logger;
+import com.rentalsystem.util.StartupLoader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time the editing thread spends on one agreement update, with changes queued for the autosave thread
+ * ({@code window=200}) and written on the calling thread ({@code window=-1}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EditLatencyBenchmark {
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"JOURNAL", "SNAPSHOT"})
+    public FileHandler.PersistenceMode mode;
+
+    @Param({"-1", "200"})
+    public long window;
+
+    private Path directory;
+    private FileHandler fileHandler;
+    private RentalManager rentalManager;
+    private int agreementCount;
+
+    @Setup
+    public void setUp() throws IOException {
+        Logger.setLevel(Logger.Level.WARN);
+        directory = SyntheticDataset.generate(rows, 42).writeTo(Files.createTempDirectory("rental-bench"));
+        fileHandler = new FileHandler(directory.toString(), mode, FileHandler.StorageFormat.CSV, 64, 1000L, 10000,
+                window, 10000);
+        LoadedData data = new StartupLoader(fileHandler).load();
+        ReferenceIndex references = new ReferenceIndex();
+        new TenantManagerImpl(fileHandler, references, data.getTenants());
+        new HostManagerImpl(fileHandler, references, data.getHosts());
+        new PropertyManagerImpl(fileHandler, references, data.getProperties());
+        rentalManager = new RentalManagerImpl(fileHandler, references, data.getRentalAgreements(), data.getPayments());
+        agreementCount = data.getRentalAgreements().size();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        fileHandler.shutdown();
+        SyntheticDataset.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public boolean updateRentalAgreement() {
+        String id = SyntheticDataset.agreementId(ThreadLocalRandom.current().nextInt(agreementCount));
+        RentalAgreement current = rentalManager.getRentalAgreement(id);
+        return rentalManager.updateRentalAgreement(new RentalAgreement(current.getId(), current.getMainTenant(),
+                current.getProperty(), current.getPeriod(), current.getContractDate(), current.getRentingFee(),
+                current.getStatus()));
+    }
+}
@@ -0,0 +1,116 @@
+package com.rentalsystem.benchmark;
+
+import com.rentalsystem.manager.*;
+import com.rentalsystem.model.*;
+import com.rentalsystem.util.FileHandler;
+import com.rentalsystem.util.Logger;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Heap footprint of a loaded dataset: loads a synthetic dataset from its files into a FileHandler and a
+ * set of managers, as the application does at startup, then reports the heap still in use once the
+ * load's garbage is collected, the bytes allocated while loading and the collections the load caused.
+ * The load runs on one thread so that its allocations can be counted; the figures per payment cover
+ * every record, as the other entity counts grow with the payments.
+ *
+ * <pre>java -Xmx3g -cp benchmarks/target/benchmarks.jar com.rentalsystem.benchmark.HeapFootprint [rows] [CSV|BINARY]</pre>
+ */
+public final class HeapFootprint {
+    private HeapFootprint() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        FileHandler.StorageFormat format = args.length > 1 ? FileHandler.StorageFormat.valueOf(args[1])
+                : FileHandler.StorageFormat.CSV;
+        Logger.setLevel(Logger.Level.WARN);
+        Path directory = SyntheticDataset.generate(rows, 42).writeTo(Files.createTempDirectory("rental-heap"));
+        try {
+            if (format == FileHandler.StorageFormat.BINARY) {
+                // Converts the text files to the snapshot the measured load reads
+                FileHandler converter = new FileHandler(directory.toString(), FileHandler.PersistenceMode.SNAPSHOT,
+                        format);
+                converter.loadAllData();
+                converter.saveAllData();
+                converter.shutdown();
+            }
+            long baseline = usedHeap();
+            com.sun.management.ThreadMXBean threads =
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+            long[] gcBefore = collections();
+
+            FileHandler fileHandler = new FileHandler(directory.toString(), FileHandler.PersistenceMode.SNAPSHOT,
+                    format);
+            ReferenceIndex references = new ReferenceIndex();
+            List<Tenant> tenants = fileHandler.loadTenants();
+            List<Host> hosts = fileHandler.loadHosts();
+            List<Property> properties = fileHandler.loadProperties();
+            List<RentalAgreement> agreements = fileHandler.loadRentalAgreements();
+            List<Payment> payments = fileHandler.loadPayments();
+            TenantManager tenantManager = new TenantManagerImpl(fileHandler, references, tenants);
+            HostManager hostManager = new HostManagerImpl(fileHandler, references, hosts);
+            PropertyManager propertyManager = new PropertyManagerImpl(fileHandler, references, properties);
+            RentalManager rentalManager = new RentalManagerImpl(fileHandler, references, agreements, payments);
+
+            long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            long[] gcAfter = collections();
+            tenants = null;
+            hosts = null;
+            properties = null;
+            agreements = null;
+            payments = null;
+            long retained = usedHeap() - baseline;
+            int count = rentalManager.countPayments();
+
+            System.out.printf("%d payments, %d agreements, %d properties, %d tenants, %d hosts (%s)%n", count,
+                    rentalManager.countRentalAgreements(), propertyManager.getAllProperties().size(),
+                    tenantManager.getAllTenants().size(), hostManager.getAllHosts().size(), format);
+            System.out.printf("Retained heap:           %6.1f MB  %6d B per payment%n", retained / 1e6,
+                    retained / Math.max(count, 1));
+            System.out.printf("Allocated while loading: %6.1f MB  %6d B per payment%n", allocated / 1e6,
+                    allocated / Math.max(count, 1));
+            System.out.printf("Collections during load: %d (%d ms)%n", gcAfter[0] - gcBefore[0],
+                    gcAfter[1] - gcBefore[1]);
+            Reference.reachabilityFence(tenantManager);
+            Reference.reachabilityFence(hostManager);
+            Reference.reachabilityFence(propertyManager);
+            Reference.reachabilityFence(rentalManager);
+            fileHandler.shutdown();
+        } finally {
+            SyntheticDataset.deleteRecursively(directory);
+        }
+    }
+
+    // Heap in use after collecting until it stops shrinking
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            Thread.sleep(100);
+            long now = runtime.totalMemory() - runtime.freeMemory();
+            if (now >= used) {
+                return used;
+            }
+            used = now;
+        }
+        return used;
+    }
+
+    // Total collections and milliseconds spent collecting, over every collector
+    private static long[] collections() {
+        long[] totals = new long[2];
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            totals[0] += Math.max(collector.getCollectionCount(), 0);
+            totals[1] += Math.max(collector.getCollectionTime(), 0);
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,263 @@
+package com.rentalsystem.benchmark;
+
+import com.rentalsystem.manager.*;
+import com.rentalsystem.server.RentalServer;
+import com.rentalsystem.util.FileHandler;
+import com.rentalsystem.util.LoadedData;
+import com.rentalsystem.util.StartupLoader;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load generator for the HTTP service. Each client thread sends one request at a time from
+ * a read-heavy mix (single records, related lists, list pages and a few payment inserts) and records
+ * its latency; requests sent during the warm-up are not counted. By default the server runs in this JVM
+ * over a synthetic dataset; {@code --url} points the clients at a running server instead.
+ * Exits with status 1 when a request fails or a {@code --target-rps} / {@code --target-p99-ms} is missed.
+ *
+ * <pre>java -cp benchmarks/target/benchmarks.jar com.rentalsystem.benchmark.HttpLoadTest
+ *     [--url http://host:port] [--clients N] [--seconds N] [--warmup N] [--rows N] [--server-threads N]
+ *     [--target-rps N] [--target-p99-ms N]</pre>
+ */
+public final class HttpLoadTest {
+    private static final Pattern ID = Pattern.compile("\\{\"id\":\"([^\"]*)\"");
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<>();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong nextPaymentId = new AtomicLong();
+    private final String baseUrl;
+    private String[] tenantIds;
+    private String[] agreementIds;
+    private int agreementCount;
+
+    private HttpLoadTest(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        int clients = 16;
+        int seconds = 20;
+        int warmup = 5;
+        int rows = 100_000;
+        int serverThreads = Runtime.getRuntime().availableProcessors() * 2;
+        double targetRps = 0;
+        double targetP99Millis = 0;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--url":
+                    url = args[++i];
+                    break;
+                case "--clients":
+                    clients = Integer.parseInt(args[++i]);
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(args[++i]);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                case "--rows":
+                    rows = Integer.parseInt(args[++i]);
+                    break;
+                case "--server-threads":
+                    serverThreads = Integer.parseInt(args[++i]);
+                    break;
+                case "--target-rps":
+                    targetRps = Double.parseDouble(args[++i]);
+                    break;
+                case "--target-p99-ms":
+                    targetP99Millis = Double.parseDouble(args[++i]);
+                    break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        RentalServer server = null;
+        FileHandler fileHandler = null;
+        Path directory = null;
+        if (url == null) {
+            directory = Files.createTempDirectory("rental-http");
+            SyntheticDataset.generate(rows, 42).writeTo(directory);
+            fileHandler = new FileHandler(directory.toString(), FileHandler.PersistenceMode.JOURNAL,
+                    FileHandler.StorageFormat.CSV);
+            LoadedData data = new StartupLoader(fileHandler).load();
+            ReferenceIndex references = new ReferenceIndex();
+            server = new RentalServer(new TenantManagerImpl(fileHandler, references, data.getTenants()),
+                    new HostManagerImpl(fileHandler, references, data.getHosts()),
+                    new PropertyManagerImpl(fileHandler, references, data.getProperties()),
+                    new RentalManagerImpl(fileHandler, references, data.getRentalAgreements(), data.getPayments()),
+                    0, serverThreads, 1024);
+            server.start();
+            url = "http://localhost:" + server.getPort();
+        }
+        boolean passed;
+        try {
+            passed = new HttpLoadTest(url).run(clients, seconds, warmup, targetRps, targetP99Millis);
+        } finally {
+            if (server != null) {
+                server.stop(1);
+                fileHandler.shutdown();
+                SyntheticDataset.deleteRecursively(directory);
+            }
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private boolean run(int clients, int seconds, int warmup, double targetRps, double targetP99Millis)
+            throws Exception {
+        tenantIds = fetchIds("/api/tenants");
+        agreementIds = fetchIds("/api/rental-agreements");
+        agreementCount = agreementIds.length;
+        if (tenantIds.length == 0 || agreementCount == 0) {
+            System.out.println("The server has no tenants or rental agreements to query");
+            return false;
+        }
+        System.out.println("Running " + clients + " clients for " + seconds + " s (after " + warmup
+                + " s warm-up) against " + baseUrl + " with " + agreementCount + " agreements...");
+
+        long measureFrom = System.nanoTime() + warmup * 1_000_000_000L;
+        long deadline = measureFrom + seconds * 1_000_000_000L;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        List<long[]> recorded = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            int clientNumber = i;
+            long[][] latencies = {new long[1 << 14]};
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                int count = 0;
+                while (true) {
+                    long started = System.nanoTime();
+                    if (started >= deadline) {
+                        break;
+                    }
+                    send(clientNumber);
+                    if (started >= measureFrom) {
+                        if (count == latencies[0].length) {
+                            latencies[0] = Arrays.copyOf(latencies[0], count * 2);
+                        }
+                        latencies[0][count++] = System.nanoTime() - started;
+                    }
+                }
+                synchronized (recorded) {
+                    recorded.add(Arrays.copyOf(latencies[0], count));
+                }
+            }, "load-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        long[] all = recorded.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        double rps = all.length / (double) seconds;
+        double p99Millis = percentile(all, 99.0);
+        System.out.printf("Requests: %d (%d failed), throughput %.0f req/s%n", all.length, failures.get(), rps);
+        System.out.printf("Latency ms: p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+                percentile(all, 50.0), percentile(all, 90.0), p99Millis, percentile(all, 99.9),
+                all.length == 0 ? 0.0 : all[all.length - 1] / 1e6);
+        errors.stream().limit(10).forEach(error -> System.out.println("  " + error));
+
+        boolean passed = failures.get() == 0 && all.length > 0;
+        if (targetRps > 0 && rps < targetRps) {
+            System.out.printf("FAILED: throughput %.0f req/s is below the %.0f req/s target%n", rps, targetRps);
+            passed = false;
+        }
+        if (targetP99Millis > 0 && p99Millis > targetP99Millis) {
+            System.out.printf("FAILED: p99 %.2f ms is above the %.2f ms target%n", p99Millis, targetP99Millis);
+            passed = false;
+        }
+        System.out.println(passed ? "PASSED" : "FAILED");
+        return passed;
+    }
+
+    // One request from the mix: 45% tenant, 20% agreement, 15% agreement payments, 15% list page, 5% payment insert
+    private void send(int clientNumber) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int pick = random.nextInt(100);
+        String agreementId = agreementIds[random.nextInt(agreementCount)];
+        HttpRequest request;
+        if (pick < 45) {
+            request = get("/api/tenants/" + tenantIds[random.nextInt(tenantIds.length)]);
+        } else if (pick < 65) {
+            request = get("/api/rental-agreements/" + agreementId);
+        } else if (pick < 80) {
+            request = get("/api/rental-agreements/" + agreementId + "/payments");
+        } else if (pick < 95) {
+            request = get("/api/rental-agreements?offset=" + random.nextInt(agreementCount) + "&limit=50");
+        } else {
+            String body = "{\"id\":\"LOAD-" + clientNumber + "-" + nextPaymentId.incrementAndGet()
+                    + "\",\"amount\":100,\"paymentDate\":\"2024-01-01\",\"paymentMethod\":\"Cash\","
+                    + "\"rentalAgreementId\":\"" + agreementId + "\"}";
+            request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/payments")).timeout(REQUEST_TIMEOUT)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        }
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() >= 300) {
+                fail(request.method() + " " + request.uri() + " -> " + response.statusCode() + " " + response.body());
+            }
+        } catch (Exception e) {
+            fail(request.method() + " " + request.uri() + " -> " + e);
+        }
+    }
+
+    private String[] fetchIds(String path) throws Exception {
+        HttpResponse<String> response = client.send(get(path), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET " + path + " returned " + response.statusCode());
+        }
+        List<String> ids = new ArrayList<>();
+        Matcher matcher = ID.matcher(response.body());
+        while (matcher.find()) {
+            ids.add(matcher.group(1));
+        }
+        return ids.toArray(new String[0]);
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    private void fail(String message) {
+        failures.incrementAndGet();
+        if (errors.size() < 10) {
+            errors.add(message);
+        }
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+}
@@ -0,0 +1,104 @@
+package com.rentalsystem.benchmark;
+
+import com.rentalsystem.manager.*;
+import com.rentalsystem.model.*;
+import com.rentalsystem.util.FileHandler;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-record lookups through each manager, using IDs drawn uniformly from the dataset.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookupBenchmark {
+    private static final int KEYS = 4096;
+
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    private Path directory;
+    private FileHandler fileHandler;
+    private TenantManager tenantManager;
+    private HostManager hostManager;
+    private PropertyManager propertyManager;
+    private RentalManager rentalManager;
+
+    private final String[] tenantIds = new String[KEYS];
+    private final String[] hostIds = new String[KEYS];
+    private final String[] propertyIds = new String[KEYS];
+    private final String[] agreementIds = new String[KEYS];
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        SyntheticDataset data = SyntheticDataset.generate(rows, 42);
+        directory = Files.createTempDirectory("rental-bench");
+        fileHandler = new FileHandler(directory.toString(), FileHandler.PersistenceMode.SNAPSHOT,
+                FileHandler.StorageFormat.CSV);
+        ReferenceIndex references = new ReferenceIndex();
+        tenantManager = new TenantManagerImpl(fileHandler, references, data.tenants);
+        hostManager = new HostManagerImpl(fileHandler, references, data.hosts);
+        propertyManager = new PropertyManagerImpl(fileHandler, references, data.properties);
+        rentalManager = new RentalManagerImpl(fileHandler, references, data.agreements, data.payments);
+
+        Random random = new Random(7);
+        for (int i = 0; i < KEYS; i++) {
+            tenantIds[i] = data.tenants.get(random.nextInt(data.tenants.size())).getId();
+            hostIds[i] = data.hosts.get(random.nextInt(data.hosts.size())).getId();
+            propertyIds[i] = data.properties.get(random.nextInt(data.properties.size())).getId();
+            agreementIds[i] = data.agreements.get(random.nextInt(data.agreements.size())).getId();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        fileHandler.shutdown();
+        SyntheticDataset.deleteRecursively(directory);
+    }
+
+    private int nextKey() {
+        next = (next + 1) & (KEYS - 1);
+        return next;
+    }
+
+    @Benchmark
+    public Tenant getTenant() {
+        return tenantManager.getTenant(tenantIds[nextKey()]);
+    }
+
+    @Benchmark
+    public Host getHost() {
+        return hostManager.getHost(hostIds[nextKey()]);
+    }
+
+    @Benchmark
+    public Property getProperty() {
+        return propertyManager.getProperty(propertyIds[nextKey()]);
+    }
+
+    @Benchmark
+    public RentalAgreement getRentalAgreement() {
+        return rentalManager.getRentalAgreement(agreementIds[nextKey()]);
+    }
+
+    @Benchmark
+    public List<Payment> getPaymentsForRentalAgreement() {
+        return rentalManager.getPaymentsForRentalAgreement(agreementIds[nextKey()]);
+    }
+
+    @Benchmark
+    public List<RentalAgreement> getRentalAgreementsForHost() {
+        return rentalManager.getRentalAgreementsForHost(hostIds[nextKey()]);
+    }
+}
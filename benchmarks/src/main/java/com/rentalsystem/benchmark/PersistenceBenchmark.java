@@ -0,0 +1,72 @@
+package com.rentalsystem.benchmark;
+
+import com.rentalsystem.util.FileHandler;
+import com.rentalsystem.util.LoadedData;
+import com.rentalsystem.util.Logger;
+import com.rentalsystem.util.StartupLoader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full load and save of a synthetic dataset in each storage format, and the exit save of a session that
+ * changed nothing. Sizes up to 10M payments can be selected with e.g. {@code -p rows=10000000 -jvmArgs -Xmx16g}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class PersistenceBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"CSV", "BINARY"})
+    public FileHandler.StorageFormat format;
+
+    private Path directory;
+    private FileHandler fileHandler;
+
+    @Setup
+    public void setUp() throws IOException {
+        Logger.setLevel(Logger.Level.WARN);
+        directory = SyntheticDataset.generate(rows, 42).writeTo(Files.createTempDirectory("rental-bench"));
+        fileHandler = new FileHandler(directory.toString(), FileHandler.PersistenceMode.SNAPSHOT, format);
+        fileHandler.loadAllData();
+        // Converts the text files to the binary snapshot, and leaves the state loaded for the saves
+        fileHandler.saveAllData();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        fileHandler.shutdown();
+        SyntheticDataset.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public Map<String, List<?>> loadAllData() {
+        return fileHandler.loadAllData();
+    }
+
+    @Benchmark
+    public LoadedData startupLoader() {
+        return new StartupLoader(fileHandler).load();
+    }
+
+    @Benchmark
+    public void rewriteAllData() {
+        fileHandler.rewriteAllData();
+    }
+
+    // Exit save of a session that changed nothing
+    @Benchmark
+    public int saveAllData() {
+        return fileHandler.saveAllData();
+    }
+}
@@ -0,0 +1,88 @@
+package com.rentalsystem.benchmark;
+
+import com.rentalsystem.manager.*;
+import com.rentalsystem.model.Payment;
+import com.rentalsystem.model.RentalAgreement;
+import com.rentalsystem.util.FileHandler;
+import com.rentalsystem.util.Logger;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One page of results from the sorted indexes: a contract-date range, the highest fees, a week of
+ * payments, and a page deep into the payments reached by cursor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+    private static final int PAGE = 50;
+
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    private Path directory;
+    private FileHandler fileHandler;
+    private RentalManager rentalManager;
+    private Date from;
+    private Date to;
+    private String deepCursor;
+
+    @Setup
+    public void setUp() throws IOException {
+        Logger.setLevel(Logger.Level.WARN);
+        SyntheticDataset data = SyntheticDataset.generate(rows, 42);
+        directory = Files.createTempDirectory("rental-bench");
+        fileHandler = new FileHandler(directory.toString(), FileHandler.PersistenceMode.SNAPSHOT,
+                FileHandler.StorageFormat.CSV);
+        rentalManager = new RentalManagerImpl(fileHandler, new ReferenceIndex(), data.agreements, data.payments);
+        from = date(2020, Calendar.MARCH, 1);
+        to = date(2020, Calendar.MARCH, 7);
+        Page<Payment> page = rentalManager.findPayments(new PaymentQuery().limit(rows / 2));
+        deepCursor = page.getNextCursor();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        fileHandler.shutdown();
+        SyntheticDataset.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public Page<RentalAgreement> contractDateRange() {
+        return rentalManager.findRentalAgreements(new AgreementQuery().contractDateBetween(from, to)
+                .orderBy(AgreementQuery.Order.CONTRACT_DATE, false).limit(PAGE));
+    }
+
+    @Benchmark
+    public Page<RentalAgreement> topFees() {
+        return rentalManager.findRentalAgreements(new AgreementQuery()
+                .orderBy(AgreementQuery.Order.RENTING_FEE, true).limit(10));
+    }
+
+    @Benchmark
+    public Page<Payment> paymentsInWeek() {
+        return rentalManager.findPayments(new PaymentQuery().paidBetween(from, to).limit(PAGE));
+    }
+
+    @Benchmark
+    public Page<Payment> deepPaymentPage() {
+        return rentalManager.findPayments(new PaymentQuery().limit(PAGE).after(deepCursor));
+    }
+
+    private static Date date(int year, int month, int day) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, day);
+        return calendar.getTime();
+    }
+}
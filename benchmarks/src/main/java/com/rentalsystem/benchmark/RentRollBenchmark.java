@@ -0,0 +1,59 @@
+package com.rentalsystem.benchmark;
+
+import com.rentalsystem.manager.*;
+import com.rentalsystem.util.FileHandler;
+import com.rentalsystem.util.Logger;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One full rent-roll pass: lifetime and twelve-month totals over every agreement and payment. The
+ * 10,000,000-payment dataset needs a larger heap, e.g. {@code -jvmArgs -Xmx4g}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RentRollBenchmark {
+    private static final LocalDate AS_OF = LocalDate.of(2025, 1, 1);
+
+    @Param({"1000000"})
+    public int rows;
+
+    private Path directory;
+    private FileHandler fileHandler;
+    private RentRollAnalyzer analyzer;
+
+    @Setup
+    public void setUp() throws IOException {
+        Logger.setLevel(Logger.Level.WARN);
+        SyntheticDataset data = SyntheticDataset.generate(rows, 42);
+        directory = Files.createTempDirectory("rental-bench");
+        fileHandler = new FileHandler(directory.toString(), FileHandler.PersistenceMode.SNAPSHOT,
+                FileHandler.StorageFormat.CSV);
+        ReferenceIndex references = new ReferenceIndex();
+        new TenantManagerImpl(fileHandler, references, data.tenants);
+        new HostManagerImpl(fileHandler, references, data.hosts);
+        PropertyManager propertyManager = new PropertyManagerImpl(fileHandler, references, data.properties);
+        RentalManager rentalManager = new RentalManagerImpl(fileHandler, references, data.agreements, data.payments);
+        analyzer = new RentRollAnalyzer(propertyManager, rentalManager);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        fileHandler.shutdown();
+        SyntheticDataset.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public RentRollAnalyzer.Report analyze() {
+        return analyzer.analyze(AS_OF, 12);
+    }
+}
@@ -0,0 +1,118 @@
+package com.rentalsystem.benchmark;
+
+import com.rentalsystem.manager.*;
+import com.rentalsystem.model.*;
+import com.rentalsystem.util.FileHandler;
+import com.rentalsystem.util.Logger;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Text search over tenant names and contact details and over property addresses, and ID prefix
+ * completion, as the console runs them on every keystroke at an ID prompt, next to the same tenant
+ * search done by scanning.
+ * The records are generated here, in the layout of {@link SyntheticDataset}, so their count can
+ * reach millions without generating twenty times as many payments. A million of each needs a larger
+ * heap, e.g. {@code -jvmArgs -Xmx3g}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+    private static final int SUGGESTIONS = 10;
+    private static final int QUERIES = 1024;
+
+    @Param({"10000", "1000000"})
+    public int records;
+
+    private Path directory;
+    private FileHandler fileHandler;
+    private TenantManager tenantManager;
+    private PropertyManager propertyManager;
+    private final String[] numbers = new String[QUERIES];
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        Logger.setLevel(Logger.Level.WARN);
+        List<Tenant> tenants = new ArrayList<>(records);
+        List<Property> properties = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            tenants.add(new Tenant(SyntheticDataset.tenantId(i), "Tenant " + i, new Date(0),
+                    "tenant" + i + "@example.com,555" + (1000000 + i)));
+            properties.add(new ResidentialProperty(SyntheticDataset.propertyId(i), i + " Main St", 1000,
+                    Property.Status.AVAILABLE, SyntheticDataset.hostId(0), 2, false, false));
+        }
+        directory = Files.createTempDirectory("rental-bench");
+        fileHandler = new FileHandler(directory.toString(), FileHandler.PersistenceMode.SNAPSHOT,
+                FileHandler.StorageFormat.CSV);
+        ReferenceIndex references = new ReferenceIndex();
+        tenantManager = new TenantManagerImpl(fileHandler, references, tenants);
+        propertyManager = new PropertyManagerImpl(fileHandler, references, properties);
+        // The first search builds each index
+        tenantManager.searchTenants("tenant", 1);
+        propertyManager.searchProperties("main", 1);
+
+        Random random = new Random(7);
+        for (int i = 0; i < QUERIES; i++) {
+            numbers[i] = String.valueOf(random.nextInt(records));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        fileHandler.shutdown();
+        SyntheticDataset.deleteRecursively(directory);
+    }
+
+    private String nextNumber() {
+        next = (next + 1) & (QUERIES - 1);
+        return numbers[next];
+    }
+
+    // Two words: "tenant" matches every record, so the number drives
+    @Benchmark
+    public List<Tenant> tenantByName() {
+        return tenantManager.searchTenants("Tenant " + nextNumber(), SUGGESTIONS);
+    }
+
+    @Benchmark
+    public List<Tenant> tenantByEmailPrefix() {
+        return tenantManager.searchTenants("tenant" + nextNumber(), SUGGESTIONS);
+    }
+
+    // "ain" occurs inside "main", found through the trigram index
+    @Benchmark
+    public List<Property> propertyByStreetInfix() {
+        return propertyManager.searchProperties(nextNumber() + " ain", SUGGESTIONS);
+    }
+
+    // A partly typed ID, as completed at a "Tenant ID" prompt
+    @Benchmark
+    public List<String> tenantIdPrefix() {
+        String id = SyntheticDataset.tenantId(Integer.parseInt(nextNumber()));
+        return tenantManager.findTenantIds(id.substring(0, id.length() - 2), SUGGESTIONS);
+    }
+
+    @Benchmark
+    public List<Tenant> scanTenantsByName() {
+        String number = nextNumber();
+        return tenantManager.getAllTenants().stream()
+                .filter(tenant -> tenant.getFullName().toLowerCase(Locale.ROOT).contains(number))
+                .limit(SUGGESTIONS)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,55 @@
+package com.rentalsystem.benchmark;
+
+import com.rentalsystem.manager.ReferenceIndex;
+import com.rentalsystem.manager.RentalManager;
+import com.rentalsystem.manager.RentalManagerImpl;
+import com.rentalsystem.model.RentalAgreement;
+import com.rentalsystem.util.FileHandler;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RentalManager#getSortedRentalAgreements} for each supported sort key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SortBenchmark {
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    @Param({"id", "date", "fee"})
+    public String sortBy;
+
+    private Path directory;
+    private FileHandler fileHandler;
+    private RentalManager rentalManager;
+
+    @Setup
+    public void setUp() throws IOException {
+        SyntheticDataset data = SyntheticDataset.generate(rows, 42);
+        directory = Files.createTempDirectory("rental-bench");
+        fileHandler = new FileHandler(directory.toString(), FileHandler.PersistenceMode.SNAPSHOT,
+                FileHandler.StorageFormat.CSV);
+        rentalManager = new RentalManagerImpl(fileHandler, new ReferenceIndex(), data.agreements, data.payments);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        fileHandler.shutdown();
+        SyntheticDataset.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public List<RentalAgreement> getSortedRentalAgreements() {
+        return rentalManager.getSortedRentalAgreements(sortBy);
+    }
+}
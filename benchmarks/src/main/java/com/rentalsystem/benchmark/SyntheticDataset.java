@@ -0,0 +1,134 @@
+package com.rentalsystem.benchmark;
+
+import com.rentalsystem.model.*;
+import com.rentalsystem.util.FileHandler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Deterministic in-memory dataset shared by the benchmark suites. The size is given as a payment count;
+ * the other entity types are scaled from it (one agreement per 10 payments, one tenant per 20, one
+ * property per 50 and one host per 200), and every reference points at an existing record.
+ */
+public final class SyntheticDataset {
+    private static final String[] PAYMENT_METHODS = {"Bank Transfer", "Credit Card", "Cash", "Direct Debit"};
+    private static final String[] BUSINESS_TYPES = {"Retail", "Office", "Warehouse", "Restaurant"};
+
+    final List<Tenant> tenants;
+    final List<Host> hosts;
+    final List<Property> properties;
+    final List<RentalAgreement> agreements;
+    final List<Payment> payments;
+
+    private SyntheticDataset(int paymentCount, long seed) {
+        Random random = new Random(seed);
+        int tenantCount = Math.max(10, paymentCount / 20);
+        int hostCount = Math.max(10, paymentCount / 200);
+        int propertyCount = Math.max(10, paymentCount / 50);
+        int agreementCount = Math.max(10, paymentCount / 10);
+
+        tenants = new ArrayList<>(tenantCount);
+        for (int i = 0; i < tenantCount; i++) {
+            tenants.add(new Tenant(tenantId(i), "Tenant " + i, date(random, 1950, 2005),
+                    "tenant" + i + "@example.com,555" + (1000000 + i)));
+        }
+        hosts = new ArrayList<>(hostCount);
+        for (int i = 0; i < hostCount; i++) {
+            hosts.add(new Host(hostId(i), "Host " + i, date(random, 1950, 1995),
+                    "host" + i + "@example.com,555" + (2000000 + i)));
+        }
+        Property.Status[] statuses = Property.Status.values();
+        properties = new ArrayList<>(propertyCount);
+        for (int i = 0; i < propertyCount; i++) {
+            Property.Status status = statuses[random.nextInt(statuses.length)];
+            String owner = hostId(random.nextInt(hostCount));
+            if (i % 2 == 0) {
+                properties.add(new ResidentialProperty(propertyId(i), i + " Main St", 1000 + random.nextInt(4000),
+                        status, owner, 1 + random.nextInt(5), random.nextBoolean(), random.nextBoolean()));
+            } else {
+                properties.add(new CommercialProperty(propertyId(i), i + " Market Ave", 2000 + random.nextInt(8000),
+                        status, owner, BUSINESS_TYPES[random.nextInt(BUSINESS_TYPES.length)],
+                        random.nextInt(50), 500 + random.nextInt(5000)));
+            }
+        }
+        RentalAgreement.Period[] periods = RentalAgreement.Period.values();
+        RentalAgreement.Status[] agreementStatuses = RentalAgreement.Status.values();
+        agreements = new ArrayList<>(agreementCount);
+        for (int i = 0; i < agreementCount; i++) {
+            Property property = properties.get(random.nextInt(propertyCount));
+            agreements.add(new RentalAgreement(agreementId(i), tenants.get(random.nextInt(tenantCount)), property,
+                    periods[random.nextInt(periods.length)], date(random, 2015, 2024), property.getPrice(),
+                    agreementStatuses[random.nextInt(agreementStatuses.length)]));
+        }
+        payments = new ArrayList<>(paymentCount);
+        for (int i = 0; i < paymentCount; i++) {
+            payments.add(new Payment(paymentId(i), 500 + random.nextInt(5000), date(random, 2015, 2024),
+                    PAYMENT_METHODS[random.nextInt(PAYMENT_METHODS.length)], agreementId(random.nextInt(agreementCount))));
+        }
+    }
+
+    static SyntheticDataset generate(int paymentCount, long seed) {
+        return new SyntheticDataset(paymentCount, seed);
+    }
+
+    // Writes the dataset in the text format FileHandler reads and returns the directory
+    Path writeTo(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        FileHandler fileHandler = new FileHandler(directory.toString(), FileHandler.PersistenceMode.SNAPSHOT,
+                FileHandler.StorageFormat.CSV);
+        fileHandler.saveTenants(tenants);
+        fileHandler.saveHosts(hosts);
+        fileHandler.saveProperties(properties);
+        fileHandler.saveRentalAgreements(agreements);
+        fileHandler.savePayments(payments);
+        fileHandler.shutdown();
+        return directory;
+    }
+
+    static String tenantId(int i) {
+        return String.format("T%07d", i);
+    }
+
+    static String hostId(int i) {
+        return String.format("H%06d", i);
+    }
+
+    static String propertyId(int i) {
+        return String.format("%s%07d", i % 2 == 0 ? "R" : "C", i);
+    }
+
+    static String agreementId(int i) {
+        return String.format("RA%08d", i);
+    }
+
+    static String paymentId(int i) {
+        return String.format("P%09d", i);
+    }
+
+    private static Date date(Random random, int fromYear, int toYear) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(fromYear + random.nextInt(toYear - fromYear + 1), random.nextInt(12), 1 + random.nextInt(28));
+        return calendar.getTime();
+    }
+
+    static void deleteRecursively(Path directory) throws IOException {
+        if (directory == null || !Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.rentalsystem.benchmark;
+
+import com.rentalsystem.model.RentalAgreement;
+import com.rentalsystem.util.AsciiTableGenerator;
+import com.rentalsystem.util.DateUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AsciiTableGenerator#generateTable} over the rows the "View All Rental Agreements" screen shows,
+ * one page of the same rows through {@link AsciiTableGenerator.TableWriter}, and a menu table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TableRenderingBenchmark {
+    private static final String[] HEADERS = {"ID", "Tenant", "Property", "Period", "Contract Date", "Renting Fee", "Status"};
+    private static final String[] MENU_OPTIONS = {
+            "1. Add Rental Agreement",
+            "2. Update Rental Agreement",
+            "3. Delete Rental Agreement",
+            "4. View Rental Agreement",
+            "5. View All Rental Agreements",
+            "6. Manage Payments",
+            "7. Return to Main Menu"
+    };
+    private static final int PAGE_SIZE = 40;
+
+    @Param({"100", "10000", "100000"})
+    public int rows;
+
+    private List<String[]> data;
+    private int[] widths;
+
+    @Setup
+    public void setUp() {
+        SyntheticDataset dataset = SyntheticDataset.generate(rows * 10, 42);
+        data = new ArrayList<>(rows);
+        for (RentalAgreement agreement : dataset.agreements.subList(0, rows)) {
+            data.add(new String[]{
+                    agreement.getId(),
+                    agreement.getMainTenant().getFullName(),
+                    agreement.getProperty().getAddress(),
+                    agreement.getPeriod().toString(),
+                    DateUtil.formatDate(agreement.getContractDate()),
+                    String.format("$%.2f", agreement.getRentingFee()),
+                    agreement.getStatus().toString()
+            });
+        }
+        widths = AsciiTableGenerator.sampleWidths(HEADERS, data.subList(0, Math.min(rows, 256)), 40);
+    }
+
+    @Benchmark
+    public String generateTable() {
+        return AsciiTableGenerator.generateTable(HEADERS, data);
+    }
+
+    @Benchmark
+    public String writePage() throws IOException {
+        StringWriter out = new StringWriter();
+        AsciiTableGenerator.TableWriter table = new AsciiTableGenerator.TableWriter(out, widths);
+        table.writeHeader(HEADERS);
+        for (String[] row : data.subList(0, Math.min(rows, PAGE_SIZE))) {
+            table.writeRow(row);
+        }
+        table.writeFooter();
+        return out.toString();
+    }
+
+    @Benchmark
+    public String generateMenuTable() {
+        return AsciiTableGenerator.generateMenuTable("MANAGE RENTAL AGREEMENTS", MENU_OPTIONS);
+    }
+}
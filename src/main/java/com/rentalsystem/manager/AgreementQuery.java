@@ -0,0 +1,114 @@
+package com.rentalsystem.manager;
+
+import com.rentalsystem.model.RentalAgreement;
+import com.rentalsystem.util.DateUtil;
+import java.util.Date;
+
+/**
+ * Conditions, order and page size for {@link RentalManager#findRentalAgreements}. Every condition is
+ * optional and they all have to hold; date and fee bounds are inclusive, and a null bound is open.
+ * A range on the column being ordered by is a seek into that column's sorted index, so it costs
+ * O(log n + k) for k results; other conditions are checked while walking. A tenant or property
+ * condition first narrows the search to that record's agreements.
+ */
+public final class AgreementQuery {
+    public enum Order {
+        ID, CONTRACT_DATE, RENTING_FEE
+    }
+
+    long fromDay = Long.MIN_VALUE;
+    long toDay = Long.MAX_VALUE;
+    double minFee = Double.NEGATIVE_INFINITY;
+    double maxFee = Double.POSITIVE_INFINITY;
+    RentalAgreement.Status status;
+    RentalAgreement.Period period;
+    String tenantId;
+    String propertyId;
+    Order order = Order.ID;
+    boolean descending;
+    int limit = Integer.MAX_VALUE;
+    String cursor;
+
+    public AgreementQuery contractDateBetween(Date from, Date to) {
+        this.fromDay = from == null ? Long.MIN_VALUE : DateUtil.toEpochDay(from);
+        this.toDay = to == null ? Long.MAX_VALUE : DateUtil.toEpochDay(to);
+        return this;
+    }
+
+    public AgreementQuery feeBetween(Double min, Double max) {
+        this.minFee = min == null ? Double.NEGATIVE_INFINITY : min;
+        this.maxFee = max == null ? Double.POSITIVE_INFINITY : max;
+        return this;
+    }
+
+    public AgreementQuery status(RentalAgreement.Status status) {
+        this.status = status;
+        return this;
+    }
+
+    public AgreementQuery period(RentalAgreement.Period period) {
+        this.period = period;
+        return this;
+    }
+
+    public AgreementQuery tenant(String tenantId) {
+        this.tenantId = tenantId;
+        return this;
+    }
+
+    public AgreementQuery property(String propertyId) {
+        this.propertyId = propertyId;
+        return this;
+    }
+
+    // Ties are broken by ID, in the same direction
+    public AgreementQuery orderBy(Order order, boolean descending) {
+        this.order = order;
+        this.descending = descending;
+        return this;
+    }
+
+    public AgreementQuery limit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    // Continues from the cursor of a previous page of the same query; null starts from the beginning
+    public AgreementQuery after(String cursor) {
+        this.cursor = cursor;
+        return this;
+    }
+
+    boolean hasDateRange() {
+        return fromDay != Long.MIN_VALUE || toDay != Long.MAX_VALUE;
+    }
+
+    boolean matches(RentalAgreement agreement) {
+        if (status != null && agreement.getStatus() != status) {
+            return false;
+        }
+        if (period != null && agreement.getPeriod() != period) {
+            return false;
+        }
+        if (tenantId != null && (agreement.getMainTenant() == null || !tenantId.equals(agreement.getMainTenant().getId()))) {
+            return false;
+        }
+        if (propertyId != null && (agreement.getProperty() == null || !propertyId.equals(agreement.getProperty().getId()))) {
+            return false;
+        }
+        if (agreement.getRentingFee() < minFee || agreement.getRentingFee() > maxFee) {
+            return false;
+        }
+        if (hasDateRange()) {
+            if (agreement.getContractDate() == null) {
+                return false;
+            }
+            long day = DateUtil.toEpochDay(agreement.getContractDate());
+            return day >= fromDay && day <= toDay;
+        }
+        return true;
+    }
+}
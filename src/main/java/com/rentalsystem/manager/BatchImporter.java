@@ -0,0 +1,650 @@
+package com.rentalsystem.manager;
+
+import com.rentalsystem.model.*;
+import com.rentalsystem.util.CsvTokenizer;
+import com.rentalsystem.util.DateUtil;
+import com.rentalsystem.util.InputValidator;
+import com.rentalsystem.util.Json;
+import com.rentalsystem.util.Logger;
+import com.rentalsystem.util.StringPool;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Bulk import of tenants, hosts, properties, rental agreements and payments.
+ * Inputs are CSV in the data-file layout or JSONL with the HTTP service's field names. Every row is
+ * parsed, checked with the {@link InputValidator} rules and resolved against the managers and the
+ * earlier rows of the same import before anything is written. The accepted rows are then committed
+ * parents first, each type as one batch, so the files are written once per type rather than once per
+ * row. The commit holds the write locks of all four managers, so other sessions cannot change anything
+ * between its final check and the last batch. Rejected rows are skipped, or abort the whole import when
+ * it is all-or-nothing, and each one is written to the rejects report with its reason. A row whose ID
+ * another session took, or whose parent it removed, since validation is rejected by the final check
+ * together with the rows that refer to it.
+ */
+public class BatchImporter {
+    private static final Logger LOG = Logger.getLogger(BatchImporter.class);
+    private static final String[] EXTENSIONS = {".jsonl", ".csv", ".txt"};
+
+    public enum Kind {
+        TENANTS("tenants", "tenant", "id", "fullName", "dateOfBirth", "contactInformation"),
+        HOSTS("hosts", "host", "id", "fullName", "dateOfBirth", "contactInformation"),
+        PROPERTIES("properties", "property", "id", "address", "price", "status", "owner"),
+        RENTAL_AGREEMENTS("rental_agreements", "rental agreement", "id", "tenantId", "propertyId", "period",
+                "contractDate", "rentingFee", "status"),
+        PAYMENTS("payments", "payment", "id", "amount", "paymentDate", "paymentMethod", "rentalAgreementId");
+
+        final String baseName;
+        final String label;
+        final String[] columns;
+
+        Kind(String baseName, String label, String... columns) {
+            this.baseName = baseName;
+            this.label = label;
+            this.columns = columns;
+        }
+    }
+
+    // Properties carry three type-specific columns after the common ones, plus the type itself
+    private static final String[] RESIDENTIAL_COLUMNS = {"numberOfBedrooms", "hasGarden", "petFriendly"};
+    private static final String[] COMMERCIAL_COLUMNS = {"businessType", "parkingSpaces", "squareFootage"};
+    private static final int PROPERTY_TYPE = 8;
+
+    private final TenantManager tenantManager;
+    private final HostManager hostManager;
+    private final PropertyManager propertyManager;
+    private final RentalManager rentalManager;
+    private final Map<Kind, Path> sources = new EnumMap<>(Kind.class);
+
+    private final Map<String, Tenant> tenants = new LinkedHashMap<>();
+    private final Map<String, Host> hosts = new LinkedHashMap<>();
+    private final Map<String, Property> properties = new LinkedHashMap<>();
+    private final Map<String, RentalAgreement> agreements = new LinkedHashMap<>();
+    private final Map<String, Payment> payments = new LinkedHashMap<>();
+    // Owners and business types repeat across the imported properties
+    private final StringPool values = new StringPool();
+    // Source line of each staged row in staging order, and the reason for each row dropped at commit time by line
+    private final long[][] stagedLines = new long[Kind.values().length][16];
+    private final int[] stagedCounts = new int[Kind.values().length];
+    private final List<Map<Long, String>> dropped = new ArrayList<>();
+    private final List<Set<String>> droppedIds = new ArrayList<>();
+
+    public BatchImporter(TenantManager tenantManager, HostManager hostManager, PropertyManager propertyManager,
+                         RentalManager rentalManager) {
+        this.tenantManager = tenantManager;
+        this.hostManager = hostManager;
+        this.propertyManager = propertyManager;
+        this.rentalManager = rentalManager;
+        for (int i = 0; i < Kind.values().length; i++) {
+            dropped.add(new HashMap<>());
+            droppedIds.add(new HashSet<>());
+        }
+    }
+
+    public BatchImporter source(Kind kind, Path file) {
+        sources.put(kind, file);
+        return this;
+    }
+
+    // Picks up tenants, hosts, properties, rental_agreements and payments files (.jsonl, .csv or .txt)
+    public BatchImporter sourcesIn(Path directory) {
+        for (Kind kind : Kind.values()) {
+            for (String extension : EXTENSIONS) {
+                Path file = directory.resolve(kind.baseName + extension);
+                if (Files.isRegularFile(file)) {
+                    sources.put(kind, file);
+                    break;
+                }
+            }
+        }
+        return this;
+    }
+
+    public Map<Kind, Path> getSources() {
+        return sources;
+    }
+
+    // Validates every source, then commits the accepted rows; rejectsFile may be null
+    public Result run(Path rejectsFile, boolean allOrNothing) throws IOException {
+        long started = System.nanoTime();
+        Result result = new Result(rejectsFile);
+        try (BufferedWriter rejects = rejectsFile == null ? null
+                : Files.newBufferedWriter(rejectsFile, StandardCharsets.UTF_8)) {
+            if (rejects != null) {
+                rejects.write("file,line,reason,record\n");
+            }
+            for (Map.Entry<Kind, Path> source : sources.entrySet()) {
+                read(source.getKey(), source.getValue(), result, rejects);
+            }
+            LOG.debug("Validated " + result.getTotalRows() + " rows in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+
+            if (allOrNothing && result.getTotalRejected() > 0) {
+                LOG.warn("Import aborted: " + result.getTotalRejected() + " rows were rejected");
+            } else {
+                tenantManager.exclusive(() -> hostManager.exclusive(() -> propertyManager.exclusive(() ->
+                        rentalManager.exclusive(() -> commit(result, allOrNothing)))));
+            }
+            reportDropped(result, rejects);
+        } finally {
+            clearStaged();
+        }
+        result.elapsedNanos = System.nanoTime() - started;
+        LOG.info("Import " + (result.committed ? "committed" : "aborted") + ": " + result.getTotalImported() + " of "
+                + result.getTotalRows() + " rows imported, " + result.getTotalRejected() + " rejected in "
+                + result.getElapsedMillis() + " ms");
+        return result;
+    }
+
+    // Runs with every manager's writers locked out. Rows that other sessions made invalid since validation
+    // are dropped, parents first so that their dependents go too, or abort an all-or-nothing import; the
+    // rest are added one batch per type, which nothing can refuse while the locks are held.
+    private Void commit(Result result, boolean allOrNothing) {
+        for (Kind kind : Kind.values()) {
+            drop(kind, staged(kind), (id, row) -> conflict(kind, id, row), result);
+        }
+        if (allOrNothing && result.getTotalRejected() > 0) {
+            LOG.warn("Import aborted: " + result.getTotalRejected() + " rows were changed by another session");
+            return null;
+        }
+        result.imported[Kind.TENANTS.ordinal()] = tenantManager.addTenants(new ArrayList<>(tenants.values())).size();
+        result.imported[Kind.HOSTS.ordinal()] = hostManager.addHosts(new ArrayList<>(hosts.values())).size();
+        result.imported[Kind.PROPERTIES.ordinal()] =
+                propertyManager.addProperties(new ArrayList<>(properties.values())).size();
+        result.imported[Kind.RENTAL_AGREEMENTS.ordinal()] =
+                rentalManager.addRentalAgreements(new ArrayList<>(agreements.values())).size();
+        result.imported[Kind.PAYMENTS.ordinal()] = rentalManager.addPayments(new ArrayList<>(payments.values())).size();
+        result.committed = true;
+        return null;
+    }
+
+    // Why a staged row can no longer be added: its ID is taken, or its parent is neither staged nor in its manager
+    private String conflict(Kind kind, String id, Object row) {
+        switch (kind) {
+            case TENANTS:
+                return tenantManager.getTenant(id) != null ? taken(kind, id) : null;
+            case HOSTS:
+                return hostManager.getHost(id) != null ? taken(kind, id) : null;
+            case PROPERTIES: {
+                if (propertyManager.getProperty(id) != null) {
+                    return taken(kind, id);
+                }
+                String owner = ((Property) row).getOwner();
+                return exists(Kind.HOSTS, owner, hostManager::getHost)
+                        ? null : "Owner " + owner + " was not imported or no longer exists";
+            }
+            case RENTAL_AGREEMENTS: {
+                if (rentalManager.getRentalAgreement(id) != null) {
+                    return taken(kind, id);
+                }
+                RentalAgreement agreement = (RentalAgreement) row;
+                String tenantId = agreement.getMainTenant().getId();
+                if (!exists(Kind.TENANTS, tenantId, tenantManager::getTenant)) {
+                    return "Tenant " + tenantId + " was not imported or no longer exists";
+                }
+                String propertyId = agreement.getProperty().getId();
+                return exists(Kind.PROPERTIES, propertyId, propertyManager::getProperty)
+                        ? null : "Property " + propertyId + " was not imported or no longer exists";
+            }
+            case PAYMENTS: {
+                if (rentalManager.getPayment(id) != null) {
+                    return taken(kind, id);
+                }
+                String agreementId = ((Payment) row).getRentalAgreementId();
+                return exists(Kind.RENTAL_AGREEMENTS, agreementId, rentalManager::getRentalAgreement)
+                        ? null : "Rental agreement " + agreementId + " was not imported or no longer exists";
+            }
+            default:
+                throw new IllegalStateException("Unhandled kind " + kind);
+        }
+    }
+
+    private static String taken(Kind kind, String id) {
+        return "Duplicate " + kind.label + " ID " + id + ", added by another session during the import";
+    }
+
+    // A parent is one of this import's rows still staged, or an existing record that has not been removed.
+    // A dropped row's ID may since belong to another session's record, which is not the parent that was meant.
+    private boolean exists(Kind kind, String id, Function<String, ?> lookup) {
+        return staged(kind).containsKey(id) || !droppedIds.get(kind.ordinal()).contains(id) && lookup.apply(id) != null;
+    }
+
+    private Map<String, ?> staged(Kind kind) {
+        switch (kind) {
+            case TENANTS:
+                return tenants;
+            case HOSTS:
+                return hosts;
+            case PROPERTIES:
+                return properties;
+            case RENTAL_AGREEMENTS:
+                return agreements;
+            case PAYMENTS:
+                return payments;
+            default:
+                throw new IllegalStateException("Unhandled kind " + kind);
+        }
+    }
+
+    // Removes the rows the check gives a reason for, keeping their source lines for the rejects report
+    private <T> void drop(Kind kind, Map<String, T> staged, BiFunction<String, T, String> check, Result result) {
+        int k = kind.ordinal();
+        long[] lines = stagedLines[k];
+        int kept = 0;
+        int i = 0;
+        for (Iterator<Map.Entry<String, T>> rows = staged.entrySet().iterator(); rows.hasNext(); i++) {
+            Map.Entry<String, T> row = rows.next();
+            String reason = check.apply(row.getKey(), row.getValue());
+            if (reason == null) {
+                lines[kept++] = lines[i];
+            } else {
+                rows.remove();
+                dropped.get(k).put(lines[i], reason);
+                droppedIds.get(k).add(row.getKey());
+                result.accepted[k]--;
+                result.rejected[k]++;
+            }
+        }
+        stagedCounts[k] = kept;
+    }
+
+    // Reads the dropped rows back from their sources, as only their line numbers were kept
+    private void reportDropped(Result result, BufferedWriter rejects) throws IOException {
+        for (Kind kind : Kind.values()) {
+            Map<Long, String> rows = dropped.get(kind.ordinal());
+            if (rows.isEmpty()) {
+                continue;
+            }
+            LOG.warn(rows.size() + " " + kind.baseName + " were rejected as another session changed the data they "
+                    + "depend on during the import");
+            if (rejects == null) {
+                continue;
+            }
+            Path file = sources.get(kind);
+            String name = file.getFileName().toString();
+            if (name.endsWith(".jsonl") || name.endsWith(".json")) {
+                try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    String line;
+                    long lineNumber = 0;
+                    while ((line = reader.readLine()) != null) {
+                        String reason = rows.get(++lineNumber);
+                        if (reason != null) {
+                            writeReject(name, lineNumber, reason, line, rejects);
+                        }
+                    }
+                }
+            } else {
+                try (CsvTokenizer csv = new CsvTokenizer(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+                    while (csv.next()) {
+                        String reason = rows.get(csv.getRecordNumber());
+                        if (reason != null) {
+                            writeReject(name, csv.getRecordNumber(), reason, csv.getRecord(), rejects);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void staged(Kind kind, long line) {
+        int k = kind.ordinal();
+        if (stagedCounts[k] == stagedLines[k].length) {
+            stagedLines[k] = Arrays.copyOf(stagedLines[k], stagedCounts[k] * 2);
+        }
+        stagedLines[k][stagedCounts[k]++] = line;
+    }
+    private void read(Kind kind, Path file, Result result, BufferedWriter rejects) throws IOException {
+        String name = file.getFileName().toString();
+        if (name.endsWith(".jsonl") || name.endsWith(".json")) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                long lineNumber = 0;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        stage(kind, jsonFields(kind, Json.parseObject(line)));
+                        staged(kind, lineNumber);
+                        result.accepted[kind.ordinal()]++;
+                    } catch (IllegalArgumentException e) {
+                        reject(kind, name, lineNumber, e.getMessage(), line, result, rejects);
+                    }
+                }
+            }
+        } else {
+            try (CsvTokenizer csv = new CsvTokenizer(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+                while (csv.next()) {
+                    try {
+                        stage(kind, csvFields(kind, csv));
+                        staged(kind, csv.getRecordNumber());
+                        result.accepted[kind.ordinal()]++;
+                    } catch (IllegalArgumentException e) {
+                        reject(kind, name, csv.getRecordNumber(), e.getMessage(), csv.getRecord(), result, rejects);
+                    }
+                }
+            }
+        }
+    }
+
+    private void reject(Kind kind, String file, long line, String reason, String record, Result result,
+                        BufferedWriter rejects) throws IOException {
+        result.rejected[kind.ordinal()]++;
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("Rejected " + file + ":" + line + " (" + reason + ")");
+        }
+        if (rejects != null) {
+            writeReject(file, line, reason, record, rejects);
+        }
+    }
+
+    private static void writeReject(String file, long line, String reason, String record, BufferedWriter rejects)
+            throws IOException {
+        rejects.write(CsvTokenizer.escape(file) + "," + line + "," + CsvTokenizer.escape(reason) + ","
+                + CsvTokenizer.escape(record) + "\n");
+    }
+
+    private void stage(Kind kind, String[] f) {
+        switch (kind) {
+            case TENANTS: {
+                String id = id(kind, f, 0);
+                if (tenants.containsKey(id) || tenantManager.getTenant(id) != null) {
+                    throw new IllegalArgumentException("Duplicate tenant ID " + id);
+                }
+                tenants.put(id, new Tenant(id, required(kind, f, 1), date(f, 2, false), contactInformation(f[3])));
+                break;
+            }
+            case HOSTS: {
+                String id = id(kind, f, 0);
+                if (hosts.containsKey(id) || hostManager.getHost(id) != null) {
+                    throw new IllegalArgumentException("Duplicate host ID " + id);
+                }
+                hosts.put(id, new Host(id, required(kind, f, 1), date(f, 2, false), contactInformation(f[3])));
+                break;
+            }
+            case PROPERTIES: {
+                String id = id(kind, f, 0);
+                if (properties.containsKey(id) || propertyManager.getProperty(id) != null) {
+                    throw new IllegalArgumentException("Duplicate property ID " + id);
+                }
+                String owner = values.intern(id(kind, f, 4));
+                if (!hosts.containsKey(owner) && hostManager.getHost(owner) == null) {
+                    throw new IllegalArgumentException("Unknown owner " + owner);
+                }
+                Property.Status status = constant(Property.Status.class, f, 3);
+                properties.put(id, "RESIDENTIAL".equalsIgnoreCase(f[PROPERTY_TYPE])
+                        ? new ResidentialProperty(id, required(kind, f, 1), amount(f, 2), status, owner, count(f, 5),
+                                flag(f, 6), flag(f, 7))
+                        : new CommercialProperty(id, required(kind, f, 1), amount(f, 2), status, owner,
+                                values.intern(text(f, 5)), count(f, 6), amount(f, 7)));
+                break;
+            }
+            case RENTAL_AGREEMENTS: {
+                String id = id(kind, f, 0);
+                if (agreements.containsKey(id) || rentalManager.getRentalAgreement(id) != null) {
+                    throw new IllegalArgumentException("Duplicate rental agreement ID " + id);
+                }
+                String tenantId = id(kind, f, 1);
+                Tenant tenant = tenants.get(tenantId);
+                if (tenant == null && (tenant = tenantManager.getTenant(tenantId)) == null) {
+                    throw new IllegalArgumentException("Unknown tenant " + tenantId);
+                }
+                String propertyId = id(kind, f, 2);
+                Property property = properties.get(propertyId);
+                if (property == null && (property = propertyManager.getProperty(propertyId)) == null) {
+                    throw new IllegalArgumentException("Unknown property " + propertyId);
+                }
+                agreements.put(id, new RentalAgreement(id, tenant, property,
+                        constant(RentalAgreement.Period.class, f, 3), date(f, 4, true), amount(f, 5),
+                        constant(RentalAgreement.Status.class, f, 6)));
+                break;
+            }
+            case PAYMENTS: {
+                String id = id(kind, f, 0);
+                if (payments.containsKey(id) || rentalManager.getPayment(id) != null) {
+                    throw new IllegalArgumentException("Duplicate payment ID " + id);
+                }
+                String agreementId = id(kind, f, 4);
+                if (!agreements.containsKey(agreementId) && rentalManager.getRentalAgreement(agreementId) == null) {
+                    throw new IllegalArgumentException("Unknown rental agreement " + agreementId);
+                }
+                payments.put(id, new Payment(id, amount(f, 1), date(f, 2, true), text(f, 3), agreementId));
+                break;
+            }
+            default:
+                throw new IllegalStateException("Unhandled kind " + kind);
+        }
+    }
+
+    // CSV fields in data-file order; legacy person rows split the contact information in two
+    private static String[] csvFields(Kind kind, CsvTokenizer csv) {
+        int count = csv.getFieldCount();
+        int expected = kind == Kind.PROPERTIES ? PROPERTY_TYPE : kind.columns.length;
+        boolean person = kind == Kind.TENANTS || kind == Kind.HOSTS;
+        if (count != expected && !(person && count == expected + 1)) {
+            throw new IllegalArgumentException("Expected " + expected + " fields but found " + count);
+        }
+        String[] fields = new String[kind == Kind.PROPERTIES ? PROPERTY_TYPE + 1 : expected];
+        for (int i = 0; i < expected; i++) {
+            fields[i] = csv.getString(i);
+        }
+        if (count == expected + 1) {
+            fields[expected - 1] = fields[expected - 1] + "," + csv.getString(expected);
+        }
+        if (kind == Kind.PROPERTIES) {
+            fields[PROPERTY_TYPE] = csv.startsWith(0, 'R') ? "RESIDENTIAL" : "COMMERCIAL";
+        }
+        return fields;
+    }
+
+    // JSON members in the same order as the CSV fields
+    private static String[] jsonFields(Kind kind, Map<String, Object> json) {
+        String[] columns = kind.columns;
+        if (kind == Kind.PROPERTIES) {
+            Object type = json.get("type");
+            if (!"RESIDENTIAL".equalsIgnoreCase(String.valueOf(type)) && !"COMMERCIAL".equalsIgnoreCase(String.valueOf(type))) {
+                throw new IllegalArgumentException("type must be RESIDENTIAL or COMMERCIAL");
+            }
+            columns = Arrays.copyOf(columns, PROPERTY_TYPE + 1);
+            System.arraycopy("RESIDENTIAL".equalsIgnoreCase((String) type) ? RESIDENTIAL_COLUMNS : COMMERCIAL_COLUMNS,
+                    0, columns, kind.columns.length, 3);
+            columns[PROPERTY_TYPE] = "type";
+        }
+        String[] fields = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            Object value = json.get(columns[i]);
+            if (value instanceof Double && (Double) value == Math.rint((Double) value)
+                    && !Double.isInfinite((Double) value)) {
+                fields[i] = Long.toString(((Double) value).longValue());
+            } else {
+                fields[i] = value == null ? null : value.toString();
+            }
+        }
+        return fields;
+    }
+
+    private static String text(String[] f, int i) {
+        String value = f[i] == null ? "" : f[i].trim();
+        if (!InputValidator.isValidText(value)) {
+            throw new IllegalArgumentException("Line breaks and other control characters are not allowed");
+        }
+        return value;
+    }
+
+    private static String required(Kind kind, String[] f, int i) {
+        String value = text(f, i);
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("Missing " + kind.columns[i]);
+        }
+        return value;
+    }
+
+    private static String id(Kind kind, String[] f, int i) {
+        String value = required(kind, f, i);
+        if (!InputValidator.isValidId(value)) {
+            throw new IllegalArgumentException("Invalid " + kind.columns[i] + " '" + value
+                    + "', expected letters, digits, '-', '_' or '.'");
+        }
+        return value;
+    }
+
+    private static Date date(String[] f, int i, boolean required) {
+        String value = text(f, i);
+        if (value.isEmpty() && !required) {
+            return null;
+        }
+        Date date = InputValidator.isValidDate(value) ? DateUtil.parseDate(value) : null;
+        if (date == null) {
+            throw new IllegalArgumentException("Invalid date '" + value + "', expected YYYY-MM-DD");
+        }
+        return date;
+    }
+
+    private static double amount(String[] f, int i) {
+        double value;
+        try {
+            value = Double.parseDouble(text(f, i));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number '" + text(f, i) + "'");
+        }
+        if (value < 0 || Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("Amount must not be negative: " + text(f, i));
+        }
+        return value;
+    }
+
+    private static int count(String[] f, int i) {
+        try {
+            int value = Integer.parseInt(text(f, i));
+            if (value >= 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid count '" + text(f, i) + "'");
+    }
+
+    private static boolean flag(String[] f, int i) {
+        String value = text(f, i);
+        if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("yes")) {
+            return true;
+        }
+        if (value.equalsIgnoreCase("false") || value.equalsIgnoreCase("no")) {
+            return false;
+        }
+        throw new IllegalArgumentException("Invalid flag '" + value + "', expected true or false");
+    }
+
+    private static <E extends Enum<E>> E constant(Class<E> type, String[] f, int i) {
+        try {
+            return Enum.valueOf(type, text(f, i).toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + type.getSimpleName().toLowerCase() + " '" + text(f, i)
+                    + "', expected one of " + Arrays.toString(type.getEnumConstants()));
+        }
+    }
+
+    // "email,phone" as in the data files; either part may be empty but must be well-formed otherwise
+    private static String contactInformation(String value) {
+        String contact = value == null ? "" : value.trim();
+        if (!InputValidator.isValidText(contact)) {
+            throw new IllegalArgumentException("Line breaks and other control characters are not allowed");
+        }
+        int comma = contact.indexOf(',');
+        String email = (comma < 0 ? contact : contact.substring(0, comma)).trim();
+        String phone = comma < 0 ? "" : contact.substring(comma + 1).trim();
+        if (!InputValidator.isValidEmail(email)) {
+            throw new IllegalArgumentException("Invalid email '" + email + "'");
+        }
+        if (!InputValidator.isValidPhone(phone)) {
+            throw new IllegalArgumentException("Invalid phone '" + phone + "', expected 10 digits");
+        }
+        return contact;
+    }
+
+    private void clearStaged() {
+        tenants.clear();
+        hosts.clear();
+        properties.clear();
+        agreements.clear();
+        payments.clear();
+        Arrays.fill(stagedCounts, 0);
+        dropped.forEach(Map::clear);
+        droppedIds.forEach(Set::clear);
+    }
+
+    /**
+     * Row counts per entity type: accepted after validation, rejected, and actually added at commit.
+     */
+    public static final class Result {
+        private final int[] accepted = new int[Kind.values().length];
+        private final int[] rejected = new int[Kind.values().length];
+        private final int[] imported = new int[Kind.values().length];
+        private final Path rejectsFile;
+        private boolean committed;
+        private long elapsedNanos;
+
+        Result(Path rejectsFile) {
+            this.rejectsFile = rejectsFile;
+        }
+
+        public int getAccepted(Kind kind) {
+            return accepted[kind.ordinal()];
+        }
+
+        public int getRejected(Kind kind) {
+            return rejected[kind.ordinal()];
+        }
+
+        public int getImported(Kind kind) {
+            return imported[kind.ordinal()];
+        }
+
+        public int getTotalRows() {
+            return Arrays.stream(accepted).sum() + getTotalRejected();
+        }
+
+        public int getTotalRejected() {
+            return Arrays.stream(rejected).sum();
+        }
+
+        public int getTotalImported() {
+            return Arrays.stream(imported).sum();
+        }
+
+        public boolean isCommitted() {
+            return committed;
+        }
+
+        public Path getRejectsFile() {
+            return rejectsFile;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedNanos / 1_000_000;
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : getTotalRows() * 1e9 / elapsedNanos;
+        }
+    }
+}
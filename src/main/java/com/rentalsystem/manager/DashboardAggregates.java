@@ -0,0 +1,222 @@
+package com.rentalsystem.manager;
+
+import com.rentalsystem.model.Payment;
+import com.rentalsystem.model.Property;
+import com.rentalsystem.model.RentalAgreement;
+import com.rentalsystem.util.PaymentTable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals for the dashboard: properties and agreements by status, the rent of active agreements
+ * overall and per host, and payments overall and per method. {@link ReferenceIndex} applies every
+ * manager change here as it happens, so reading a figure never scans the managers.
+ * <p>
+ * The UI edits model objects in place before passing them to update, so the previous object cannot
+ * say what was counted. Instead the status, host and fee each property and agreement contributed are
+ * kept by ID and taken back out before the new values are added. Payments are only ever added or
+ * reloaded, so nothing is kept for them. As with the host index, an agreement's rent counts for the
+ * owner its property had when the agreement was last saved.
+ */
+public class DashboardAggregates {
+    private static final Property.Status[] PROPERTY_STATUSES = Property.Status.values();
+    private static final RentalAgreement.Status[] AGREEMENT_STATUSES = RentalAgreement.Status.values();
+
+    private final LongAdder[] propertiesByStatus = adders(PROPERTY_STATUSES.length);
+    private final Map<String, Property.Status> propertyStatuses = new ConcurrentHashMap<>();
+    private final LongAdder[] agreementsByStatus = adders(AGREEMENT_STATUSES.length);
+    private final Map<String, AgreementShare> agreementShares = new ConcurrentHashMap<>();
+    private final Accumulator activeRent = new Accumulator();
+    private final Map<String, Accumulator> activeRentByHost = new ConcurrentHashMap<>();
+    private final Accumulator payments = new Accumulator();
+    private final Map<String, Accumulator> paymentsByMethod = new ConcurrentHashMap<>();
+
+    public int countProperties(Property.Status status) {
+        return (int) propertiesByStatus[status.ordinal()].sum();
+    }
+
+    public int countRentalAgreements(RentalAgreement.Status status) {
+        return (int) agreementsByStatus[status.ordinal()].sum();
+    }
+
+    // Renting fees of all ACTIVE agreements, one period each
+    public Total getActiveRent() {
+        return activeRent.total();
+    }
+
+    public Total getActiveRentForHost(String hostId) {
+        Accumulator accumulator = activeRentByHost.get(hostId);
+        return accumulator == null ? Total.EMPTY : accumulator.total();
+    }
+
+    // One entry per host that has ever had an active agreement
+    public Map<String, Total> getActiveRentByHost() {
+        return totals(activeRentByHost);
+    }
+
+    public Total getPayments() {
+        return payments.total();
+    }
+
+    public Map<String, Total> getPaymentsByMethod() {
+        return totals(paymentsByMethod);
+    }
+
+    void propertyChanged(Property property) {
+        Property.Status previous = property.getStatus() == null
+                ? propertyStatuses.remove(property.getId())
+                : propertyStatuses.put(property.getId(), property.getStatus());
+        if (previous != null) {
+            propertiesByStatus[previous.ordinal()].decrement();
+        }
+        if (property.getStatus() != null) {
+            propertiesByStatus[property.getStatus().ordinal()].increment();
+        }
+    }
+
+    void propertyRemoved(String propertyId) {
+        Property.Status previous = propertyStatuses.remove(propertyId);
+        if (previous != null) {
+            propertiesByStatus[previous.ordinal()].decrement();
+        }
+    }
+
+    void clearProperties() {
+        propertyStatuses.clear();
+        reset(propertiesByStatus);
+    }
+
+    void agreementChanged(RentalAgreement agreement) {
+        AgreementShare share = new AgreementShare(agreement);
+        AgreementShare previous = share.status == null
+                ? agreementShares.remove(agreement.getId())
+                : agreementShares.put(agreement.getId(), share);
+        if (previous != null) {
+            apply(previous, -1);
+        }
+        if (share.status != null) {
+            apply(share, 1);
+        }
+    }
+
+    void agreementRemoved(String agreementId) {
+        AgreementShare previous = agreementShares.remove(agreementId);
+        if (previous != null) {
+            apply(previous, -1);
+        }
+    }
+
+    void clearRentalAgreements() {
+        agreementShares.clear();
+        reset(agreementsByStatus);
+        activeRent.reset();
+        activeRentByHost.values().forEach(Accumulator::reset);
+    }
+
+    void paymentAdded(Payment payment) {
+        long cents = Math.round(payment.getAmount() * 100);
+        payments.add(1, cents);
+        if (payment.getPaymentMethod() != null) {
+            paymentsByMethod.computeIfAbsent(payment.getPaymentMethod(), method -> new Accumulator()).add(1, cents);
+        }
+    }
+
+    // Recounts the payments from the table's columns, one total per method
+    void paymentsLoaded(PaymentTable table) {
+        payments.reset();
+        paymentsByMethod.values().forEach(Accumulator::reset);
+        table.forEachMethodTotal((method, count, cents) -> {
+            payments.add(count, cents);
+            if (method != null) {
+                paymentsByMethod.computeIfAbsent(method, m -> new Accumulator()).add(count, cents);
+            }
+        });
+    }
+
+    private void apply(AgreementShare share, int sign) {
+        agreementsByStatus[share.status.ordinal()].add(sign);
+        if (share.status != RentalAgreement.Status.ACTIVE) {
+            return;
+        }
+        activeRent.add(sign, sign * share.feeCents);
+        if (share.host != null) {
+            activeRentByHost.computeIfAbsent(share.host, host -> new Accumulator()).add(sign, sign * share.feeCents);
+        }
+    }
+
+    private static Map<String, Total> totals(Map<String, Accumulator> accumulators) {
+        Map<String, Total> totals = new LinkedHashMap<>();
+        accumulators.forEach((key, accumulator) -> totals.put(key, accumulator.total()));
+        return Collections.unmodifiableMap(totals);
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static void reset(LongAdder[] adders) {
+        for (LongAdder adder : adders) {
+            adder.reset();
+        }
+    }
+
+    /** What one agreement adds to the totals, as of its last change. */
+    private static final class AgreementShare {
+        final RentalAgreement.Status status;
+        final String host;
+        final long feeCents;
+
+        AgreementShare(RentalAgreement agreement) {
+            this.status = agreement.getStatus();
+            this.host = agreement.getProperty() == null ? null : agreement.getProperty().getOwner();
+            this.feeCents = Math.round(agreement.getRentingFee() * 100);
+        }
+    }
+
+    private static final class Accumulator {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder cents = new LongAdder();
+
+        void add(long records, long amountCents) {
+            count.add(records);
+            cents.add(amountCents);
+        }
+
+        void reset() {
+            count.reset();
+            cents.reset();
+        }
+
+        Total total() {
+            return new Total(count.sum(), cents.sum());
+        }
+    }
+
+    /** A record count and the sum of their amounts. */
+    public static final class Total {
+        static final Total EMPTY = new Total(0, 0);
+
+        private final long count;
+        private final long cents;
+
+        Total(long count, long cents) {
+            this.count = count;
+            this.cents = cents;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getAmount() {
+            return cents / 100.0;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.rentalsystem.manager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Primary-key indexed store shared by the manager implementations.
+ * Lookups, duplicate checks, replacement and removal are constant-time;
+ * iteration follows insertion order, and a replaced entity keeps its position.
+ * The store is safe for concurrent use: reads take no lock, writes to different keys do not
+ * block each other, and {@link #getAll} hands out an immutable snapshot that is rebuilt only
+ * after a change, so repeated reads of an unchanged store share one list.
+ * A store created with sorted keys also keeps its keys in order, for prefix lookups such as ID
+ * completion; stores that never need them (payments) skip that memory.
+ */
+public class EntityStore<T> {
+    private final Function<T, String> keyExtractor;
+    private final boolean sortedKeys;
+    private final AtomicLong positions = new AtomicLong();
+    private final AtomicLong version = new AtomicLong();
+    private volatile Contents<T> contents;
+    private volatile Snapshot<T> snapshot;
+
+    public EntityStore(Function<T, String> keyExtractor) {
+        this(keyExtractor, false);
+    }
+
+    public EntityStore(Function<T, String> keyExtractor, boolean sortedKeys) {
+        this.keyExtractor = keyExtractor;
+        this.sortedKeys = sortedKeys;
+        this.contents = new Contents<>(sortedKeys);
+    }
+
+    public EntityStore(Function<T, String> keyExtractor, Collection<T> initialEntities) {
+        this(keyExtractor, initialEntities, false);
+    }
+
+    public EntityStore(Function<T, String> keyExtractor, Collection<T> initialEntities, boolean sortedKeys) {
+        this(keyExtractor, sortedKeys);
+        reset(initialEntities);
+    }
+
+    public T get(String key) {
+        Slot<T> slot = contents.byKey.get(key);
+        return slot == null ? null : slot.entity;
+    }
+
+    public boolean contains(String key) {
+        return contents.byKey.containsKey(key);
+    }
+
+    // Adds the entity unless one with the same key is already present
+    public boolean add(T entity) {
+        if (!contents.add(keyExtractor.apply(entity), entity, positions)) {
+            return false;
+        }
+        version.incrementAndGet();
+        return true;
+    }
+
+    // Replaces an existing entity in place; returns the previous one or null if the key is unknown
+    public T replace(T entity) {
+        Contents<T> current = contents;
+        String key = keyExtractor.apply(entity);
+        while (true) {
+            Slot<T> previous = current.byKey.get(key);
+            if (previous == null) {
+                return null;
+            }
+            Slot<T> replacement = new Slot<>(previous.position, entity);
+            if (current.byKey.replace(key, previous, replacement)) {
+                current.byPosition.replace(previous.position, previous, replacement);
+                version.incrementAndGet();
+                return previous.entity;
+            }
+        }
+    }
+
+    public T remove(String key) {
+        Contents<T> current = contents;
+        Slot<T> removed = current.remove(key);
+        if (removed == null) {
+            return null;
+        }
+        current.byPosition.remove(removed.position, removed);
+        version.incrementAndGet();
+        return removed.entity;
+    }
+
+    public int size() {
+        return contents.byKey.size();
+    }
+
+    // Up to limit keys starting with the prefix, in key order, without scanning the store
+    public List<String> keysStartingWith(String prefix, int limit) {
+        NavigableSet<String> keys = contents.sortedKeys;
+        if (keys == null) {
+            throw new IllegalStateException("Store was created without sorted keys");
+        }
+        List<String> matches = new ArrayList<>(Math.min(limit, 64));
+        for (String key : keys.subSet(prefix, true, prefix + Character.MAX_VALUE, false)) {
+            if (matches.size() >= limit) {
+                break;
+            }
+            matches.add(key);
+        }
+        return matches;
+    }
+
+    public void clear() {
+        contents = new Contents<>(sortedKeys);
+        version.incrementAndGet();
+    }
+
+    // Swaps in the new entities at once, so concurrent readers see either the old or the new set
+    public void reset(Collection<T> newEntities) {
+        Contents<T> replacement = new Contents<>(sortedKeys);
+        for (T entity : newEntities) {
+            replacement.put(keyExtractor.apply(entity), entity, positions);
+        }
+        contents = replacement;
+        version.incrementAndGet();
+    }
+
+    // Immutable snapshot of all entities in insertion order
+    public List<T> getAll() {
+        long currentVersion = version.get();
+        Snapshot<T> current = snapshot;
+        if (current != null && current.version == currentVersion) {
+            return current.entities;
+        }
+        List<T> entities = new ArrayList<>(size());
+        for (Slot<T> slot : contents.byPosition.values()) {
+            entities.add(slot.entity);
+        }
+        current = new Snapshot<>(currentVersion, Collections.unmodifiableList(entities));
+        snapshot = current;
+        return current.entities;
+    }
+
+    /**
+     * Entities by key plus the same slots by insertion position. Slots are added to both maps inside
+     * the key's compute, so a concurrent remove of the same key can never leave a position behind.
+     * Sorted keys are added and removed inside the key's compute for the same reason.
+     */
+    private static final class Contents<T> {
+        final ConcurrentHashMap<String, Slot<T>> byKey = new ConcurrentHashMap<>();
+        final ConcurrentSkipListMap<Long, Slot<T>> byPosition = new ConcurrentSkipListMap<>();
+        final ConcurrentSkipListSet<String> sortedKeys;
+
+        Contents(boolean sorted) {
+            this.sortedKeys = sorted ? new ConcurrentSkipListSet<>() : null;
+        }
+
+        boolean add(String key, T entity, AtomicLong positions) {
+            Slot<T> slot = new Slot<>(positions.incrementAndGet(), entity);
+            return byKey.computeIfAbsent(key, k -> {
+                byPosition.put(slot.position, slot);
+                if (sortedKeys != null) {
+                    sortedKeys.add(k);
+                }
+                return slot;
+            }) == slot;
+        }
+
+        Slot<T> remove(String key) {
+            if (sortedKeys == null) {
+                return byKey.remove(key);
+            }
+            AtomicReference<Slot<T>> removed = new AtomicReference<>();
+            byKey.computeIfPresent(key, (k, slot) -> {
+                removed.set(slot);
+                sortedKeys.remove(k);
+                return null;
+            });
+            return removed.get();
+        }
+
+        // Bulk loading: a later duplicate replaces the earlier one in its position
+        void put(String key, T entity, AtomicLong positions) {
+            Slot<T> existing = byKey.get(key);
+            Slot<T> slot = new Slot<>(existing == null ? positions.incrementAndGet() : existing.position, entity);
+            byKey.put(key, slot);
+            byPosition.put(slot.position, slot);
+            if (sortedKeys != null) {
+                sortedKeys.add(key);
+            }
+        }
+    }
+
+    private static final class Slot<T> {
+        final long position;
+        final T entity;
+
+        Slot(long position, T entity) {
+            this.position = position;
+            this.entity = entity;
+        }
+    }
+
+    private static final class Snapshot<T> {
+        final long version;
+        final List<T> entities;
+
+        Snapshot(long version, List<T> entities) {
+            this.version = version;
+            this.entities = entities;
+        }
+    }
+}
@@ -2,13 +2,19 @@ package com.rentalsystem.manager;
 
 import com.rentalsystem.model.Host;
 import java.util.List;
+import java.util.function.Supplier;
 
 public interface HostManager {
     boolean addHost(Host host);
+    List<Host> addHosts(List<Host> hosts);
     boolean updateHost(Host host);
     boolean deleteHost(String hostId);
     Host getHost(String hostId);
     List<Host> getAllHosts();
+    List<Host> searchHosts(String text, int limit);
+    List<String> findHostIds(String prefix, int limit);
+    int countHosts();
     void saveToFile();
     void loadFromFile();
+    <R> R exclusive(Supplier<R> action);
 }
\ No newline at end of file
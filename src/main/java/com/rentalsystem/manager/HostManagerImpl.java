@@ -2,74 +2,150 @@ package com.rentalsystem.manager;
 
 import com.rentalsystem.model.Host;
 import com.rentalsystem.util.FileHandler;
-import java.util.*;
+import com.rentalsystem.util.Logger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 public class HostManagerImpl implements HostManager {
-    private List<Host> hosts;
+    private static final Logger LOG = Logger.getLogger(HostManagerImpl.class);
+
+    private final EntityStore<Host> hosts;
     private FileHandler fileHandler;
+    private final ReferenceIndex references;
+    private final StripedLock locks = new StripedLock();
+    private final TextIndex<Host> search =
+            new TextIndex<>(Host::getId, host -> new String[] {host.getFullName(), host.getContactInformation()});
 
-    public HostManagerImpl(FileHandler fileHandler, List<Host> initialHosts) {
+    public HostManagerImpl(FileHandler fileHandler, ReferenceIndex references, List<Host> initialHosts) {
         this.fileHandler = fileHandler;
-        this.hosts = new ArrayList<>(initialHosts);
-        System.out.println("HostManagerImpl initialized with " + this.hosts.size() + " hosts.");
+        this.references = references;
+        this.hosts = new EntityStore<>(Host::getId, initialHosts, true);
+        hosts.getAll().forEach(references::attach);
+        LOG.debug("HostManagerImpl initialized with " + this.hosts.size() + " hosts.");
     }
 
     @Override
     public boolean addHost(Host host) {
-        if (getHost(host.getId()) != null) {
-            System.out.println("Host with ID " + host.getId() + " already exists.");
-            return false;
-        }
-        hosts.add(host);
-        fileHandler.saveHosts(hosts);
-        return true;
+        return locks.write(host.getId(), () -> {
+            if (!hosts.add(host)) {
+                LOG.debug("Host with ID " + host.getId() + " already exists.");
+                return false;
+            }
+            references.attach(host);
+            search.put(host);
+            fileHandler.persistHost(host);
+            return true;
+        });
+    }
+
+    // Adds every host whose ID is free, then persists them as one batch; returns the ones added
+    @Override
+    public List<Host> addHosts(List<Host> batch) {
+        return locks.writeAll(() -> {
+            List<Host> added = new ArrayList<>(batch.size());
+            for (Host host : batch) {
+                if (hosts.add(host)) {
+                    references.attach(host);
+                    search.put(host);
+                    added.add(host);
+                }
+            }
+            fileHandler.persistHosts(added);
+            return added;
+        });
     }
 
     @Override
     public boolean updateHost(Host host) {
-        Host existingHost = getHost(host.getId());
-        if (existingHost == null) {
-            System.out.println("Host with ID " + host.getId() + " not found.");
-            return false;
-        }
-        int index = hosts.indexOf(existingHost);
-        hosts.set(index, host);
-        fileHandler.saveHosts(hosts);
-        return true;
+        return locks.write(host.getId(), () -> {
+            if (hosts.replace(host) == null) {
+                LOG.debug("Host with ID " + host.getId() + " not found.");
+                return false;
+            }
+            references.attach(host);
+            search.put(host);
+            fileHandler.persistHost(host);
+            return true;
+        });
     }
 
     @Override
     public boolean deleteHost(String hostId) {
-        Host host = getHost(hostId);
-        if (host == null) {
-            System.out.println("Host with ID " + hostId + " not found.");
-            return false;
-        }
-        hosts.remove(host);
-        fileHandler.saveHosts(hosts);
-        return true;
+        return locks.write(hostId, () -> {
+            if (hosts.remove(hostId) == null) {
+                LOG.debug("Host with ID " + hostId + " not found.");
+                return false;
+            }
+            search.remove(hostId);
+            fileHandler.persistHostDeletion(hostId);
+            return true;
+        });
     }
 
     @Override
     public Host getHost(String hostId) {
-        return hosts.stream()
-                .filter(host -> host.getId().equals(hostId))
-                .findFirst()
-                .orElse(null);
+        return hosts.get(hostId);
     }
 
     @Override
     public List<Host> getAllHosts() {
-        return new ArrayList<>(hosts);
+        return hosts.getAll();
+    }
+
+    // Up to limit hosts whose ID starts with the text, then whose name or contact details contain every word of it;
+    // the first search builds the index
+    @Override
+    public List<Host> searchHosts(String text, int limit) {
+        if (!search.isBuilt()) {
+            locks.writeAll(() -> {
+                if (!search.isBuilt()) {
+                    search.build(hosts.getAll());
+                }
+            });
+        }
+        List<String> ids = new ArrayList<>(hosts.keysStartingWith(text.trim(), limit));
+        ids.addAll(search.search(text, limit));
+        Map<String, Host> found = new LinkedHashMap<>();
+        for (String id : ids) {
+            Host host = hosts.get(id);
+            if (host != null && found.size() < limit) {
+                found.putIfAbsent(id, host);
+            }
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    // IDs starting with the prefix, for completion; read from the store's sorted keys
+    @Override
+    public List<String> findHostIds(String prefix, int limit) {
+        return hosts.keysStartingWith(prefix, limit);
+    }
+
+    @Override
+    public int countHosts() {
+        return hosts.size();
     }
 
     @Override
     public void saveToFile() {
-        fileHandler.saveHosts(hosts);
+        fileHandler.saveHosts(hosts.getAll());
     }
 
     @Override
     public void loadFromFile() {
-        hosts = fileHandler.loadHosts();
+        locks.writeAll(() -> {
+            hosts.reset(fileHandler.loadHosts());
+            hosts.getAll().forEach(references::attach);
+            search.invalidate();
+        });
+    }
+
+    // Runs the action with every other writer of this manager locked out; writes spanning managers nest these
+    @Override
+    public <R> R exclusive(Supplier<R> action) {
+        return locks.writeAll(action);
     }
 }
\ No newline at end of file
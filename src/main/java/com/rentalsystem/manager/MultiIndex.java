@@ -0,0 +1,137 @@
+package com.rentalsystem.manager;
+
+import com.rentalsystem.model.References;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Secondary index from a foreign key to the entities that carry it.
+ * Each key owns a bucket of entities keyed by their own ID, so add, remove and re-keying are
+ * constant-time. Buckets are never discarded, which lets model objects hold a live read-only
+ * {@link #view} of their bucket across reloads. Each bucket caches an immutable snapshot of its
+ * entries, so repeated reads between changes share one list and counting never copies.
+ * Reads take no lock; writes lock only the bucket they change.
+ */
+public class MultiIndex<V> {
+    private final Map<String, Bucket<V>> buckets = new ConcurrentHashMap<>();
+    private final Function<V, String> keyExtractor;
+    private final Function<V, String> idExtractor;
+
+    public MultiIndex(Function<V, String> keyExtractor, Function<V, String> idExtractor) {
+        this.keyExtractor = keyExtractor;
+        this.idExtractor = idExtractor;
+    }
+
+    // Entities without a key (e.g. an agreement with no property) are simply not indexed
+    public void add(V value) {
+        String key = keyExtractor.apply(value);
+        if (key != null) {
+            bucket(key).put(idExtractor.apply(value), value);
+        }
+    }
+
+    public void remove(V value) {
+        String key = keyExtractor.apply(value);
+        Bucket<V> bucket = key == null ? null : buckets.get(key);
+        if (bucket != null) {
+            bucket.remove(idExtractor.apply(value));
+        }
+    }
+
+    // Re-indexes a replaced entity; it keeps its position when the key is unchanged
+    public void update(V previous, V current) {
+        String previousKey = keyExtractor.apply(previous);
+        String currentKey = keyExtractor.apply(current);
+        if (previousKey != null && previousKey.equals(currentKey)) {
+            bucket(currentKey).put(idExtractor.apply(current), current);
+        } else {
+            remove(previous);
+            add(current);
+        }
+    }
+
+    // Re-indexes an entity whose key changed through an object it refers to rather than by being replaced
+    public void move(V value, String previousKey) {
+        Bucket<V> bucket = previousKey == null ? null : buckets.get(previousKey);
+        if (bucket != null) {
+            bucket.remove(idExtractor.apply(value));
+        }
+        add(value);
+    }
+
+    // Immutable snapshot of the entities under a key
+    public List<V> find(String key) {
+        Bucket<V> bucket = buckets.get(key);
+        return bucket == null ? Collections.emptyList() : bucket.snapshot();
+    }
+
+    public int count(String key) {
+        Bucket<V> bucket = buckets.get(key);
+        return bucket == null ? 0 : bucket.count();
+    }
+
+    // Live, read-only source for the entities under a key
+    public References<V> view(String key) {
+        return bucket(key);
+    }
+
+    public void clear() {
+        for (Bucket<V> bucket : buckets.values()) {
+            bucket.clear();
+        }
+    }
+
+    private Bucket<V> bucket(String key) {
+        return buckets.computeIfAbsent(key, k -> new Bucket<>());
+    }
+
+    private static final class Bucket<V> implements References<V> {
+        private final Map<String, V> entries = new LinkedHashMap<>();
+        private volatile List<V> snapshot = Collections.emptyList();
+        private volatile int count;
+
+        synchronized void put(String id, V value) {
+            entries.put(id, value);
+            count = entries.size();
+            snapshot = null;
+        }
+
+        synchronized void remove(String id) {
+            if (entries.remove(id) != null) {
+                count = entries.size();
+                snapshot = null;
+            }
+        }
+
+        synchronized void clear() {
+            entries.clear();
+            count = 0;
+            snapshot = Collections.emptyList();
+        }
+
+        // Only the first read after a change takes the lock, to rebuild the snapshot
+        @Override
+        public List<V> snapshot() {
+            List<V> current = snapshot;
+            if (current != null) {
+                return current;
+            }
+            synchronized (this) {
+                if (snapshot == null) {
+                    snapshot = Collections.unmodifiableList(new ArrayList<>(entries.values()));
+                }
+                return snapshot;
+            }
+        }
+
+        @Override
+        public int count() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.rentalsystem.manager;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of query results. The cursor marks the position after the last item; pass it to the
+ * query's {@code after} to fetch the next page. Cursors stay valid while records are added or
+ * removed, so paging never skips or repeats a record that did not move.
+ */
+public final class Page<T> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    Page(List<T> items, String nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    // Null on the last page
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    static String cursor(long key, String id) {
+        return key + ":" + id;
+    }
+
+    static long cursorKey(String cursor) {
+        return Long.parseLong(cursor.substring(0, separator(cursor)));
+    }
+
+    static String cursorId(String cursor) {
+        return cursor.substring(separator(cursor) + 1);
+    }
+
+    private static int separator(String cursor) {
+        int separator = cursor.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return separator;
+    }
+}
@@ -0,0 +1,71 @@
+package com.rentalsystem.manager;
+
+import com.rentalsystem.model.Payment;
+import com.rentalsystem.util.DateUtil;
+import com.rentalsystem.util.PaymentTable;
+import java.util.Date;
+
+/**
+ * Conditions and page size for {@link RentalManager#findPayments}. Results are ordered by payment
+ * date, then ID. The date window is inclusive and answered from the payment-date index in
+ * O(log n + k); an agreement condition narrows the search to that agreement's payments first.
+ */
+public final class PaymentQuery {
+    long fromDay = Long.MIN_VALUE;
+    long toDay = Long.MAX_VALUE;
+    String rentalAgreementId;
+    String paymentMethod;
+    boolean newestFirst;
+    int limit = Integer.MAX_VALUE;
+    String cursor;
+
+    // Either bound may be null for an open window
+    public PaymentQuery paidBetween(Date from, Date to) {
+        this.fromDay = from == null ? Long.MIN_VALUE : DateUtil.toEpochDay(from);
+        this.toDay = to == null ? Long.MAX_VALUE : DateUtil.toEpochDay(to);
+        return this;
+    }
+
+    public PaymentQuery rentalAgreement(String rentalAgreementId) {
+        this.rentalAgreementId = rentalAgreementId;
+        return this;
+    }
+
+    public PaymentQuery method(String paymentMethod) {
+        this.paymentMethod = paymentMethod;
+        return this;
+    }
+
+    public PaymentQuery newestFirst(boolean newestFirst) {
+        this.newestFirst = newestFirst;
+        return this;
+    }
+
+    public PaymentQuery limit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    // Continues from the cursor of a previous page of the same query; null starts from the beginning
+    public PaymentQuery after(String cursor) {
+        this.cursor = cursor;
+        return this;
+    }
+
+    boolean matches(Payment payment) {
+        if (rentalAgreementId != null && !rentalAgreementId.equals(payment.getRentalAgreementId())) {
+            return false;
+        }
+        if (paymentMethod != null && !paymentMethod.equalsIgnoreCase(payment.getPaymentMethod())) {
+            return false;
+        }
+        if (fromDay != Long.MIN_VALUE || toDay != Long.MAX_VALUE) {
+            long day = PaymentTable.epochDay(payment);
+            return day != PaymentTable.NO_DAY && day >= fromDay && day <= toDay;
+        }
+        return true;
+    }
+}
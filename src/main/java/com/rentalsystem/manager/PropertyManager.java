@@ -2,13 +2,20 @@ package com.rentalsystem.manager;
 
 import com.rentalsystem.model.Property;
 import java.util.List;
+import java.util.function.Supplier;
 
 public interface PropertyManager {
     boolean addProperty(Property property);
+    List<Property> addProperties(List<Property> properties);
     boolean updateProperty(Property property);
     boolean deleteProperty(String propertyId);
     Property getProperty(String propertyId);
     List<Property> getAllProperties();
+    List<Property> searchProperties(String text, int limit);
+    List<String> findPropertyIds(String prefix, int limit);
+    int countProperties();
+    List<Property> getPropertiesForHost(String hostId);
     void saveToFile();
     void loadFromFile();
+    <R> R exclusive(Supplier<R> action);
 }
\ No newline at end of file
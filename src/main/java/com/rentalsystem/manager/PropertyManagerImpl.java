@@ -2,74 +2,158 @@ package com.rentalsystem.manager;
 
 import com.rentalsystem.model.Property;
 import com.rentalsystem.util.FileHandler;
-import java.util.*;
+import com.rentalsystem.util.Logger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 public class PropertyManagerImpl implements PropertyManager {
-    private List<Property> properties;
+    private static final Logger LOG = Logger.getLogger(PropertyManagerImpl.class);
+
+    private final EntityStore<Property> properties;
     private FileHandler fileHandler;
+    private final ReferenceIndex references;
+    private final StripedLock locks = new StripedLock();
+    private final TextIndex<Property> search =
+            new TextIndex<>(Property::getId, property -> new String[] {property.getAddress()});
 
-    public PropertyManagerImpl(FileHandler fileHandler, List<Property> initialProperties) {
+    public PropertyManagerImpl(FileHandler fileHandler, ReferenceIndex references, List<Property> initialProperties) {
         this.fileHandler = fileHandler;
-        this.properties = new ArrayList<>(initialProperties);
-        System.out.println("PropertyManagerImpl initialized with " + this.properties.size() + " properties.");
+        this.references = references;
+        this.properties = new EntityStore<>(Property::getId, initialProperties, true);
+        references.resetProperties(properties.getAll());
+        LOG.debug("PropertyManagerImpl initialized with " + this.properties.size() + " properties.");
     }
 
     @Override
     public boolean addProperty(Property property) {
-        if (getProperty(property.getId()) != null) {
-            System.out.println("Property with ID " + property.getId() + " already exists.");
-            return false;
-        }
-        properties.add(property);
-        fileHandler.saveProperties(properties);
-        return true;
+        return locks.write(property.getId(), () -> {
+            if (!properties.add(property)) {
+                LOG.debug("Property with ID " + property.getId() + " already exists.");
+                return false;
+            }
+            references.addProperty(property);
+            search.put(property);
+            fileHandler.persistProperty(property);
+            return true;
+        });
+    }
+
+    // Adds every property whose ID is free, then persists them as one batch; returns the ones added
+    @Override
+    public List<Property> addProperties(List<Property> batch) {
+        return locks.writeAll(() -> {
+            List<Property> added = new ArrayList<>(batch.size());
+            for (Property property : batch) {
+                if (properties.add(property)) {
+                    references.addProperty(property);
+                    search.put(property);
+                    added.add(property);
+                }
+            }
+            fileHandler.persistProperties(added);
+            return added;
+        });
     }
 
     @Override
     public boolean updateProperty(Property property) {
-        Property existingProperty = getProperty(property.getId());
-        if (existingProperty == null) {
-            System.out.println("Property with ID " + property.getId() + " not found.");
-            return false;
-        }
-        int index = properties.indexOf(existingProperty);
-        properties.set(index, property);
-        fileHandler.saveProperties(properties);
-        return true;
+        return locks.write(property.getId(), () -> {
+            Property previous = properties.replace(property);
+            if (previous == null) {
+                LOG.debug("Property with ID " + property.getId() + " not found.");
+                return false;
+            }
+            references.updateProperty(previous, property);
+            search.put(property);
+            fileHandler.persistProperty(property);
+            return true;
+        });
     }
 
     @Override
     public boolean deleteProperty(String propertyId) {
-        Property property = getProperty(propertyId);
-        if (property == null) {
-            System.out.println("Property with ID " + propertyId + " not found.");
-            return false;
-        }
-        properties.remove(property);
-        fileHandler.saveProperties(properties);
-        return true;
+        return locks.write(propertyId, () -> {
+            Property removed = properties.remove(propertyId);
+            if (removed == null) {
+                LOG.debug("Property with ID " + propertyId + " not found.");
+                return false;
+            }
+            references.removeProperty(removed);
+            search.remove(propertyId);
+            fileHandler.persistPropertyDeletion(propertyId);
+            return true;
+        });
     }
 
     @Override
     public Property getProperty(String propertyId) {
-        return properties.stream()
-                .filter(property -> property.getId().equals(propertyId))
-                .findFirst()
-                .orElse(null);
+        return properties.get(propertyId);
     }
 
     @Override
     public List<Property> getAllProperties() {
-        return new ArrayList<>(properties);
+        return properties.getAll();
+    }
+
+    // Up to limit properties whose ID starts with the text, then whose address contain every word of it;
+    // the first search builds the index
+    @Override
+    public List<Property> searchProperties(String text, int limit) {
+        if (!search.isBuilt()) {
+            locks.writeAll(() -> {
+                if (!search.isBuilt()) {
+                    search.build(properties.getAll());
+                }
+            });
+        }
+        List<String> ids = new ArrayList<>(properties.keysStartingWith(text.trim(), limit));
+        ids.addAll(search.search(text, limit));
+        Map<String, Property> found = new LinkedHashMap<>();
+        for (String id : ids) {
+            Property property = properties.get(id);
+            if (property != null && found.size() < limit) {
+                found.putIfAbsent(id, property);
+            }
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    // IDs starting with the prefix, for completion; read from the store's sorted keys
+    @Override
+    public List<String> findPropertyIds(String prefix, int limit) {
+        return properties.keysStartingWith(prefix, limit);
+    }
+
+    @Override
+    public int countProperties() {
+        return properties.size();
+    }
+
+    @Override
+    public List<Property> getPropertiesForHost(String hostId) {
+        return references.getPropertiesForHost(hostId);
     }
 
     @Override
     public void saveToFile() {
-        fileHandler.saveProperties(properties);
+        fileHandler.saveProperties(properties.getAll());
     }
 
     @Override
     public void loadFromFile() {
-        properties = fileHandler.loadProperties();
+        locks.writeAll(() -> {
+            properties.reset(fileHandler.loadProperties());
+            references.resetProperties(properties.getAll());
+            search.invalidate();
+        });
+    }
+
+    // Runs the action with every other writer of this manager locked out; writes spanning managers nest these
+    @Override
+    public <R> R exclusive(Supplier<R> action) {
+        return locks.writeAll(action);
     }
 }
\ No newline at end of file
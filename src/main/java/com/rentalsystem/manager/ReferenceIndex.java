@@ -0,0 +1,158 @@
+package com.rentalsystem.manager;
+
+import com.rentalsystem.model.*;
+import com.rentalsystem.util.PaymentTable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Cross-entity indexes shared by the managers: payments by agreement, agreements by tenant,
+ * property and host, and properties by host (the property's owner ID). Payments themselves are kept
+ * here, in a {@link PaymentTable} whose per-agreement row lists are the payments-by-agreement index.
+ * The managers keep it up to date on add, update and delete, and attach the matching buckets to
+ * each model object so that its back-reference getters never scan. Every change is also applied to
+ * the {@link DashboardAggregates}.
+ */
+public class ReferenceIndex {
+    private final PaymentTable payments = new PaymentTable(true);
+    private final MultiIndex<RentalAgreement> agreementsByTenant =
+            new MultiIndex<>(agreement -> agreement.getMainTenant() == null ? null : agreement.getMainTenant().getId(),
+                    RentalAgreement::getId);
+    private final MultiIndex<RentalAgreement> agreementsByProperty =
+            new MultiIndex<>(agreement -> agreement.getProperty() == null ? null : agreement.getProperty().getId(),
+                    RentalAgreement::getId);
+    private final MultiIndex<RentalAgreement> agreementsByHost =
+            new MultiIndex<>(agreement -> agreement.getProperty() == null ? null : agreement.getProperty().getOwner(),
+                    RentalAgreement::getId);
+    private final MultiIndex<Property> propertiesByHost = new MultiIndex<>(Property::getOwner, Property::getId);
+    private final DashboardAggregates aggregates = new DashboardAggregates();
+
+    public DashboardAggregates getAggregates() {
+        return aggregates;
+    }
+
+    public PaymentTable getPaymentTable() {
+        return payments;
+    }
+
+    public void attach(Tenant tenant) {
+        tenant.attachRentalAgreements(agreementsByTenant.view(tenant.getId()));
+    }
+
+    public void attach(Host host) {
+        host.attachManagedProperties(propertiesByHost.view(host.getId()));
+        host.attachRentalAgreements(agreementsByHost.view(host.getId()));
+    }
+
+    public void attach(Property property) {
+        property.attachRentalAgreements(agreementsByProperty.view(property.getId()));
+    }
+
+    public void addProperty(Property property) {
+        propertiesByHost.add(property);
+        aggregates.propertyChanged(property);
+        attach(property);
+    }
+
+    public void updateProperty(Property previous, Property current) {
+        propertiesByHost.update(previous, current);
+        aggregates.propertyChanged(current);
+        attach(current);
+        // Agreements keep the property object they were created with; point them at the new one, and
+        // move them to the new owner's bucket when the owner changed
+        boolean ownerChanged = !Objects.equals(previous.getOwner(), current.getOwner());
+        for (RentalAgreement agreement : agreementsByProperty.find(current.getId())) {
+            if (agreement.getProperty() != current) {
+                agreement.setProperty(current);
+            }
+            if (ownerChanged) {
+                agreementsByHost.move(agreement, previous.getOwner());
+                aggregates.agreementChanged(agreement);
+            }
+        }
+    }
+
+    public void removeProperty(Property property) {
+        propertiesByHost.remove(property);
+        aggregates.propertyRemoved(property.getId());
+    }
+
+    public void resetProperties(Collection<Property> properties) {
+        propertiesByHost.clear();
+        aggregates.clearProperties();
+        for (Property property : properties) {
+            addProperty(property);
+        }
+    }
+
+    public void addRentalAgreement(RentalAgreement agreement) {
+        agreementsByTenant.add(agreement);
+        agreementsByProperty.add(agreement);
+        agreementsByHost.add(agreement);
+        aggregates.agreementChanged(agreement);
+        agreement.attachPayments(payments.agreementView(agreement.getId()));
+    }
+
+    public void updateRentalAgreement(RentalAgreement previous, RentalAgreement current) {
+        agreementsByTenant.update(previous, current);
+        agreementsByProperty.update(previous, current);
+        agreementsByHost.update(previous, current);
+        aggregates.agreementChanged(current);
+        current.attachPayments(payments.agreementView(current.getId()));
+    }
+
+    public void removeRentalAgreement(RentalAgreement agreement) {
+        agreementsByTenant.remove(agreement);
+        agreementsByProperty.remove(agreement);
+        agreementsByHost.remove(agreement);
+        aggregates.agreementRemoved(agreement.getId());
+    }
+
+    public void resetRentalAgreements(Collection<RentalAgreement> agreements) {
+        agreementsByTenant.clear();
+        agreementsByProperty.clear();
+        agreementsByHost.clear();
+        aggregates.clearRentalAgreements();
+        for (RentalAgreement agreement : agreements) {
+            addRentalAgreement(agreement);
+        }
+    }
+
+    // Stores the payment unless its ID is taken; returns whether it was added
+    public boolean addPayment(Payment payment) {
+        if (!payments.add(payment)) {
+            return false;
+        }
+        aggregates.paymentAdded(payment);
+        return true;
+    }
+
+    public void resetPayments(Collection<Payment> initial) {
+        payments.clear();
+        for (Payment payment : initial) {
+            payments.add(payment);
+        }
+        aggregates.paymentsLoaded(payments);
+    }
+
+    public List<Payment> getPaymentsForRentalAgreement(String agreementId) {
+        return payments.forAgreement(agreementId);
+    }
+
+    public List<RentalAgreement> getRentalAgreementsForTenant(String tenantId) {
+        return agreementsByTenant.find(tenantId);
+    }
+
+    public List<RentalAgreement> getRentalAgreementsForProperty(String propertyId) {
+        return agreementsByProperty.find(propertyId);
+    }
+
+    public List<RentalAgreement> getRentalAgreementsForHost(String hostId) {
+        return agreementsByHost.find(hostId);
+    }
+
+    public List<Property> getPropertiesForHost(String hostId) {
+        return propertiesByHost.find(hostId);
+    }
+}
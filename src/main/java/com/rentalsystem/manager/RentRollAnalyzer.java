@@ -0,0 +1,482 @@
+package com.rentalsystem.manager;
+
+import com.rentalsystem.model.Payment;
+import com.rentalsystem.model.Property;
+import com.rentalsystem.model.RentalAgreement;
+import com.rentalsystem.util.DateUtil;
+import com.rentalsystem.util.PaymentTable;
+import com.rentalsystem.util.Logger;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Rent roll: expected against received rent, arrears, occupancy and revenue per property, host and month.
+ * Rent falls due at the start of every period (DAILY, WEEKLY, FORTNIGHTLY or MONTHLY) from the contract
+ * date; ACTIVE agreements accrue up to the report date, COMPLETED ones up to their last payment and NEW
+ * ones not at all. Payments are received on their payment date, up to the report date.
+ * <p>
+ * The agreements are first laid out as primitive columns grouped by property. A fork-join task splits
+ * the columns at property boundaries; each leaf makes one pass over its agreements and their payments,
+ * fills in the properties it owns and returns its monthly totals, which are merged on the way back up.
+ * Amounts are summed in cents, so the result does not depend on how the work was split.
+ */
+public class RentRollAnalyzer {
+    private static final Logger LOG = Logger.getLogger(RentRollAnalyzer.class);
+    private static final int LEAF_AGREEMENTS = 2048;
+    private static final int NO_DAY = Integer.MIN_VALUE;
+    private static final byte NEW = (byte) RentalAgreement.Status.NEW.ordinal();
+    private static final byte ACTIVE = (byte) RentalAgreement.Status.ACTIVE.ordinal();
+    private static final RentalAgreement.Period[] PERIODS = RentalAgreement.Period.values();
+
+    private final PropertyManager propertyManager;
+    private final RentalManager rentalManager;
+    private final ForkJoinPool pool;
+
+    public RentRollAnalyzer(PropertyManager propertyManager, RentalManager rentalManager) {
+        this(propertyManager, rentalManager, ForkJoinPool.commonPool());
+    }
+
+    public RentRollAnalyzer(PropertyManager propertyManager, RentalManager rentalManager, ForkJoinPool pool) {
+        this.propertyManager = propertyManager;
+        this.rentalManager = rentalManager;
+        this.pool = pool;
+    }
+
+    // Lifetime totals as of the given day, with a monthly breakdown of the last months calendar months
+    public Report analyze(LocalDate asOf, int months) {
+        long start = System.nanoTime();
+        Columns columns = new Columns(propertyManager.getAllProperties(), rentalManager.getAllRentalAgreements());
+        Window window = new Window(asOf, months);
+        Totals totals = new Totals(columns.propertyIds.length);
+        MonthTotals monthTotals = pool.invoke(new Pass(rentalManager, columns, window, totals, 0,
+                columns.propertyIds.length));
+        Report report = new Report(asOf, columns, window, totals, monthTotals, (System.nanoTime() - start) / 1_000_000);
+        LOG.debug(() -> "Analysed " + columns.agreementIds.length + " agreements over " + columns.propertyIds.length
+                + " properties in " + report.getElapsedMillis() + " ms");
+        return report;
+    }
+
+    /** Agreement fields as primitive columns, ordered so each property's agreements are contiguous. */
+    private static final class Columns {
+        final String[] propertyIds;
+        final int[] propertyHost;
+        final String[] hostIds;
+        // Agreements of property p are at [firstAgreement[p], firstAgreement[p + 1])
+        final int[] firstAgreement;
+        final String[] agreementIds;
+        final int[] startDay;
+        final long[] feeCents;
+        final byte[] period;
+        final byte[] status;
+        final int unassigned;
+
+        Columns(List<Property> properties, List<RentalAgreement> agreements) {
+            int propertyCount = properties.size();
+            propertyIds = new String[propertyCount];
+            propertyHost = new int[propertyCount];
+            Map<String, Integer> propertyIndex = new HashMap<>(propertyCount * 2);
+            Map<String, Integer> hostIndex = new LinkedHashMap<>();
+            for (int p = 0; p < propertyCount; p++) {
+                Property property = properties.get(p);
+                propertyIds[p] = property.getId();
+                propertyIndex.put(property.getId(), p);
+                String owner = property.getOwner() == null ? "" : property.getOwner();
+                propertyHost[p] = hostIndex.computeIfAbsent(owner, key -> hostIndex.size());
+            }
+            hostIds = hostIndex.keySet().toArray(new String[0]);
+
+            int[] owner = new int[agreements.size()];
+            firstAgreement = new int[propertyCount + 1];
+            int skipped = 0;
+            for (int i = 0; i < owner.length; i++) {
+                Property property = agreements.get(i).getProperty();
+                Integer p = property == null ? null : propertyIndex.get(property.getId());
+                owner[i] = p == null ? -1 : p;
+                if (p == null) {
+                    skipped++;
+                } else {
+                    firstAgreement[p + 1]++;
+                }
+            }
+            for (int p = 0; p < propertyCount; p++) {
+                firstAgreement[p + 1] += firstAgreement[p];
+            }
+            unassigned = skipped;
+
+            int count = owner.length - skipped;
+            agreementIds = new String[count];
+            startDay = new int[count];
+            feeCents = new long[count];
+            period = new byte[count];
+            status = new byte[count];
+            int[] next = Arrays.copyOf(firstAgreement, propertyCount);
+            for (int i = 0; i < owner.length; i++) {
+                if (owner[i] < 0) {
+                    continue;
+                }
+                RentalAgreement agreement = agreements.get(i);
+                int slot = next[owner[i]]++;
+                agreementIds[slot] = agreement.getId();
+                startDay[slot] = agreement.getContractDate() == null ? NO_DAY
+                        : (int) DateUtil.toEpochDay(agreement.getContractDate());
+                feeCents[slot] = Math.round(agreement.getRentingFee() * 100);
+                period[slot] = (byte) agreement.getPeriod().ordinal();
+                status[slot] = (byte) agreement.getStatus().ordinal();
+            }
+        }
+    }
+
+    /** The report date and the calendar months of the monthly breakdown, the last one ending at the report date. */
+    private static final class Window {
+        final int asOf;
+        final int[] monthStart;
+        final int[] monthEnd;
+        final String[] labels;
+
+        Window(LocalDate asOf, int months) {
+            this.asOf = (int) asOf.toEpochDay();
+            monthStart = new int[months];
+            monthEnd = new int[months];
+            labels = new String[months];
+            YearMonth last = YearMonth.from(asOf);
+            for (int m = 0; m < months; m++) {
+                YearMonth month = last.minusMonths(months - 1 - m);
+                monthStart[m] = (int) month.atDay(1).toEpochDay();
+                monthEnd[m] = (int) Math.min(month.atEndOfMonth().toEpochDay(), this.asOf);
+                labels[m] = month.toString();
+            }
+        }
+
+        int monthOf(int day) {
+            int m = Arrays.binarySearch(monthStart, day);
+            m = m >= 0 ? m : -m - 2;
+            return m >= 0 && day <= monthEnd[m] ? m : -1;
+        }
+    }
+
+    /** Per-property results; each property is written by the one leaf that owns it. */
+    private static final class Totals {
+        final long[] expected;
+        final long[] received;
+        final int[] agreements;
+        final boolean[] occupied;
+
+        Totals(int properties) {
+            expected = new long[properties];
+            received = new long[properties];
+            agreements = new int[properties];
+            occupied = new boolean[properties];
+        }
+    }
+
+    private static final class MonthTotals {
+        final long[] expected;
+        final long[] received;
+        final int[] occupied;
+        final int[] agreements;
+
+        MonthTotals(int months) {
+            expected = new long[months];
+            received = new long[months];
+            occupied = new int[months];
+            agreements = new int[months];
+        }
+
+        MonthTotals add(MonthTotals other) {
+            for (int m = 0; m < expected.length; m++) {
+                expected[m] += other.expected[m];
+                received[m] += other.received[m];
+                occupied[m] += other.occupied[m];
+                agreements[m] += other.agreements[m];
+            }
+            return this;
+        }
+    }
+
+    private static final class Pass extends RecursiveTask<MonthTotals> {
+        private static final long serialVersionUID = 1L;
+
+        private final RentalManager rentalManager;
+        private final Columns columns;
+        private final Window window;
+        private final Totals totals;
+        private final int fromProperty;
+        private final int toProperty;
+
+        Pass(RentalManager rentalManager, Columns columns, Window window, Totals totals, int fromProperty,
+             int toProperty) {
+            this.rentalManager = rentalManager;
+            this.columns = columns;
+            this.window = window;
+            this.totals = totals;
+            this.fromProperty = fromProperty;
+            this.toProperty = toProperty;
+        }
+
+        @Override
+        protected MonthTotals compute() {
+            int[] first = columns.firstAgreement;
+            if (toProperty - fromProperty <= 1 || first[toProperty] - first[fromProperty] <= LEAF_AGREEMENTS) {
+                return scan();
+            }
+            // Split where half of the range's agreements fall on either side
+            int middle = Arrays.binarySearch(first, fromProperty, toProperty,
+                    (first[fromProperty] + first[toProperty]) >>> 1);
+            middle = middle >= 0 ? middle : -middle - 1;
+            middle = Math.max(fromProperty + 1, Math.min(toProperty - 1, middle));
+            Pass left = new Pass(rentalManager, columns, window, totals, fromProperty, middle);
+            Pass right = new Pass(rentalManager, columns, window, totals, middle, toProperty);
+            left.fork();
+            MonthTotals result = right.compute();
+            return result.add(left.join());
+        }
+
+        private MonthTotals scan() {
+            int months = window.monthStart.length;
+            MonthTotals monthTotals = new MonthTotals(months);
+            boolean[] occupiedMonths = new boolean[months];
+            for (int p = fromProperty; p < toProperty; p++) {
+                Arrays.fill(occupiedMonths, false);
+                long expected = 0;
+                long received = 0;
+                boolean occupied = false;
+                for (int a = columns.firstAgreement[p]; a < columns.firstAgreement[p + 1]; a++) {
+                    int lastPaid = NO_DAY;
+                    for (Payment payment : rentalManager.getPaymentsForRentalAgreement(columns.agreementIds[a])) {
+                        long cents = Math.round(payment.getAmount() * 100);
+                        long paid = PaymentTable.epochDay(payment);
+                        if (paid == PaymentTable.NO_DAY) {
+                            received += cents;
+                            continue;
+                        }
+                        int day = (int) paid;
+                        if (day > window.asOf) {
+                            continue;
+                        }
+                        received += cents;
+                        lastPaid = Math.max(lastPaid, day);
+                        int m = window.monthOf(day);
+                        if (m >= 0) {
+                            monthTotals.received[m] += cents;
+                        }
+                    }
+
+                    int start = columns.startDay[a];
+                    int end = accrualEnd(columns.status[a], start, lastPaid);
+                    if (start == NO_DAY || end == NO_DAY || end < start) {
+                        continue;
+                    }
+                    RentalAgreement.Period period = PERIODS[columns.period[a]];
+                    long fee = columns.feeCents[a];
+                    expected += fee * dueCount(start, end, period);
+                    occupied |= columns.status[a] == ACTIVE;
+                    for (int m = 0; m < months; m++) {
+                        if (window.monthEnd[m] < start || window.monthStart[m] > end) {
+                            continue;
+                        }
+                        long due = dueCount(start, Math.min(end, window.monthEnd[m]), period)
+                                - dueCount(start, window.monthStart[m] - 1, period);
+                        monthTotals.expected[m] += fee * due;
+                        monthTotals.agreements[m]++;
+                        occupiedMonths[m] = true;
+                    }
+                }
+                totals.expected[p] = expected;
+                totals.received[p] = received;
+                totals.agreements[p] = columns.firstAgreement[p + 1] - columns.firstAgreement[p];
+                totals.occupied[p] = occupied;
+                for (int m = 0; m < months; m++) {
+                    if (occupiedMonths[m]) {
+                        monthTotals.occupied[m]++;
+                    }
+                }
+            }
+            return monthTotals;
+        }
+
+        private int accrualEnd(byte status, int start, int lastPaid) {
+            if (status == NEW) {
+                return NO_DAY;
+            }
+            if (status == ACTIVE) {
+                return window.asOf;
+            }
+            // A completed agreement ran until its last payment, or for its first period if it was never paid
+            return Math.min(lastPaid == NO_DAY ? start : lastPaid, window.asOf);
+        }
+    }
+
+    // Number of due dates from start up to and including day; monthly dates keep the contract's day of
+    // the month, or the last day of shorter months
+    static long dueCount(int start, int day, RentalAgreement.Period period) {
+        if (day < start) {
+            return 0;
+        }
+        switch (period) {
+            case DAILY:
+                return day - start + 1L;
+            case WEEKLY:
+                return (day - start) / 7 + 1L;
+            case FORTNIGHTLY:
+                return (day - start) / 14 + 1L;
+            default:
+                LocalDate from = LocalDate.ofEpochDay(start);
+                LocalDate to = LocalDate.ofEpochDay(day);
+                long months = (to.getYear() - from.getYear()) * 12L + to.getMonthValue() - from.getMonthValue();
+                if (from.plusMonths(months).isAfter(to)) {
+                    months--;
+                }
+                return months + 1;
+        }
+    }
+
+    /** One row of the rent roll: a property, a host, a month or the whole portfolio. */
+    public static final class Line {
+        private final String key;
+        private final long expectedCents;
+        private final long receivedCents;
+        private final int agreements;
+        private final int occupied;
+        private final int units;
+
+        Line(String key, long expectedCents, long receivedCents, int agreements, int occupied, int units) {
+            this.key = key;
+            this.expectedCents = expectedCents;
+            this.receivedCents = receivedCents;
+            this.agreements = agreements;
+            this.occupied = occupied;
+            this.units = units;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public double getExpected() {
+            return expectedCents / 100.0;
+        }
+
+        public double getReceived() {
+            return receivedCents / 100.0;
+        }
+
+        // Negative when more was received than fell due
+        public double getArrears() {
+            return (expectedCents - receivedCents) / 100.0;
+        }
+
+        public int getAgreements() {
+            return agreements;
+        }
+
+        public int getOccupied() {
+            return occupied;
+        }
+
+        public int getUnits() {
+            return units;
+        }
+
+        public double getOccupancy() {
+            return units == 0 ? 0 : (double) occupied / units;
+        }
+    }
+
+    public static final class Report {
+        private final LocalDate asOf;
+        private final Line total;
+        private final List<Line> properties;
+        private final List<Line> hosts;
+        private final List<Line> months;
+        private final int unassignedAgreements;
+        private final long elapsedMillis;
+
+        Report(LocalDate asOf, Columns columns, Window window, Totals totals, MonthTotals monthTotals,
+               long elapsedMillis) {
+            this.asOf = asOf;
+            this.unassignedAgreements = columns.unassigned;
+            this.elapsedMillis = elapsedMillis;
+
+            int propertyCount = columns.propertyIds.length;
+            int hostCount = columns.hostIds.length;
+            long[] hostExpected = new long[hostCount];
+            long[] hostReceived = new long[hostCount];
+            int[] hostAgreements = new int[hostCount];
+            int[] hostOccupied = new int[hostCount];
+            int[] hostUnits = new int[hostCount];
+            List<Line> propertyLines = new ArrayList<>(propertyCount);
+            long expected = 0;
+            long received = 0;
+            int agreements = 0;
+            int occupied = 0;
+            for (int p = 0; p < propertyCount; p++) {
+                int occupiedUnits = totals.occupied[p] ? 1 : 0;
+                propertyLines.add(new Line(columns.propertyIds[p], totals.expected[p], totals.received[p],
+                        totals.agreements[p], occupiedUnits, 1));
+                int h = columns.propertyHost[p];
+                hostExpected[h] += totals.expected[p];
+                hostReceived[h] += totals.received[p];
+                hostAgreements[h] += totals.agreements[p];
+                hostOccupied[h] += occupiedUnits;
+                hostUnits[h]++;
+                expected += totals.expected[p];
+                received += totals.received[p];
+                agreements += totals.agreements[p];
+                occupied += occupiedUnits;
+            }
+            List<Line> hostLines = new ArrayList<>(hostCount);
+            for (int h = 0; h < hostCount; h++) {
+                hostLines.add(new Line(columns.hostIds[h], hostExpected[h], hostReceived[h], hostAgreements[h],
+                        hostOccupied[h], hostUnits[h]));
+            }
+            List<Line> monthLines = new ArrayList<>(window.labels.length);
+            for (int m = 0; m < window.labels.length; m++) {
+                monthLines.add(new Line(window.labels[m], monthTotals.expected[m], monthTotals.received[m],
+                        monthTotals.agreements[m], monthTotals.occupied[m], propertyCount));
+            }
+            this.total = new Line("Total", expected, received, agreements, occupied, propertyCount);
+            this.properties = Collections.unmodifiableList(propertyLines);
+            this.hosts = Collections.unmodifiableList(hostLines);
+            this.months = Collections.unmodifiableList(monthLines);
+        }
+
+        public LocalDate getAsOf() {
+            return asOf;
+        }
+
+        public Line getTotal() {
+            return total;
+        }
+
+        public List<Line> getProperties() {
+            return properties;
+        }
+
+        public List<Line> getHosts() {
+            return hosts;
+        }
+
+        public List<Line> getMonths() {
+            return months;
+        }
+
+        // Agreements whose property is no longer on file; they are left out of every total
+        public int getUnassignedAgreements() {
+            return unassignedAgreements;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+}
@@ -3,19 +3,32 @@ package com.rentalsystem.manager;
 import com.rentalsystem.model.RentalAgreement;
 import com.rentalsystem.model.Payment;
 import java.util.List;
+import java.util.function.Supplier;
 
 public interface RentalManager {
     boolean addRentalAgreement(RentalAgreement agreement);
+    List<RentalAgreement> addRentalAgreements(List<RentalAgreement> agreements);
     boolean updateRentalAgreement(RentalAgreement agreement);
     boolean deleteRentalAgreement(String agreementId);
     RentalAgreement getRentalAgreement(String agreementId);
     List<RentalAgreement> getAllRentalAgreements();
+    int countRentalAgreements();
     List<RentalAgreement> getSortedRentalAgreements(String sortBy);
+    List<RentalAgreement> getRentalAgreementsForTenant(String tenantId);
+    List<RentalAgreement> getRentalAgreementsForProperty(String propertyId);
+    List<RentalAgreement> getRentalAgreementsForHost(String hostId);
+    Page<RentalAgreement> findRentalAgreements(AgreementQuery query);
+    List<String> findRentalAgreementIds(String prefix, int limit);
     
     boolean addPayment(Payment payment);
+    List<Payment> addPayments(List<Payment> payments);
+    Payment getPayment(String paymentId);
     List<Payment> getPaymentsForRentalAgreement(String rentalAgreementId);
     List<Payment> getAllPayments();
+    Page<Payment> findPayments(PaymentQuery query);
+    int countPayments();
     
     void saveToFile();
     void loadFromFile();
+    <R> R exclusive(Supplier<R> action);
 }
\ No newline at end of file
@@ -1,134 +1,343 @@
 package com.rentalsystem.manager;
 
 import com.rentalsystem.model.*;
+import com.rentalsystem.util.DateUtil;
+import com.rentalsystem.util.PaymentTable;
 import com.rentalsystem.util.FileHandler;
+import com.rentalsystem.util.Logger;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class RentalManagerImpl implements RentalManager {
-    private List<RentalAgreement> rentalAgreements;
-    private List<Payment> payments;
-    private FileHandler fileHandler;  // Add this line
-
-    public RentalManagerImpl(FileHandler fileHandler) {
-        this.fileHandler = fileHandler;  // Add this line
-        Map<String, List<?>> loadedData = fileHandler.loadAllData();
-        this.rentalAgreements = new ArrayList<>((List<RentalAgreement>) loadedData.get("rentalAgreements"));
-        this.payments = new ArrayList<>((List<Payment>) loadedData.get("payments"));
-        
-        // If payments is still null after loading, initialize it as an empty list
-        if (this.payments == null) {
-            this.payments = new ArrayList<>();
-        }
-        
-        System.out.println("RentalManagerImpl initialized with " + this.rentalAgreements.size() + " agreements and " + this.payments.size() + " payments.");
+    private static final Logger LOG = Logger.getLogger(RentalManagerImpl.class);
+
+    private final EntityStore<RentalAgreement> rentalAgreements;
+    // Shared with the ReferenceIndex, which attaches each agreement's payments from it, and with the
+    // FileHandler, which saves from it
+    private final PaymentTable payments;
+    private FileHandler fileHandler;
+    private final ReferenceIndex references;
+    private final StripedLock locks = new StripedLock();
+    // Sorted indexes for ordered listings and range queries; the UI edits fees in place, so those keys are
+    // tracked. Payments are walked in date order by the payment table itself
+    private final SortedIndex<RentalAgreement> agreementsById =
+            new SortedIndex<>(agreement -> 0L, RentalAgreement::getId, false);
+    private final SortedIndex<RentalAgreement> agreementsByContractDate =
+            new SortedIndex<>(RentalManagerImpl::contractDay, RentalAgreement::getId, true);
+    private final SortedIndex<RentalAgreement> agreementsByFee =
+            new SortedIndex<>(agreement -> SortedIndex.sortable(agreement.getRentingFee()), RentalAgreement::getId, true);
+
+    public RentalManagerImpl(FileHandler fileHandler, ReferenceIndex references,
+                             List<RentalAgreement> initialAgreements, List<Payment> initialPayments) {
+        this.fileHandler = fileHandler;
+        this.references = references;
+        this.rentalAgreements = new EntityStore<>(RentalAgreement::getId, initialAgreements);
+        this.payments = references.getPaymentTable();
+        references.resetRentalAgreements(rentalAgreements.getAll());
+        references.resetPayments(initialPayments);
+        fileHandler.sharePayments(payments);
+        resetSortedIndexes();
+
+        LOG.debug("RentalManagerImpl initialized with " + this.rentalAgreements.size() + " agreements and " + this.payments.size() + " payments.");
     }
 
     @Override
     public boolean addRentalAgreement(RentalAgreement agreement) {
-        if (getRentalAgreement(agreement.getId()) != null) {
-            System.out.println("Rental Agreement with ID " + agreement.getId() + " already exists.");
-            return false;
-        }
-        rentalAgreements.add(agreement);
-        fileHandler.saveRentalAgreements(rentalAgreements);
-        return true;
+        return locks.write(agreement.getId(), () -> {
+            if (!rentalAgreements.add(agreement)) {
+                LOG.debug("Rental Agreement with ID " + agreement.getId() + " already exists.");
+                return false;
+            }
+            references.addRentalAgreement(agreement);
+            index(agreement);
+            fileHandler.persistRentalAgreement(agreement);
+            return true;
+        });
+    }
+
+    // Adds every agreement whose ID is free, then persists them as one batch; returns the ones added
+    @Override
+    public List<RentalAgreement> addRentalAgreements(List<RentalAgreement> batch) {
+        return locks.writeAll(() -> {
+            List<RentalAgreement> added = new ArrayList<>(batch.size());
+            for (RentalAgreement agreement : batch) {
+                if (rentalAgreements.add(agreement)) {
+                    references.addRentalAgreement(agreement);
+                    index(agreement);
+                    added.add(agreement);
+                }
+            }
+            fileHandler.persistRentalAgreements(added);
+            return added;
+        });
     }
 
     @Override
     public boolean updateRentalAgreement(RentalAgreement agreement) {
-        RentalAgreement existingAgreement = getRentalAgreement(agreement.getId());
-        if (existingAgreement == null) {
-            System.out.println("Rental Agreement with ID " + agreement.getId() + " not found.");
-            return false;
-        }
-        int index = rentalAgreements.indexOf(existingAgreement);
-        rentalAgreements.set(index, agreement);
-        fileHandler.saveRentalAgreements(rentalAgreements);
-        return true;
+        return locks.write(agreement.getId(), () -> {
+            RentalAgreement previous = rentalAgreements.replace(agreement);
+            if (previous == null) {
+                LOG.debug("Rental Agreement with ID " + agreement.getId() + " not found.");
+                return false;
+            }
+            references.updateRentalAgreement(previous, agreement);
+            index(agreement);
+            fileHandler.persistRentalAgreement(agreement);
+            return true;
+        });
     }
 
     @Override
     public boolean deleteRentalAgreement(String agreementId) {
-        RentalAgreement agreement = getRentalAgreement(agreementId);
-        if (agreement == null) {
-            System.out.println("Rental Agreement with ID " + agreementId + " not found.");
-            return false;
-        }
-        rentalAgreements.remove(agreement);
-        fileHandler.saveRentalAgreements(rentalAgreements);
-        return true;
+        return locks.write(agreementId, () -> {
+            RentalAgreement removed = rentalAgreements.remove(agreementId);
+            if (removed == null) {
+                LOG.debug("Rental Agreement with ID " + agreementId + " not found.");
+                return false;
+            }
+            references.removeRentalAgreement(removed);
+            unindex(removed);
+            fileHandler.persistRentalAgreementDeletion(agreementId);
+            return true;
+        });
     }
 
     @Override
     public RentalAgreement getRentalAgreement(String agreementId) {
-        return rentalAgreements.stream()
-                .filter(agreement -> agreement.getId().equals(agreementId))
-                .findFirst()
-                .orElse(null);
+        return rentalAgreements.get(agreementId);
     }
 
     @Override
     public List<RentalAgreement> getAllRentalAgreements() {
-        return new ArrayList<>(rentalAgreements);
+        return rentalAgreements.getAll();
     }
 
+    @Override
+    public int countRentalAgreements() {
+        return rentalAgreements.size();
+    }
+
+    // Reads the matching sorted index in order; ties on date or fee are ordered by ID
     @Override
     public List<RentalAgreement> getSortedRentalAgreements(String sortBy) {
         switch (sortBy.toLowerCase()) {
             case "id":
-                return rentalAgreements.stream()
-                        .sorted(Comparator.comparing(RentalAgreement::getId))
-                        .collect(Collectors.toList());
+                return agreementsById.walk(false).collect(Collectors.toList());
             case "date":
-                return rentalAgreements.stream()
-                        .sorted(Comparator.comparing(RentalAgreement::getContractDate))
-                        .collect(Collectors.toList());
+                return agreementsByContractDate.walk(false).collect(Collectors.toList());
             case "fee":
-                return rentalAgreements.stream()
-                        .sorted(Comparator.comparing(RentalAgreement::getRentingFee))
-                        .collect(Collectors.toList());
+                return agreementsByFee.walk(false).collect(Collectors.toList());
             default:
                 return getAllRentalAgreements();
         }
     }
 
+    // IDs starting with the prefix, for completion; read from the ID index
+    @Override
+    public List<String> findRentalAgreementIds(String prefix, int limit) {
+        return agreementsById.withIdPrefix(0L, prefix).limit(limit).map(RentalAgreement::getId)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Page<RentalAgreement> findRentalAgreements(AgreementQuery query) {
+        SortedIndex<RentalAgreement> index;
+        long from = Long.MIN_VALUE;
+        long to = Long.MAX_VALUE;
+        switch (query.order) {
+            case CONTRACT_DATE:
+                index = agreementsByContractDate;
+                from = query.fromDay;
+                to = query.toDay;
+                break;
+            case RENTING_FEE:
+                index = agreementsByFee;
+                from = SortedIndex.sortable(query.minFee);
+                to = SortedIndex.sortable(query.maxFee);
+                break;
+            default:
+                index = agreementsById;
+        }
+        Stream<RentalAgreement> candidates;
+        if (query.propertyId != null || query.tenantId != null) {
+            List<RentalAgreement> narrowed = query.propertyId != null
+                    ? references.getRentalAgreementsForProperty(query.propertyId)
+                    : references.getRentalAgreementsForTenant(query.tenantId);
+            candidates = inOrder(narrowed, index::keyOf, RentalAgreement::getId, query.descending, query.cursor);
+        } else {
+            candidates = walk(index, from, to, query.descending, query.cursor);
+        }
+        return page(candidates.filter(query::matches), query.limit, index::keyOf, RentalAgreement::getId);
+    }
+
+    @Override
+    public Page<Payment> findPayments(PaymentQuery query) {
+        Stream<Payment> candidates;
+        if (query.rentalAgreementId != null) {
+            candidates = inOrder(payments.forAgreement(query.rentalAgreementId), PaymentTable::epochDay,
+                    Payment::getId, query.newestFirst, query.cursor);
+        } else if (query.cursor == null) {
+            candidates = payments.walkByDate(query.fromDay, query.toDay, query.newestFirst, 0, null);
+        } else {
+            candidates = payments.walkByDate(query.fromDay, query.toDay, query.newestFirst,
+                    Page.cursorKey(query.cursor), Page.cursorId(query.cursor));
+        }
+        return page(candidates.filter(query::matches), query.limit, PaymentTable::epochDay, Payment::getId);
+    }
+
+    private static <T> Stream<T> walk(SortedIndex<T> index, long from, long to, boolean descending, String cursor) {
+        return cursor == null
+                ? index.walk(from, to, descending, 0, null)
+                : index.walk(from, to, descending, Page.cursorKey(cursor), Page.cursorId(cursor));
+    }
+
+    // Sorts a small candidate list (one tenant's agreements, one agreement's payments) the way the index would
+    private static <T> Stream<T> inOrder(List<T> candidates, ToLongFunction<T> keyOf, Function<T, String> idOf,
+                                         boolean descending, String cursor) {
+        Comparator<T> order = Comparator.comparingLong(keyOf).thenComparing(idOf);
+        if (descending) {
+            order = order.reversed();
+        }
+        Stream<T> sorted = candidates.stream().sorted(order);
+        if (cursor == null) {
+            return sorted;
+        }
+        long afterKey = Page.cursorKey(cursor);
+        String afterId = Page.cursorId(cursor);
+        return sorted.filter(item -> {
+            long key = keyOf.applyAsLong(item);
+            int position = key != afterKey ? Long.compare(key, afterKey) : idOf.apply(item).compareTo(afterId);
+            return descending ? position < 0 : position > 0;
+        });
+    }
+
+    private static <T> Page<T> page(Stream<T> matches, int limit, ToLongFunction<T> keyOf, Function<T, String> idOf) {
+        List<T> items = matches.limit(limit + 1L).collect(Collectors.toList());
+        if (items.size() <= limit) {
+            return new Page<>(items, null);
+        }
+        items = items.subList(0, limit);
+        T last = items.get(limit - 1);
+        return new Page<>(new ArrayList<>(items), Page.cursor(keyOf.applyAsLong(last), idOf.apply(last)));
+    }
+
+    @Override
+    public List<RentalAgreement> getRentalAgreementsForTenant(String tenantId) {
+        return references.getRentalAgreementsForTenant(tenantId);
+    }
+
+    @Override
+    public List<RentalAgreement> getRentalAgreementsForProperty(String propertyId) {
+        return references.getRentalAgreementsForProperty(propertyId);
+    }
+
+    @Override
+    public List<RentalAgreement> getRentalAgreementsForHost(String hostId) {
+        return references.getRentalAgreementsForHost(hostId);
+    }
+
     @Override
     public boolean addPayment(Payment payment) {
-        RentalAgreement agreement = getRentalAgreement(payment.getRentalAgreementId());
-        if (agreement != null) {
-            agreement.addPayment(payment);
+        return locks.write(payment.getRentalAgreementId(), () -> {
+            RentalAgreement agreement = getRentalAgreement(payment.getRentalAgreementId());
+            if (agreement == null) {
+                LOG.debug("Rental Agreement with ID " + payment.getRentalAgreementId() + " not found.");
+                return false;
+            }
+            if (!references.addPayment(payment)) {
+                LOG.debug("Payment with ID " + payment.getId() + " already exists.");
+                return false;
+            }
             agreement.getMainTenant().addPayment(payment);
-            payments.add(payment);
-            fileHandler.savePayments(payments);
+            fileHandler.persistPayment(payment);
             return true;
-        }
-        System.out.println("Rental Agreement with ID " + payment.getRentalAgreementId() + " not found.");
-        return false;
+        });
+    }
+
+    // Adds every payment with a free ID and a known agreement, then persists them as one batch; returns the ones added
+    @Override
+    public List<Payment> addPayments(List<Payment> batch) {
+        return locks.writeAll(() -> {
+            List<Payment> added = new ArrayList<>(batch.size());
+            for (Payment payment : batch) {
+                RentalAgreement agreement = rentalAgreements.get(payment.getRentalAgreementId());
+                if (agreement != null && references.addPayment(payment)) {
+                    agreement.getMainTenant().addPayment(payment);
+                    added.add(payment);
+                }
+            }
+            fileHandler.persistPayments(added);
+            return added;
+        });
+    }
+
+    @Override
+    public Payment getPayment(String paymentId) {
+        return payments.get(paymentId);
     }
 
     @Override
     public List<Payment> getPaymentsForRentalAgreement(String rentalAgreementId) {
-        return payments.stream()
-                .filter(payment -> payment.getRentalAgreementId().equals(rentalAgreementId))
-                .collect(Collectors.toList());
+        return payments.forAgreement(rentalAgreementId);
     }
 
+    // Views over the payment columns, made as the list is read
     @Override
     public List<Payment> getAllPayments() {
-        return new ArrayList<>(payments);
+        return payments.snapshot();
+    }
+
+    @Override
+    public int countPayments() {
+        return payments.size();
+    }
+
+    private void index(RentalAgreement agreement) {
+        agreementsById.put(agreement);
+        agreementsByContractDate.put(agreement);
+        agreementsByFee.put(agreement);
+    }
+
+    private void unindex(RentalAgreement agreement) {
+        agreementsById.remove(agreement);
+        agreementsByContractDate.remove(agreement);
+        agreementsByFee.remove(agreement);
     }
 
-   @Override
+    private void resetSortedIndexes() {
+        agreementsById.reset(rentalAgreements.getAll());
+        agreementsByContractDate.reset(rentalAgreements.getAll());
+        agreementsByFee.reset(rentalAgreements.getAll());
+    }
+
+    private static long contractDay(RentalAgreement agreement) {
+        return agreement.getContractDate() == null ? SortedIndex.NO_KEY : DateUtil.toEpochDay(agreement.getContractDate());
+    }
+
+    @Override
     public void saveToFile() {
-        fileHandler.saveRentalAgreements(rentalAgreements);
-        fileHandler.savePayments(payments);
+        fileHandler.saveRentalAgreements(rentalAgreements.getAll());
+        fileHandler.savePayments(payments.snapshot());
     }
 
     @Override
     public void loadFromFile() {
-        Map<String, List<?>> loadedData = fileHandler.loadAllData();
-        this.rentalAgreements = (List<RentalAgreement>) loadedData.get("rentalAgreements");
-        this.payments = (List<Payment>) loadedData.get("payments");
+        locks.writeAll(() -> {
+            rentalAgreements.reset(fileHandler.loadRentalAgreements());
+            references.resetRentalAgreements(rentalAgreements.getAll());
+            references.resetPayments(fileHandler.loadPayments());
+            fileHandler.sharePayments(payments);
+            resetSortedIndexes();
+        });
+    }
+
+    // Runs the action with every other writer of this manager locked out; writes spanning managers nest these
+    @Override
+    public <R> R exclusive(Supplier<R> action) {
+        return locks.writeAll(action);
     }
 }
@@ -0,0 +1,151 @@
+package com.rentalsystem.manager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Secondary index that keeps entities ordered by a numeric key, then by ID, for range scans and
+ * top-k in O(log n + k). Entities with the same key share a bucket ordered by ID, so the outer map
+ * holds one entry per distinct key (a day, a fee) rather than one per entity. Like {@link MultiIndex},
+ * buckets are never discarded, which keeps concurrent adds and removes on the same key simple.
+ * <p>
+ * An index over entities that are edited in place keeps the key each one was indexed under, so a
+ * re-index can find the old entry; append-only indexes skip that memory.
+ * Reads take no lock; an entity being moved to a new key may briefly show at both positions.
+ */
+public class SortedIndex<V> {
+    /** Key for entities without a value (e.g. no contract date); they sort before everything else. */
+    public static final long NO_KEY = Long.MIN_VALUE;
+
+    private final ConcurrentSkipListMap<Long, ConcurrentSkipListMap<String, V>> buckets = new ConcurrentSkipListMap<>();
+    private final Map<String, Long> indexedKeys;
+    private final ToLongFunction<V> keyExtractor;
+    private final Function<V, String> idExtractor;
+
+    public SortedIndex(ToLongFunction<V> keyExtractor, Function<V, String> idExtractor, boolean editedInPlace) {
+        this.keyExtractor = keyExtractor;
+        this.idExtractor = idExtractor;
+        this.indexedKeys = editedInPlace ? new ConcurrentHashMap<>() : null;
+    }
+
+    // Adds the entity, or moves it if it was indexed under another key
+    public void put(V value) {
+        String id = idExtractor.apply(value);
+        long key = keyExtractor.applyAsLong(value);
+        bucket(key).put(id, value);
+        if (indexedKeys != null) {
+            Long previous = indexedKeys.put(id, key);
+            if (previous != null && previous != key) {
+                bucket(previous).remove(id);
+            }
+        }
+    }
+
+    public void remove(V value) {
+        String id = idExtractor.apply(value);
+        Long key = indexedKeys != null ? indexedKeys.remove(id) : Long.valueOf(keyExtractor.applyAsLong(value));
+        ConcurrentSkipListMap<String, V> bucket = key == null ? null : buckets.get(key);
+        if (bucket != null) {
+            bucket.remove(id);
+        }
+    }
+
+    public void clear() {
+        buckets.values().forEach(ConcurrentSkipListMap::clear);
+        if (indexedKeys != null) {
+            indexedKeys.clear();
+        }
+    }
+
+    // Replaces the contents in bulk: entities are grouped by key and each group sorted once, so the
+    // skip lists are filled in ascending order
+    public void reset(Collection<V> values) {
+        clear();
+        Map<Long, List<V>> grouped = new HashMap<>();
+        for (V value : values) {
+            long key = keyExtractor.applyAsLong(value);
+            grouped.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+            if (indexedKeys != null) {
+                indexedKeys.put(idExtractor.apply(value), key);
+            }
+        }
+        Comparator<V> byId = Comparator.comparing(idExtractor);
+        grouped.forEach((key, group) -> {
+            group.sort(byId);
+            ConcurrentSkipListMap<String, V> bucket = bucket(key);
+            for (V value : group) {
+                bucket.put(idExtractor.apply(value), value);
+            }
+        });
+    }
+
+    // The key the entity is ordered by, which cursors record
+    public long keyOf(V value) {
+        Long key = indexedKeys == null ? null : indexedKeys.get(idExtractor.apply(value));
+        return key != null ? key : keyExtractor.applyAsLong(value);
+    }
+
+    /**
+     * Lazily walks the entities with from <= key <= to in key then ID order (or the reverse), starting
+     * just past the position (afterKey, afterId) when afterId is not null. Only the buckets and entries
+     * actually consumed are visited.
+     */
+    public Stream<V> walk(long from, long to, boolean descending, long afterKey, String afterId) {
+        if (afterId != null) {
+            if (descending ? afterKey < from : afterKey > to) {
+                return Stream.empty();
+            }
+            if (descending) {
+                to = Math.min(to, afterKey);
+            } else {
+                from = Math.max(from, afterKey);
+            }
+        }
+        if (from > to) {
+            return Stream.empty();
+        }
+        NavigableMap<Long, ConcurrentSkipListMap<String, V>> range = buckets.subMap(from, true, to, true);
+        if (descending) {
+            range = range.descendingMap();
+        }
+        long resumeKey = afterKey;
+        return range.entrySet().stream().flatMap(entry -> {
+            NavigableMap<String, V> bucket = descending ? entry.getValue().descendingMap() : entry.getValue();
+            if (afterId != null && entry.getKey() == resumeKey) {
+                bucket = bucket.tailMap(afterId, false);
+            }
+            return bucket.values().stream();
+        });
+    }
+
+    // Entities under the key whose IDs start with the prefix, in ID order
+    public Stream<V> withIdPrefix(long key, String prefix) {
+        ConcurrentSkipListMap<String, V> bucket = buckets.get(key);
+        return bucket == null ? Stream.empty()
+                : bucket.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values().stream();
+    }
+
+    public Stream<V> walk(boolean descending) {
+        return walk(Long.MIN_VALUE, Long.MAX_VALUE, descending, 0, null);
+    }
+
+    private ConcurrentSkipListMap<String, V> bucket(long key) {
+        return buckets.computeIfAbsent(key, k -> new ConcurrentSkipListMap<>());
+    }
+
+    // Maps a double to a long with the same order, so fees and amounts can be keys
+    public static long sortable(double value) {
+        long bits = Double.doubleToLongBits(value == 0.0 ? 0.0 : value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+}
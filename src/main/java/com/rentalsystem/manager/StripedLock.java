@@ -0,0 +1,70 @@
+package com.rentalsystem.manager;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Write locking for the managers. A write locks the stripe its entity ID hashes to, so writes to
+ * different entities rarely contend, while a reload of the whole store locks every writer out.
+ * Reads take no lock at all; the stores and indexes they go through are safe on their own.
+ */
+public class StripedLock {
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final ReentrantLock[] stripes;
+    private final ReentrantReadWriteLock reload = new ReentrantReadWriteLock();
+
+    public StripedLock() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public StripedLock(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    // Runs a write to one entity while holding that entity's stripe
+    public <R> R write(String key, Supplier<R> action) {
+        reload.readLock().lock();
+        try {
+            ReentrantLock stripe = stripeFor(key);
+            stripe.lock();
+            try {
+                return action.get();
+            } finally {
+                stripe.unlock();
+            }
+        } finally {
+            reload.readLock().unlock();
+        }
+    }
+
+    // Runs a write that replaces the whole store, once every in-flight entity write has finished
+    public void writeAll(Runnable action) {
+        reload.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            reload.writeLock().unlock();
+        }
+    }
+
+    // Same as above for bulk writes that report a result
+    public <R> R writeAll(Supplier<R> action) {
+        reload.writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            reload.writeLock().unlock();
+        }
+    }
+
+    private ReentrantLock stripeFor(String key) {
+        int hash = key == null ? 0 : key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+}
@@ -2,13 +2,19 @@ package com.rentalsystem.manager;
 
 import com.rentalsystem.model.Tenant;
 import java.util.List;
+import java.util.function.Supplier;
 
 public interface TenantManager {
     boolean addTenant(Tenant tenant);
+    List<Tenant> addTenants(List<Tenant> tenants);
     boolean updateTenant(Tenant tenant);
     boolean deleteTenant(String tenantId);
     Tenant getTenant(String tenantId);
     List<Tenant> getAllTenants();
+    List<Tenant> searchTenants(String text, int limit);
+    List<String> findTenantIds(String prefix, int limit);
+    int countTenants();
     void saveToFile();
     void loadFromFile();
+    <R> R exclusive(Supplier<R> action);
 }
\ No newline at end of file
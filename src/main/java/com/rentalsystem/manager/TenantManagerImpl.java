@@ -2,73 +2,149 @@ package com.rentalsystem.manager;
 
 import com.rentalsystem.model.Tenant;
 import com.rentalsystem.util.FileHandler;
-import java.util.*;
+import com.rentalsystem.util.Logger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 public class TenantManagerImpl implements TenantManager {
-    private List<Tenant> tenants;
+    private static final Logger LOG = Logger.getLogger(TenantManagerImpl.class);
+
+    private final EntityStore<Tenant> tenants;
     private FileHandler fileHandler;
+    private final ReferenceIndex references;
+    private final StripedLock locks = new StripedLock();
+    private final TextIndex<Tenant> search =
+            new TextIndex<>(Tenant::getId, tenant -> new String[] {tenant.getFullName(), tenant.getContactInformation()});
 
-    public TenantManagerImpl(FileHandler fileHandler, List<Tenant> initialTenants) {
+    public TenantManagerImpl(FileHandler fileHandler, ReferenceIndex references, List<Tenant> initialTenants) {
         this.fileHandler = fileHandler;
-        this.tenants = new ArrayList<>(initialTenants);
+        this.references = references;
+        this.tenants = new EntityStore<>(Tenant::getId, initialTenants, true);
+        tenants.getAll().forEach(references::attach);
     }
 
     @Override
     public boolean addTenant(Tenant tenant) {
-        if (getTenant(tenant.getId()) != null) {
-            System.out.println("Tenant with ID " + tenant.getId() + " already exists.");
-            return false;
-        }
-        tenants.add(tenant);
-        fileHandler.saveTenants(tenants);
-        return true;
+        return locks.write(tenant.getId(), () -> {
+            if (!tenants.add(tenant)) {
+                LOG.debug("Tenant with ID " + tenant.getId() + " already exists.");
+                return false;
+            }
+            references.attach(tenant);
+            search.put(tenant);
+            fileHandler.persistTenant(tenant);
+            return true;
+        });
+    }
+
+    // Adds every tenant whose ID is free, then persists them as one batch; returns the ones added
+    @Override
+    public List<Tenant> addTenants(List<Tenant> batch) {
+        return locks.writeAll(() -> {
+            List<Tenant> added = new ArrayList<>(batch.size());
+            for (Tenant tenant : batch) {
+                if (tenants.add(tenant)) {
+                    references.attach(tenant);
+                    search.put(tenant);
+                    added.add(tenant);
+                }
+            }
+            fileHandler.persistTenants(added);
+            return added;
+        });
     }
 
     @Override
     public boolean updateTenant(Tenant tenant) {
-        Tenant existingTenant = getTenant(tenant.getId());
-        if (existingTenant == null) {
-            System.out.println("Tenant with ID " + tenant.getId() + " not found.");
-            return false;
-        }
-        int index = tenants.indexOf(existingTenant);
-        tenants.set(index, tenant);
-        fileHandler.saveTenants(tenants);
-        return true;
+        return locks.write(tenant.getId(), () -> {
+            if (tenants.replace(tenant) == null) {
+                LOG.debug("Tenant with ID " + tenant.getId() + " not found.");
+                return false;
+            }
+            references.attach(tenant);
+            search.put(tenant);
+            fileHandler.persistTenant(tenant);
+            return true;
+        });
     }
 
     @Override
     public boolean deleteTenant(String tenantId) {
-        Tenant tenant = getTenant(tenantId);
-        if (tenant == null) {
-            System.out.println("Tenant with ID " + tenantId + " not found.");
-            return false;
-        }
-        tenants.remove(tenant);
-        fileHandler.saveTenants(tenants);
-        return true;
+        return locks.write(tenantId, () -> {
+            if (tenants.remove(tenantId) == null) {
+                LOG.debug("Tenant with ID " + tenantId + " not found.");
+                return false;
+            }
+            search.remove(tenantId);
+            fileHandler.persistTenantDeletion(tenantId);
+            return true;
+        });
     }
 
     @Override
     public Tenant getTenant(String tenantId) {
-        return tenants.stream()
-                .filter(tenant -> tenant.getId().equals(tenantId))
-                .findFirst()
-                .orElse(null);
+        return tenants.get(tenantId);
     }
 
     @Override
     public List<Tenant> getAllTenants() {
-        return new ArrayList<>(tenants);
+        return tenants.getAll();
+    }
+
+    // Up to limit tenants whose ID starts with the text, then whose name or contact details contain every word of it;
+    // the first search builds the index
+    @Override
+    public List<Tenant> searchTenants(String text, int limit) {
+        if (!search.isBuilt()) {
+            locks.writeAll(() -> {
+                if (!search.isBuilt()) {
+                    search.build(tenants.getAll());
+                }
+            });
+        }
+        List<String> ids = new ArrayList<>(tenants.keysStartingWith(text.trim(), limit));
+        ids.addAll(search.search(text, limit));
+        Map<String, Tenant> found = new LinkedHashMap<>();
+        for (String id : ids) {
+            Tenant tenant = tenants.get(id);
+            if (tenant != null && found.size() < limit) {
+                found.putIfAbsent(id, tenant);
+            }
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    // IDs starting with the prefix, for completion; read from the store's sorted keys
+    @Override
+    public List<String> findTenantIds(String prefix, int limit) {
+        return tenants.keysStartingWith(prefix, limit);
+    }
+
+    @Override
+    public int countTenants() {
+        return tenants.size();
     }
 
     @Override
     public void saveToFile() {
-        fileHandler.saveTenants(tenants);
+        fileHandler.saveTenants(tenants.getAll());
     }
 
     @Override
     public void loadFromFile() {
-        tenants = fileHandler.loadTenants();
+        locks.writeAll(() -> {
+            tenants.reset(fileHandler.loadTenants());
+            tenants.getAll().forEach(references::attach);
+            search.invalidate();
+        });
+    }
+
+    // Runs the action with every other writer of this manager locked out; writes spanning managers nest these
+    @Override
+    public <R> R exclusive(Supplier<R> action) {
+        return locks.writeAll(action);
     }
 }
\ No newline at end of file
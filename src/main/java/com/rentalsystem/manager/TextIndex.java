@@ -0,0 +1,288 @@
+package com.rentalsystem.manager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+
+/**
+ * Inverted index for finding entities by the words in their text fields (names, addresses, contact
+ * details). Text is split into lower-case words, runs of letters and digits. A search term matches a
+ * word it starts, and an alphabetic term of three letters or more also matches a word it occurs
+ * inside, so "smi" finds "Smith" and "ain" finds "Main St". Every term has to match; the term with
+ * the fewest matches drives the search and the others are checked against each candidate's text.
+ * <p>
+ * Postings are "word NUL id" entries in one sorted set, so a prefix is a range scan and there is no
+ * per-word overhead for the many words that occur once (e-mail addresses, phone numbers). Infix
+ * matches go through a trigram index over the alphabetic vocabulary rather than over postings, which
+ * keeps it small; a word leaves it with its last posting. Like the other indexes, the text each entity was indexed under is remembered, so
+ * entities edited in place are still removed from their old words.
+ * <p>
+ * The index is built on first use ({@link #build}); until then {@link #put} and {@link #remove} do
+ * nothing. Callers serialise writes per ID, and build while holding every write lock.
+ */
+public class TextIndex<V> {
+    private static final char SEPARATOR = '\0';
+    private static final int GRAM = 3;
+    // Entries counted per term when choosing which term drives a search
+    private static final int ESTIMATE_LIMIT = 1024;
+
+    private final ConcurrentSkipListSet<String> postings = new ConcurrentSkipListSet<>();
+    private final Map<String, Set<String>> wordsByTrigram = new ConcurrentHashMap<>();
+    private final Map<String, String[]> indexedText = new ConcurrentHashMap<>();
+    private final Function<V, String> idExtractor;
+    private final Function<V, String[]> textExtractor;
+    private volatile boolean built;
+
+    public TextIndex(Function<V, String> idExtractor, Function<V, String[]> textExtractor) {
+        this.idExtractor = idExtractor;
+        this.textExtractor = textExtractor;
+    }
+
+    public boolean isBuilt() {
+        return built;
+    }
+
+    // Postings are collected and sorted first, so the skip list is filled in ascending order
+    public void build(Collection<V> values) {
+        clear();
+        List<String> entries = new ArrayList<>();
+        for (V value : values) {
+            index(value, entries);
+        }
+        Collections.sort(entries);
+        postings.addAll(entries);
+        built = true;
+    }
+
+    // Drops the contents; the next search builds the index again
+    public void invalidate() {
+        built = false;
+        clear();
+    }
+
+    // Adds the entity, or re-indexes it under its current text
+    public void put(V value) {
+        if (!built) {
+            return;
+        }
+        remove(idExtractor.apply(value));
+        index(value, postings);
+    }
+
+    public void remove(String id) {
+        if (!built) {
+            return;
+        }
+        String[] text = indexedText.remove(id);
+        if (text != null) {
+            for (String word : words(text)) {
+                postings.remove(word + SEPARATOR + id);
+                if (isAlphabetic(word) && !hasPostings(word)) {
+                    forget(word);
+                }
+            }
+        }
+    }
+
+    // Number of trigrams in the infix index
+    int countTrigrams() {
+        return wordsByTrigram.size();
+    }
+
+    /**
+     * IDs of up to limit entities whose text matches every word of the query, ordered by the matching
+     * word of the driving term, then by ID. Costs O(log n) per term plus the candidates examined.
+     */
+    public List<String> search(String query, int limit) {
+        List<String> terms = new ArrayList<>(words(query));
+        if (terms.isEmpty() || limit < 1) {
+            return Collections.emptyList();
+        }
+        String driver = null;
+        List<NavigableSet<String>> driverRanges = null;
+        long fewest = Long.MAX_VALUE;
+        for (String term : terms) {
+            List<NavigableSet<String>> ranges = matches(term);
+            long estimate = count(ranges, Math.min(fewest, ESTIMATE_LIMIT));
+            if (estimate < fewest) {
+                fewest = estimate;
+                driver = term;
+                driverRanges = ranges;
+            }
+        }
+        terms.remove(driver);
+        Set<String> found = new LinkedHashSet<>();
+        for (NavigableSet<String> range : driverRanges) {
+            for (String entry : range) {
+                String id = entry.substring(entry.indexOf(SEPARATOR) + 1);
+                if (!found.contains(id) && matchesAll(indexedText.get(id), terms)) {
+                    found.add(id);
+                    if (found.size() >= limit) {
+                        return new ArrayList<>(found);
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(found);
+    }
+
+    private void index(V value, Collection<String> entries) {
+        String id = idExtractor.apply(value);
+        String[] text = textExtractor.apply(value);
+        indexedText.put(id, text);
+        for (String word : words(text)) {
+            // The posting goes in before the trigrams, which forget relies on
+            entries.add(word + SEPARATOR + id);
+            if (isAlphabetic(word)) {
+                addTrigrams(word);
+            }
+        }
+    }
+
+    private void addTrigrams(String word) {
+        for (int i = 0; i + GRAM <= word.length(); i++) {
+            wordsByTrigram.compute(word.substring(i, i + GRAM), (gram, words) -> {
+                Set<String> updated = words == null ? ConcurrentHashMap.newKeySet() : words;
+                updated.add(word);
+                return updated;
+            });
+        }
+    }
+
+    // Takes a word no entity has any more out of its trigrams. Another ID may be indexed under the word
+    // meanwhile; its posting goes in before its trigrams, so checking again afterwards catches it
+    private void forget(String word) {
+        for (int i = 0; i + GRAM <= word.length(); i++) {
+            wordsByTrigram.computeIfPresent(word.substring(i, i + GRAM), (gram, words) -> {
+                words.remove(word);
+                return words.isEmpty() ? null : words;
+            });
+        }
+        if (hasPostings(word)) {
+            addTrigrams(word);
+        }
+    }
+
+    private boolean hasPostings(String word) {
+        String next = postings.ceiling(word + SEPARATOR);
+        return next != null && next.startsWith(word + SEPARATOR);
+    }
+
+    private void clear() {
+        postings.clear();
+        wordsByTrigram.clear();
+        indexedText.clear();
+    }
+
+    // Postings of the words starting with the term, then of each word containing it further in. Ranges
+    // are walked directly rather than through a flat-mapped stream, which would buffer a whole range.
+    private List<NavigableSet<String>> matches(String term) {
+        List<NavigableSet<String>> ranges = new ArrayList<>();
+        ranges.add(range(term, term + Character.MAX_VALUE));
+        if (!infixable(term)) {
+            return ranges;
+        }
+        Set<String> candidates = null;
+        for (int i = 0; i + GRAM <= term.length(); i++) {
+            Set<String> words = wordsByTrigram.get(term.substring(i, i + GRAM));
+            if (words == null) {
+                return ranges;
+            }
+            if (candidates == null || words.size() < candidates.size()) {
+                candidates = words;
+            }
+        }
+        List<String> infixed = new ArrayList<>();
+        for (String word : candidates) {
+            if (!word.startsWith(term) && word.contains(term)) {
+                infixed.add(word);
+            }
+        }
+        Collections.sort(infixed);
+        for (String word : infixed) {
+            ranges.add(range(word + SEPARATOR, word + (char) (SEPARATOR + 1)));
+        }
+        return ranges;
+    }
+
+    private static long count(List<NavigableSet<String>> ranges, long limit) {
+        long count = 0;
+        for (NavigableSet<String> range : ranges) {
+            for (Iterator<String> entries = range.iterator(); entries.hasNext() && count < limit; entries.next()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private NavigableSet<String> range(String from, String to) {
+        return postings.subSet(from, true, to, false);
+    }
+
+    private static boolean matchesAll(String[] text, List<String> terms) {
+        if (text == null) {
+            return false;
+        }
+        if (terms.isEmpty()) {
+            return true;
+        }
+        Set<String> words = words(text);
+        for (String term : terms) {
+            boolean infixable = infixable(term);
+            boolean matched = false;
+            for (String word : words) {
+                if (word.startsWith(term) || infixable && isAlphabetic(word) && word.contains(term)) {
+                    matched = true;
+                    break;
+                }
+            }
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> words(String... text) {
+        Set<String> words = new LinkedHashSet<>();
+        for (String field : text) {
+            if (field == null) {
+                continue;
+            }
+            int start = -1;
+            for (int i = 0; i <= field.length(); i++) {
+                boolean wordChar = i < field.length() && Character.isLetterOrDigit(field.charAt(i));
+                if (wordChar && start < 0) {
+                    start = i;
+                } else if (!wordChar && start >= 0) {
+                    words.add(field.substring(start, i).toLowerCase(Locale.ROOT));
+                    start = -1;
+                }
+            }
+        }
+        return words;
+    }
+
+    private static boolean infixable(String term) {
+        return term.length() >= GRAM && isAlphabetic(term);
+    }
+
+    private static boolean isAlphabetic(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (!Character.isLetter(word.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
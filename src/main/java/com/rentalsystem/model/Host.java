@@ -6,31 +6,36 @@ import java.util.Date;
 import java.util.List;
 
 public class Host extends Person {
-    private List<Property> managedProperties;
+    private References<Property> managedProperties;
     private List<String> cooperatingOwners;
-    private List<RentalAgreement> rentalAgreements;
+    private References<RentalAgreement> rentalAgreements;
 
     public Host(String id, String fullName, Date dateOfBirth, String contactInformation) {
         super(id, fullName, dateOfBirth, contactInformation);
-        this.managedProperties = new ArrayList<>();
+        this.managedProperties = new References.Local<>();
         this.cooperatingOwners = new ArrayList<>();
-        this.rentalAgreements = new ArrayList<>();
-    }
-
-    public void addManagedProperty(Property property) {
-        managedProperties.add(property);
+        this.rentalAgreements = new References.Local<>();
     }
 
     public void addCooperatingOwner(String owner) {
         cooperatingOwners.add(owner);
     }
 
-    public void addRentalAgreement(RentalAgreement agreement) {
-        rentalAgreements.add(agreement);
+    // Properties and agreements come from the ReferenceIndex, keyed by the properties' owner
+    public void attachManagedProperties(References<Property> properties) {
+        this.managedProperties = properties;
+    }
+
+    public void attachRentalAgreements(References<RentalAgreement> agreements) {
+        this.rentalAgreements = agreements;
     }
 
     public List<Property> getManagedProperties() {
-        return managedProperties;
+        return managedProperties.snapshot();
+    }
+
+    public int countManagedProperties() {
+        return managedProperties.count();
     }
 
     public List<String> getCooperatingOwners() {
@@ -38,7 +43,11 @@ public class Host extends Person {
     }
 
     public List<RentalAgreement> getRentalAgreements() {
-        return rentalAgreements;
+        return rentalAgreements.snapshot();
+    }
+
+    public int countRentalAgreements() {
+        return rentalAgreements.count();
     }
 
     @Override
@@ -48,9 +57,9 @@ public class Host extends Person {
                 ", fullName='" + getFullName() + '\'' +
                 ", dateOfBirth=" + getDateOfBirth() +
                 ", contactInformation='" + getContactInformation() + '\'' +
-                ", managedProperties=" + managedProperties.size() +
+                ", managedProperties=" + managedProperties.count() +
                 ", cooperatingOwners=" + cooperatingOwners.size() +
-                ", rentalAgreements=" + rentalAgreements.size() +
+                ", rentalAgreements=" + rentalAgreements.count() +
                 '}';
     }
 }
\ No newline at end of file
@@ -60,11 +60,11 @@ public class Payment {
     @Override
     public String toString() {
         return "Payment{" +
-                "id='" + id + '\'' +
-                ", amount=" + amount +
-                ", paymentDate=" + paymentDate +
-                ", paymentMethod='" + paymentMethod + '\'' +
-                ", rentalAgreementId='" + rentalAgreementId + '\'' +
+                "id='" + getId() + '\'' +
+                ", amount=" + getAmount() +
+                ", paymentDate=" + getPaymentDate() +
+                ", paymentMethod='" + getPaymentMethod() + '\'' +
+                ", rentalAgreementId='" + getRentalAgreementId() + '\'' +
                 '}';
     }
 }
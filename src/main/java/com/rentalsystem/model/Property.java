@@ -14,7 +14,7 @@ public class Property {
     private Status status;
     private String owner;
     private List<Host> hosts;
-    private List<RentalAgreement> rentalAgreements; // Add this line
+    private References<RentalAgreement> rentalAgreements;
 
     public Property(String id, String address, double price, Status status, String owner) {
         this.id = id;
@@ -23,21 +23,25 @@ public class Property {
         this.status = status;
         this.owner = owner;
         this.hosts = new ArrayList<>();
-        this.rentalAgreements = new ArrayList<>(); // Initialize the list
+        this.rentalAgreements = new References.Local<>();
     }
 
     public void addHost(Host host) {
         hosts.add(host);
     }
 
-    // Add this method
-    public void addRentalAgreement(RentalAgreement agreement) {
-        rentalAgreements.add(agreement);
+    // Agreements come from the ReferenceIndex
+    public void attachRentalAgreements(References<RentalAgreement> agreements) {
+        this.rentalAgreements = agreements;
     }
 
     // Add this method
     public List<RentalAgreement> getRentalAgreements() {
-        return new ArrayList<>(rentalAgreements);
+        return rentalAgreements.snapshot();
+    }
+
+    public int countRentalAgreements() {
+        return rentalAgreements.count();
     }
 
     // Existing getters and setters...
@@ -95,7 +99,7 @@ public class Property {
                 ", status=" + status +
                 ", owner='" + owner + '\'' +
                 ", hosts=" + hosts.size() +
-                ", rentalAgreements=" + rentalAgreements.size() +
+                ", rentalAgreements=" + rentalAgreements.count() +
                 '}';
     }
 }
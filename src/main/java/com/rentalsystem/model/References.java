@@ -0,0 +1,51 @@
+package com.rentalsystem.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read side of a model object's back-references, such as a tenant's agreements or an agreement's payments.
+ * Reads return an immutable snapshot that is shared until the next change, so callers can iterate it
+ * while entries are added elsewhere and counting never copies.
+ */
+public interface References<T> {
+    List<T> snapshot();
+
+    int count();
+
+    /**
+     * Entries owned by the model object itself, and the empty source of an object no ReferenceIndex has
+     * attached yet.
+     */
+    final class Local<T> implements References<T> {
+        private final List<T> entries = new ArrayList<>();
+        private volatile List<T> snapshot = Collections.emptyList();
+        private volatile int count;
+
+        public synchronized void add(T entry) {
+            entries.add(entry);
+            count = entries.size();
+            snapshot = null;
+        }
+
+        @Override
+        public List<T> snapshot() {
+            List<T> current = snapshot;
+            if (current != null) {
+                return current;
+            }
+            synchronized (this) {
+                if (snapshot == null) {
+                    snapshot = Collections.unmodifiableList(new ArrayList<>(entries));
+                }
+                return snapshot;
+            }
+        }
+
+        @Override
+        public int count() {
+            return count;
+        }
+    }
+}
@@ -25,7 +25,7 @@ public class RentalAgreement {
     private Date contractDate;
     private double rentingFee;
     private Status status;
-    private List<Payment> payments = new ArrayList<>();
+    private References<Payment> payments = new References.Local<>();
 
 
     public RentalAgreement(String id, Tenant mainTenant, Property property, Period period,
@@ -111,12 +111,17 @@ public class RentalAgreement {
         this.rentingFee = rentingFee;
     }
 
-    public void addPayment(Payment payment) {
-        payments.add(payment);
+    public List<Payment> getPayments() {
+        return payments.snapshot();
     }
 
-    public List<Payment> getPayments() {
-        return new ArrayList<>(payments);
+    public int countPayments() {
+        return payments.count();
+    }
+
+    // Payments come from the ReferenceIndex's payment table
+    public void attachPayments(References<Payment> payments) {
+        this.payments = payments;
     }
 
     public Status getStatus() {
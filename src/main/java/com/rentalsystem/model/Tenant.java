@@ -1,25 +1,29 @@
 package com.rentalsystem.model;
 
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
 public class Tenant extends Person {
-    private List<RentalAgreement> rentalAgreements;
-    private List<Payment> paymentTransactions;
+    private References<RentalAgreement> rentalAgreements;
+    private final References.Local<Payment> paymentTransactions;
 
     public Tenant(String id, String fullName, Date dateOfBirth, String contactInformation) {
         super(id, fullName, dateOfBirth, contactInformation);
-        this.rentalAgreements = new ArrayList<>();
-        this.paymentTransactions = new ArrayList<>();
+        this.rentalAgreements = new References.Local<>();
+        this.paymentTransactions = new References.Local<>();
     }
 
-    public void addRentalAgreement(RentalAgreement agreement) {
-        rentalAgreements.add(agreement);
+    // Agreements come from the ReferenceIndex, which adds and removes them as the RentalManager changes
+    public void attachRentalAgreements(References<RentalAgreement> agreements) {
+        this.rentalAgreements = agreements;
     }
 
     public List<RentalAgreement> getRentalAgreements() {
-        return new ArrayList<>(rentalAgreements);
+        return rentalAgreements.snapshot();
+    }
+
+    public int countRentalAgreements() {
+        return rentalAgreements.count();
     }
 
     public void addPayment(Payment payment) {
@@ -27,7 +31,11 @@ public class Tenant extends Person {
     }
 
     public List<Payment> getPaymentTransactions() {
-        return new ArrayList<>(paymentTransactions);
+        return paymentTransactions.snapshot();
+    }
+
+    public int countPaymentTransactions() {
+        return paymentTransactions.count();
     }
 
     @Override
@@ -37,8 +45,8 @@ public class Tenant extends Person {
                 ", fullName='" + getFullName() + '\'' +
                 ", dateOfBirth=" + getDateOfBirth() +
                 ", contactInformation='" + getContactInformation() + '\'' +
-                ", rentalAgreements=" + rentalAgreements.size() +
-                ", paymentTransactions=" + paymentTransactions.size() +
+                ", rentalAgreements=" + rentalAgreements.count() +
+                ", paymentTransactions=" + paymentTransactions.count() +
                 '}';
     }
 }
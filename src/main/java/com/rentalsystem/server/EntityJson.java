@@ -0,0 +1,210 @@
+package com.rentalsystem.server;
+
+import com.rentalsystem.manager.PropertyManager;
+import com.rentalsystem.manager.TenantManager;
+import com.rentalsystem.model.*;
+import com.rentalsystem.util.DateUtil;
+import com.rentalsystem.util.InputValidator;
+import com.rentalsystem.util.Json;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * JSON shape of each model type. Back-references are reported as counts rather than nested lists;
+ * the related records have their own endpoints. Parsing applies the {@link InputValidator} rules and
+ * throws IllegalArgumentException for missing or malformed fields, which the server turns into a 400
+ * response.
+ */
+final class EntityJson {
+    private EntityJson() {
+    }
+
+    static StringBuilder append(StringBuilder sb, Object entity) {
+        if (entity instanceof Tenant) {
+            return appendTenant(sb, (Tenant) entity);
+        } else if (entity instanceof Host) {
+            return appendHost(sb, (Host) entity);
+        } else if (entity instanceof Property) {
+            return appendProperty(sb, (Property) entity);
+        } else if (entity instanceof RentalAgreement) {
+            return appendRentalAgreement(sb, (RentalAgreement) entity);
+        } else if (entity instanceof Payment) {
+            return appendPayment(sb, (Payment) entity);
+        }
+        throw new IllegalArgumentException("No JSON mapping for " + entity.getClass().getSimpleName());
+    }
+
+    static StringBuilder appendTenant(StringBuilder sb, Tenant tenant) {
+        appendPerson(sb, tenant);
+        sb.append(",\"rentalAgreements\":").append(tenant.countRentalAgreements());
+        sb.append(",\"paymentTransactions\":").append(tenant.countPaymentTransactions());
+        return sb.append('}');
+    }
+
+    static StringBuilder appendHost(StringBuilder sb, Host host) {
+        appendPerson(sb, host);
+        sb.append(",\"managedProperties\":").append(host.countManagedProperties());
+        sb.append(",\"rentalAgreements\":").append(host.countRentalAgreements());
+        return sb.append('}');
+    }
+
+    static StringBuilder appendProperty(StringBuilder sb, Property property) {
+        field(sb.append('{'), "id", property.getId());
+        field(sb.append(','), "address", property.getAddress());
+        sb.append(",\"price\":").append(property.getPrice());
+        field(sb.append(','), "status", String.valueOf(property.getStatus()));
+        field(sb.append(','), "owner", property.getOwner());
+        if (property instanceof ResidentialProperty) {
+            ResidentialProperty residential = (ResidentialProperty) property;
+            sb.append(",\"type\":\"RESIDENTIAL\"");
+            sb.append(",\"numberOfBedrooms\":").append(residential.getNumberOfBedrooms());
+            sb.append(",\"hasGarden\":").append(residential.isHasGarden());
+            sb.append(",\"petFriendly\":").append(residential.isPetFriendly());
+        } else if (property instanceof CommercialProperty) {
+            CommercialProperty commercial = (CommercialProperty) property;
+            sb.append(",\"type\":\"COMMERCIAL\"");
+            field(sb.append(','), "businessType", commercial.getBusinessType());
+            sb.append(",\"parkingSpaces\":").append(commercial.getParkingSpaces());
+            sb.append(",\"squareFootage\":").append(commercial.getSquareFootage());
+        }
+        sb.append(",\"rentalAgreements\":").append(property.countRentalAgreements());
+        return sb.append('}');
+    }
+
+    static StringBuilder appendRentalAgreement(StringBuilder sb, RentalAgreement agreement) {
+        field(sb.append('{'), "id", agreement.getId());
+        field(sb.append(','), "tenantId", agreement.getMainTenant() == null ? null : agreement.getMainTenant().getId());
+        field(sb.append(','), "propertyId", agreement.getProperty() == null ? null : agreement.getProperty().getId());
+        field(sb.append(','), "period", String.valueOf(agreement.getPeriod()));
+        field(sb.append(','), "contractDate", DateUtil.formatDate(agreement.getContractDate()));
+        sb.append(",\"rentingFee\":").append(agreement.getRentingFee());
+        field(sb.append(','), "status", String.valueOf(agreement.getStatus()));
+        sb.append(",\"payments\":").append(agreement.countPayments());
+        return sb.append('}');
+    }
+
+    static StringBuilder appendPayment(StringBuilder sb, Payment payment) {
+        field(sb.append('{'), "id", payment.getId());
+        sb.append(",\"amount\":").append(payment.getAmount());
+        field(sb.append(','), "paymentDate", DateUtil.formatDate(payment.getPaymentDate()));
+        field(sb.append(','), "paymentMethod", payment.getPaymentMethod());
+        field(sb.append(','), "rentalAgreementId", payment.getRentalAgreementId());
+        return sb.append('}');
+    }
+
+    static Tenant parseTenant(Map<String, Object> json) {
+        return new Tenant(id(json, "id"), text(json, "fullName"), date(json, "dateOfBirth"),
+                contactInformation(json));
+    }
+
+    static Host parseHost(Map<String, Object> json) {
+        return new Host(id(json, "id"), text(json, "fullName"), date(json, "dateOfBirth"),
+                contactInformation(json));
+    }
+
+    static Property parseProperty(Map<String, Object> json) {
+        String type = text(json, "type");
+        String id = id(json, "id");
+        String address = text(json, "address");
+        double price = number(json, "price");
+        Property.Status status = constant(Property.Status.class, json, "status");
+        String owner = id(json, "owner");
+        if (type.equalsIgnoreCase("RESIDENTIAL")) {
+            return new ResidentialProperty(id, address, price, status, owner, (int) number(json, "numberOfBedrooms"),
+                    flag(json, "hasGarden"), flag(json, "petFriendly"));
+        } else if (type.equalsIgnoreCase("COMMERCIAL")) {
+            return new CommercialProperty(id, address, price, status, owner, text(json, "businessType"),
+                    (int) number(json, "parkingSpaces"), number(json, "squareFootage"));
+        }
+        throw new IllegalArgumentException("type must be RESIDENTIAL or COMMERCIAL");
+    }
+
+    // The tenant and property are resolved against the managers, as the console does
+    static RentalAgreement parseRentalAgreement(Map<String, Object> json, TenantManager tenants,
+                                                PropertyManager properties) {
+        Tenant tenant = tenants.getTenant(id(json, "tenantId"));
+        if (tenant == null) {
+            throw new IllegalArgumentException("Unknown tenant " + json.get("tenantId"));
+        }
+        Property property = properties.getProperty(id(json, "propertyId"));
+        if (property == null) {
+            throw new IllegalArgumentException("Unknown property " + json.get("propertyId"));
+        }
+        return new RentalAgreement(id(json, "id"), tenant, property,
+                constant(RentalAgreement.Period.class, json, "period"), date(json, "contractDate"),
+                number(json, "rentingFee"), constant(RentalAgreement.Status.class, json, "status"));
+    }
+
+    static Payment parsePayment(Map<String, Object> json) {
+        return new Payment(id(json, "id"), number(json, "amount"), date(json, "paymentDate"),
+                text(json, "paymentMethod"), id(json, "rentalAgreementId"));
+    }
+
+    private static void appendPerson(StringBuilder sb, Person person) {
+        field(sb.append('{'), "id", person.getId());
+        field(sb.append(','), "fullName", person.getFullName());
+        field(sb.append(','), "dateOfBirth", DateUtil.formatDate(person.getDateOfBirth()));
+        field(sb.append(','), "contactInformation", person.getContactInformation());
+    }
+
+    private static void field(StringBuilder sb, String name, String value) {
+        Json.appendString(sb.append('"').append(name).append("\":"), value);
+    }
+
+    private static String text(Map<String, Object> json, String name) {
+        Object value = json.get(name);
+        if (!(value instanceof String) || ((String) value).isEmpty()) {
+            throw new IllegalArgumentException(name + " must be a non-empty string");
+        }
+        if (!InputValidator.isValidText((String) value)) {
+            throw new IllegalArgumentException(name + " must not contain line breaks or control characters");
+        }
+        return (String) value;
+    }
+
+    private static String id(Map<String, Object> json, String name) {
+        String id = text(json, name);
+        if (!InputValidator.isValidId(id)) {
+            throw new IllegalArgumentException(name + " may only contain letters, digits, '-', '_' and '.'");
+        }
+        return id;
+    }
+
+    private static String contactInformation(Map<String, Object> json) {
+        String contact = text(json, "contactInformation");
+        if (!InputValidator.isValidContactInformation(contact)) {
+            throw new IllegalArgumentException("contactInformation must be \"email, phone\" with a valid email"
+                    + " and a 10-digit phone number");
+        }
+        return contact;
+    }
+
+    private static double number(Map<String, Object> json, String name) {
+        Object value = json.get(name);
+        if (!(value instanceof Double)) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+        return (Double) value;
+    }
+
+    private static boolean flag(Map<String, Object> json, String name) {
+        return Boolean.TRUE.equals(json.get(name));
+    }
+
+    private static Date date(Map<String, Object> json, String name) {
+        Date date = DateUtil.parseDate(text(json, name));
+        if (date == null) {
+            throw new IllegalArgumentException(name + " must be a date in YYYY-MM-DD format");
+        }
+        return date;
+    }
+
+    private static <E extends Enum<E>> E constant(Class<E> type, Map<String, Object> json, String name) {
+        try {
+            return Enum.valueOf(type, text(json, name).toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(name + " must be one of " + Arrays.toString(type.getEnumConstants()));
+        }
+    }
+}
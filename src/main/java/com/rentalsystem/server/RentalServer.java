@@ -0,0 +1,465 @@
+package com.rentalsystem.server;
+
+import com.rentalsystem.manager.*;
+import com.rentalsystem.model.*;
+import com.rentalsystem.util.FileHandler;
+import com.rentalsystem.util.Json;
+import com.rentalsystem.util.LoadedData;
+import com.rentalsystem.util.Logger;
+import com.rentalsystem.util.StartupLoader;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Headless JSON front end over the four managers, built on the JDK's HTTP server.
+ * Handlers run on a fixed pool with a bounded queue; once the queue is full, requests are answered
+ * with 503 by a single thread of their own, so the accepting thread never waits on a handler. List responses
+ * are written with chunked encoding as they are produced and take {@code offset} and {@code limit}
+ * query parameters.
+ *
+ * <pre>
+ * GET    /api/health
+ * GET    /api/{tenants|hosts|properties|rental-agreements|payments}
+ * POST   /api/{tenants|hosts|properties|rental-agreements|payments}
+ * GET    /api/{tenants|hosts|properties|rental-agreements}/{id}
+ * PUT    /api/{tenants|hosts|properties|rental-agreements}/{id}
+ * DELETE /api/{tenants|hosts|properties|rental-agreements}/{id}
+ * GET    /api/tenants/{id}/rental-agreements
+ * GET    /api/hosts/{id}/properties
+ * GET    /api/hosts/{id}/rental-agreements
+ * GET    /api/properties/{id}/rental-agreements
+ * GET    /api/rental-agreements/{id}/payments
+ * </pre>
+ */
+public class RentalServer {
+    private static final Logger LOG = Logger.getLogger(RentalServer.class);
+    private static final String CONTEXT = "/api/";
+    private static final String CONTENT_TYPE = "application/json; charset=utf-8";
+    private static final int STREAM_BUFFER_CHARS = 8192;
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_QUEUE = 1024;
+    private static final String NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
+    // Set on the thread that answers the requests the worker pool has no room for
+    private static final ThreadLocal<Boolean> BUSY = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private final TenantManager tenantManager;
+    private final HostManager hostManager;
+    private final PropertyManager propertyManager;
+    private final RentalManager rentalManager;
+    private final HttpServer server;
+    private final ThreadPoolExecutor executor;
+    private final ThreadPoolExecutor overflow;
+
+    public RentalServer(TenantManager tenantManager, HostManager hostManager, PropertyManager propertyManager,
+                        RentalManager rentalManager, int port, int threads, int queueCapacity) throws IOException {
+        this.tenantManager = tenantManager;
+        this.hostManager = hostManager;
+        this.propertyManager = propertyManager;
+        this.rentalManager = rentalManager;
+        // Past its own queue the overflow thread rejects too, and the HTTP server then closes the connection
+        this.overflow = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new WorkerThreads("rental-http-busy-", true),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new WorkerThreads("rental-http-", false),
+                (task, pool) -> overflow.execute(task));
+        // Headers and body go out in separate writes; with Nagle's algorithm on, the body waits for the
+        // client's delayed ACK and every response takes ~40 ms. Read once, when the first server is created.
+        if (System.getProperty(NO_DELAY_PROPERTY) == null) {
+            System.setProperty(NO_DELAY_PROPERTY, "true");
+        }
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.server.createContext(CONTEXT, this::handle);
+        this.server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+        LOG.info("Rental server listening on port " + getPort() + " with " + executor.getCorePoolSize() + " workers");
+    }
+
+    // Stops accepting requests and gives the in-flight ones up to the given time to finish
+    public void stop(int graceSeconds) {
+        server.stop(graceSeconds);
+        executor.shutdown();
+        overflow.shutdown();
+        try {
+            if (!executor.awaitTermination(graceSeconds, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+            if (!overflow.awaitTermination(graceSeconds, TimeUnit.SECONDS)) {
+                overflow.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            overflow.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (BUSY.get()) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendError(exchange, 503, "Server busy");
+                return;
+            }
+            String[] path = exchange.getRequestURI().getRawPath().substring(CONTEXT.length()).split("/");
+            for (int i = 0; i < path.length; i++) {
+                path[i] = URLDecoder.decode(path[i], StandardCharsets.UTF_8);
+            }
+            route(exchange, path);
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (IOException e) {
+            LOG.debug("Request " + exchange.getRequestURI() + " aborted: " + e.getMessage());
+        } catch (RuntimeException e) {
+            LOG.error("Request " + exchange.getRequestURI() + " failed", e);
+            sendError(exchange, 500, "Internal error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void route(HttpExchange exchange, String[] path) throws IOException {
+        String method = exchange.getRequestMethod();
+        switch (path[0]) {
+            case "health":
+                if (path.length == 1 && method.equals("GET")) {
+                    sendJson(exchange, 200, new StringBuilder("{\"status\":\"UP\"}"));
+                    return;
+                }
+                break;
+            case "tenants":
+                if (path.length == 3 && path[2].equals("rental-agreements")) {
+                    if (isGet(exchange)) {
+                        sendList(exchange, rentalManager.getRentalAgreementsForTenant(path[1]));
+                    }
+                    return;
+                }
+                if (crud(exchange, path, tenantManager::getTenant, tenantManager::getAllTenants,
+                        EntityJson::parseTenant, tenantManager::addTenant, tenantManager::updateTenant,
+                        tenantManager::deleteTenant)) {
+                    return;
+                }
+                break;
+            case "hosts":
+                if (path.length == 3 && path[2].equals("properties")) {
+                    if (isGet(exchange)) {
+                        sendList(exchange, propertyManager.getPropertiesForHost(path[1]));
+                    }
+                    return;
+                }
+                if (path.length == 3 && path[2].equals("rental-agreements")) {
+                    if (isGet(exchange)) {
+                        sendList(exchange, rentalManager.getRentalAgreementsForHost(path[1]));
+                    }
+                    return;
+                }
+                if (crud(exchange, path, hostManager::getHost, hostManager::getAllHosts,
+                        EntityJson::parseHost, hostManager::addHost, hostManager::updateHost,
+                        hostManager::deleteHost)) {
+                    return;
+                }
+                break;
+            case "properties":
+                if (path.length == 3 && path[2].equals("rental-agreements")) {
+                    if (isGet(exchange)) {
+                        sendList(exchange, rentalManager.getRentalAgreementsForProperty(path[1]));
+                    }
+                    return;
+                }
+                if (crud(exchange, path, propertyManager::getProperty, propertyManager::getAllProperties,
+                        EntityJson::parseProperty, propertyManager::addProperty, propertyManager::updateProperty,
+                        propertyManager::deleteProperty)) {
+                    return;
+                }
+                break;
+            case "rental-agreements":
+                if (path.length == 3 && path[2].equals("payments")) {
+                    if (isGet(exchange)) {
+                        sendList(exchange, rentalManager.getPaymentsForRentalAgreement(path[1]));
+                    }
+                    return;
+                }
+                if (crud(exchange, path, rentalManager::getRentalAgreement, rentalManager::getAllRentalAgreements,
+                        json -> EntityJson.parseRentalAgreement(json, tenantManager, propertyManager),
+                        rentalManager::addRentalAgreement, rentalManager::updateRentalAgreement,
+                        rentalManager::deleteRentalAgreement)) {
+                    return;
+                }
+                break;
+            case "payments":
+                if (path.length == 1) {
+                    if (method.equals("GET")) {
+                        sendList(exchange, rentalManager.getAllPayments());
+                    } else if (method.equals("POST")) {
+                        Payment payment = EntityJson.parsePayment(readBody(exchange));
+                        // addPayment checks the agreement under its lock; a taken ID is the only other refusal
+                        boolean added = rentalManager.addPayment(payment);
+                        if (!added && rentalManager.getPayment(payment.getId()) == null) {
+                            throw new IllegalArgumentException("Unknown rental agreement " + payment.getRentalAgreementId());
+                        }
+                        sendCreated(exchange, added, payment.getId());
+                    } else {
+                        sendError(exchange, 405, "Method " + method + " not allowed");
+                    }
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+        sendError(exchange, 404, "No such resource");
+    }
+
+    // Collection and item requests shared by every entity type; returns false if the path is not one of them
+    private <T> boolean crud(HttpExchange exchange, String[] path, Function<String, T> get,
+                             Supplier<List<T>> all, Function<Map<String, Object>, T> parse, Predicate<T> add,
+                             Predicate<T> update, Predicate<String> delete) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (path.length == 1) {
+            if (method.equals("GET")) {
+                sendList(exchange, all.get());
+            } else if (method.equals("POST")) {
+                Map<String, Object> json = readBody(exchange);
+                sendCreated(exchange, add.test(parse.apply(json)), (String) json.get("id"));
+            } else {
+                sendError(exchange, 405, "Method " + method + " not allowed");
+            }
+            return true;
+        }
+        if (path.length != 2) {
+            return false;
+        }
+        String id = path[1];
+        switch (method) {
+            case "GET": {
+                T entity = get.apply(id);
+                if (entity == null) {
+                    sendError(exchange, 404, "No record with ID " + id);
+                } else {
+                    sendJson(exchange, 200, EntityJson.append(new StringBuilder(), entity));
+                }
+                break;
+            }
+            case "PUT": {
+                Map<String, Object> json = readBody(exchange);
+                if (!id.equals(json.get("id"))) {
+                    throw new IllegalArgumentException("Body id does not match the path");
+                }
+                // The updated record itself is rendered; a concurrent delete may already have removed it
+                T entity = parse.apply(json);
+                if (update.test(entity)) {
+                    sendJson(exchange, 200, EntityJson.append(new StringBuilder(), entity));
+                } else {
+                    sendError(exchange, 404, "No record with ID " + id);
+                }
+                break;
+            }
+            case "DELETE":
+                if (delete.test(id)) {
+                    exchange.sendResponseHeaders(204, -1);
+                } else {
+                    sendError(exchange, 404, "No record with ID " + id);
+                }
+                break;
+            default:
+                sendError(exchange, 405, "Method " + method + " not allowed");
+        }
+        return true;
+    }
+
+    // Sub-resource lists are read-only; anything but GET gets a 405
+    private boolean isGet(HttpExchange exchange) throws IOException {
+        if (exchange.getRequestMethod().equals("GET")) {
+            return true;
+        }
+        sendError(exchange, 405, "Method " + exchange.getRequestMethod() + " not allowed");
+        return false;
+    }
+
+    private Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new IllegalArgumentException("Request body exceeds " + MAX_BODY_BYTES + " bytes");
+            }
+            return Json.parseObject(new String(body, StandardCharsets.UTF_8));
+        }
+    }
+
+    private void sendCreated(HttpExchange exchange, boolean created, String id) throws IOException {
+        if (created) {
+            exchange.getResponseHeaders().set("Location", exchange.getRequestURI().getPath() + "/" + id);
+            sendJson(exchange, 201, Json.appendString(new StringBuilder("{\"id\":"), id).append('}'));
+        } else {
+            sendError(exchange, 409, "A record with ID " + id + " already exists");
+        }
+    }
+
+    // Writes the requested page of the list as a chunked JSON array, flushing whenever the buffer fills
+    private void sendList(HttpExchange exchange, List<?> items) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        int offset = Math.min(intParameter(query, "offset", 0), items.size());
+        int limit = intParameter(query, "limit", items.size() - offset);
+        int end = offset + Math.min(limit, items.size() - offset);
+
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.getResponseHeaders().set("X-Total-Count", Integer.toString(items.size()));
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            StringBuilder sb = new StringBuilder(STREAM_BUFFER_CHARS + 512).append('[');
+            for (int i = offset; i < end; i++) {
+                if (i > offset) {
+                    sb.append(',');
+                }
+                EntityJson.append(sb, items.get(i));
+                if (sb.length() >= STREAM_BUFFER_CHARS) {
+                    out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+                    sb.setLength(0);
+                }
+            }
+            out.write(sb.append(']').toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        sendJson(exchange, status, Json.appendString(new StringBuilder("{\"error\":"), message).append('}'));
+    }
+
+    private void sendJson(HttpExchange exchange, int status, StringBuilder body) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    private static int intParameter(Map<String, String> query, String name, int defaultValue) {
+        String value = query.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed >= 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException(name + " must be a non-negative integer");
+    }
+
+    private static final class WorkerThreads implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+        private final String prefix;
+        private final boolean busy;
+
+        WorkerThreads(String prefix, boolean busy) {
+            this.prefix = prefix;
+            this.busy = busy;
+        }
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Runnable body = busy ? () -> {
+                BUSY.set(Boolean.TRUE);
+                task.run();
+            } : task;
+            Thread thread = new Thread(body, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    // Options: --port N (default 8080), --threads N (default 2 x cores), --queue N (default 1024),
+    // --data DIR (default resources); persistence settings come from the usual -Drental.* properties
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        int threads = Runtime.getRuntime().availableProcessors() * 2;
+        int queue = DEFAULT_QUEUE;
+        String dataDirectory = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--server":
+                    break;
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--queue":
+                    queue = Integer.parseInt(args[++i]);
+                    break;
+                case "--data":
+                    dataDirectory = args[++i];
+                    break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    System.err.println("Usage: --server [--port N] [--threads N] [--queue N] [--data DIR]");
+                    System.exit(2);
+            }
+        }
+
+        FileHandler fileHandler = dataDirectory == null ? new FileHandler()
+                : new FileHandler(dataDirectory, FileHandler.PersistenceMode.valueOf(
+                        System.getProperty("rental.persistence", "journal").toUpperCase()));
+        LoadedData loadedData = new StartupLoader(fileHandler).load();
+        ReferenceIndex references = new ReferenceIndex();
+        RentalServer server = new RentalServer(
+                new TenantManagerImpl(fileHandler, references, loadedData.getTenants()),
+                new HostManagerImpl(fileHandler, references, loadedData.getHosts()),
+                new PropertyManagerImpl(fileHandler, references, loadedData.getProperties()),
+                new RentalManagerImpl(fileHandler, references, loadedData.getRentalAgreements(), loadedData.getPayments()),
+                port, threads, queue);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(2);
+            fileHandler.shutdown();
+            Logger.flush();
+        }, "rental-http-shutdown"));
+        server.start();
+        Logger.flush();
+    }
+}
@@ -2,14 +2,29 @@ package com.rentalsystem.ui;
 
 import com.rentalsystem.manager.*;
 import com.rentalsystem.model.*;
+import com.rentalsystem.server.RentalServer;
 import com.rentalsystem.util.DateUtil;
 import com.rentalsystem.util.FileHandler;
+import com.rentalsystem.util.LoadedData;
+import com.rentalsystem.util.Logger;
+import com.rentalsystem.util.StartupLoader;
 import com.rentalsystem.util.AsciiTableGenerator;
 import org.jline.reader.*;
+import org.jline.builtins.Completers;
+import org.jline.reader.impl.CompletionMatcherImpl;
+import org.jline.reader.impl.completer.NullCompleter;
+import org.jline.reader.impl.completer.StringsCompleter;
 import org.jline.terminal.*;
 import java.util.*;
 import java.util.Arrays;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.io.PrintWriter;
 
 public class ConsoleUI {
     private RentalManager rentalManager;
@@ -18,6 +33,9 @@ public class ConsoleUI {
     private PropertyManager propertyManager;
     private LineReader reader;
     private FileHandler fileHandler;
+    private DashboardAggregates dashboard;
+    // Completions for the prompt being read, set by each prompt for the length of the read
+    private Completer promptCompleter = NullCompleter.INSTANCE;
 
     public static final String ANSI_RESET = "\u001B[0m";
     public static final String ANSI_RED = "\u001B[31m";
@@ -25,40 +43,284 @@ public class ConsoleUI {
     public static final String ANSI_YELLOW = "\u001B[33m";
     public static final String ANSI_BLUE = "\u001B[34m";
 
+    // "View All" screens size their columns from the first rows and show one terminal page at a time
+    private static final int WIDTH_SAMPLE_ROWS = 256;
+    private static final int MAX_COLUMN_WIDTH = 40;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
+    // Completions offered per keystroke at an ID prompt, and records listed when typed text matches several
+    private static final int SUGGESTIONS = 10;
+    private static final int SEARCH_RESULTS = 50;
+    private static final Completer YES_NO = new StringsCompleter("yes", "no");
+    private static final String[] PERSON_SEARCH_HEADERS = {"ID", "Name", "Contact Info"};
+    private static final String[] PROPERTY_SEARCH_HEADERS = {"ID", "Address", "Status"};
+
+    // Static menus and input forms are rendered once rather than on every pass through their loop
+    private static final String MANAGE_RENTAL_AGREEMENTS_MENU = ANSI_BLUE + AsciiTableGenerator.generateMenuTable("MANAGE RENTAL AGREEMENTS", new String[]{
+        "1. Add Rental Agreement",
+        "2. Update Rental Agreement",
+        "3. Delete Rental Agreement",
+        "4. View Rental Agreement",
+        "5. View All Rental Agreements",
+        "6. Search Rental Agreements",
+        "7. Manage Payments",
+        "8. Return to Main Menu"
+    }) + ANSI_RESET;
+    private static final String MANAGE_TENANTS_MENU = ANSI_BLUE + AsciiTableGenerator.generateMenuTable("MANAGE TENANTS", new String[]{
+        "1. Add Tenant",
+        "2. Update Tenant",
+        "3. Delete Tenant",
+        "4. View Tenant",
+        "5. View All Tenants",
+        "6. Return to Main Menu"
+    }) + ANSI_RESET;
+    private static final String MANAGE_HOSTS_MENU = ANSI_BLUE + AsciiTableGenerator.generateMenuTable("MANAGE HOSTS", new String[]{
+        "1. Add Host",
+        "2. Update Host",
+        "3. Delete Host",
+        "4. View Host",
+        "5. View All Hosts",
+        "6. Return to Main Menu"
+    }) + ANSI_RESET;
+    private static final String MANAGE_PROPERTIES_MENU = ANSI_BLUE + AsciiTableGenerator.generateMenuTable("MANAGE PROPERTIES", new String[]{
+        "1. Add Property",
+        "2. Update Property",
+        "3. Delete Property",
+        "4. View Property",
+        "5. View All Properties",
+        "6. Return to Main Menu"
+    }) + ANSI_RESET;
+    private static final String MANAGE_PAYMENTS_MENU = ANSI_BLUE + AsciiTableGenerator.generateMenuTable("MANAGE PAYMENTS", new String[]{
+        "1. Add Payment",
+        "2. View Payments for Rental Agreement",
+        "3. View All Payments",
+        "4. Search Payments by Date",
+        "5. Return to Rental Agreement Menu"
+    }) + ANSI_RESET;
+    private static final String GENERATE_REPORTS_MENU = ANSI_BLUE + AsciiTableGenerator.generateMenuTable("GENERATE REPORTS", new String[]{
+        "1. Generate Tenant Report",
+        "2. Generate Host Report",
+        "3. Generate Property Report",
+        "4. Generate Rental Agreement Report",
+        "5. Generate Rent Roll and Arrears Report",
+        "6. Return to Main Menu"
+    }) + ANSI_RESET;
+    private static final String ADD_RENTAL_AGREEMENT_FORM = ANSI_BLUE + AsciiTableGenerator.generateInputPromptTable("ADD RENTAL AGREEMENT", new String[]{
+        "Agreement ID",
+        "Tenant ID",
+        "Property ID",
+        "Rental Period (DAILY, WEEKLY, FORTNIGHTLY, MONTHLY)",
+        "Contract Date (YYYY-MM-DD)",
+        "Renting Fee",
+        "Status (NEW, ACTIVE, COMPLETED)"
+    }) + ANSI_RESET;
+    private static final String ADD_TENANT_FORM = ANSI_BLUE + AsciiTableGenerator.generateInputPromptTable("ADD TENANT", new String[]{
+        "Tenant ID",
+        "Full Name",
+        "Date of Birth (YYYY-MM-DD)",
+        "Email",
+        "Phone Number"
+    }) + ANSI_RESET;
+    private static final String ADD_HOST_FORM = ANSI_BLUE + AsciiTableGenerator.generateInputPromptTable("ADD HOST", new String[]{
+        "Host ID",
+        "Full Name",
+        "Date of Birth (YYYY-MM-DD)",
+        "Email",
+        "Phone Number"
+    }) + ANSI_RESET;
+    private static final String ADD_PROPERTY_FORM = ANSI_BLUE + AsciiTableGenerator.generateInputPromptTable("ADD PROPERTY", new String[]{
+        "Property ID",
+        "Address",
+        "Price",
+        "Status (AVAILABLE, RENTED, UNDER_MAINTENANCE)",
+        "Owner ID",
+        "Property Type (RESIDENTIAL or COMMERCIAL)"
+    }) + ANSI_RESET;
+    private static final String ADD_PAYMENT_FORM = ANSI_BLUE + AsciiTableGenerator.generateInputPromptTable("ADD PAYMENT", new String[]{
+        "Payment ID",
+        "Rental Agreement ID",
+        "Payment Amount",
+        "Payment Date (YYYY-MM-DD)",
+        "Payment Method"
+    }) + ANSI_RESET;
+
+    private static final String IMPORT_DATA_FORM = ANSI_BLUE + AsciiTableGenerator.generateInputPromptTable("IMPORT DATA", new String[]{
+        "Import Directory (tenants, hosts, properties, rental_agreements, payments)",
+        "Cancel Whole Import on Any Rejected Row? (yes/no)"
+    }) + ANSI_RESET;
+    private static final String SEARCH_RENTAL_AGREEMENTS_FORM = ANSI_BLUE + AsciiTableGenerator.generateInputPromptTable("SEARCH RENTAL AGREEMENTS", new String[]{
+        "Contract Date From / To (YYYY-MM-DD)",
+        "Renting Fee Min / Max",
+        "Status (NEW, ACTIVE, COMPLETED)",
+        "Rental Period (DAILY, WEEKLY, FORTNIGHTLY, MONTHLY)",
+        "Tenant ID / Property ID",
+        "Order By (id, date, fee) and Direction (asc, desc)",
+        "Leave any field blank to match everything"
+    }) + ANSI_RESET;
+    private static final String SEARCH_PAYMENTS_FORM = ANSI_BLUE + AsciiTableGenerator.generateInputPromptTable("SEARCH PAYMENTS", new String[]{
+        "Payment Date From / To (YYYY-MM-DD)",
+        "Payment Method",
+        "Newest First? (yes/no)",
+        "Leave any field blank to match everything"
+    }) + ANSI_RESET;
+    private static final String IMPORT_REJECTS_FILE = "import_rejects.csv";
+    private static final int RENT_ROLL_MONTHS = 12;
+    private static final int DASHBOARD_TOP_HOSTS = 10;
+    private static final String[] RENTAL_AGREEMENT_HEADERS = {"ID", "Tenant", "Property", "Period", "Contract Date", "Renting Fee", "Status"};
+    private static final String[] PAYMENT_HEADERS = {"ID", "Amount", "Date", "Method", "Rental Agreement ID"};
+
     public ConsoleUI() throws IOException {
         this.fileHandler = new FileHandler();
-        Map<String, List<?>> loadedData = fileHandler.loadAllData();
-        
-        List<Tenant> tenants = (List<Tenant>) loadedData.get("tenants");
-        this.tenantManager = new TenantManagerImpl(fileHandler, tenants != null ? tenants : new ArrayList<>());
-        
-        List<Host> hosts = (List<Host>) loadedData.get("hosts");
-        this.hostManager = new HostManagerImpl(fileHandler, hosts != null ? hosts : new ArrayList<>());
-        
-        List<Property> properties = (List<Property>) loadedData.get("properties");
-        this.propertyManager = new PropertyManagerImpl(fileHandler, properties != null ? properties : new ArrayList<>());
-        
-        this.rentalManager = new RentalManagerImpl(fileHandler);
+        LoadedData loadedData = new StartupLoader(fileHandler).load();
+        ReferenceIndex references = new ReferenceIndex();
+
+        this.tenantManager = new TenantManagerImpl(fileHandler, references, loadedData.getTenants());
+        this.hostManager = new HostManagerImpl(fileHandler, references, loadedData.getHosts());
+        this.propertyManager = new PropertyManagerImpl(fileHandler, references, loadedData.getProperties());
+        this.rentalManager = new RentalManagerImpl(fileHandler, references, loadedData.getRentalAgreements(), loadedData.getPayments());
+        this.dashboard = references.getAggregates();
 
         Terminal terminal = TerminalBuilder.builder().system(true).build();
         this.reader = LineReaderBuilder.builder()
             .terminal(terminal)
-            .completer(new MenuCompleter())
+            .completer((lineReader, line, candidates) -> promptCompleter.complete(lineReader, line, candidates))
+            .completionMatcher(new PromptMatcher())
+            .parser(new WholeLineParser())
             .option(LineReader.Option.AUTO_REMOVE_SLASH, true)
+            .option(LineReader.Option.CASE_INSENSITIVE, true)
             .build();
 
         System.out.println("ConsoleUI initialized. Managers created with loaded data.");
+        Logger.flush();
+    }
+
+    private static Completer menuChoices(int options) {
+        String[] choices = new String[options];
+        for (int i = 0; i < options; i++) {
+            choices[i] = String.valueOf(i + 1);
+        }
+        return new StringsCompleter(choices);
+    }
+
+    private static Completer enumChoices(Enum<?>[] constants) {
+        return new StringsCompleter(Arrays.stream(constants).map(Enum::name).toArray(String[]::new));
+    }
+
+    // IDs starting with the typed text, read from a manager's sorted keys, so a keystroke never scans
+    private static Completer idChoices(BiFunction<String, Integer, List<String>> lookup) {
+        return (lineReader, line, candidates) -> {
+            for (String id : lookup.apply(line.line().trim(), SUGGESTIONS)) {
+                candidates.add(new Candidate(id));
+            }
+        };
     }
 
-    private class MenuCompleter implements Completer {
+    // Methods already used by some payment, from the dashboard totals
+    private Completer paymentMethodChoices() {
+        return (lineReader, line, candidates) -> {
+            for (String method : dashboard.getPaymentsByMethod().keySet()) {
+                candidates.add(new Candidate(method));
+            }
+        };
+    }
+
+    // Offers the records matching the text typed so far; choosing one replaces the text with its ID
+    private static class SearchCompleter<T> implements Completer {
+        private final BiFunction<String, Integer, List<T>> search;
+        private final Function<T, String[]> toRow;
+
+        SearchCompleter(BiFunction<String, Integer, List<T>> search, Function<T, String[]> toRow) {
+            this.search = search;
+            this.toRow = toRow;
+        }
+
         @Override
         public void complete(LineReader reader, ParsedLine line, List<Candidate> candidates) {
-            candidates.add(new Candidate("1"));
-            candidates.add(new Candidate("2"));
-            candidates.add(new Candidate("3"));
-            candidates.add(new Candidate("4"));
-            candidates.add(new Candidate("5"));
-            candidates.add(new Candidate("6"));
+            String text = line.line().trim();
+            if (text.isEmpty()) {
+                return;
+            }
+            for (T record : search.apply(text, SUGGESTIONS)) {
+                String[] row = toRow.apply(record);
+                candidates.add(new Candidate(row[0], String.join("  ", row), null, null, null, null, true));
+            }
+        }
+    }
+
+    // Search candidates matched the typed text by name or address, not by their IDs, so they are all
+    // kept instead of being filtered by prefix
+    private class PromptMatcher extends CompletionMatcherImpl {
+        @Override
+        protected void defaultMatchers(Map<LineReader.Option, Boolean> options, boolean prefix, CompletingParsedLine line,
+                                       boolean caseInsensitive, int errors, String originalGroupName) {
+            super.defaultMatchers(options, prefix, line, caseInsensitive, errors, originalGroupName);
+            if (promptCompleter instanceof SearchCompleter) {
+                matchers.add(0, simpleMatcher(candidate -> true));
+            }
+        }
+    }
+
+    // Every prompt reads a single value, so the whole line is one word: completion replaces all of the
+    // typed text, and quotes in names or addresses are read as typed
+    private static class WholeLineParser implements Parser {
+        @Override
+        public ParsedLine parse(String line, int cursor, ParseContext context) {
+            return new WholeLine(line, cursor);
+        }
+    }
+
+    private static class WholeLine implements CompletingParsedLine {
+        private final String line;
+        private final int cursor;
+
+        WholeLine(String line, int cursor) {
+            this.line = line;
+            this.cursor = cursor;
+        }
+
+        @Override
+        public String word() {
+            return line;
+        }
+
+        @Override
+        public int wordCursor() {
+            return cursor;
+        }
+
+        @Override
+        public int wordIndex() {
+            return 0;
+        }
+
+        @Override
+        public List<String> words() {
+            return Collections.singletonList(line);
+        }
+
+        @Override
+        public String line() {
+            return line;
+        }
+
+        @Override
+        public int cursor() {
+            return cursor;
+        }
+
+        @Override
+        public CharSequence escape(CharSequence candidate, boolean complete) {
+            return candidate;
+        }
+
+        @Override
+        public int rawWordCursor() {
+            return cursor;
+        }
+
+        @Override
+        public int rawWordLength() {
+            return line.length();
         }
     }
 
@@ -68,7 +330,7 @@ public class ConsoleUI {
     while (running) {
         displayMainMenu();
         displayStatusBar("Admin");
-        String choice = reader.readLine("Enter your choice: ");
+        String choice = readChoice(8);
         switch (choice) {
             case "1":
                 manageRentalAgreements();
@@ -86,6 +348,12 @@ public class ConsoleUI {
                 generateReports();
                 break;
             case "6":
+                importData();
+                break;
+            case "7":
+                displayDashboard();
+                break;
+            case "8":
                 if (confirmExit()) {
                     running = false;
                 }
@@ -100,7 +368,8 @@ public class ConsoleUI {
 }
 
 private boolean confirmExit() {
-    String response = reader.readLine(ANSI_YELLOW + "Are you sure you want to exit? (y/n): " + ANSI_RESET);
+    String response = readLine(ANSI_YELLOW + "Are you sure you want to exit? (y/n): " + ANSI_RESET,
+            new StringsCompleter("y", "n"), false);
     return response.toLowerCase().startsWith("y");
 }
 
@@ -163,20 +432,25 @@ private void displayExitMessage() {
         "║ 3. Manage Hosts                    ║\n" +
         "║ 4. Manage Properties               ║\n" +
         "║ 5. Generate Reports                ║\n" +
-        "║ 6. Exit                            ║\n" +
+        "║ 6. Import Data                     ║\n" +
+        "║ 7. Dashboard                       ║\n" +
+        "║ 8. Exit                            ║\n" +
         "╚════════════════════════════════════╝" +
         ANSI_RESET);
 }
 
+   // The counts come from the dashboard totals, so drawing the bar costs the same at any data size
    private void displayStatusBar(String username) {
     String date = java.time.LocalDate.now().toString();
     String time = java.time.LocalTime.now().format(java.time.format.DateTimeFormatter.ofPattern("HH:mm:ss"));
     System.out.println(ANSI_BLUE +
-        "╔══════════════╦════════════╦══════════╗\n" +
-        "║ Current User ║ Date       ║ Time     ║\n" +
-        "╠══════════════╬════════════╬══════════╣\n" +
-        String.format("║ %-12s ║ %-10s ║ %-8s ║%n", username, date, time) +
-        "╚══════════════╩════════════╩══════════╝" +
+        "╔══════════════╦════════════╦══════════╦════════════╦═══════════════════╗\n" +
+        "║ Current User ║ Date       ║ Time     ║ Available  ║ Active Agreements ║\n" +
+        "╠══════════════╬════════════╬══════════╬════════════╬═══════════════════╣\n" +
+        String.format("║ %-12s ║ %-10s ║ %-8s ║ %-10d ║ %-17d ║%n", username, date, time,
+            dashboard.countProperties(Property.Status.AVAILABLE),
+            dashboard.countRentalAgreements(RentalAgreement.Status.ACTIVE)) +
+        "╚══════════════╩════════════╩══════════╩════════════╩═══════════════════╝" +
         ANSI_RESET);
 }
 
@@ -194,43 +468,30 @@ private void displayExitMessage() {
 
     private void saveAllData() {
         try {
-            displayLoading("Saving data");
-            fileHandler.saveAllData();
-            displaySuccess("Data saved successfully!");
+            long start = System.nanoTime();
+            int written = fileHandler.saveAllData((fileName, changedRecords, totalRecords) ->
+                    System.out.println("Saving " + fileName + " (" + changedRecords + " changed of "
+                            + totalRecords + " records)..."));
+            fileHandler.shutdown();
+            Logger.flush();
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            if (written == 0) {
+                displaySuccess("All changes are saved (" + elapsedMillis + " ms).");
+            } else {
+                displaySuccess("Data saved successfully in " + elapsedMillis + " ms!");
+            }
         } catch (Exception e) {
             displayError("Error saving data: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
-    private void displayLoading(String message) {
-        String[] animation = {"|", "/", "-", "\\"};
-        for (int i = 0; i < 20; i++) {
-            System.out.print("\r" + message + " " + animation[i % 4]);
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }
-        System.out.println();
-    }
-
     private void manageRentalAgreements() {
         boolean managing = true;
         while (managing) {
-            String[] options = {
-                "1. Add Rental Agreement",
-                "2. Update Rental Agreement",
-                "3. Delete Rental Agreement",
-                "4. View Rental Agreement",
-                "5. View All Rental Agreements",
-                "6. Manage Payments",
-                "7. Return to Main Menu"
-            };
-            System.out.println(ANSI_BLUE + AsciiTableGenerator.generateMenuTable("MANAGE RENTAL AGREEMENTS", options) + ANSI_RESET);
+            System.out.println(MANAGE_RENTAL_AGREEMENTS_MENU);
 
-            String choice = reader.readLine("Enter your choice: ");
+            String choice = readChoice(8);
             switch (choice) {
                 case "1":
                     addRentalAgreement();
@@ -248,9 +509,12 @@ private void displayExitMessage() {
                     viewAllRentalAgreements();
                     break;
                 case "6":
-                    managePayments();
+                    searchRentalAgreements();
                     break;
                 case "7":
+                    managePayments();
+                    break;
+                case "8":
                     managing = false;
                     break;
                 default:
@@ -260,24 +524,15 @@ private void displayExitMessage() {
     }
 
     private void addRentalAgreement() {
-        String[] prompts = {
-            "Agreement ID",
-            "Tenant ID",
-            "Property ID",
-            "Rental Period (DAILY, WEEKLY, FORTNIGHTLY, MONTHLY)",
-            "Contract Date (YYYY-MM-DD)",
-            "Renting Fee",
-            "Status (NEW, ACTIVE, COMPLETED)"
-        };
-        System.out.println(ANSI_BLUE + AsciiTableGenerator.generateInputPromptTable("ADD RENTAL AGREEMENT", prompts) + ANSI_RESET);
+        System.out.println(ADD_RENTAL_AGREEMENT_FORM);
 
         String id = promptForInput("Agreement ID");
-        String tenantId = promptForInput("Tenant ID");
-        String propertyId = promptForInput("Property ID");
-        String periodInput = promptForInput("Rental Period");
+        String tenantId = promptWithSuggestions("Tenant ID", idChoices(tenantManager::findTenantIds));
+        String propertyId = promptWithSuggestions("Property ID", idChoices(propertyManager::findPropertyIds));
+        String periodInput = promptForInput("Rental Period", enumChoices(RentalAgreement.Period.values()));
         String contractDateStr = promptForInput("Contract Date");
         double rentingFee = Double.parseDouble(promptForInput("Renting Fee"));
-        String statusInput = promptForInput("Status");
+        String statusInput = promptForInput("Status", enumChoices(RentalAgreement.Status.values()));
 
         try {
             Tenant tenant = tenantManager.getTenant(tenantId);
@@ -305,11 +560,82 @@ private void displayExitMessage() {
     }
 
     private String promptForInput(String prompt) {
-        return reader.readLine(ANSI_BLUE + prompt + ": " + ANSI_RESET);
+        return promptForInput(prompt, NullCompleter.INSTANCE);
+    }
+
+    // Tab completes from the completer
+    private String promptForInput(String prompt, Completer completer) {
+        return readLine(ANSI_BLUE + prompt + ": " + ANSI_RESET, completer, false);
+    }
+
+    // The completer's matches are also listed under the prompt as the user types
+    private String promptWithSuggestions(String prompt, Completer completer) {
+        return readLine(ANSI_BLUE + prompt + ": " + ANSI_RESET, completer, true);
+    }
+
+    private String readChoice(int options) {
+        return readLine("Enter your choice: ", menuChoices(options), false);
+    }
+
+    private String readLine(String prompt, Completer completer, boolean suggest) {
+        promptCompleter = completer;
+        // JLine recurses without end listing suggestions on a terminal that reports no size; Tab still works
+        Terminal terminal = reader.getTerminal();
+        if (suggest && terminal.getWidth() > 0 && terminal.getHeight() > 0) {
+            reader.setAutosuggestion(LineReader.SuggestionType.COMPLETER);
+        }
+        try {
+            return reader.readLine(prompt);
+        } finally {
+            reader.setAutosuggestion(LineReader.SuggestionType.NONE);
+            promptCompleter = NullCompleter.INSTANCE;
+        }
+    }
+
+    /**
+     * Reads a record ID, listing matching records by name, contact details or address as the user
+     * types. Text that is not an ID is searched: a single match is taken, several are listed for the
+     * user to pick from, and null is returned when nothing matches or the input is left empty.
+     */
+    private <T> T promptForRecord(String prompt, Function<String, T> byId, BiFunction<String, Integer, List<T>> search,
+                                  String[] headers, Function<T, String[]> toRow) {
+        Completer completer = new SearchCompleter<>(search, toRow);
+        while (true) {
+            String input = promptWithSuggestions(prompt, completer).trim();
+            T record = byId.apply(input);
+            if (record != null || input.isEmpty()) {
+                return record;
+            }
+            List<T> matches = search.apply(input, SEARCH_RESULTS);
+            if (matches.size() <= 1) {
+                return matches.isEmpty() ? null : matches.get(0);
+            }
+            List<String[]> data = new ArrayList<>();
+            matches.forEach(match -> data.add(toRow.apply(match)));
+            System.out.println(ANSI_BLUE + AsciiTableGenerator.generateTable(headers, data) + ANSI_RESET);
+            displayWarning(matches.size() + (matches.size() == SEARCH_RESULTS ? "+" : "")
+                    + " records match \"" + input + "\". Enter one of their IDs, or nothing to cancel.");
+        }
+    }
+
+    private Tenant promptForTenant(String prompt) {
+        return promptForRecord(prompt, tenantManager::getTenant, tenantManager::searchTenants, PERSON_SEARCH_HEADERS,
+                tenant -> new String[]{tenant.getId(), tenant.getFullName(), tenant.getContactInformation()});
+    }
+
+    private Host promptForHost(String prompt) {
+        return promptForRecord(prompt, hostManager::getHost, hostManager::searchHosts, PERSON_SEARCH_HEADERS,
+                host -> new String[]{host.getId(), host.getFullName(), host.getContactInformation()});
+    }
+
+    private Property promptForProperty(String prompt) {
+        return promptForRecord(prompt, propertyManager::getProperty, propertyManager::searchProperties,
+                PROPERTY_SEARCH_HEADERS,
+                property -> new String[]{property.getId(), property.getAddress(), String.valueOf(property.getStatus())});
     }
 
     private void updateRentalAgreement() {
-        String id = promptForInput("Enter agreement ID to update");
+        String id = promptWithSuggestions("Enter agreement ID to update", idChoices(rentalManager::findRentalAgreementIds));
         RentalAgreement agreement = rentalManager.getRentalAgreement(id);
         if (agreement != null) {
             String[] prompts = {
@@ -319,7 +645,7 @@ private void displayExitMessage() {
             };
             System.out.println(ANSI_BLUE + AsciiTableGenerator.generateInputPromptTable("UPDATE RENTAL AGREEMENT", prompts) + ANSI_RESET);
 
-            String periodInput = promptForInput("Enter new rental period");
+            String periodInput = promptForInput("Enter new rental period", enumChoices(RentalAgreement.Period.values()));
             if (!periodInput.isEmpty()) {
                 try {
                     agreement.setPeriod(RentalAgreement.Period.valueOf(periodInput.toUpperCase()));
@@ -338,7 +664,7 @@ private void displayExitMessage() {
                 }
             }
 
-            String statusInput = promptForInput("Enter new status");
+            String statusInput = promptForInput("Enter new status", enumChoices(RentalAgreement.Status.values()));
             if (!statusInput.isEmpty()) {
                 try {
                     agreement.setStatus(RentalAgreement.Status.valueOf(statusInput.toUpperCase()));
@@ -358,11 +684,11 @@ private void displayExitMessage() {
     }
 
     private void deleteRentalAgreement() {
-        String id = promptForInput("Enter agreement ID to delete");
+        String id = promptWithSuggestions("Enter agreement ID to delete", idChoices(rentalManager::findRentalAgreementIds));
         RentalAgreement agreement = rentalManager.getRentalAgreement(id);
         if (agreement != null) {
             displayRentalAgreementDetails(agreement);
-            String confirm = promptForInput("Are you sure you want to delete this rental agreement? (yes/no)");
+            String confirm = promptForInput("Are you sure you want to delete this rental agreement? (yes/no)", YES_NO);
             if (confirm.equalsIgnoreCase("yes")) {
                 if (rentalManager.deleteRentalAgreement(id)) {
                     displaySuccess("Rental Agreement deleted successfully!");
@@ -378,7 +704,7 @@ private void displayExitMessage() {
     }
 
     private void viewRentalAgreement() {
-        String id = promptForInput("Enter agreement ID to view");
+        String id = promptWithSuggestions("Enter agreement ID to view", idChoices(rentalManager::findRentalAgreementIds));
         RentalAgreement agreement = rentalManager.getRentalAgreement(id);
         if (agreement != null) {
             displayRentalAgreementDetails(agreement);
@@ -408,36 +734,24 @@ private void displayExitMessage() {
             displayWarning("No rental agreements found in the system.");
         } else {
             String[] headers = {"ID", "Tenant", "Property", "Period", "Contract Date", "Renting Fee", "Status"};
-            List<String[]> data = new ArrayList<>();
-            for (RentalAgreement agreement : agreements) {
-                data.add(new String[]{
-                    agreement.getId(),
-                    agreement.getMainTenant().getFullName(),
-                    agreement.getProperty().getAddress(),
-                    agreement.getPeriod().toString(),
-                    DateUtil.formatDate(agreement.getContractDate()),
-                    String.format("$%.2f", agreement.getRentingFee()),
-                    agreement.getStatus().toString()
-                });
-            }
-            System.out.println(ANSI_BLUE + AsciiTableGenerator.generateTable(headers, data) + ANSI_RESET);
+            displayPaged(headers, agreements, agreement -> new String[]{
+                agreement.getId(),
+                agreement.getMainTenant().getFullName(),
+                agreement.getProperty().getAddress(),
+                agreement.getPeriod().toString(),
+                DateUtil.formatDate(agreement.getContractDate()),
+                String.format("$%.2f", agreement.getRentingFee()),
+                agreement.getStatus().toString()
+            });
         }
     }
 
     private void manageTenants() {
         boolean managing = true;
         while (managing) {
-            String[] options = {
-                "1. Add Tenant",
-                "2. Update Tenant",
-                "3. Delete Tenant",
-                "4. View Tenant",
-                "5. View All Tenants",
-                "6. Return to Main Menu"
-            };
-            System.out.println(ANSI_BLUE + AsciiTableGenerator.generateMenuTable("MANAGE TENANTS", options) + ANSI_RESET);
+            System.out.println(MANAGE_TENANTS_MENU);
 
-            String choice = reader.readLine("Enter your choice: ");
+            String choice = readChoice(6);
             switch (choice) {
                 case "1":
                     addTenant();
@@ -464,14 +778,7 @@ private void displayExitMessage() {
     }
 
     private void addTenant() {
-        String[] prompts = {
-            "Tenant ID",
-            "Full Name",
-            "Date of Birth (YYYY-MM-DD)",
-            "Email",
-            "Phone Number"
-        };
-        System.out.println(ANSI_BLUE + AsciiTableGenerator.generateInputPromptTable("ADD TENANT", prompts) + ANSI_RESET);
+        System.out.println(ADD_TENANT_FORM);
 
         String id = promptForInput("Tenant ID");
         String fullName = promptForInput("Full Name");
@@ -492,8 +799,7 @@ private void displayExitMessage() {
     }
 
     private void updateTenant() {
-        String id = promptForInput("Enter tenant ID to update");
-        Tenant tenant = tenantManager.getTenant(id);
+        Tenant tenant = promptForTenant("Enter tenant ID or name to update");
         if (tenant != null) {
             String[] prompts = {
                 "New full name (current: " + tenant.getFullName() + ")",
@@ -536,13 +842,12 @@ private void displayExitMessage() {
     }
 
     private void deleteTenant() {
-        String id = promptForInput("Enter tenant ID to delete");
-        Tenant tenant = tenantManager.getTenant(id);
+        Tenant tenant = promptForTenant("Enter tenant ID or name to delete");
         if (tenant != null) {
             displayTenantDetails(tenant);
-            String confirm = promptForInput("Are you sure you want to delete this tenant? (yes/no)");
+            String confirm = promptForInput("Are you sure you want to delete this tenant? (yes/no)", YES_NO);
             if (confirm.equalsIgnoreCase("yes")) {
-                if (tenantManager.deleteTenant(id)) {
+                if (tenantManager.deleteTenant(tenant.getId())) {
                     displaySuccess("Tenant deleted successfully!");
                 } else {
                     displayError("Failed to delete tenant. Tenant may not exist.");
@@ -556,8 +861,7 @@ private void displayExitMessage() {
     }
 
     private void viewTenant() {
-        String id = promptForInput("Enter tenant ID to view");
-        Tenant tenant = tenantManager.getTenant(id);
+        Tenant tenant = promptForTenant("Enter tenant ID or name to view");
         if (tenant != null) {
             displayTenantDetails(tenant);
         } else {
@@ -572,8 +876,8 @@ private void displayExitMessage() {
         data.add(new String[]{"Full Name", tenant.getFullName()});
         data.add(new String[]{"Date of Birth", DateUtil.formatDate(tenant.getDateOfBirth())});
         data.add(new String[]{"Contact Info", tenant.getContactInformation()});
-        data.add(new String[]{"Rental Agreements", String.valueOf(tenant.getRentalAgreements().size())});
-        data.add(new String[]{"Payment Transactions", String.valueOf(tenant.getPaymentTransactions().size())});
+        data.add(new String[]{"Rental Agreements", String.valueOf(tenant.countRentalAgreements())});
+        data.add(new String[]{"Payment Transactions", String.valueOf(tenant.countPaymentTransactions())});
 
         System.out.println(ANSI_BLUE + AsciiTableGenerator.generateTable(headers, data) + ANSI_RESET);
     }
@@ -584,34 +888,22 @@ private void displayExitMessage() {
             displayWarning("No tenants found.");
         } else {
             String[] headers = {"ID", "Name", "Date of Birth", "Contact Info", "Rental Agreements"};
-            List<String[]> data = new ArrayList<>();
-            for (Tenant tenant : tenants) {
-                data.add(new String[]{
-                    tenant.getId(),
-                    tenant.getFullName(),
-                    DateUtil.formatDate(tenant.getDateOfBirth()),
-                    tenant.getContactInformation(),
-                    String.valueOf(tenant.getRentalAgreements().size())
-                });
-            }
-            System.out.println(ANSI_BLUE + AsciiTableGenerator.generateTable(headers, data) + ANSI_RESET);
+            displayPaged(headers, tenants, tenant -> new String[]{
+                tenant.getId(),
+                tenant.getFullName(),
+                DateUtil.formatDate(tenant.getDateOfBirth()),
+                tenant.getContactInformation(),
+                String.valueOf(tenant.countRentalAgreements())
+            });
         }
     }
 
     private void manageHosts() {
         boolean managing = true;
         while (managing) {
-            String[] options = {
-                "1. Add Host",
-                "2. Update Host",
-                "3. Delete Host",
-                "4. View Host",
-                "5. View All Hosts",
-                "6. Return to Main Menu"
-            };
-            System.out.println(ANSI_BLUE + AsciiTableGenerator.generateMenuTable("MANAGE HOSTS", options) + ANSI_RESET);
+            System.out.println(MANAGE_HOSTS_MENU);
 
-            String choice = reader.readLine("Enter your choice: ");
+            String choice = readChoice(6);
             switch (choice) {
                 case "1":
                     addHost();
@@ -638,14 +930,7 @@ private void displayExitMessage() {
     }
 
     private void addHost() {
-        String[] prompts = {
-            "Host ID",
-            "Full Name",
-            "Date of Birth (YYYY-MM-DD)",
-            "Email",
-            "Phone Number"
-        };
-        System.out.println(ANSI_BLUE + AsciiTableGenerator.generateInputPromptTable("ADD HOST", prompts) + ANSI_RESET);
+        System.out.println(ADD_HOST_FORM);
 
         String id = promptForInput("Host ID");
         String fullName = promptForInput("Full Name");
@@ -666,8 +951,7 @@ private void displayExitMessage() {
     }
 
     private void updateHost() {
-        String id = promptForInput("Enter host ID to update");
-        Host host = hostManager.getHost(id);
+        Host host = promptForHost("Enter host ID or name to update");
         if (host != null) {
             String[] prompts = {
                 "New full name (current: " + host.getFullName() + ")",
@@ -710,13 +994,12 @@ private void displayExitMessage() {
     }
 
     private void deleteHost() {
-        String id = promptForInput("Enter host ID to delete");
-        Host host = hostManager.getHost(id);
+        Host host = promptForHost("Enter host ID or name to delete");
         if (host != null) {
             displayHostDetails(host);
-            String confirm = promptForInput("Are you sure you want to delete this host? (yes/no)");
+            String confirm = promptForInput("Are you sure you want to delete this host? (yes/no)", YES_NO);
             if (confirm.equalsIgnoreCase("yes")) {
-                if (hostManager.deleteHost(id)) {
+                if (hostManager.deleteHost(host.getId())) {
                     displaySuccess("Host deleted successfully!");
                 } else {
                     displayError("Failed to delete host. Host may not exist.");
@@ -730,8 +1013,7 @@ private void displayExitMessage() {
     }
 
     private void viewHost() {
-        String id = promptForInput("Enter host ID to view");
-        Host host = hostManager.getHost(id);
+        Host host = promptForHost("Enter host ID or name to view");
         if (host != null) {
             displayHostDetails(host);
         } else {
@@ -746,9 +1028,9 @@ private void displayExitMessage() {
         data.add(new String[]{"Full Name", host.getFullName()});
         data.add(new String[]{"Date of Birth", DateUtil.formatDate(host.getDateOfBirth())});
         data.add(new String[]{"Contact Info", host.getContactInformation()});
-        data.add(new String[]{"Managed Properties", String.valueOf(host.getManagedProperties().size())});
+        data.add(new String[]{"Managed Properties", String.valueOf(host.countManagedProperties())});
         data.add(new String[]{"Cooperating Owners", String.valueOf(host.getCooperatingOwners().size())});
-        data.add(new String[]{"Rental Agreements", String.valueOf(host.getRentalAgreements().size())});
+        data.add(new String[]{"Rental Agreements", String.valueOf(host.countRentalAgreements())});
 
         System.out.println(ANSI_BLUE + AsciiTableGenerator.generateTable(headers, data) + ANSI_RESET);
     }
@@ -759,34 +1041,22 @@ private void displayExitMessage() {
             displayWarning("No hosts found.");
         } else {
             String[] headers = {"ID", "Name", "Date of Birth", "Contact Info", "Managed Properties"};
-            List<String[]> data = new ArrayList<>();
-            for (Host host : hosts) {
-                data.add(new String[]{
-                    host.getId(),
-                    host.getFullName(),
-                    DateUtil.formatDate(host.getDateOfBirth()),
-                    host.getContactInformation(),
-                    String.valueOf(host.getManagedProperties().size())
-                });
-            }
-            System.out.println(ANSI_BLUE + AsciiTableGenerator.generateTable(headers, data) + ANSI_RESET);
+            displayPaged(headers, hosts, host -> new String[]{
+                host.getId(),
+                host.getFullName(),
+                DateUtil.formatDate(host.getDateOfBirth()),
+                host.getContactInformation(),
+                String.valueOf(host.countManagedProperties())
+            });
         }
     }
 
     private void manageProperties() {
         boolean managing = true;
         while (managing) {
-            String[] options = {
-                "1. Add Property",
-                "2. Update Property",
-                "3. Delete Property",
-                "4. View Property",
-                "5. View All Properties",
-                "6. Return to Main Menu"
-            };
-            System.out.println(ANSI_BLUE + AsciiTableGenerator.generateMenuTable("MANAGE PROPERTIES", options) + ANSI_RESET);
+            System.out.println(MANAGE_PROPERTIES_MENU);
 
-            String choice = reader.readLine("Enter your choice: ");
+            String choice = readChoice(6);
             switch (choice) {
                 case "1":
                     addProperty();
@@ -813,30 +1083,22 @@ private void displayExitMessage() {
     }
 
     private void addProperty() {
-        String[] prompts = {
-            "Property ID",
-            "Address",
-            "Price",
-            "Status (AVAILABLE, RENTED, UNDER_MAINTENANCE)",
-            "Owner ID",
-            "Property Type (RESIDENTIAL or COMMERCIAL)"
-        };
-        System.out.println(ANSI_BLUE + AsciiTableGenerator.generateInputPromptTable("ADD PROPERTY", prompts) + ANSI_RESET);
+        System.out.println(ADD_PROPERTY_FORM);
 
         String id = promptForInput("Property ID");
         String address = promptForInput("Address");
         double price = Double.parseDouble(promptForInput("Price"));
-        String statusInput = promptForInput("Status");
+        String statusInput = promptForInput("Status", enumChoices(Property.Status.values()));
         Property.Status status = Property.Status.valueOf(statusInput.toUpperCase());
-        String owner = promptForInput("Owner ID");
-        String propertyType = promptForInput("Property Type");
+        String owner = promptWithSuggestions("Owner ID", idChoices(hostManager::findHostIds));
+        String propertyType = promptForInput("Property Type", new StringsCompleter("RESIDENTIAL", "COMMERCIAL"));
         
         try {
             Property newProperty;
             if (propertyType.equalsIgnoreCase("RESIDENTIAL")) {
                 int bedrooms = Integer.parseInt(promptForInput("Number of Bedrooms"));
-                boolean hasGarden = promptForInput("Has Garden? (yes/no)").equalsIgnoreCase("yes");
-                boolean isPetFriendly = promptForInput("Is Pet Friendly? (yes/no)").equalsIgnoreCase("yes");
+                boolean hasGarden = promptForInput("Has Garden? (yes/no)", YES_NO).equalsIgnoreCase("yes");
+                boolean isPetFriendly = promptForInput("Is Pet Friendly? (yes/no)", YES_NO).equalsIgnoreCase("yes");
                 newProperty = new ResidentialProperty(id, address, price, status, owner, bedrooms, hasGarden, isPetFriendly);
             } else if (propertyType.equalsIgnoreCase("COMMERCIAL")) {
                 String businessType = promptForInput("Business Type");
@@ -858,8 +1120,7 @@ private void displayExitMessage() {
     }
 
     private void updateProperty() {
-        String id = promptForInput("Enter property ID to update");
-        Property property = propertyManager.getProperty(id);
+        Property property = promptForProperty("Enter property ID or address to update");
         if (property != null) {
             String[] prompts = {
                 "New address (current: " + property.getAddress() + ")",
@@ -881,7 +1142,7 @@ private void displayExitMessage() {
                 }
             }
             
-            String statusInput = promptForInput("Enter new status");
+            String statusInput = promptForInput("Enter new status", enumChoices(Property.Status.values()));
             if (!statusInput.isEmpty()) {
                 try {
                     property.setStatus(Property.Status.valueOf(statusInput.toUpperCase()));
@@ -918,13 +1179,12 @@ private void displayExitMessage() {
     }
 
     private void deleteProperty() {
-        String id = promptForInput("Enter property ID to delete");
-        Property property = propertyManager.getProperty(id);
+        Property property = promptForProperty("Enter property ID or address to delete");
         if (property != null) {
             displayPropertyDetails(property);
-            String confirm = promptForInput("Are you sure you want to delete this property? (yes/no)");
+            String confirm = promptForInput("Are you sure you want to delete this property? (yes/no)", YES_NO);
             if (confirm.equalsIgnoreCase("yes")) {
-                if (propertyManager.deleteProperty(id)) {
+                if (propertyManager.deleteProperty(property.getId())) {
                     displaySuccess("Property deleted successfully!");
                 } else {
                     displayError("Failed to delete property. Property may not exist.");
@@ -938,8 +1198,7 @@ private void displayExitMessage() {
     }
 
     private void viewProperty() {
-        String id = promptForInput("Enter property ID to view");
-        Property property = propertyManager.getProperty(id);
+        Property property = promptForProperty("Enter property ID or address to view");
         if (property != null) {
             displayPropertyDetails(property);
         } else {
@@ -978,13 +1237,12 @@ private void displayExitMessage() {
             displayWarning("No properties found.");
         } else {
             String[] headers = {"ID", "Address", "Price", "Status", "Owner", "Type", "Details"};
-            List<String[]> data = new ArrayList<>();
-            for (Property property : properties) {
+            displayPaged(headers, properties, property -> {
                 String type = property instanceof ResidentialProperty ? "Residential" : "Commercial";
                 String details = property instanceof ResidentialProperty ?
                     "Bedrooms: " + ((ResidentialProperty) property).getNumberOfBedrooms() :
                     "Business Type: " + ((CommercialProperty) property).getBusinessType();
-                data.add(new String[]{
+                return new String[]{
                     property.getId(),
                     property.getAddress(),
                     String.format("$%.2f", property.getPrice()),
@@ -992,24 +1250,17 @@ private void displayExitMessage() {
                     property.getOwner(),
                     type,
                     details
-                });
-            }
-            System.out.println(ANSI_BLUE + AsciiTableGenerator.generateTable(headers, data) + ANSI_RESET);
+                };
+            });
         }
     }
 
     private void managePayments() {
         boolean managing = true;
         while (managing) {
-            String[] options = {
-                "1. Add Payment",
-                "2. View Payments for Rental Agreement",
-                "3. View All Payments",
-                "4. Return to Rental Agreement Menu"
-            };
-            System.out.println(ANSI_BLUE + AsciiTableGenerator.generateMenuTable("MANAGE PAYMENTS", options) + ANSI_RESET);
+            System.out.println(MANAGE_PAYMENTS_MENU);
 
-            String choice = promptForInput("Enter your choice");
+            String choice = promptForInput("Enter your choice", menuChoices(5));
             switch (choice) {
                 case "1":
                     addPayment();
@@ -1021,6 +1272,9 @@ private void displayExitMessage() {
                     viewAllPayments();
                     break;
                 case "4":
+                    searchPayments();
+                    break;
+                case "5":
                     managing = false;
                     break;
                 default:
@@ -1030,20 +1284,13 @@ private void displayExitMessage() {
     }
 
     private void addPayment() {
-        String[] prompts = {
-            "Payment ID",
-            "Rental Agreement ID",
-            "Payment Amount",
-            "Payment Date (YYYY-MM-DD)",
-            "Payment Method"
-        };
-        System.out.println(ANSI_BLUE + AsciiTableGenerator.generateInputPromptTable("ADD PAYMENT", prompts) + ANSI_RESET);
+        System.out.println(ADD_PAYMENT_FORM);
 
         String id = promptForInput("Payment ID");
-        String rentalAgreementId = promptForInput("Rental Agreement ID");
+        String rentalAgreementId = promptWithSuggestions("Rental Agreement ID", idChoices(rentalManager::findRentalAgreementIds));
         double amount = Double.parseDouble(promptForInput("Payment Amount"));
         String dateStr = promptForInput("Payment Date");
-        String paymentMethod = promptForInput("Payment Method");
+        String paymentMethod = promptForInput("Payment Method", paymentMethodChoices());
 
         try {
             Payment payment = new Payment(id, amount, DateUtil.parseDate(dateStr), paymentMethod, rentalAgreementId);
@@ -1058,7 +1305,7 @@ private void displayExitMessage() {
     }
 
     private void viewPaymentsForRentalAgreement() {
-        String rentalAgreementId = promptForInput("Enter Rental Agreement ID");
+        String rentalAgreementId = promptWithSuggestions("Enter Rental Agreement ID", idChoices(rentalManager::findRentalAgreementIds));
         List<Payment> payments = rentalManager.getPaymentsForRentalAgreement(rentalAgreementId);
         
         if (payments == null || payments.isEmpty()) {
@@ -1078,33 +1325,289 @@ private void displayExitMessage() {
     }
 
     private void displayPayments(List<Payment> payments) {
-        String[] headers = {"ID", "Amount", "Date", "Method", "Rental Agreement ID"};
-        List<String[]> data = new ArrayList<>();
-        for (Payment payment : payments) {
-            data.add(new String[]{
-                payment.getId(),
-                String.format("$%.2f", payment.getAmount()),
-                DateUtil.formatDate(payment.getPaymentDate()),
-                payment.getPaymentMethod(),
-                payment.getRentalAgreementId()
-            });
+        displayPaged(PAYMENT_HEADERS, payments, this::paymentRow);
+    }
+
+    private String[] paymentRow(Payment payment) {
+        return new String[]{
+            payment.getId(),
+            String.format("$%.2f", payment.getAmount()),
+            DateUtil.formatDate(payment.getPaymentDate()),
+            payment.getPaymentMethod(),
+            payment.getRentalAgreementId()
+        };
+    }
+
+    private void searchPayments() {
+        System.out.println(SEARCH_PAYMENTS_FORM);
+        try {
+            PaymentQuery query = new PaymentQuery()
+                .paidBetween(optionalDate(promptForInput("Paid from")), optionalDate(promptForInput("Paid to")))
+                .method(optional(promptForInput("Payment method", paymentMethodChoices())))
+                .newestFirst(promptForInput("Newest first? (yes/no)", YES_NO).trim().equalsIgnoreCase("yes"))
+                .limit(pageSize());
+            displayPages(PAYMENT_HEADERS, cursor -> rentalManager.findPayments(query.after(cursor)), this::paymentRow);
+        } catch (IllegalArgumentException e) {
+            displayError("Invalid input: " + e.getMessage());
+        }
+    }
+
+    private void searchRentalAgreements() {
+        System.out.println(SEARCH_RENTAL_AGREEMENTS_FORM);
+        try {
+            AgreementQuery query = new AgreementQuery()
+                .contractDateBetween(optionalDate(promptForInput("Contract date from")), optionalDate(promptForInput("Contract date to")))
+                .feeBetween(optionalFee(promptForInput("Minimum renting fee")), optionalFee(promptForInput("Maximum renting fee")));
+            String status = optional(promptForInput("Status", enumChoices(RentalAgreement.Status.values())));
+            if (status != null) {
+                query.status(RentalAgreement.Status.valueOf(status.toUpperCase()));
+            }
+            String period = optional(promptForInput("Rental period", enumChoices(RentalAgreement.Period.values())));
+            if (period != null) {
+                query.period(RentalAgreement.Period.valueOf(period.toUpperCase()));
+            }
+            query.tenant(optional(promptWithSuggestions("Tenant ID", idChoices(tenantManager::findTenantIds))))
+                .property(optional(promptWithSuggestions("Property ID", idChoices(propertyManager::findPropertyIds))));
+            String orderBy = promptForInput("Order by (id, date, fee)", new StringsCompleter("id", "date", "fee")).trim().toLowerCase();
+            AgreementQuery.Order order = orderBy.equals("date") ? AgreementQuery.Order.CONTRACT_DATE
+                : orderBy.equals("fee") ? AgreementQuery.Order.RENTING_FEE : AgreementQuery.Order.ID;
+            query.orderBy(order, promptForInput("Direction (asc, desc)", new StringsCompleter("asc", "desc")).trim().equalsIgnoreCase("desc")).limit(pageSize());
+            displayPages(RENTAL_AGREEMENT_HEADERS, cursor -> rentalManager.findRentalAgreements(query.after(cursor)),
+                this::rentalAgreementRow);
+        } catch (IllegalArgumentException e) {
+            displayError("Invalid input: " + e.getMessage());
+        }
+    }
+
+    private String[] rentalAgreementRow(RentalAgreement agreement) {
+        return new String[]{
+            agreement.getId(),
+            agreement.getMainTenant().getFullName(),
+            agreement.getProperty().getAddress(),
+            agreement.getPeriod().toString(),
+            DateUtil.formatDate(agreement.getContractDate()),
+            String.format("$%.2f", agreement.getRentingFee()),
+            agreement.getStatus().toString()
+        };
+    }
+
+    private static String optional(String input) {
+        return input == null || input.trim().isEmpty() ? null : input.trim();
+    }
+
+    private static Date optionalDate(String input) {
+        String text = optional(input);
+        if (text == null) {
+            return null;
+        }
+        Date date = DateUtil.parseDate(text);
+        if (date == null) {
+            throw new IllegalArgumentException("not a YYYY-MM-DD date: " + text);
+        }
+        return date;
+    }
+
+    private static Double optionalFee(String input) {
+        String text = optional(input);
+        return text == null ? null : Double.valueOf(text);
+    }
+
+    /**
+     * Streams a table one terminal page at a time. Only the rows of the page being shown are formatted,
+     * so the first page appears equally fast for ten rows or a million.
+     */
+    private <T> void displayPaged(String[] headers, List<T> items, Function<T, String[]> toRow) {
+        List<String[]> sample = new ArrayList<>();
+        for (T item : items.subList(0, Math.min(items.size(), WIDTH_SAMPLE_ROWS))) {
+            sample.add(toRow.apply(item));
+        }
+        int[] widths = AsciiTableGenerator.sampleWidths(headers, sample, MAX_COLUMN_WIDTH);
+        int pageSize = pageSize();
+        int pageCount = (items.size() + pageSize - 1) / pageSize;
+        int page = 0;
+        while (true) {
+            int end = Math.min(items.size(), (page + 1) * pageSize);
+            if (!writeTable(headers, widths, items.subList(page * pageSize, end), toRow)) {
+                return;
+            }
+            if (pageCount <= 1) {
+                return;
+            }
+            String answer = reader.readLine(ANSI_YELLOW + "Page " + (page + 1) + " of " + pageCount + " (" + items.size()
+                    + " rows) - Enter: next, p: previous, number: go to page, q: quit: " + ANSI_RESET).trim().toLowerCase();
+            if (answer.equals("q")) {
+                return;
+            } else if (answer.equals("p")) {
+                page = Math.max(0, page - 1);
+            } else if (answer.matches("\\d+")) {
+                page = Math.max(0, Math.min(pageCount - 1, Integer.parseInt(answer) - 1));
+            } else if (page == pageCount - 1) {
+                return;
+            } else {
+                page++;
+            }
+        }
+    }
+
+    /**
+     * Pages through query results by cursor: each page is fetched when shown, so reaching page 1000
+     * costs no more than page 1. Going back re-fetches from the cursors already seen.
+     */
+    private <T> void displayPages(String[] headers, Function<String, Page<T>> fetch, Function<T, String[]> toRow) {
+        Deque<String> previous = new ArrayDeque<>();
+        String cursor = null;
+        int[] widths = null;
+        while (true) {
+            Page<T> page = fetch.apply(cursor);
+            if (page.getItems().isEmpty() && previous.isEmpty()) {
+                displayWarning("No matching records found.");
+                return;
+            }
+            if (widths == null) {
+                List<String[]> sample = new ArrayList<>();
+                for (T item : page.getItems()) {
+                    sample.add(toRow.apply(item));
+                }
+                widths = AsciiTableGenerator.sampleWidths(headers, sample, MAX_COLUMN_WIDTH);
+            }
+            if (!writeTable(headers, widths, page.getItems(), toRow)) {
+                return;
+            }
+            if (!page.hasMore() && previous.isEmpty()) {
+                return;
+            }
+            String answer = reader.readLine(ANSI_YELLOW + "Page " + (previous.size() + 1)
+                    + (page.hasMore() ? "" : " (last)") + " - Enter: next, p: previous, q: quit: " + ANSI_RESET).trim().toLowerCase();
+            if (answer.equals("q")) {
+                return;
+            } else if (answer.equals("p")) {
+                if (!previous.isEmpty()) {
+                    cursor = previous.pop();
+                }
+            } else if (!page.hasMore()) {
+                return;
+            } else {
+                previous.push(cursor == null ? "" : cursor);
+                cursor = page.getNextCursor();
+            }
+            if (cursor != null && cursor.isEmpty()) {
+                cursor = null;
+            }
+        }
+    }
+
+    private <T> boolean writeTable(String[] headers, int[] widths, List<T> items, Function<T, String[]> toRow) {
+        PrintWriter out = reader.getTerminal().writer();
+        out.print(ANSI_BLUE);
+        try {
+            AsciiTableGenerator.TableWriter table = new AsciiTableGenerator.TableWriter(out, widths);
+            table.writeHeader(headers);
+            for (T item : items) {
+                table.writeRow(toRow.apply(item));
+            }
+            table.writeFooter();
+        } catch (IOException e) {
+            displayError("Error displaying table: " + e.getMessage());
+            return false;
+        }
+        out.println(ANSI_RESET);
+        out.flush();
+        return true;
+    }
+
+    // Rows that fit on the terminal next to the table borders and the paging prompt
+    private int pageSize() {
+        int height = reader.getTerminal().getHeight();
+        return height > 16 ? height - 8 : DEFAULT_PAGE_SIZE;
+    }
+
+    // Reads only the running totals; the host ranking sorts hosts, never agreements or payments
+    private void displayDashboard() {
+        List<String[]> overview = new ArrayList<>();
+        overview.add(new String[]{"Tenants", String.valueOf(tenantManager.countTenants())});
+        overview.add(new String[]{"Hosts", String.valueOf(hostManager.countHosts())});
+        for (Property.Status status : Property.Status.values()) {
+            overview.add(new String[]{"Properties " + status, String.valueOf(dashboard.countProperties(status))});
+        }
+        for (RentalAgreement.Status status : RentalAgreement.Status.values()) {
+            overview.add(new String[]{"Agreements " + status, String.valueOf(dashboard.countRentalAgreements(status))});
+        }
+        overview.add(new String[]{"Active Rent per Period", String.format("$%.2f", dashboard.getActiveRent().getAmount())});
+        DashboardAggregates.Total payments = dashboard.getPayments();
+        overview.add(new String[]{"Payments", payments.getCount() + " ($" + String.format("%.2f", payments.getAmount()) + ")"});
+        System.out.println(ANSI_BLUE + AsciiTableGenerator.generateTable(new String[]{"Figure", "Value"}, overview) + ANSI_RESET);
+
+        List<String[]> methods = new ArrayList<>();
+        dashboard.getPaymentsByMethod().forEach((method, total) -> {
+            if (total.getCount() > 0) {
+                methods.add(new String[]{method, String.valueOf(total.getCount()), String.format("$%.2f", total.getAmount())});
+            }
+        });
+        if (!methods.isEmpty()) {
+            System.out.println(ANSI_BLUE + AsciiTableGenerator.generateTable(new String[]{"Payment Method", "Payments", "Amount"}, methods) + ANSI_RESET);
+        }
+
+        List<Map.Entry<String, DashboardAggregates.Total>> hosts = new ArrayList<>(dashboard.getActiveRentByHost().entrySet());
+        hosts.removeIf(entry -> entry.getValue().getCount() == 0);
+        hosts.sort(Comparator.comparingDouble((Map.Entry<String, DashboardAggregates.Total> entry) -> entry.getValue().getAmount()).reversed());
+        List<String[]> topHosts = new ArrayList<>();
+        for (Map.Entry<String, DashboardAggregates.Total> entry : hosts.subList(0, Math.min(hosts.size(), DASHBOARD_TOP_HOSTS))) {
+            topHosts.add(new String[]{entry.getKey(), String.valueOf(entry.getValue().getCount()),
+                String.format("$%.2f", entry.getValue().getAmount())});
+        }
+        if (!topHosts.isEmpty()) {
+            System.out.println(ANSI_BLUE + AsciiTableGenerator.generateTable(new String[]{"Host", "Active Agreements", "Rent per Period"}, topHosts) + ANSI_RESET);
+        }
+    }
+
+    private void importData() {
+        System.out.println(IMPORT_DATA_FORM);
+        String directory = promptForInput("Import directory", new Completers.FileNameCompleter());
+        Path path = Paths.get(directory);
+        if (!Files.isDirectory(path)) {
+            displayError("Directory not found: " + directory);
+            return;
+        }
+        BatchImporter importer = new BatchImporter(tenantManager, hostManager, propertyManager, rentalManager)
+                .sourcesIn(path);
+        if (importer.getSources().isEmpty()) {
+            displayWarning("No tenants, hosts, properties, rental_agreements or payments files found.");
+            return;
+        }
+        boolean allOrNothing = promptForInput("Cancel the whole import if any row is rejected? (yes/no)", YES_NO)
+                .equalsIgnoreCase("yes");
+        try {
+            BatchImporter.Result result = importer.run(path.resolve(IMPORT_REJECTS_FILE), allOrNothing);
+            List<String[]> rows = new ArrayList<>();
+            for (BatchImporter.Kind kind : importer.getSources().keySet()) {
+                rows.add(new String[]{
+                    importer.getSources().get(kind).getFileName().toString(),
+                    String.valueOf(result.getAccepted(kind) + result.getRejected(kind)),
+                    String.valueOf(result.getImported(kind)),
+                    String.valueOf(result.getRejected(kind))
+                });
+            }
+            System.out.println(AsciiTableGenerator.generateTable(new String[]{"File", "Rows", "Imported", "Rejected"}, rows));
+            if (result.isCommitted()) {
+                displaySuccess(String.format("Imported %d rows in %d ms (%.0f rows/s).", result.getTotalImported(),
+                        result.getElapsedMillis(), result.getRowsPerSecond()));
+            } else {
+                displayError("Import cancelled; nothing was saved.");
+            }
+            if (result.getTotalRejected() > 0) {
+                displayWarning(result.getTotalRejected() + " rejected rows are listed in " + result.getRejectsFile());
+            }
+        } catch (IOException e) {
+            displayError("Import failed: " + e.getMessage());
         }
-        System.out.println(ANSI_BLUE + AsciiTableGenerator.generateTable(headers, data) + ANSI_RESET);
     }
 
     private void generateReports() {
         boolean generating = true;
         while (generating) {
-            String[] options = {
-                "1. Generate Tenant Report",
-                "2. Generate Host Report",
-                "3. Generate Property Report",
-                "4. Generate Rental Agreement Report",
-                "5. Return to Main Menu"
-            };
-            System.out.println(ANSI_BLUE + AsciiTableGenerator.generateMenuTable("GENERATE REPORTS", options) + ANSI_RESET);
+            System.out.println(GENERATE_REPORTS_MENU);
 
-            String choice = reader.readLine("Enter your choice: ");
+            String choice = readChoice(6);
             switch (choice) {
                 case "1":
                     generateTenantReport();
@@ -1119,6 +1622,9 @@ private void displayExitMessage() {
                     generateRentalAgreementReport();
                     break;
                 case "5":
+                    generateRentRollReport();
+                    break;
+                case "6":
                     generating = false;
                     break;
                 default:
@@ -1133,18 +1639,14 @@ private void displayExitMessage() {
             displayWarning("No tenants found.");
         } else {
             String[] headers = {"ID", "Name", "Date of Birth", "Contact Info", "Rental Agreements", "Payments"};
-            List<String[]> data = new ArrayList<>();
-            for (Tenant tenant : tenants) {
-                data.add(new String[]{
-                    tenant.getId(),
-                    tenant.getFullName(),
-                    DateUtil.formatDate(tenant.getDateOfBirth()),
-                    tenant.getContactInformation(),
-                    String.valueOf(tenant.getRentalAgreements().size()),
-                    String.valueOf(tenant.getPaymentTransactions().size())
-                });
-            }
-            System.out.println(ANSI_BLUE + AsciiTableGenerator.generateTable(headers, data) + ANSI_RESET);
+            displayPaged(headers, tenants, tenant -> new String[]{
+                tenant.getId(),
+                tenant.getFullName(),
+                DateUtil.formatDate(tenant.getDateOfBirth()),
+                tenant.getContactInformation(),
+                String.valueOf(tenant.countRentalAgreements()),
+                String.valueOf(tenant.countPaymentTransactions())
+            });
         }
     }
 
@@ -1154,19 +1656,15 @@ private void displayExitMessage() {
             displayWarning("No hosts found.");
         } else {
             String[] headers = {"ID", "Name", "Date of Birth", "Contact Info", "Managed Properties", "Cooperating Owners", "Rental Agreements"};
-            List<String[]> data = new ArrayList<>();
-            for (Host host : hosts) {
-                data.add(new String[]{
-                    host.getId(),
-                    host.getFullName(),
-                    DateUtil.formatDate(host.getDateOfBirth()),
-                    host.getContactInformation(),
-                    String.valueOf(host.getManagedProperties().size()),
-                    String.valueOf(host.getCooperatingOwners().size()),
-                    String.valueOf(host.getRentalAgreements().size())
-                });
-            }
-            System.out.println(ANSI_BLUE + AsciiTableGenerator.generateTable(headers, data) + ANSI_RESET);
+            displayPaged(headers, hosts, host -> new String[]{
+                host.getId(),
+                host.getFullName(),
+                DateUtil.formatDate(host.getDateOfBirth()),
+                host.getContactInformation(),
+                String.valueOf(host.countManagedProperties()),
+                String.valueOf(host.getCooperatingOwners().size()),
+                String.valueOf(host.countRentalAgreements())
+            });
         }
     }
 
@@ -1176,13 +1674,12 @@ private void displayExitMessage() {
             displayWarning("No properties found.");
         } else {
             String[] headers = {"ID", "Address", "Price", "Status", "Owner", "Type", "Details"};
-            List<String[]> data = new ArrayList<>();
-            for (Property property : properties) {
+            displayPaged(headers, properties, property -> {
                 String type = property instanceof ResidentialProperty ? "Residential" : "Commercial";
                 String details = property instanceof ResidentialProperty ?
                     "Bedrooms: " + ((ResidentialProperty) property).getNumberOfBedrooms() :
                     "Business Type: " + ((CommercialProperty) property).getBusinessType();
-                data.add(new String[]{
+                return new String[]{
                     property.getId(),
                     property.getAddress(),
                     String.format("$%.2f", property.getPrice()),
@@ -1190,9 +1687,8 @@ private void displayExitMessage() {
                     property.getOwner(),
                     type,
                     details
-                });
-            }
-            System.out.println(ANSI_BLUE + AsciiTableGenerator.generateTable(headers, data) + ANSI_RESET);
+                };
+            });
         }
     }
 
@@ -1202,24 +1698,71 @@ private void displayExitMessage() {
             displayWarning("No rental agreements found.");
         } else {
             String[] headers = {"ID", "Tenant", "Property", "Period", "Contract Date", "Renting Fee", "Status"};
-            List<String[]> data = new ArrayList<>();
-            for (RentalAgreement agreement : agreements) {
-                data.add(new String[]{
-                    agreement.getId(),
-                    agreement.getMainTenant().getFullName(),
-                    agreement.getProperty().getAddress(),
-                    agreement.getPeriod().toString(),
-                    DateUtil.formatDate(agreement.getContractDate()),
-                    String.format("$%.2f", agreement.getRentingFee()),
-                    agreement.getStatus().toString()
-                });
-            }
-            System.out.println(ANSI_BLUE + AsciiTableGenerator.generateTable(headers, data) + ANSI_RESET);
+            displayPaged(headers, agreements, agreement -> new String[]{
+                agreement.getId(),
+                agreement.getMainTenant().getFullName(),
+                agreement.getProperty().getAddress(),
+                agreement.getPeriod().toString(),
+                DateUtil.formatDate(agreement.getContractDate()),
+                String.format("$%.2f", agreement.getRentingFee()),
+                agreement.getStatus().toString()
+            });
         }
     }
 
+    // Portfolio and monthly totals, then arrears by host or property, largest first
+    private void generateRentRollReport() {
+        RentRollAnalyzer.Report report = new RentRollAnalyzer(propertyManager, rentalManager)
+                .analyze(LocalDate.now(), RENT_ROLL_MONTHS);
+        if (report.getTotal().getUnits() == 0) {
+            displayWarning("No properties found.");
+            return;
+        }
+        String[] headers = {"Period", "Expected", "Received", "Arrears", "Agreements", "Occupancy"};
+        List<String[]> rows = new ArrayList<>();
+        for (RentRollAnalyzer.Line month : report.getMonths()) {
+            rows.add(rentRollRow(month));
+        }
+        rows.add(rentRollRow(report.getTotal()));
+        System.out.println(ANSI_BLUE + AsciiTableGenerator.generateTable(headers, rows) + ANSI_RESET);
+        displaySuccess("Rent roll as of " + report.getAsOf() + " computed in " + report.getElapsedMillis() + " ms.");
+        if (report.getUnassignedAgreements() > 0) {
+            displayWarning(report.getUnassignedAgreements() + " agreements refer to missing properties and were left out.");
+        }
+
+        String choice = promptForInput("Show arrears by (h)ost or (p)roperty? Enter to return", new StringsCompleter("h", "p")).trim().toLowerCase();
+        List<RentRollAnalyzer.Line> lines;
+        if (choice.startsWith("h")) {
+            lines = new ArrayList<>(report.getHosts());
+            headers[0] = "Host";
+        } else if (choice.startsWith("p")) {
+            lines = new ArrayList<>(report.getProperties());
+            headers[0] = "Property";
+        } else {
+            return;
+        }
+        lines.sort(Comparator.comparingDouble(RentRollAnalyzer.Line::getArrears).reversed());
+        displayPaged(headers, lines, this::rentRollRow);
+    }
+
+    private String[] rentRollRow(RentRollAnalyzer.Line line) {
+        return new String[]{
+            line.getKey(),
+            String.format("$%.2f", line.getExpected()),
+            String.format("$%.2f", line.getReceived()),
+            String.format("$%.2f", line.getArrears()),
+            String.valueOf(line.getAgreements()),
+            String.format("%d/%d (%.0f%%)", line.getOccupied(), line.getUnits(), line.getOccupancy() * 100)
+        };
+    }
+
+    // "--server [options]" starts the headless HTTP service instead of the interactive console
     public static void main(String[] args) {
         try {
+            if (args.length > 0 && args[0].equals("--server")) {
+                RentalServer.main(args);
+                return;
+            }
             ConsoleUI ui = new ConsoleUI();
             ui.start();
         } catch (IOException e) {
@@ -1,23 +1,34 @@
 package com.rentalsystem.util;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
 import java.util.List;
 
+/**
+ * Box-drawing tables for the console. Rendering appends straight into one pre-sized StringBuilder:
+ * border lines are built once per table and cells are padded from a shared run of spaces, so no
+ * per-cell Formatter or temporary strings are involved.
+ */
 public class AsciiTableGenerator {
-    private static final String HORIZONTAL_SEP = "─";
-    private static final String VERTICAL_SEP = "│";
-    private static final String JOIN_SEP = "┼";
-    private static final String TOP_LEFT_CORNER = "┌";
-    private static final String TOP_RIGHT_CORNER = "┐";
-    private static final String BOTTOM_LEFT_CORNER = "└";
-    private static final String BOTTOM_RIGHT_CORNER = "┘";
-    private static final String TOP_JOIN = "┬";
-    private static final String BOTTOM_JOIN = "┴";
-    private static final String LEFT_JOIN = "├";
-    private static final String RIGHT_JOIN = "┤";
+    private static final char HORIZONTAL_SEP = '─';
+    private static final char VERTICAL_SEP = '│';
+    private static final char JOIN_SEP = '┼';
+    private static final char TOP_LEFT_CORNER = '┌';
+    private static final char TOP_RIGHT_CORNER = '┐';
+    private static final char BOTTOM_LEFT_CORNER = '└';
+    private static final char BOTTOM_RIGHT_CORNER = '┘';
+    private static final char TOP_JOIN = '┬';
+    private static final char BOTTOM_JOIN = '┴';
+    private static final char LEFT_JOIN = '├';
+    private static final char RIGHT_JOIN = '┤';
+
+    // Padding and borders are appended as slices of these runs, in chunks for wider columns
+    private static final int RUN_LENGTH = 128;
+    private static final String SPACES = fill(' ', RUN_LENGTH);
+    private static final String HORIZONTAL_RUN = fill(HORIZONTAL_SEP, RUN_LENGTH);
 
     public static String generateTable(String[] headers, List<String[]> data) {
-        StringBuilder sb = new StringBuilder();
-
         // Calculate max width of each column
         int[] maxWidths = new int[headers.length];
         for (int i = 0; i < headers.length; i++) {
@@ -29,125 +40,214 @@ public class AsciiTableGenerator {
             }
         }
 
-        // Generate top border
-        sb.append(TOP_LEFT_CORNER);
-        for (int i = 0; i < maxWidths.length; i++) {
-            sb.append(repeat(HORIZONTAL_SEP, maxWidths[i] + 2));
-            sb.append(i == maxWidths.length - 1 ? TOP_RIGHT_CORNER : TOP_JOIN);
-        }
-        sb.append("\n");
-
-        // Generate header row
-        sb.append(VERTICAL_SEP);
-        for (int i = 0; i < headers.length; i++) {
-            sb.append(" ").append(padRight(headers[i], maxWidths[i])).append(" ").append(VERTICAL_SEP);
-        }
-        sb.append("\n");
-
-        // Generate middle border
-        sb.append(LEFT_JOIN);
-        for (int i = 0; i < maxWidths.length; i++) {
-            sb.append(repeat(HORIZONTAL_SEP, maxWidths[i] + 2));
-            sb.append(i == maxWidths.length - 1 ? RIGHT_JOIN : JOIN_SEP);
+        int lineLength = 2;
+        for (int width : maxWidths) {
+            lineLength += width + 3;
         }
-        sb.append("\n");
+        StringBuilder sb = new StringBuilder(lineLength * (data.size() + 4));
 
-        // Generate data rows
+        appendBorder(sb, maxWidths, TOP_LEFT_CORNER, TOP_JOIN, TOP_RIGHT_CORNER);
+        appendRow(sb, headers, maxWidths);
+        appendBorder(sb, maxWidths, LEFT_JOIN, JOIN_SEP, RIGHT_JOIN);
         for (String[] row : data) {
-            sb.append(VERTICAL_SEP);
-            for (int i = 0; i < row.length; i++) {
-                sb.append(" ").append(padRight(row[i], maxWidths[i])).append(" ").append(VERTICAL_SEP);
-            }
-            sb.append("\n");
+            appendRow(sb, row, maxWidths);
         }
-
-        // Generate bottom border
-        sb.append(BOTTOM_LEFT_CORNER);
-        for (int i = 0; i < maxWidths.length; i++) {
-            sb.append(repeat(HORIZONTAL_SEP, maxWidths[i] + 2));
-            sb.append(i == maxWidths.length - 1 ? BOTTOM_RIGHT_CORNER : BOTTOM_JOIN);
-        }
-        sb.append("\n");
+        appendBorder(sb, maxWidths, BOTTOM_LEFT_CORNER, BOTTOM_JOIN, BOTTOM_RIGHT_CORNER);
 
         return sb.toString();
     }
 
     public static String generateMenuTable(String title, String[] options) {
-        StringBuilder sb = new StringBuilder();
         int maxWidth = title.length();
         for (String option : options) {
             maxWidth = Math.max(maxWidth, option.length());
         }
 
-        // Title
-        sb.append(TOP_LEFT_CORNER).append(repeat(HORIZONTAL_SEP, maxWidth + 4)).append(TOP_RIGHT_CORNER).append("\n");
-        sb.append(VERTICAL_SEP).append(" ").append(padCenter(title, maxWidth + 2)).append(" ").append(VERTICAL_SEP).append("\n");
-        sb.append(LEFT_JOIN).append(repeat(HORIZONTAL_SEP, maxWidth + 4)).append(RIGHT_JOIN).append("\n");
+        StringBuilder sb = new StringBuilder((maxWidth + 7) * (options.length + 4));
+        appendTitle(sb, title, maxWidth);
 
         // Options
-        for (int i = 0; i < options.length; i++) {
-            sb.append(VERTICAL_SEP).append(" ").append(padRight(options[i], maxWidth + 2)).append(" ").append(VERTICAL_SEP).append("\n");
+        for (String option : options) {
+            appendLine(sb, option, maxWidth);
         }
 
-        // Bottom border
-        sb.append(BOTTOM_LEFT_CORNER).append(repeat(HORIZONTAL_SEP, maxWidth + 4)).append(BOTTOM_RIGHT_CORNER).append("\n");
-
+        appendRule(sb, BOTTOM_LEFT_CORNER, BOTTOM_RIGHT_CORNER, maxWidth);
         return sb.toString();
     }
 
     public static String generateInputPromptTable(String title, String[] prompts) {
-        StringBuilder sb = new StringBuilder();
         int maxWidth = title.length();
         for (String prompt : prompts) {
             maxWidth = Math.max(maxWidth, prompt.length());
         }
 
-        // Title
-        sb.append(TOP_LEFT_CORNER).append(repeat(HORIZONTAL_SEP, maxWidth + 4)).append(TOP_RIGHT_CORNER).append("\n");
-        sb.append(VERTICAL_SEP).append(" ").append(padCenter(title, maxWidth + 2)).append(" ").append(VERTICAL_SEP).append("\n");
-        sb.append(LEFT_JOIN).append(repeat(HORIZONTAL_SEP, maxWidth + 4)).append(RIGHT_JOIN).append("\n");
+        StringBuilder sb = new StringBuilder((maxWidth + 7) * (2 * prompts.length + 3));
+        appendTitle(sb, title, maxWidth);
 
         // Prompts
         for (int i = 0; i < prompts.length; i++) {
-            sb.append(VERTICAL_SEP).append(" ").append(padRight(prompts[i], maxWidth + 2)).append(" ").append(VERTICAL_SEP).append("\n");
+            appendLine(sb, prompts[i], maxWidth);
             if (i < prompts.length - 1) {
-                sb.append(LEFT_JOIN).append(repeat(HORIZONTAL_SEP, maxWidth + 4)).append(RIGHT_JOIN).append("\n");
+                appendRule(sb, LEFT_JOIN, RIGHT_JOIN, maxWidth);
             }
         }
 
-        // Bottom border
-        sb.append(BOTTOM_LEFT_CORNER).append(repeat(HORIZONTAL_SEP, maxWidth + 4)).append(BOTTOM_RIGHT_CORNER).append("\n");
-
+        appendRule(sb, BOTTOM_LEFT_CORNER, BOTTOM_RIGHT_CORNER, maxWidth);
         return sb.toString();
     }
 
     public static String generateConfirmationTable(String title, String message) {
-        StringBuilder sb = new StringBuilder();
         int maxWidth = Math.max(title.length(), message.length());
 
-        // Title
-        sb.append(TOP_LEFT_CORNER).append(repeat(HORIZONTAL_SEP, maxWidth + 4)).append(TOP_RIGHT_CORNER).append("\n");
-        sb.append(VERTICAL_SEP).append(" ").append(padCenter(title, maxWidth + 2)).append(" ").append(VERTICAL_SEP).append("\n");
-        sb.append(LEFT_JOIN).append(repeat(HORIZONTAL_SEP, maxWidth + 4)).append(RIGHT_JOIN).append("\n");
+        StringBuilder sb = new StringBuilder((maxWidth + 7) * 5);
+        appendTitle(sb, title, maxWidth);
+        appendLine(sb, message, maxWidth);
+        appendRule(sb, BOTTOM_LEFT_CORNER, BOTTOM_RIGHT_CORNER, maxWidth);
+        return sb.toString();
+    }
 
-        // Message
-        sb.append(VERTICAL_SEP).append(" ").append(padRight(message, maxWidth + 2)).append(" ").append(VERTICAL_SEP).append("\n");
+    /**
+     * Column widths for a streamed table: the widest of the header and the sampled rows per column,
+     * capped at maxWidth so one long value cannot blow up every page.
+     */
+    public static int[] sampleWidths(String[] headers, List<String[]> sample, int maxWidth) {
+        int[] widths = new int[headers.length];
+        for (int i = 0; i < headers.length; i++) {
+            widths[i] = Math.min(maxWidth, headers[i].length());
+        }
+        for (String[] row : sample) {
+            for (int i = 0; i < row.length && i < widths.length; i++) {
+                widths[i] = Math.max(widths[i], Math.min(maxWidth, row[i] == null ? 0 : row[i].length()));
+            }
+        }
+        return widths;
+    }
 
-        // Bottom border
-        sb.append(BOTTOM_LEFT_CORNER).append(repeat(HORIZONTAL_SEP, maxWidth + 4)).append(BOTTOM_RIGHT_CORNER).append("\n");
+    /**
+     * Writes a table row by row with fixed column widths, so nothing is buffered beyond the current row
+     * and the first rows reach the terminal at once. Cells wider than their column are cut with an ellipsis.
+     */
+    public static class TableWriter {
+        private final Writer out;
+        private final int[] widths;
+        private final String topBorder;
+        private final String middleBorder;
+        private final String bottomBorder;
+
+        public TableWriter(Writer out, int[] widths) {
+            this.out = out;
+            this.widths = widths.clone();
+            this.topBorder = border(this.widths, TOP_LEFT_CORNER, TOP_JOIN, TOP_RIGHT_CORNER);
+            this.middleBorder = border(this.widths, LEFT_JOIN, JOIN_SEP, RIGHT_JOIN);
+            this.bottomBorder = border(this.widths, BOTTOM_LEFT_CORNER, BOTTOM_JOIN, BOTTOM_RIGHT_CORNER);
+        }
 
+        public void writeHeader(String[] headers) throws IOException {
+            out.write(topBorder);
+            writeRow(headers);
+            out.write(middleBorder);
+        }
+
+        public void writeRow(String[] row) throws IOException {
+            out.write(VERTICAL_SEP);
+            for (int i = 0; i < widths.length; i++) {
+                String cell = i < row.length && row[i] != null ? row[i] : "";
+                out.write(' ');
+                if (cell.length() > widths[i]) {
+                    out.write(cell, 0, Math.max(0, widths[i] - 1));
+                    if (widths[i] > 0) {
+                        out.write('…');
+                    }
+                } else {
+                    out.write(cell);
+                    writeSpaces(widths[i] - cell.length());
+                }
+                out.write(' ');
+                out.write(VERTICAL_SEP);
+            }
+            out.write('\n');
+        }
+
+        public void writeFooter() throws IOException {
+            out.write(bottomBorder);
+            out.flush();
+        }
+
+        private void writeSpaces(int count) throws IOException {
+            for (; count > RUN_LENGTH; count -= RUN_LENGTH) {
+                out.write(SPACES);
+            }
+            out.write(SPACES, 0, count);
+        }
+    }
+
+    private static String border(int[] widths, char left, char join, char right) {
+        StringBuilder sb = new StringBuilder();
+        appendBorder(sb, widths, left, join, right);
         return sb.toString();
     }
 
-    private static String repeat(String s, int times) {
-        return new String(new char[times]).replace("\0", s);
+    private static void appendBorder(StringBuilder sb, int[] widths, char left, char join, char right) {
+        sb.append(left);
+        for (int i = 0; i < widths.length; i++) {
+            appendRun(sb, HORIZONTAL_RUN, widths[i] + 2);
+            sb.append(i == widths.length - 1 ? right : join);
+        }
+        sb.append('\n');
+    }
+
+    private static void appendRow(StringBuilder sb, String[] row, int[] widths) {
+        sb.append(VERTICAL_SEP);
+        for (int i = 0; i < row.length; i++) {
+            sb.append(' ');
+            appendPadded(sb, row[i], widths[i]);
+            sb.append(' ').append(VERTICAL_SEP);
+        }
+        sb.append('\n');
+    }
+
+    // Title box shared by the menu, prompt and confirmation tables: top rule, centred title, separator
+    private static void appendTitle(StringBuilder sb, String title, int maxWidth) {
+        appendRule(sb, TOP_LEFT_CORNER, TOP_RIGHT_CORNER, maxWidth);
+        int width = maxWidth + 2;
+        int leftPadding = Math.max(0, (width - title.length()) / 2);
+        sb.append(VERTICAL_SEP).append(' ');
+        appendRun(sb, SPACES, leftPadding);
+        appendPadded(sb, title, width - leftPadding);
+        sb.append(' ').append(VERTICAL_SEP).append('\n');
+        appendRule(sb, LEFT_JOIN, RIGHT_JOIN, maxWidth);
+    }
+
+    private static void appendLine(StringBuilder sb, String text, int maxWidth) {
+        sb.append(VERTICAL_SEP).append(' ');
+        appendPadded(sb, text, maxWidth + 2);
+        sb.append(' ').append(VERTICAL_SEP).append('\n');
     }
 
-    private static String padRight(String s, int n) {
-        return String.format("%-" + n + "s", s);
+    private static void appendRule(StringBuilder sb, char left, char right, int maxWidth) {
+        sb.append(left);
+        appendRun(sb, HORIZONTAL_RUN, maxWidth + 4);
+        sb.append(right).append('\n');
+    }
+
+    // Left-aligns s in a field of the given width; longer values are kept whole, as %-Ns did
+    private static void appendPadded(StringBuilder sb, String s, int width) {
+        sb.append(s);
+        appendRun(sb, SPACES, width - s.length());
+    }
+
+    private static void appendRun(StringBuilder sb, String run, int count) {
+        for (; count > RUN_LENGTH; count -= RUN_LENGTH) {
+            sb.append(run);
+        }
+        if (count > 0) {
+            sb.append(run, 0, count);
+        }
     }
 
-    private static String padCenter(String s, int width) {
-        return String.format("%-" + width + "s", String.format("%" + (s.length() + (width - s.length()) / 2) + "s", s));
+    private static String fill(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,407 @@
+package com.rentalsystem.util;
+
+import com.rentalsystem.model.*;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single-file binary form of all five entity types, read through memory-mapped windows.
+ * <p>
+ * Layout (big-endian): a fixed header with the record counts and the string table's offset, then one
+ * section of fixed-width records per entity type, then the string table. Every text value is stored
+ * once in the string table and referenced by index, so repeated owners, payment methods and business
+ * types cost four bytes per record and decode to a single shared String. Dates are epoch days.
+ */
+public final class BinarySnapshot {
+    private static final Logger LOG = Logger.getLogger(BinarySnapshot.class);
+
+    private static final int MAGIC = 0x52504D53; // "RPMS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 8 + 5 * 4;
+    private static final int NULL_REF = -1;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    private static final int PERSON_BYTES = 4 + 4 + 4 + 4;
+    // kind, id, address, price, status, owner, then bedrooms|businessType, parking, squareFootage, flags
+    private static final int PROPERTY_BYTES = 1 + 4 + 4 + 8 + 1 + 4 + 4 + 4 + 8 + 1;
+    private static final int AGREEMENT_BYTES = 4 + 4 + 4 + 1 + 4 + 8 + 1;
+    private static final int PAYMENT_BYTES = 4 + 8 + 4 + 4 + 4;
+
+    private static final byte RESIDENTIAL = 'R';
+    private static final byte COMMERCIAL = 'C';
+    private static final int HAS_GARDEN = 1;
+    private static final int PET_FRIENDLY = 2;
+
+    private static final Property.Status[] PROPERTY_STATUSES = Property.Status.values();
+    private static final RentalAgreement.Period[] AGREEMENT_PERIODS = RentalAgreement.Period.values();
+    private static final RentalAgreement.Status[] AGREEMENT_STATUSES = RentalAgreement.Status.values();
+
+    private BinarySnapshot() {
+    }
+
+    // Writes to a temporary sibling and renames it over the target, like the CSV snapshots
+    public static void write(Path file, Collection<Tenant> tenants, Collection<Host> hosts,
+                             Collection<Property> properties, Collection<RentalAgreement> agreements,
+                             Collection<Payment> payments) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        StringTable strings = new StringTable();
+        long stringTableOffset;
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024))) {
+            out.write(new byte[HEADER_BYTES]);
+            for (Tenant tenant : tenants) {
+                writePerson(out, strings, tenant);
+            }
+            for (Host host : hosts) {
+                writePerson(out, strings, host);
+            }
+            for (Property property : properties) {
+                writeProperty(out, strings, property);
+            }
+            for (RentalAgreement agreement : agreements) {
+                out.writeInt(strings.ref(agreement.getId()));
+                out.writeInt(strings.ref(agreement.getMainTenant().getId()));
+                out.writeInt(strings.ref(agreement.getProperty().getId()));
+                out.writeByte(agreement.getPeriod().ordinal());
+                out.writeInt(epochDay(agreement.getContractDate()));
+                out.writeDouble(agreement.getRentingFee());
+                out.writeByte(agreement.getStatus().ordinal());
+            }
+            for (Payment payment : payments) {
+                out.writeInt(strings.ref(payment.getId()));
+                out.writeDouble(payment.getAmount());
+                out.writeInt(epochDay(payment.getPaymentDate()));
+                out.writeInt(strings.ref(payment.getPaymentMethod()));
+                out.writeInt(strings.ref(payment.getRentalAgreementId()));
+            }
+            stringTableOffset = HEADER_BYTES
+                    + (long) PERSON_BYTES * (tenants.size() + hosts.size())
+                    + (long) PROPERTY_BYTES * properties.size()
+                    + (long) AGREEMENT_BYTES * agreements.size()
+                    + (long) PAYMENT_BYTES * payments.size();
+            for (String value : strings.values) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putInt(strings.values.size()).putLong(stringTableOffset)
+                .putInt(tenants.size()).putInt(hosts.size()).putInt(properties.size())
+                .putInt(agreements.size()).putInt(payments.size());
+        header.flip();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writePerson(DataOutputStream out, StringTable strings, Person person) throws IOException {
+        out.writeInt(strings.ref(person.getId()));
+        out.writeInt(strings.ref(person.getFullName()));
+        out.writeInt(epochDay(person.getDateOfBirth()));
+        out.writeInt(strings.ref(person.getContactInformation()));
+    }
+
+    private static void writeProperty(DataOutputStream out, StringTable strings, Property property) throws IOException {
+        boolean residential = property instanceof ResidentialProperty;
+        out.writeByte(residential ? RESIDENTIAL : COMMERCIAL);
+        out.writeInt(strings.ref(property.getId()));
+        out.writeInt(strings.ref(property.getAddress()));
+        out.writeDouble(property.getPrice());
+        out.writeByte(property.getStatus().ordinal());
+        out.writeInt(strings.ref(property.getOwner()));
+        if (residential) {
+            ResidentialProperty rp = (ResidentialProperty) property;
+            out.writeInt(rp.getNumberOfBedrooms());
+            out.writeInt(0);
+            out.writeDouble(0);
+            out.writeByte((rp.isHasGarden() ? HAS_GARDEN : 0) | (rp.isPetFriendly() ? PET_FRIENDLY : 0));
+        } else {
+            CommercialProperty cp = (CommercialProperty) property;
+            out.writeInt(strings.ref(cp.getBusinessType()));
+            out.writeInt(cp.getParkingSpaces());
+            out.writeDouble(cp.getSquareFootage());
+            out.writeByte(0);
+        }
+    }
+
+    private static int epochDay(Date date) {
+        return date == null ? NO_DATE : Math.toIntExact(DateUtil.toEpochDay(date));
+    }
+
+    private static final class StringTable {
+        private final Map<String, Integer> refs = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int ref(String value) {
+            if (value == null) {
+                return NULL_REF;
+            }
+            Integer ref = refs.get(value);
+            if (ref == null) {
+                ref = values.size();
+                refs.put(value, ref);
+                values.add(value);
+            }
+            return ref;
+        }
+    }
+
+    /**
+     * Decoded header and string table of a snapshot file. Each read method maps only its own section,
+     * so the five entity types can be read concurrently from different threads.
+     */
+    public static final class Reader {
+        private final Path file;
+        private final String[] strings;
+        private final int[] counts = new int[5];
+        private final long[] offsets = new long[5];
+
+        private Reader(Path file, String[] strings, int[] counts) {
+            this.file = file;
+            this.strings = strings;
+            System.arraycopy(counts, 0, this.counts, 0, counts.length);
+            int[] widths = {PERSON_BYTES, PERSON_BYTES, PROPERTY_BYTES, AGREEMENT_BYTES, PAYMENT_BYTES};
+            long offset = HEADER_BYTES;
+            for (int i = 0; i < widths.length; i++) {
+                offsets[i] = offset;
+                offset += (long) widths[i] * counts[i];
+            }
+        }
+
+        public static Reader open(Path file) throws IOException {
+            try (MappedInput in = new MappedInput(file)) {
+                if (in.getInt() != MAGIC) {
+                    throw new IOException(file.getFileName() + " is not a rental data snapshot");
+                }
+                int version = in.getInt();
+                if (version != VERSION) {
+                    throw new IOException("Unsupported snapshot version " + version + " in " + file.getFileName());
+                }
+                String[] strings = new String[in.getInt()];
+                long stringTableOffset = in.getLong();
+                int[] counts = new int[5];
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] = in.getInt();
+                }
+                in.seek(stringTableOffset);
+                for (int i = 0; i < strings.length; i++) {
+                    strings[i] = in.getUtf8(in.getInt());
+                }
+                return new Reader(file, strings, counts);
+            }
+        }
+
+        public int getTenantCount() {
+            return counts[0];
+        }
+
+        public int getHostCount() {
+            return counts[1];
+        }
+
+        public int getPropertyCount() {
+            return counts[2];
+        }
+
+        public int getRentalAgreementCount() {
+            return counts[3];
+        }
+
+        public int getPaymentCount() {
+            return counts[4];
+        }
+
+        public List<Tenant> readTenants() throws IOException {
+            List<Tenant> tenants = new ArrayList<>(counts[0]);
+            try (MappedInput in = new MappedInput(file)) {
+                in.seek(offsets[0]);
+                for (int i = 0; i < counts[0]; i++) {
+                    tenants.add(new Tenant(string(in.getInt()), string(in.getInt()), date(in.getInt()),
+                            string(in.getInt())));
+                }
+            }
+            return tenants;
+        }
+
+        public List<Host> readHosts() throws IOException {
+            List<Host> hosts = new ArrayList<>(counts[1]);
+            try (MappedInput in = new MappedInput(file)) {
+                in.seek(offsets[1]);
+                for (int i = 0; i < counts[1]; i++) {
+                    hosts.add(new Host(string(in.getInt()), string(in.getInt()), date(in.getInt()),
+                            string(in.getInt())));
+                }
+            }
+            return hosts;
+        }
+
+        public List<Property> readProperties() throws IOException {
+            List<Property> properties = new ArrayList<>(counts[2]);
+            try (MappedInput in = new MappedInput(file)) {
+                in.seek(offsets[2]);
+                for (int i = 0; i < counts[2]; i++) {
+                    byte kind = in.getByte();
+                    String id = string(in.getInt());
+                    String address = string(in.getInt());
+                    double price = in.getDouble();
+                    Property.Status status = PROPERTY_STATUSES[in.getByte()];
+                    String owner = string(in.getInt());
+                    int first = in.getInt();
+                    int second = in.getInt();
+                    double squareFootage = in.getDouble();
+                    int flags = in.getByte();
+                    if (kind == RESIDENTIAL) {
+                        properties.add(new ResidentialProperty(id, address, price, status, owner, first,
+                                (flags & HAS_GARDEN) != 0, (flags & PET_FRIENDLY) != 0));
+                    } else {
+                        properties.add(new CommercialProperty(id, address, price, status, owner, string(first),
+                                second, squareFootage));
+                    }
+                }
+            }
+            return properties;
+        }
+
+        // Agreements whose tenant or property is missing from the given maps are skipped, as in the CSV loader
+        public List<RentalAgreement> readRentalAgreements(Map<String, Tenant> tenants,
+                                                          Map<String, Property> properties) throws IOException {
+            List<RentalAgreement> agreements = new ArrayList<>(counts[3]);
+            try (MappedInput in = new MappedInput(file)) {
+                in.seek(offsets[3]);
+                for (int i = 0; i < counts[3]; i++) {
+                    String id = string(in.getInt());
+                    Tenant tenant = tenants.get(string(in.getInt()));
+                    Property property = properties.get(string(in.getInt()));
+                    RentalAgreement.Period period = AGREEMENT_PERIODS[in.getByte()];
+                    Date contractDate = date(in.getInt());
+                    double fee = in.getDouble();
+                    RentalAgreement.Status status = AGREEMENT_STATUSES[in.getByte()];
+                    if (tenant == null || property == null) {
+                        LOG.warn("Failed to create rental agreement " + id + " due to missing tenant or property");
+                        continue;
+                    }
+                    agreements.add(new RentalAgreement(id, tenant, property, period, contractDate, fee, status));
+                }
+            }
+            return agreements;
+        }
+
+        // Straight into the columns, without a Payment or Date per record
+        public void readPayments(PaymentTable payments) throws IOException {
+            try (MappedInput in = new MappedInput(file)) {
+                in.seek(offsets[4]);
+                for (int i = 0; i < counts[4]; i++) {
+                    String id = string(in.getInt());
+                    double amount = in.getDouble();
+                    int epochDay = in.getInt();
+                    payments.put(id, amount, epochDay == NO_DATE ? PaymentTable.NO_DAY : epochDay,
+                            string(in.getInt()), string(in.getInt()));
+                }
+            }
+        }
+
+        private String string(int ref) {
+            return ref == NULL_REF ? null : strings[ref];
+        }
+
+        private static Date date(int epochDay) {
+            return epochDay == NO_DATE ? null : DateUtil.toDate(epochDay);
+        }
+    }
+
+    /**
+     * Sequential reader over a read-only file mapped in windows, so files larger than one
+     * MappedByteBuffer (2 GB) can be read without copying them onto the heap.
+     */
+    private static final class MappedInput implements AutoCloseable {
+        private static final long WINDOW_BYTES = 64L << 20;
+
+        private final FileChannel channel;
+        private final long size;
+        private MappedByteBuffer window;
+        private long windowStart;
+        private long position;
+
+        MappedInput(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.size = channel.size();
+        }
+
+        void seek(long newPosition) {
+            position = newPosition;
+        }
+
+        byte getByte() throws IOException {
+            int offset = require(1);
+            position += 1;
+            return window.get(offset);
+        }
+
+        int getInt() throws IOException {
+            int offset = require(4);
+            position += 4;
+            return window.getInt(offset);
+        }
+
+        long getLong() throws IOException {
+            int offset = require(8);
+            position += 8;
+            return window.getLong(offset);
+        }
+
+        double getDouble() throws IOException {
+            int offset = require(8);
+            position += 8;
+            return window.getDouble(offset);
+        }
+
+        String getUtf8(int length) throws IOException {
+            int offset = require(length);
+            position += length;
+            byte[] bytes = new byte[length];
+            window.position(offset);
+            window.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        // Returns the window offset of the current position, remapping when the next bytes fall outside it
+        private int require(int bytes) throws IOException {
+            if (window == null || position < windowStart || position + bytes > windowStart + window.limit()) {
+                if (position + bytes > size) {
+                    throw new EOFException("Snapshot truncated at byte " + position);
+                }
+                long length = Math.min(Math.max(WINDOW_BYTES, bytes), size - position);
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                windowStart = position;
+            }
+            return (int) (position - windowStart);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
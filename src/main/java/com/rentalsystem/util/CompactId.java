@@ -0,0 +1,84 @@
+package com.rentalsystem.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * IDs of the shape the application issues, up to three upper-case letters followed by up to thirteen
+ * digits (T001, RA00000042, P000123456), packed into a long: the letters five bits each, then the digit
+ * count, then the digits as a number. A packed ID costs eight bytes in a long[] column instead of a
+ * String of fifty or so, and comparing two packed IDs gives the same order as comparing the strings.
+ * Other IDs do not pack and are kept as strings by the caller.
+ */
+public final class CompactId {
+    /** Result of {@link #pack} for an ID of any other shape; packed IDs are never negative. */
+    public static final long NONE = -1;
+
+    private static final int MAX_LETTERS = 3;
+    private static final int MAX_DIGITS = 13;
+    private static final int VALUE_BITS = 44;
+    private static final int WIDTH_SHIFT = VALUE_BITS;
+    private static final int LETTERS_SHIFT = VALUE_BITS + 4;
+
+    private CompactId() {
+    }
+
+    public static long pack(CharSequence id) {
+        int length = id.length();
+        int i = 0;
+        long letters = 0;
+        for (; i < length && id.charAt(i) >= 'A' && id.charAt(i) <= 'Z'; i++) {
+            if (i == MAX_LETTERS) {
+                return NONE;
+            }
+            letters = letters << 5 | (id.charAt(i) - 'A' + 1);
+        }
+        int digits = length - i;
+        if (digits < 1 || digits > MAX_DIGITS) {
+            return NONE;
+        }
+        // Letters are left-aligned, so a shorter prefix sorts first, as its next character is a digit
+        letters <<= 5 * (MAX_LETTERS - i);
+        long value = 0;
+        for (; i < length; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return NONE;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return letters << LETTERS_SHIFT | (long) digits << WIDTH_SHIFT | value;
+    }
+
+    public static String unpack(long packed) {
+        int digits = (int) (packed >>> WIDTH_SHIFT) & 0xF;
+        byte[] text = new byte[MAX_LETTERS + digits];
+        int length = 0;
+        for (int shift = LETTERS_SHIFT + 5 * (MAX_LETTERS - 1); shift >= LETTERS_SHIFT; shift -= 5) {
+            int letter = (int) (packed >>> shift) & 0x1F;
+            if (letter == 0) {
+                break;
+            }
+            text[length++] = (byte) ('A' + letter - 1);
+        }
+        long value = packed & ((1L << VALUE_BITS) - 1);
+        for (int i = length + digits - 1; i >= length; i--) {
+            text[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return new String(text, 0, length + digits, StandardCharsets.ISO_8859_1);
+    }
+
+    // Same sign as comparing the unpacked strings
+    public static int compare(long a, long b) {
+        if (a >>> LETTERS_SHIFT != b >>> LETTERS_SHIFT || a >>> WIDTH_SHIFT == b >>> WIDTH_SHIFT) {
+            return Long.compare(a, b);
+        }
+        // Same letters but a different number of digits, e.g. P10 and P9: only the text decides
+        return unpack(a).compareTo(unpack(b));
+    }
+
+    public static int hash(long packed) {
+        long h = packed * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,315 @@
+package com.rentalsystem.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Streaming CSV tokenizer over a reusable char buffer.
+ * A record is split into field offsets in place, so callers can parse numbers, booleans and enums
+ * straight from the buffer and only materialize a String for fields they keep. Fields may be quoted
+ * with {@code "..."} (a doubled quote is an escaped quote), which lets addresses contain commas.
+ */
+public class CsvTokenizer implements Closeable {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    private final Reader reader;
+    private char[] buffer;
+    private int limit;
+    private int position;
+    private boolean eof;
+
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int fieldCount;
+    private int recordStart;
+    private int recordEnd;
+    private long recordNumber;
+
+    public CsvTokenizer(Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CsvTokenizer(Reader reader, int bufferSize) {
+        this.reader = reader;
+        this.buffer = new char[Math.max(bufferSize, 16)];
+    }
+
+    // Tokenizer over a single in-memory record, e.g. a journal entry
+    public static CsvTokenizer forLine(String line) {
+        return new CsvTokenizer(new StringReader(line), line.length() + 1);
+    }
+
+    // Quotes a value for writing if it contains a delimiter, quote or line break
+    public static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + value.replace("\"", "\"\"") + '"';
+            }
+        }
+        return value;
+    }
+
+    // Advances to the next non-blank record; returns false at end of input
+    public boolean next() throws IOException {
+        while (tokenize()) {
+            if (fieldCount > 1 || ends[0] > starts[0]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    // Text of the current record, for diagnostics (quoted fields appear unescaped)
+    public String getRecord() {
+        return new String(buffer, recordStart, recordEnd - recordStart);
+    }
+
+    public String getString(int field) {
+        checkField(field);
+        return new String(buffer, starts[field], ends[field] - starts[field]);
+    }
+
+    // The pool's copy of the field text, for values that repeat from row to row; no allocation once seen
+    public String getString(int field, StringPool pool) {
+        checkField(field);
+        return pool.intern(buffer, starts[field], ends[field]);
+    }
+
+    public int length(int field) {
+        checkField(field);
+        return ends[field] - starts[field];
+    }
+
+    public boolean startsWith(int field, char c) {
+        checkField(field);
+        return ends[field] > starts[field] && buffer[starts[field]] == c;
+    }
+
+    public boolean fieldEquals(int field, String value) {
+        checkField(field);
+        int length = ends[field] - starts[field];
+        if (length != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer[starts[field] + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getInt(int field) {
+        checkField(field);
+        int i = starts[field];
+        int end = ends[field];
+        boolean negative = false;
+        if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = buffer[i] == '-';
+            i++;
+        }
+        if (i == end || end - i > 9) {
+            return Integer.parseInt(getString(field));
+        }
+        int value = 0;
+        for (; i < end; i++) {
+            char c = buffer[i];
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("For input string: \"" + getString(field) + "\"");
+            }
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    public double getDouble(int field) {
+        checkField(field);
+        int i = starts[field];
+        int end = ends[field];
+        boolean negative = false;
+        if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = buffer[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenDot = false;
+        for (; i < end; i++) {
+            char c = buffer[i];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (seenDot) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                digits = Integer.MAX_VALUE;
+                break;
+            }
+        }
+        // Up to 15 significant digits divide exactly by a power of ten; anything else takes the JDK path
+        if (digits == 0 || digits > 15 || fractionDigits >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(getString(field));
+        }
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    // Same semantics as Boolean.parseBoolean
+    public boolean getBoolean(int field) {
+        checkField(field);
+        int start = starts[field];
+        return ends[field] - start == 4
+                && (buffer[start] | 0x20) == 't' && (buffer[start + 1] | 0x20) == 'r'
+                && (buffer[start + 2] | 0x20) == 'u' && (buffer[start + 3] | 0x20) == 'e';
+    }
+
+    // yyyy-MM-dd straight from the buffer; null when the field is not a valid date, like DateUtil.parseDate
+    public Date getDate(int field) {
+        checkField(field);
+        long epochDay = DateUtil.parseEpochDay(buffer, starts[field], ends[field]);
+        return epochDay == DateUtil.INVALID ? null : DateUtil.toDate(epochDay);
+    }
+
+    // Epoch day of a yyyy-MM-dd field, or DateUtil.INVALID, for callers that store days rather than Dates
+    public long getEpochDay(int field) {
+        checkField(field);
+        return DateUtil.parseEpochDay(buffer, starts[field], ends[field]);
+    }
+
+    // Same semantics as Enum.valueOf, without allocating the field text
+    public <E extends Enum<E>> E getEnum(int field, E[] constants) {
+        for (E constant : constants) {
+            if (fieldEquals(field, constant.name())) {
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException("No enum constant " + constants.getClass().getComponentType().getSimpleName()
+                + "." + getString(field));
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void checkField(int field) {
+        if (field < 0 || field >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + field + " of " + fieldCount + " in record " + recordNumber);
+        }
+    }
+
+    private boolean tokenize() throws IOException {
+        int end = findRecordEnd();
+        if (end < 0) {
+            return false;
+        }
+        int lineEnd = end > position && buffer[end - 1] == '\r' ? end - 1 : end;
+        recordStart = position;
+        fieldCount = 0;
+        int i = position;
+        while (true) {
+            if (fieldCount == starts.length) {
+                starts = Arrays.copyOf(starts, fieldCount * 2);
+                ends = Arrays.copyOf(ends, fieldCount * 2);
+            }
+            if (i < lineEnd && buffer[i] == '"') {
+                // Unescape in place: the field shrinks towards its start as doubled quotes collapse
+                int write = i;
+                int read = i + 1;
+                while (read < lineEnd) {
+                    char c = buffer[read];
+                    if (c == '"') {
+                        if (read + 1 < lineEnd && buffer[read + 1] == '"') {
+                            buffer[write++] = '"';
+                            read += 2;
+                            continue;
+                        }
+                        read++;
+                        break;
+                    }
+                    buffer[write++] = c;
+                    read++;
+                }
+                starts[fieldCount] = i;
+                ends[fieldCount] = write;
+                while (read < lineEnd && buffer[read] != ',') {
+                    read++;
+                }
+                i = read;
+            } else {
+                starts[fieldCount] = i;
+                while (i < lineEnd && buffer[i] != ',') {
+                    i++;
+                }
+                ends[fieldCount] = i;
+            }
+            fieldCount++;
+            if (i >= lineEnd) {
+                break;
+            }
+            i++;
+        }
+        recordEnd = lineEnd;
+        position = end < limit ? end + 1 : end;
+        recordNumber++;
+        return true;
+    }
+
+    // Index of the newline ending the next record (or end of input), refilling the buffer as needed
+    private int findRecordEnd() throws IOException {
+        int scan = position;
+        boolean inQuotes = false;
+        while (true) {
+            while (scan < limit) {
+                char c = buffer[scan];
+                if (c == '"') {
+                    inQuotes = !inQuotes;
+                } else if (c == '\n' && !inQuotes) {
+                    return scan;
+                }
+                scan++;
+            }
+            if (eof) {
+                return position < limit ? limit : -1;
+            }
+            if (position > 0) {
+                System.arraycopy(buffer, position, buffer, 0, limit - position);
+                limit -= position;
+                scan -= position;
+                position = 0;
+            }
+            if (limit == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            int read = reader.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                eof = true;
+            } else {
+                limit += read;
+            }
+        }
+    }
+}
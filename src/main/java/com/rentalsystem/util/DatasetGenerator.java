@@ -0,0 +1,307 @@
+package com.rentalsystem.util;
+
+import com.rentalsystem.model.*;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Date;
+
+/**
+ * Writes a synthetic, referentially consistent dataset in the text format {@link FileHandler} reads.
+ * <p>
+ * Every attribute of a record is derived from the seed and the record's index, never from previously
+ * generated records, so agreements can reference valid tenants and properties (and payments valid
+ * agreements, dated after the contract) while each file is streamed row by row in constant memory.
+ * A skew above 0 concentrates agreements on the low-numbered properties, mimicking a few hot listings.
+ * <p>
+ * Run with {@code java -cp target/classes com.rentalsystem.util.DatasetGenerator --output dir
+ * [--tenants n] [--hosts n] [--properties n] [--agreements n] [--payments n] [--skew x] [--seed n]}.
+ */
+public class DatasetGenerator {
+    private static final Logger LOG = Logger.getLogger(DatasetGenerator.class);
+
+    private static final String[] FIRST_NAMES = {"Alice", "Bob", "Carol", "David", "Emma", "Frank", "Grace", "Henry",
+        "Isla", "Jack", "Kate", "Liam", "Mia", "Noah", "Olivia", "Peter", "Quinn", "Ruby", "Sam", "Tara"};
+    private static final String[] LAST_NAMES = {"Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller",
+        "Davis", "Wilson", "Taylor", "Anderson", "Thomas", "Moore", "Martin", "Lee", "Nguyen", "Walker", "Hall"};
+    private static final String[] STREETS = {"Main St", "Oak Rd", "Market Ave", "Pine Ln", "Elm St", "River Rd",
+        "Park Ave", "Hill St", "Lake Dr", "King St"};
+    private static final String[] BUSINESS_TYPES = {"Retail", "Office", "Warehouse", "Restaurant", "Industrial"};
+    private static final String[] PAYMENT_METHODS = {"Bank Transfer", "Credit Card", "Cash", "Direct Debit"};
+    private static final Property.Status[] PROPERTY_STATUSES = Property.Status.values();
+    private static final RentalAgreement.Period[] AGREEMENT_PERIODS = RentalAgreement.Period.values();
+    private static final RentalAgreement.Status[] AGREEMENT_STATUSES = RentalAgreement.Status.values();
+
+    private static final long FIRST_CONTRACT_DAY = LocalDate.of(2014, 1, 1).toEpochDay();
+    private static final long FIRST_BIRTH_DAY = LocalDate.of(1950, 1, 1).toEpochDay();
+
+    // Salts keep the per-attribute hash streams independent of each other
+    private static final int TENANT = 1;
+    private static final int HOST = 2;
+    private static final int PROPERTY = 3;
+    private static final int AGREEMENT = 4;
+    private static final int PAYMENT = 5;
+    private static final int REFERENCE = 6;
+
+    private final int tenantCount;
+    private final int hostCount;
+    private final int propertyCount;
+    private final int agreementCount;
+    private final long paymentCount;
+    private final double skew;
+    private final long seed;
+
+    public DatasetGenerator(int tenantCount, int hostCount, int propertyCount, int agreementCount,
+                            long paymentCount, double skew, long seed) {
+        if (tenantCount <= 0 || hostCount <= 0 || propertyCount <= 0 || (agreementCount <= 0 && paymentCount > 0)) {
+            throw new IllegalArgumentException("Tenants, hosts and properties (and agreements, when payments are "
+                    + "requested) must be positive");
+        }
+        if (skew < 0) {
+            throw new IllegalArgumentException("Skew must not be negative");
+        }
+        this.tenantCount = tenantCount;
+        this.hostCount = hostCount;
+        this.propertyCount = propertyCount;
+        this.agreementCount = agreementCount;
+        this.paymentCount = paymentCount;
+        this.skew = skew;
+        this.seed = seed;
+    }
+
+    public void generate(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        long start = System.nanoTime();
+        try (Writer out = open(directory.resolve(FileHandler.TENANTS_FILE))) {
+            for (int i = 0; i < tenantCount; i++) {
+                writeRow(out, FileHandler.formatTenant(tenant(i)));
+            }
+        }
+        try (Writer out = open(directory.resolve(FileHandler.HOSTS_FILE))) {
+            for (int i = 0; i < hostCount; i++) {
+                writeRow(out, FileHandler.formatHost(host(i)));
+            }
+        }
+        try (Writer out = open(directory.resolve(FileHandler.PROPERTIES_FILE))) {
+            for (int i = 0; i < propertyCount; i++) {
+                writeRow(out, FileHandler.formatProperty(property(i)));
+            }
+        }
+        try (Writer out = open(directory.resolve(FileHandler.RENTAL_AGREEMENTS_FILE))) {
+            for (int i = 0; i < agreementCount; i++) {
+                writeRow(out, FileHandler.formatRentalAgreement(agreement(i)));
+            }
+        }
+        try (Writer out = open(directory.resolve(FileHandler.PAYMENTS_FILE))) {
+            for (long i = 0; i < paymentCount; i++) {
+                writeRow(out, FileHandler.formatPayment(payment(i)));
+                if ((i + 1) % 10_000_000 == 0) {
+                    LOG.info("Written " + (i + 1) + " of " + paymentCount + " payments");
+                }
+            }
+        }
+        LOG.info("Generated " + tenantCount + " tenants, " + hostCount + " hosts, " + propertyCount + " properties, "
+                + agreementCount + " rental agreements and " + paymentCount + " payments in "
+                + directory + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private Tenant tenant(int i) {
+        long h = hash(TENANT, i);
+        String first = pick(FIRST_NAMES, h);
+        String last = pick(LAST_NAMES, h >>> 16);
+        return new Tenant(tenantId(i), first + " " + last, date(FIRST_BIRTH_DAY + (h >>> 32) % (55 * 365)),
+                contact(first, last, i, h));
+    }
+
+    private Host host(int i) {
+        long h = hash(HOST, i);
+        String first = pick(FIRST_NAMES, h);
+        String last = pick(LAST_NAMES, h >>> 16);
+        return new Host(hostId(i), first + " " + last, date(FIRST_BIRTH_DAY + (h >>> 32) % (45 * 365)),
+                contact(first, last, i, h));
+    }
+
+    private Property property(int i) {
+        long h = hash(PROPERTY, i);
+        String address = (1 + (h >>> 40) % 999) + " " + pick(STREETS, h >>> 8);
+        Property.Status status = PROPERTY_STATUSES[(int) ((h >>> 20) % PROPERTY_STATUSES.length)];
+        String owner = hostId((int) ((h >>> 24) % hostCount));
+        if (isResidential(i)) {
+            return new ResidentialProperty(propertyId(i), address, propertyPrice(i), status, owner,
+                    1 + (int) ((h >>> 4) % 5), (h & 2) != 0, (h & 4) != 0);
+        }
+        return new CommercialProperty(propertyId(i), address, propertyPrice(i), status, owner,
+                pick(BUSINESS_TYPES, h >>> 4), (int) ((h >>> 12) % 60), 500 + (h >>> 44) % 9500);
+    }
+
+    private RentalAgreement agreement(int i) {
+        long h = hash(AGREEMENT, i);
+        int property = agreementProperty(i);
+        Tenant tenant = new Tenant(tenantId((int) ((h >>> 8) % tenantCount)), null, null, null);
+        Property propertyRef = new Property(propertyId(property), null, 0, null, null);
+        return new RentalAgreement(agreementId(i), tenant, propertyRef,
+                AGREEMENT_PERIODS[(int) ((h >>> 40) % AGREEMENT_PERIODS.length)], date(contractDay(i)),
+                propertyPrice(property), AGREEMENT_STATUSES[(int) ((h >>> 48) % AGREEMENT_STATUSES.length)]);
+    }
+
+    private Payment payment(long i) {
+        long h = hash(PAYMENT, i);
+        int agreement = (int) ((h >>> 1) % agreementCount);
+        return new Payment(paymentId(i), propertyPrice(agreementProperty(agreement)),
+                date(contractDay(agreement) + (h >>> 40) % 730), pick(PAYMENT_METHODS, h >>> 20),
+                agreementId(agreement));
+    }
+
+    // Derived attributes shared by several files
+
+    private int agreementProperty(int agreement) {
+        double u = unit(hash(REFERENCE, agreement));
+        return Math.min(propertyCount - 1, (int) (propertyCount * Math.pow(u, 1 + skew)));
+    }
+
+    private long contractDay(int agreement) {
+        return FIRST_CONTRACT_DAY + (hash(AGREEMENT, agreement) >>> 16) % 3650;
+    }
+
+    private double propertyPrice(int property) {
+        long h = hash(PROPERTY, property) >>> 28;
+        double base = isResidential(property) ? 800 : 2000;
+        return base + (h % 600_000) / 100.0;
+    }
+
+    private boolean isResidential(int property) {
+        return (hash(PROPERTY, property) & 1) == 0;
+    }
+
+    private long hash(int salt, long index) {
+        // SplitMix64 finalizer over (seed, salt, index)
+        long z = seed + salt * 0x9E3779B97F4A7C15L + index * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return z >>> 1;
+    }
+
+    private static double unit(long hash) {
+        return (hash >>> 10) * 0x1.0p-53;
+    }
+
+    private static String pick(String[] values, long hash) {
+        return values[(int) ((hash & Long.MAX_VALUE) % values.length)];
+    }
+
+    private static String contact(String first, String last, int i, long h) {
+        return first.toLowerCase() + "." + last.toLowerCase() + i + "@example.com,"
+                + (1_000_000_000L + (h >>> 30) % 9_000_000_000L);
+    }
+
+    private static Date date(long epochDay) {
+        return DateUtil.toDate(epochDay);
+    }
+
+    static String tenantId(int i) {
+        return "T" + pad(i, 7);
+    }
+
+    static String hostId(int i) {
+        return "H" + pad(i, 6);
+    }
+
+    // FileHandler tells the property types apart by the ID prefix
+    private String propertyId(int i) {
+        return (isResidential(i) ? "R" : "C") + pad(i, 7);
+    }
+
+    static String agreementId(int i) {
+        return "RA" + pad(i, 8);
+    }
+
+    static String paymentId(long i) {
+        return "P" + pad(i, 10);
+    }
+
+    private static String pad(long value, int width) {
+        String digits = Long.toString(value);
+        if (digits.length() >= width) {
+            return digits;
+        }
+        StringBuilder sb = new StringBuilder(width);
+        for (int i = digits.length(); i < width; i++) {
+            sb.append('0');
+        }
+        return sb.append(digits).toString();
+    }
+
+    private static Writer open(Path file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), 1 << 20);
+    }
+
+    private static void writeRow(Writer out, String row) throws IOException {
+        out.write(row);
+        out.write('\n');
+    }
+
+    public static void main(String[] args) {
+        int tenants = 10_000;
+        int hosts = 1_000;
+        int properties = 5_000;
+        int agreements = 20_000;
+        long payments = 200_000;
+        double skew = 0;
+        long seed = 42;
+        String output = null;
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                String value = i + 1 < args.length ? args[i + 1] : "";
+                switch (args[i]) {
+                    case "--tenants":
+                        tenants = Integer.parseInt(value);
+                        break;
+                    case "--hosts":
+                        hosts = Integer.parseInt(value);
+                        break;
+                    case "--properties":
+                        properties = Integer.parseInt(value);
+                        break;
+                    case "--agreements":
+                        agreements = Integer.parseInt(value);
+                        break;
+                    case "--payments":
+                        payments = Long.parseLong(value);
+                        break;
+                    case "--skew":
+                        skew = Double.parseDouble(value);
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "--output":
+                        output = value;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+            if (output == null || output.isEmpty()) {
+                throw new IllegalArgumentException("--output is required");
+            }
+            new DatasetGenerator(tenants, hosts, properties, agreements, payments, skew, seed)
+                    .generate(Paths.get(output));
+            Logger.flush();
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: DatasetGenerator --output dir [--tenants n] [--hosts n] [--properties n] "
+                    + "[--agreements n] [--payments n] [--skew x] [--seed n]");
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Error generating dataset: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
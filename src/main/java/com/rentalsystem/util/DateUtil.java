@@ -1,23 +1,154 @@
- 
 package com.rentalsystem.util;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.ResolverStyle;
 import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/**
+ * Thread-safe yyyy-MM-dd codec. Dates are midnight in the default time zone, as before.
+ * Fixed-width input is parsed by hand; anything else falls back to java.time. Bulk loaders can use
+ * {@link #parseEpochDay} which reports bad input as {@link #INVALID} instead of throwing.
+ */
 public class DateUtil {
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd");
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final TimeZone TIME_ZONE = TimeZone.getTimeZone(ZONE);
+    private static final DateTimeFormatter FALLBACK_FORMAT =
+            DateTimeFormatter.ofPattern("uuuu-M-d").withResolverStyle(ResolverStyle.STRICT);
+
+    // Direct-mapped cache of formatted dates; reports format the same few thousand days repeatedly
+    private static final int CACHE_SIZE = 4096;
+    private static final AtomicReferenceArray<FormattedDate> FORMAT_CACHE = new AtomicReferenceArray<>(CACHE_SIZE);
+
+    private static final class FormattedDate {
+        final long epochDay;
+        final String text;
+
+        FormattedDate(long epochDay, String text) {
+            this.epochDay = epochDay;
+            this.text = text;
+        }
+    }
 
     public static Date parseDate(String dateString) {
-        try {
-            return DATE_FORMAT.parse(dateString);
-        } catch (ParseException e) {
-            e.printStackTrace();
+        if (dateString == null) {
             return null;
         }
+        long epochDay = parseEpochDay(dateString, 0, dateString.length());
+        return epochDay == INVALID ? null : toDate(epochDay);
     }
 
     public static String formatDate(Date date) {
-        return DATE_FORMAT.format(date);
+        return date == null ? "" : formatEpochDay(toEpochDay(date));
+    }
+
+    public static long parseEpochDay(CharSequence text, int start, int end) {
+        if (end - start == 10 && text.charAt(start + 4) == '-' && text.charAt(start + 7) == '-') {
+            int year = digits(text.charAt(start), text.charAt(start + 1), text.charAt(start + 2), text.charAt(start + 3));
+            int month = digits(text.charAt(start + 5), text.charAt(start + 6));
+            int day = digits(text.charAt(start + 8), text.charAt(start + 9));
+            return epochDay(year, month, day);
+        }
+        try {
+            return LocalDate.parse(text.subSequence(start, end), FALLBACK_FORMAT).toEpochDay();
+        } catch (DateTimeException e) {
+            return INVALID;
+        }
+    }
+
+    public static long parseEpochDay(char[] chars, int start, int end) {
+        if (end - start == 10 && chars[start + 4] == '-' && chars[start + 7] == '-') {
+            int year = digits(chars[start], chars[start + 1], chars[start + 2], chars[start + 3]);
+            int month = digits(chars[start + 5], chars[start + 6]);
+            int day = digits(chars[start + 8], chars[start + 9]);
+            return epochDay(year, month, day);
+        }
+        return parseEpochDay(new String(chars, start, end - start), 0, end - start);
+    }
+
+    public static Date toDate(long epochDay) {
+        return Date.from(LocalDate.ofEpochDay(epochDay).atStartOfDay(ZONE).toInstant());
+    }
+
+    public static long toEpochDay(Date date) {
+        long millis = date.getTime();
+        return Math.floorDiv(millis + TIME_ZONE.getOffset(millis), MILLIS_PER_DAY);
+    }
+
+    public static String formatEpochDay(long epochDay) {
+        int slot = (int) (epochDay & (CACHE_SIZE - 1));
+        FormattedDate cached = FORMAT_CACHE.get(slot);
+        if (cached != null && cached.epochDay == epochDay) {
+            return cached.text;
+        }
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        String text;
+        if (date.getYear() >= 0 && date.getYear() <= 9999) {
+            char[] chars = new char[10];
+            write4(chars, 0, date.getYear());
+            chars[4] = '-';
+            write2(chars, 5, date.getMonthValue());
+            chars[7] = '-';
+            write2(chars, 8, date.getDayOfMonth());
+            text = new String(chars);
+        } else {
+            text = date.toString();
+        }
+        FORMAT_CACHE.set(slot, new FormattedDate(epochDay, text));
+        return text;
+    }
+
+    private static long epochDay(int year, int month, int day) {
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return INVALID;
+        }
+        return LocalDate.of(year, month, day).toEpochDay();
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    // Returns -1 for any non-digit so the range checks above reject the value
+    private static int digits(char a, char b) {
+        int high = a - '0';
+        int low = b - '0';
+        if (high < 0 || high > 9 || low < 0 || low > 9) {
+            return -1;
+        }
+        return high * 10 + low;
+    }
+
+    private static int digits(char a, char b, char c, char d) {
+        int high = digits(a, b);
+        int low = digits(c, d);
+        return high < 0 || low < 0 ? -1 : high * 100 + low;
+    }
+
+    private static void write2(char[] chars, int offset, int value) {
+        chars[offset] = (char) ('0' + value / 10);
+        chars[offset + 1] = (char) ('0' + value % 10);
+    }
+
+    private static void write4(char[] chars, int offset, int value) {
+        write2(chars, offset, value / 100);
+        write2(chars, offset + 2, value % 100);
     }
-}
\ No newline at end of file
+}
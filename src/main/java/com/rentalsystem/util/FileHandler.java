@@ -2,275 +2,1241 @@ package com.rentalsystem.util;
 
 import com.rentalsystem.model.*;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 public class FileHandler {
-    private static final String TENANTS_FILE = "resources/tenants.txt";
-    private static final String HOSTS_FILE = "resources/hosts.txt";
-    private static final String PROPERTIES_FILE = "resources/properties.txt";
-    private static final String RENTAL_AGREEMENTS_FILE = "resources/rental_agreements.txt";
-    private static final String PAYMENTS_FILE = "resources/payments.txt";
-
-    private Map<String, Tenant> tenantMap = new HashMap<>();
-    private Map<String, Host> hostMap = new HashMap<>();
-    private Map<String, Property> propertyMap = new HashMap<>();
-    private List<RentalAgreement> rentalAgreements = new ArrayList<>();
-    private List<Payment> payments = new ArrayList<>();
+    private static final Logger LOG = Logger.getLogger(FileHandler.class);
+
+    public enum PersistenceMode {
+        // Every mutation rewrites the whole entity file
+        SNAPSHOT,
+        // Mutations are appended to a per-entity journal; snapshots are rebuilt by background compaction
+        JOURNAL
+    }
+
+    public enum StorageFormat {
+        // One text file per entity type
+        CSV,
+        // A single memory-mapped BinarySnapshot; the CSV files are only read when no snapshot exists yet
+        BINARY
+    }
+
+    /** Told about each file before {@link #saveAllData(SaveListener)} rewrites it. */
+    public interface SaveListener {
+        void saving(String fileName, int changedRecords, int totalRecords);
+    }
+
+    private static final String DEFAULT_DATA_DIRECTORY = "resources";
+    static final String TENANTS_FILE = "tenants.txt";
+    static final String HOSTS_FILE = "hosts.txt";
+    static final String PROPERTIES_FILE = "properties.txt";
+    static final String RENTAL_AGREEMENTS_FILE = "rental_agreements.txt";
+    static final String PAYMENTS_FILE = "payments.txt";
+    private static final String SNAPSHOT_FILE = "rental_data.snapshot";
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final AtomicLong TEMP_FILE_IDS = new AtomicLong();
+    private static final Property.Status[] PROPERTY_STATUSES = Property.Status.values();
+    private static final RentalAgreement.Period[] AGREEMENT_PERIODS = RentalAgreement.Period.values();
+    private static final RentalAgreement.Status[] AGREEMENT_STATUSES = RentalAgreement.Status.values();
+    // Sections of the binary snapshot, one bit each, to tell when every entity type has been read
+    private static final int TENANT_SECTION = 1;
+    private static final int HOST_SECTION = 2;
+    private static final int PROPERTY_SECTION = 4;
+    private static final int AGREEMENT_SECTION = 8;
+    private static final int PAYMENT_SECTION = 16;
+    private static final int ALL_SECTIONS = 31;
+
+    private final Path tenantsFile;
+    private final Path hostsFile;
+    private final Path propertiesFile;
+    private final Path rentalAgreementsFile;
+    private final Path paymentsFile;
+    private final Path snapshotFile;
+
+    private final PersistenceMode mode;
+    private final StorageFormat format;
+    private final int compactionThreshold;
+    private final Journal tenantJournal;
+    private final Journal hostJournal;
+    private final Journal propertyJournal;
+    private final Journal rentalAgreementJournal;
+    private final Journal paymentJournal;
+    private ScheduledExecutorService journalScheduler;
+    private final Object snapshotLock = new Object();
+    private BinarySnapshot.Reader snapshotReader;
+    private int snapshotSections;
+
+    private final Map<String, Tenant> tenantMap = new LinkedHashMap<>();
+    private final Map<String, Host> hostMap = new LinkedHashMap<>();
+    private final Map<String, Property> propertyMap = new LinkedHashMap<>();
+    private final Map<String, RentalAgreement> rentalAgreements = new LinkedHashMap<>();
+    // Payments are by far the most numerous records, so they are kept column by column, and once loaded
+    // in the rental manager's table rather than a mirror of it (see sharePayments)
+    private volatile PaymentTable payments = new PaymentTable(false);
+
+    // IDs added, updated or deleted since each data file was last written, guarded by the matching map
+    private final Set<String> dirtyTenants = new HashSet<>();
+    private final Set<String> dirtyHosts = new HashSet<>();
+    private final Set<String> dirtyProperties = new HashSet<>();
+    private final Set<String> dirtyRentalAgreements = new HashSet<>();
+    private final Set<String> dirtyPayments = new HashSet<>();
+    private volatile boolean binaryConversionPending;
+    // Journals that failed to record a change; only rewriting the data file saves it
+    private final Set<Journal> staleJournals = ConcurrentHashMap.newKeySet();
+
+    private final EntityFile<Tenant> tenantFile;
+    private final EntityFile<Host> hostFile;
+    private final EntityFile<Property> propertyFile;
+    private final EntityFile<RentalAgreement> rentalAgreementFile;
+    private final EntityFile<Payment> paymentFile;
+    private final WriteBehindScheduler<EntityFile<?>> autosave;
+
+    // Settings can be overridden with -Drental.persistence=snapshot|journal, -Drental.storage=csv|binary,
+    // -Drental.journal.syncEvery, -Drental.journal.syncIntervalMs, -Drental.journal.compactThreshold,
+    // -Drental.autosave.windowMs (a negative window writes each change on the calling thread) and
+    // -Drental.autosave.queueCapacity
+    public FileHandler() {
+        this(DEFAULT_DATA_DIRECTORY,
+                PersistenceMode.valueOf(System.getProperty("rental.persistence", "journal").toUpperCase()));
+    }
+
+    public FileHandler(String dataDirectory, PersistenceMode mode) {
+        this(dataDirectory, mode, StorageFormat.valueOf(System.getProperty("rental.storage", "csv").toUpperCase()));
+    }
+
+    public FileHandler(String dataDirectory, PersistenceMode mode, StorageFormat format) {
+        this(dataDirectory, mode, format,
+                Integer.getInteger("rental.journal.syncEvery", 64),
+                Long.getLong("rental.journal.syncIntervalMs", 1000L),
+                Integer.getInteger("rental.journal.compactThreshold", 10000),
+                Long.getLong("rental.autosave.windowMs", 200L),
+                Integer.getInteger("rental.autosave.queueCapacity", 10000));
+    }
+
+    public FileHandler(String dataDirectory, PersistenceMode mode, StorageFormat format, int syncEvery,
+                       long syncIntervalMillis, int compactionThreshold, long autosaveWindowMillis,
+                       int autosaveQueueCapacity) {
+        Path directory = Paths.get(dataDirectory);
+        this.tenantsFile = directory.resolve(TENANTS_FILE);
+        this.hostsFile = directory.resolve(HOSTS_FILE);
+        this.propertiesFile = directory.resolve(PROPERTIES_FILE);
+        this.rentalAgreementsFile = directory.resolve(RENTAL_AGREEMENTS_FILE);
+        this.paymentsFile = directory.resolve(PAYMENTS_FILE);
+        this.snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        this.mode = mode;
+        this.format = format;
+        this.compactionThreshold = compactionThreshold;
+
+        this.tenantJournal = new Journal(directory.resolve(TENANTS_FILE + JOURNAL_SUFFIX), syncEvery);
+        this.hostJournal = new Journal(directory.resolve(HOSTS_FILE + JOURNAL_SUFFIX), syncEvery);
+        this.propertyJournal = new Journal(directory.resolve(PROPERTIES_FILE + JOURNAL_SUFFIX), syncEvery);
+        this.rentalAgreementJournal = new Journal(directory.resolve(RENTAL_AGREEMENTS_FILE + JOURNAL_SUFFIX), syncEvery);
+        this.paymentJournal = new Journal(directory.resolve(PAYMENTS_FILE + JOURNAL_SUFFIX), syncEvery);
+
+        this.tenantFile = new EntityFile<>(tenantJournal, tenantMap, dirtyTenants, tenantsFile,
+                FileHandler::formatTenant);
+        this.hostFile = new EntityFile<>(hostJournal, hostMap, dirtyHosts, hostsFile, FileHandler::formatHost);
+        this.propertyFile = new EntityFile<>(propertyJournal, propertyMap, dirtyProperties, propertiesFile,
+                FileHandler::formatProperty);
+        this.rentalAgreementFile = new EntityFile<>(rentalAgreementJournal, rentalAgreements, dirtyRentalAgreements,
+                rentalAgreementsFile, FileHandler::formatRentalAgreement);
+        this.paymentFile = new EntityFile<>(paymentJournal, payments, dirtyPayments, paymentsFile,
+                FileHandler::formatPayment);
+        this.autosave = autosaveWindowMillis < 0 ? null : new WriteBehindScheduler<>("autosave",
+                (target, ids) -> target.write(ids), autosaveWindowMillis, autosaveQueueCapacity);
+
+        if (mode == PersistenceMode.JOURNAL) {
+            journalScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "journal-maintenance");
+                thread.setDaemon(true);
+                return thread;
+            });
+            if (syncIntervalMillis > 0) {
+                journalScheduler.scheduleWithFixedDelay(this::syncJournals, syncIntervalMillis, syncIntervalMillis,
+                        TimeUnit.MILLISECONDS);
+            }
+            journalScheduler.scheduleWithFixedDelay(this::compactOversizedJournals, 5, 5, TimeUnit.SECONDS);
+        }
+    }
+
+    public PersistenceMode getPersistenceMode() {
+        return mode;
+    }
+
+    public StorageFormat getStorageFormat() {
+        return format;
+    }
 
     public Map<String, List<?>> loadAllData() {
-        System.out.println("Starting to load all data...");
+        LOG.debug("Starting to load all data...");
         Map<String, List<?>> loadedData = new HashMap<>();
-       
+
         List<Tenant> tenants = loadTenants();
         loadedData.put("tenants", tenants);
-       
+
         List<Host> hosts = loadHosts();
         loadedData.put("hosts", hosts);
-       
+
         List<Property> properties = loadProperties();
         loadedData.put("properties", properties);
-       
+
         List<RentalAgreement> agreements = loadRentalAgreements();
         loadedData.put("rentalAgreements", agreements);
-       
+
         List<Payment> payments = loadPayments();
         loadedData.put("payments", payments);
-       
+
         // Print loaded data summary
-        System.out.println("Loaded data summary:");
-        System.out.println("Tenants: " + tenants.size());
-        System.out.println("Hosts: " + hosts.size());
-        System.out.println("Properties: " + properties.size());
-        System.out.println("Rental Agreements: " + agreements.size());
-        System.out.println("Payments: " + payments.size());
-       
+        LOG.info("Loaded data summary: tenants=" + tenants.size() + ", hosts=" + hosts.size()
+                + ", properties=" + properties.size() + ", rentalAgreements=" + agreements.size()
+                + ", payments=" + payments.size());
+
         return loadedData;
     }
 
     public List<Tenant> loadTenants() {
-        tenantMap.clear();
-        System.out.println("Loading tenants...");
-        try (BufferedReader reader = new BufferedReader(new FileReader(TENANTS_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                System.out.println("Processing tenant line: " + line);
-                String[] parts = line.split(",");
-                if (parts.length == 5) {
-                    Tenant tenant = new Tenant(parts[0], parts[1], DateUtil.parseDate(parts[2]), parts[3] + "," + parts[4]);
-                    tenantMap.put(tenant.getId(), tenant);
-                    System.out.println("Added tenant: " + tenant.getId());
-                } else {
-                    System.out.println("Invalid tenant data format: " + line);
+        awaitQueuedWrites();
+        synchronized (tenantMap) {
+            tenantMap.clear();
+            dirtyTenants.clear();
+            LOG.debug("Loading tenants...");
+            if (hasBinarySnapshot()) {
+                try {
+                    for (Tenant tenant : binarySnapshot(TENANT_SECTION).readTenants()) {
+                        tenantMap.put(tenant.getId(), tenant);
+                    }
+                } catch (IOException e) {
+                    LOG.error("Error reading tenants from snapshot: " + e.getMessage(), e);
+                }
+            } else {
+                try (CsvTokenizer csv = open(tenantsFile)) {
+                    while (csv.next()) {
+                        if (LOG.isTraceEnabled()) {
+                            LOG.trace("Processing tenant line: " + csv.getRecord());
+                        }
+                        Tenant tenant = parseTenant(csv);
+                        if (tenant != null) {
+                            tenantMap.put(tenant.getId(), tenant);
+                            if (LOG.isTraceEnabled()) {
+                                LOG.trace("Added tenant: " + tenant.getId());
+                            }
+                        } else {
+                            LOG.warn("Invalid tenant data format at line " + csv.getRecordNumber() + ": " + csv.getRecord());
+                        }
+                    }
+                } catch (IOException e) {
+                    LOG.error("Error reading tenants file: " + e.getMessage(), e);
                 }
             }
-        } catch (IOException e) {
-            System.err.println("Error reading tenants file: " + e.getMessage());
-            e.printStackTrace();
+            replay(tenantJournal, tenantMap, dirtyTenants, this::parseTenant);
+            LOG.debug("Loaded " + tenantMap.size() + " tenants.");
+            return new ArrayList<>(tenantMap.values());
         }
-        System.out.println("Loaded " + tenantMap.size() + " tenants.");
-        return new ArrayList<>(tenantMap.values());
     }
 
     public List<Host> loadHosts() {
-        hostMap.clear();
-        try (BufferedReader reader = new BufferedReader(new FileReader(HOSTS_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length == 4) {
-                    Host host = new Host(parts[0], parts[1], DateUtil.parseDate(parts[2]), parts[3]);
-                    hostMap.put(host.getId(), host);
+        awaitQueuedWrites();
+        synchronized (hostMap) {
+            hostMap.clear();
+            dirtyHosts.clear();
+            if (hasBinarySnapshot()) {
+                try {
+                    for (Host host : binarySnapshot(HOST_SECTION).readHosts()) {
+                        hostMap.put(host.getId(), host);
+                    }
+                } catch (IOException e) {
+                    LOG.error("Error reading hosts from snapshot: " + e.getMessage(), e);
+                }
+            } else {
+                try (CsvTokenizer csv = open(hostsFile)) {
+                    while (csv.next()) {
+                        Host host = parseHost(csv);
+                        if (host != null) {
+                            hostMap.put(host.getId(), host);
+                        }
+                    }
+                } catch (IOException e) {
+                    LOG.error("Error reading hosts file: " + e.getMessage(), e);
                 }
             }
-        } catch (IOException e) {
-            System.err.println("Error reading hosts file: " + e.getMessage());
+            replay(hostJournal, hostMap, dirtyHosts, this::parseHost);
+            return new ArrayList<>(hostMap.values());
         }
-        return new ArrayList<>(hostMap.values());
     }
 
     public List<Property> loadProperties() {
-        propertyMap.clear();
-        try (BufferedReader reader = new BufferedReader(new FileReader(PROPERTIES_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 8) {
-                    Property property;
-                    if (parts[0].startsWith("R")) {
-                        property = new ResidentialProperty(parts[0], parts[1], Double.parseDouble(parts[2]),
-                                Property.Status.valueOf(parts[3]), parts[4], Integer.parseInt(parts[5]),
-                                Boolean.parseBoolean(parts[6]), Boolean.parseBoolean(parts[7]));
-                    } else {
-                        property = new CommercialProperty(parts[0], parts[1], Double.parseDouble(parts[2]),
-                                Property.Status.valueOf(parts[3]), parts[4], parts[5],
-                                Integer.parseInt(parts[6]), Double.parseDouble(parts[7]));
+        awaitQueuedWrites();
+        synchronized (propertyMap) {
+            propertyMap.clear();
+            dirtyProperties.clear();
+            StringPool values = new StringPool();
+            if (hasBinarySnapshot()) {
+                try {
+                    for (Property property : binarySnapshot(PROPERTY_SECTION).readProperties()) {
+                        propertyMap.put(property.getId(), property);
+                    }
+                } catch (IOException e) {
+                    LOG.error("Error reading properties from snapshot: " + e.getMessage(), e);
+                }
+            } else {
+                try (CsvTokenizer csv = open(propertiesFile)) {
+                    while (csv.next()) {
+                        Property property = parseProperty(csv, values);
+                        if (property != null) {
+                            propertyMap.put(property.getId(), property);
+                        }
                     }
-                    propertyMap.put(property.getId(), property);
+                } catch (IOException e) {
+                    LOG.error("Error reading properties file: " + e.getMessage(), e);
                 }
             }
-        } catch (IOException e) {
-            System.err.println("Error reading properties file: " + e.getMessage());
+            replay(propertyJournal, propertyMap, dirtyProperties, csv -> parseProperty(csv, values));
+            return new ArrayList<>(propertyMap.values());
         }
-        return new ArrayList<>(propertyMap.values());
     }
 
     public List<RentalAgreement> loadRentalAgreements() {
-        rentalAgreements.clear();
-        System.out.println("Loading rental agreements...");
-        System.out.println("Tenants loaded: " + tenantMap.size());
-        System.out.println("Properties loaded: " + propertyMap.size());
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(RENTAL_AGREEMENTS_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                System.out.println("Processing rental agreement line: " + line);
-                String[] parts = line.split(",");
-                if (parts.length == 7) {
-                    Tenant tenant = tenantMap.get(parts[1]);
-                    Property property = propertyMap.get(parts[2]);
-                    System.out.println("Tenant found: " + (tenant != null) + ", Property found: " + (property != null));
-                   
-                    if (tenant != null && property != null) {
-                        RentalAgreement agreement = new RentalAgreement(
-                            parts[0],
-                            tenant,
-                            property,
-                            RentalAgreement.Period.valueOf(parts[3]),
-                            DateUtil.parseDate(parts[4]),
-                            Double.parseDouble(parts[5]),
-                            RentalAgreement.Status.valueOf(parts[6])
-                        );
-                        rentalAgreements.add(agreement);
-                        System.out.println("Added rental agreement: " + agreement.getId());
-                    } else {
-                        System.out.println("Failed to create rental agreement due to missing tenant or property");
+        awaitQueuedWrites();
+        synchronized (rentalAgreements) {
+            rentalAgreements.clear();
+            dirtyRentalAgreements.clear();
+            LOG.debug("Loading rental agreements against " + tenantMap.size() + " tenants and "
+                    + propertyMap.size() + " properties...");
+
+            if (hasBinarySnapshot()) {
+                try {
+                    BinarySnapshot.Reader snapshot = binarySnapshot(AGREEMENT_SECTION);
+                    for (RentalAgreement agreement : snapshot.readRentalAgreements(tenantMap, propertyMap)) {
+                        rentalAgreements.put(agreement.getId(), agreement);
                     }
-                } else {
-                    System.out.println("Invalid rental agreement format: " + line);
+                } catch (IOException e) {
+                    LOG.error("Error reading rental agreements from snapshot: " + e.getMessage(), e);
+                }
+            } else {
+                try (CsvTokenizer csv = open(rentalAgreementsFile)) {
+                    while (csv.next()) {
+                        if (LOG.isTraceEnabled()) {
+                            LOG.trace("Processing rental agreement line: " + csv.getRecord());
+                        }
+                        RentalAgreement agreement = parseRentalAgreement(csv);
+                        if (agreement != null) {
+                            rentalAgreements.put(agreement.getId(), agreement);
+                            if (LOG.isTraceEnabled()) {
+                                LOG.trace("Added rental agreement: " + agreement.getId());
+                            }
+                        }
+                    }
+                } catch (IOException e) {
+                    LOG.error("Error reading rental agreements file: " + e.getMessage(), e);
                 }
             }
-        } catch (IOException e) {
-            System.err.println("Error reading rental agreements file: " + e.getMessage());
-            e.printStackTrace();
-        }
+            replay(rentalAgreementJournal, rentalAgreements, dirtyRentalAgreements, this::parseRentalAgreement);
 
-        System.out.println("Loaded " + rentalAgreements.size() + " rental agreements.");
+            LOG.debug("Loaded " + rentalAgreements.size() + " rental agreements.");
 
-        return new ArrayList<>(rentalAgreements);
+            return new ArrayList<>(rentalAgreements.values());
+        }
     }
 
+    // Loads into a new table, which replaces the current one once complete and is itself dropped when the
+    // rental manager shares its table
     public List<Payment> loadPayments() {
-        payments.clear();
-        try (BufferedReader reader = new BufferedReader(new FileReader(PAYMENTS_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length == 5) {
-                    Payment payment = new Payment(
-                        parts[0],
-                        Double.parseDouble(parts[1]),
-                        DateUtil.parseDate(parts[2]),
-                        parts[3],
-                        parts[4]
-                    );
-                    payments.add(payment);
+        awaitQueuedWrites();
+        PaymentTable loaded = new PaymentTable(false);
+        Set<String> changed = new HashSet<>();
+        if (hasBinarySnapshot()) {
+            try {
+                binarySnapshot(PAYMENT_SECTION).readPayments(loaded);
+            } catch (IOException e) {
+                LOG.error("Error reading payments from snapshot: " + e.getMessage(), e);
+            }
+        } else {
+            StringPool values = new StringPool();
+            try (CsvTokenizer csv = open(paymentsFile)) {
+                while (csv.next()) {
+                    loadPayment(loaded, csv, values);
                 }
+            } catch (IOException e) {
+                LOG.error("Error reading payments file: " + e.getMessage(), e);
             }
-        } catch (IOException e) {
-            System.err.println("Error reading payments file: " + e.getMessage());
         }
-        return new ArrayList<>(payments);
+        replay(paymentJournal, loaded, changed, this::parsePayment);
+        usePayments(loaded, changed, true);
+        return loaded.snapshot();
     }
 
-    public void savePayments(List<Payment> payments) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(PAYMENTS_FILE))) {
-            for (Payment payment : payments) {
-                writer.write(String.format("%s,%.2f,%s,%s,%s\n",
-                    payment.getId(),
-                    payment.getAmount(),
-                    DateUtil.formatDate(payment.getPaymentDate()),
-                    payment.getPaymentMethod(),
-                    payment.getRentalAgreementId()
-                ));
+    /**
+     * Keeps the payments in the given table from now on, dropping the one they were loaded into, so they
+     * are held once. The caller must hold every payment this handler has loaded or been given and add each
+     * payment to the table before persisting it; the handler then only reads the table. Changes not yet
+     * saved stay pending.
+     */
+    public void sharePayments(PaymentTable table) {
+        awaitQueuedWrites();
+        usePayments(table, null, false);
+    }
+
+    // Swaps the payment state with every lock that guards it held, in the order writers take them
+    private void usePayments(PaymentTable table, Set<String> changed, boolean owned) {
+        synchronized (paymentFile) {
+            synchronized (this) {
+                synchronized (payments) {
+                    payments = table;
+                    paymentFile.state = table;
+                    paymentFile.owned = owned;
+                    if (changed != null) {
+                        dirtyPayments.clear();
+                        dirtyPayments.addAll(changed);
+                    }
+                }
+            }
+        }
+    }
+
+    // Until the first binary snapshot is written, BINARY storage imports the CSV files and the next save
+    // converts them
+    private boolean hasBinarySnapshot() {
+        if (format != StorageFormat.BINARY) {
+            return false;
+        }
+        if (Files.exists(snapshotFile)) {
+            return true;
+        }
+        binaryConversionPending = true;
+        return false;
+    }
+
+    // The header and string table are decoded once and shared by the parallel entity loads. The string
+    // table holds every text value in the file, so it is let go once each entity type has taken it
+    // rather than kept until the next snapshot is written
+    private BinarySnapshot.Reader binarySnapshot(int section) throws IOException {
+        synchronized (snapshotLock) {
+            BinarySnapshot.Reader reader = snapshotReader;
+            if (reader == null) {
+                reader = BinarySnapshot.Reader.open(snapshotFile);
+                snapshotSections = 0;
             }
+            snapshotSections |= section;
+            snapshotReader = snapshotSections == ALL_SECTIONS ? null : reader;
+            return reader;
+        }
+    }
+
+    private CsvTokenizer open(Path file) throws IOException {
+        return new CsvTokenizer(Files.newBufferedReader(file, StandardCharsets.UTF_8));
+    }
+
+    // Contact information used to be written unquoted, so legacy rows split it into email and phone fields
+    private static String contactInformation(CsvTokenizer csv, int field) {
+        if (csv.getFieldCount() == field + 2) {
+            return csv.getString(field) + "," + csv.getString(field + 1);
+        }
+        return csv.getString(field);
+    }
+
+    private Tenant parseTenant(CsvTokenizer csv) {
+        if (csv.getFieldCount() != 4 && csv.getFieldCount() != 5) {
+            return null;
+        }
+        return new Tenant(csv.getString(0), csv.getString(1), csv.getDate(2),
+                contactInformation(csv, 3));
+    }
+
+    private Host parseHost(CsvTokenizer csv) {
+        if (csv.getFieldCount() != 4 && csv.getFieldCount() != 5) {
+            return null;
+        }
+        return new Host(csv.getString(0), csv.getString(1), csv.getDate(2),
+                contactInformation(csv, 3));
+    }
+
+    // Owners and business types repeat from row to row, so they are taken from the load's pool
+    private Property parseProperty(CsvTokenizer csv, StringPool values) {
+        if (csv.getFieldCount() < 8) {
+            return null;
+        }
+        try {
+            if (csv.startsWith(0, 'R')) {
+                return new ResidentialProperty(csv.getString(0), csv.getString(1), csv.getDouble(2),
+                        csv.getEnum(3, PROPERTY_STATUSES), csv.getString(4, values), csv.getInt(5),
+                        csv.getBoolean(6), csv.getBoolean(7));
+            }
+            return new CommercialProperty(csv.getString(0), csv.getString(1), csv.getDouble(2),
+                    csv.getEnum(3, PROPERTY_STATUSES), csv.getString(4, values), csv.getString(5, values),
+                    csv.getInt(6), csv.getDouble(7));
+        } catch (IllegalArgumentException e) {
+            LOG.warn("Invalid property data: " + csv.getRecord() + " (" + e.getMessage() + ")");
+            return null;
+        }
+    }
+
+    private RentalAgreement parseRentalAgreement(CsvTokenizer csv) {
+        if (csv.getFieldCount() != 7) {
+            LOG.warn("Invalid rental agreement format: " + csv.getRecord());
+            return null;
+        }
+        Tenant tenant = tenantMap.get(csv.getString(1));
+        Property property = propertyMap.get(csv.getString(2));
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("Tenant found: " + (tenant != null) + ", Property found: " + (property != null));
+        }
+        if (tenant == null || property == null) {
+            LOG.warn("Failed to create rental agreement " + csv.getString(0) + " due to missing tenant or property");
+            return null;
+        }
+        try {
+            return new RentalAgreement(
+                csv.getString(0),
+                tenant,
+                property,
+                csv.getEnum(3, AGREEMENT_PERIODS),
+                csv.getDate(4),
+                csv.getDouble(5),
+                csv.getEnum(6, AGREEMENT_STATUSES)
+            );
+        } catch (IllegalArgumentException e) {
+            LOG.warn("Invalid rental agreement data: " + csv.getRecord() + " (" + e.getMessage() + ")");
+            return null;
+        }
+    }
+
+    // Stores a row of the payments file without building a Payment; the method and agreement ID come from
+    // the load's pool, so a repeated value allocates nothing
+    private static void loadPayment(PaymentTable payments, CsvTokenizer csv, StringPool values) {
+        if (csv.getFieldCount() != 5) {
+            return;
+        }
+        try {
+            long day = csv.getEpochDay(2);
+            payments.put(csv.getString(0), csv.getDouble(1), day == DateUtil.INVALID ? PaymentTable.NO_DAY : day,
+                    csv.getString(3, values), csv.getString(4, values));
+        } catch (IllegalArgumentException e) {
+            LOG.warn("Invalid payment data: " + csv.getRecord() + " (" + e.getMessage() + ")");
+        }
+    }
+
+    private Payment parsePayment(CsvTokenizer csv) {
+        if (csv.getFieldCount() != 5) {
+            return null;
+        }
+        try {
+            return new Payment(
+                csv.getString(0),
+                csv.getDouble(1),
+                csv.getDate(2),
+                csv.getString(3),
+                csv.getString(4)
+            );
+        } catch (IllegalArgumentException e) {
+            LOG.warn("Invalid payment data: " + csv.getRecord() + " (" + e.getMessage() + ")");
+            return null;
+        }
+    }
+
+    // Records are built directly rather than through String.format: saves and bulk imports format every
+    // row, and the output no longer depends on the default locale's decimal separator
+
+    static String formatTenant(Tenant tenant) {
+        return new StringBuilder(96)
+                .append(CsvTokenizer.escape(tenant.getId())).append(',')
+                .append(CsvTokenizer.escape(tenant.getFullName())).append(',')
+                .append(DateUtil.formatDate(tenant.getDateOfBirth())).append(',')
+                .append(CsvTokenizer.escape(tenant.getContactInformation()))
+                .toString();
+    }
+
+    static String formatHost(Host host) {
+        return new StringBuilder(96)
+                .append(CsvTokenizer.escape(host.getId())).append(',')
+                .append(CsvTokenizer.escape(host.getFullName())).append(',')
+                .append(DateUtil.formatDate(host.getDateOfBirth())).append(',')
+                .append(CsvTokenizer.escape(host.getContactInformation()))
+                .toString();
+    }
+
+    static String formatProperty(Property property) {
+        StringBuilder sb = new StringBuilder(96)
+                .append(CsvTokenizer.escape(property.getId())).append(',')
+                .append(CsvTokenizer.escape(property.getAddress())).append(',');
+        appendFixed2(sb, property.getPrice()).append(',')
+                .append(property.getStatus()).append(',')
+                .append(CsvTokenizer.escape(property.getOwner())).append(',');
+        if (property instanceof ResidentialProperty) {
+            ResidentialProperty rp = (ResidentialProperty) property;
+            return sb.append(rp.getNumberOfBedrooms()).append(',')
+                    .append(rp.isHasGarden()).append(',')
+                    .append(rp.isPetFriendly())
+                    .toString();
+        }
+        CommercialProperty cp = (CommercialProperty) property;
+        sb.append(CsvTokenizer.escape(cp.getBusinessType())).append(',')
+                .append(cp.getParkingSpaces()).append(',');
+        return appendFixed2(sb, cp.getSquareFootage()).toString();
+    }
+
+    static String formatRentalAgreement(RentalAgreement agreement) {
+        StringBuilder sb = new StringBuilder(64)
+                .append(CsvTokenizer.escape(agreement.getId())).append(',')
+                .append(CsvTokenizer.escape(agreement.getMainTenant().getId())).append(',')
+                .append(CsvTokenizer.escape(agreement.getProperty().getId())).append(',')
+                .append(agreement.getPeriod()).append(',')
+                .append(DateUtil.formatDate(agreement.getContractDate())).append(',');
+        return appendFixed2(sb, agreement.getRentingFee()).append(',')
+                .append(agreement.getStatus())
+                .toString();
+    }
+
+    static String formatPayment(Payment payment) {
+        StringBuilder sb = new StringBuilder(64).append(CsvTokenizer.escape(payment.getId())).append(',');
+        return appendFixed2(sb, payment.getAmount()).append(',')
+                .append(DateUtil.formatDate(payment.getPaymentDate())).append(',')
+                .append(CsvTokenizer.escape(payment.getPaymentMethod())).append(',')
+                .append(CsvTokenizer.escape(payment.getRentalAgreementId()))
+                .toString();
+    }
+
+    // Same digits as "%.2f": the shortest decimal form of the value, rounded half-up to two places
+    static StringBuilder appendFixed2(StringBuilder sb, double value) {
+        String digits = Double.toString(Math.abs(value));
+        int point = digits.indexOf('.');
+        if (point < 0 || digits.indexOf('E') >= 0) {
+            // NaN, infinities, and magnitudes Double.toString writes in scientific notation
+            return sb.append(String.format(Locale.ROOT, "%.2f", value));
+        }
+        int fractionDigits = digits.length() - point - 1;
+        long cents = Long.parseLong(digits.substring(0, point)) * 100
+                + (digits.charAt(point + 1) - '0') * 10
+                + (fractionDigits > 1 ? digits.charAt(point + 2) - '0' : 0);
+        if (fractionDigits > 2 && digits.charAt(point + 3) >= '5') {
+            cents++;
+        }
+        if (Math.copySign(1.0, value) < 0) {
+            sb.append('-');
+        }
+        sb.append(cents / 100).append('.');
+        long fraction = cents % 100;
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        return sb.append(fraction);
+    }
+
+    public void savePayments(List<Payment> payments) {
+        try {
+            writeAtomically(paymentsFile, payments, FileHandler::formatPayment);
         } catch (IOException e) {
-            System.err.println("Error writing payments file: " + e.getMessage());
+            LOG.error("Error writing payments file: " + e.getMessage(), e);
         }
     }
 
     public void saveTenants(List<Tenant> tenants) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(TENANTS_FILE))) {
-            for (Tenant tenant : tenants) {
-                writer.write(String.format("%s,%s,%s,%s\n",
-                        tenant.getId(),
-                        tenant.getFullName(),
-                        DateUtil.formatDate(tenant.getDateOfBirth()),
-                        tenant.getContactInformation()));
-            }
+        try {
+            writeAtomically(tenantsFile, tenants, FileHandler::formatTenant);
         } catch (IOException e) {
-            System.err.println("Error writing tenants file: " + e.getMessage());
+            LOG.error("Error writing tenants file: " + e.getMessage(), e);
         }
     }
 
     public void saveHosts(List<Host> hosts) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(HOSTS_FILE))) {
-            for (Host host : hosts) {
-                writer.write(String.format("%s,%s,%s,%s\n",
-                        host.getId(),
-                        host.getFullName(),
-                        DateUtil.formatDate(host.getDateOfBirth()),
-                        host.getContactInformation()));
-            }
+        try {
+            writeAtomically(hostsFile, hosts, FileHandler::formatHost);
         } catch (IOException e) {
-            System.err.println("Error writing hosts file: " + e.getMessage());
+            LOG.error("Error writing hosts file: " + e.getMessage(), e);
         }
     }
 
     public void saveProperties(List<Property> properties) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(PROPERTIES_FILE))) {
-            for (Property property : properties) {
-                if (property instanceof ResidentialProperty) {
-                    ResidentialProperty rp = (ResidentialProperty) property;
-                    writer.write(String.format("%s,%s,%.2f,%s,%s,%d,%b,%b\n",
-                            rp.getId(), rp.getAddress(), rp.getPrice(), rp.getStatus(), rp.getOwner(),
-                            rp.getNumberOfBedrooms(), rp.isHasGarden(), rp.isPetFriendly()));
-                } else if (property instanceof CommercialProperty) {
-                    CommercialProperty cp = (CommercialProperty) property;
-                    writer.write(String.format("%s,%s,%.2f,%s,%s,%s,%d,%.2f\n",
-                            cp.getId(), cp.getAddress(), cp.getPrice(), cp.getStatus(), cp.getOwner(),
-                            cp.getBusinessType(), cp.getParkingSpaces(), cp.getSquareFootage()));
+        try {
+            writeAtomically(propertiesFile, properties, FileHandler::formatProperty);
+        } catch (IOException e) {
+            LOG.error("Error writing properties file: " + e.getMessage(), e);
+        }
+    }
+
+    public void saveRentalAgreements(List<RentalAgreement> agreements) {
+        try {
+            writeAtomically(rentalAgreementsFile, agreements, FileHandler::formatRentalAgreement);
+        } catch (IOException e) {
+            LOG.error("Error writing rental agreements file: " + e.getMessage(), e);
+        }
+    }
+
+    // Single-record persistence used by the managers. The change is applied to the in-memory state at once
+    // and queued for the autosave thread, which writes each coalesced batch as one journal append in JOURNAL
+    // mode or one rewrite of the entity file in SNAPSHOT mode
+
+    public void persistTenant(Tenant tenant) {
+        persist(tenantFile, tenant.getId(), tenant);
+    }
+
+    public void persistTenantDeletion(String tenantId) {
+        persist(tenantFile, tenantId, null);
+    }
+
+    public void persistHost(Host host) {
+        persist(hostFile, host.getId(), host);
+    }
+
+    public void persistHostDeletion(String hostId) {
+        persist(hostFile, hostId, null);
+    }
+
+    public void persistProperty(Property property) {
+        persist(propertyFile, property.getId(), property);
+    }
+
+    public void persistPropertyDeletion(String propertyId) {
+        persist(propertyFile, propertyId, null);
+    }
+
+    public void persistRentalAgreement(RentalAgreement agreement) {
+        persist(rentalAgreementFile, agreement.getId(), agreement);
+    }
+
+    public void persistRentalAgreementDeletion(String agreementId) {
+        persist(rentalAgreementFile, agreementId, null);
+    }
+
+    public void persistPayment(Payment payment) {
+        persist(paymentFile, payment.getId(), payment);
+    }
+
+    // Batch persistence for bulk imports: one journal write and sync per entity type in JOURNAL mode,
+    // a single rewrite of the entity file in SNAPSHOT mode
+
+    public void persistTenants(List<Tenant> tenants) {
+        persistAll(tenantFile, tenants, Tenant::getId);
+    }
+
+    public void persistHosts(List<Host> hosts) {
+        persistAll(hostFile, hosts, Host::getId);
+    }
+
+    public void persistProperties(List<Property> properties) {
+        persistAll(propertyFile, properties, Property::getId);
+    }
+
+    public void persistRentalAgreements(List<RentalAgreement> agreements) {
+        persistAll(rentalAgreementFile, agreements, RentalAgreement::getId);
+    }
+
+    public void persistPayments(List<Payment> payments) {
+        persistAll(paymentFile, payments, Payment::getId);
+    }
+
+    public int saveAllData() {
+        return saveAllData((fileName, changedRecords, totalRecords) -> { });
+    }
+
+    /**
+     * Saves what changed since the data files were last written and returns the number of files rewritten.
+     * Changes still queued for the autosave thread are written first. In JOURNAL mode every change is then
+     * in a journal, so this syncs the journals and only folds those that have reached the compaction
+     * threshold or failed to record a change; a session that changed nothing writes nothing.
+     */
+    public int saveAllData(SaveListener listener) {
+        awaitQueuedWrites();
+        syncJournals();
+        if (format == StorageFormat.BINARY) {
+            int changed = getUnsavedChangeCount();
+            if (!binaryConversionPending && !needsRewrite(changed, journals())) {
+                return 0;
+            }
+            listener.saving(SNAPSHOT_FILE, changed, countRecords());
+            compactBinary(true);
+            return 1;
+        }
+        int written = 0;
+        written += saveIfChanged(tenantJournal, tenantMap, dirtyTenants, tenantsFile, FileHandler::formatTenant,
+                listener);
+        written += saveIfChanged(hostJournal, hostMap, dirtyHosts, hostsFile, FileHandler::formatHost, listener);
+        written += saveIfChanged(propertyJournal, propertyMap, dirtyProperties, propertiesFile,
+                FileHandler::formatProperty, listener);
+        written += saveIfChanged(rentalAgreementJournal, rentalAgreements, dirtyRentalAgreements, rentalAgreementsFile,
+                FileHandler::formatRentalAgreement, listener);
+        written += saveIfChanged(paymentJournal, payments, dirtyPayments, paymentsFile, FileHandler::formatPayment,
+                listener);
+        return written;
+    }
+
+    // Rewrites every data file whether or not anything changed
+    public void rewriteAllData() {
+        awaitQueuedWrites();
+        if (format == StorageFormat.BINARY) {
+            compactBinary(true);
+            return;
+        }
+        compact(tenantJournal, tenantMap, dirtyTenants, tenantsFile, FileHandler::formatTenant, true);
+        compact(hostJournal, hostMap, dirtyHosts, hostsFile, FileHandler::formatHost, true);
+        compact(propertyJournal, propertyMap, dirtyProperties, propertiesFile, FileHandler::formatProperty, true);
+        compact(rentalAgreementJournal, rentalAgreements, dirtyRentalAgreements, rentalAgreementsFile,
+                FileHandler::formatRentalAgreement, true);
+        compact(paymentJournal, payments, dirtyPayments, paymentsFile, FileHandler::formatPayment, true);
+    }
+
+    // Number of records added, updated or deleted since the data files were last written
+    public int getUnsavedChangeCount() {
+        return sizeOf(tenantMap, dirtyTenants) + sizeOf(hostMap, dirtyHosts) + sizeOf(propertyMap, dirtyProperties)
+                + sizeOf(rentalAgreements, dirtyRentalAgreements) + sizeOf(payments, dirtyPayments);
+    }
+
+    // Writes queued changes, flushes outstanding journal entries and stops the background threads
+    public void shutdown() {
+        if (autosave != null) {
+            autosave.close();
+        }
+        if (journalScheduler != null) {
+            journalScheduler.shutdown();
+        }
+        for (Journal journal : journals()) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                LOG.error("Error closing journal: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private <T> void persist(EntityFile<T> target, String id, T entity) {
+        if (autosave != null) {
+            synchronized (target.state) {
+                target.apply(id, entity);
+            }
+            if (!autosave.submit(target, id)) {
+                // Shut down meanwhile: write the change here, as the autosave thread would have
+                target.write(Collections.singleton(id));
+            }
+            return;
+        }
+        if (mode == PersistenceMode.SNAPSHOT) {
+            synchronized (target.state) {
+                target.apply(id, entity);
+            }
+            target.compact();
+            return;
+        }
+        synchronized (target) {
+            synchronized (target.state) {
+                target.apply(id, entity);
+                try {
+                    if (entity == null) {
+                        target.journal.append(Journal.Op.DELETE, id);
+                    } else {
+                        target.journal.append(Journal.Op.PUT, target.formatter.apply(entity));
+                    }
+                } catch (IOException e) {
+                    journalFailed(target.journal, target.file, e);
+                }
+            }
+        }
+    }
+
+    // Bulk writes go straight to disk, after anything already queued so the journal keeps its order
+    private <T> void persistAll(EntityFile<T> target, List<T> entities, Function<T, String> idOf) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        awaitQueuedWrites();
+        if (mode == PersistenceMode.SNAPSHOT) {
+            synchronized (target.state) {
+                for (T entity : entities) {
+                    target.apply(idOf.apply(entity), entity);
                 }
             }
+            target.compact();
+            return;
+        }
+        List<String> records = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            records.add(target.formatter.apply(entity));
+        }
+        synchronized (target) {
+            synchronized (target.state) {
+                for (T entity : entities) {
+                    target.apply(idOf.apply(entity), entity);
+                }
+            }
+            try {
+                target.journal.appendAll(Journal.Op.PUT, records);
+            } catch (IOException e) {
+                journalFailed(target.journal, target.file, e);
+            }
+        }
+    }
+
+    // The change stays dirty in memory; marking the journal stale has the next save or compaction rewrite the file
+    private void journalFailed(Journal journal, Path file, IOException e) {
+        LOG.error("Error appending to journal for " + file.getFileName() + ": " + e.getMessage(), e);
+        staleJournals.add(journal);
+    }
+
+    private void awaitQueuedWrites() {
+        if (autosave != null) {
+            autosave.flush();
+        }
+    }
+
+    /** One entity type's journal, in-memory state, changed IDs and data file. */
+    private final class EntityFile<T> {
+        final Journal journal;
+        // Replaced only for payments, with the lock of this object, the handler and the previous state held
+        volatile Map<String, T> state;
+        // Whether changes are applied to the state here; a shared state is kept up to date by its owner
+        volatile boolean owned = true;
+        final Set<String> dirty;
+        final Path file;
+        final Function<T, String> formatter;
+
+        EntityFile(Journal journal, Map<String, T> state, Set<String> dirty, Path file, Function<T, String> formatter) {
+            this.journal = journal;
+            this.state = state;
+            this.dirty = dirty;
+            this.file = file;
+            this.formatter = formatter;
+        }
+
+        // Called with the state lock held; a null entity is a deletion
+        void apply(String id, T entity) {
+            dirty.add(id);
+            if (!owned) {
+                return;
+            }
+            if (entity == null) {
+                state.remove(id);
+            } else {
+                state.put(id, entity);
+            }
+        }
+
+        void compact() {
+            FileHandler.this.compact(journal, state, dirty, file, formatter, true);
+        }
+
+        // Autosave batch: each record is written as it stands now, so only its latest change reaches the file.
+        // Holding this object's lock keeps bulk appends from interleaving; the state lock is held only to read
+        synchronized void write(Set<String> ids) {
+            if (mode == PersistenceMode.SNAPSHOT) {
+                compact();
+                return;
+            }
+            List<String> deletions = new ArrayList<>();
+            List<T> current = new ArrayList<>(ids.size());
+            synchronized (state) {
+                for (String id : ids) {
+                    T entity = state.get(id);
+                    if (entity == null) {
+                        deletions.add(id);
+                    } else {
+                        current.add(entity);
+                    }
+                }
+            }
+            List<String> records = new ArrayList<>(current.size());
+            for (T entity : current) {
+                records.add(formatter.apply(entity));
+            }
+            try {
+                journal.appendAll(Journal.Op.DELETE, deletions);
+                journal.appendAll(Journal.Op.PUT, records);
+            } catch (IOException e) {
+                journalFailed(journal, file, e);
+            }
+        }
+    }
+
+    private <T> void replay(Journal journal, Map<String, T> state, Set<String> dirty,
+                            Function<CsvTokenizer, T> parser) {
+        try {
+            int replayed = journal.replay((op, payload) -> {
+                if (op == Journal.Op.DELETE) {
+                    state.remove(payload);
+                    dirty.add(payload);
+                } else {
+                    CsvTokenizer csv = CsvTokenizer.forLine(payload);
+                    T entity = csv.next() ? parser.apply(csv) : null;
+                    if (entity != null) {
+                        state.put(csv.getString(0), entity);
+                        dirty.add(csv.getString(0));
+                    }
+                }
+            });
+            if (replayed > 0) {
+                LOG.info("Replayed " + replayed + " journal entries onto " + state.size() + " records.");
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Error replaying journal: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Rebuilds an entity snapshot file. The journal is rotated while the state lock is held so the
+     * snapshot and the rotated entries describe the same point in time; the file write itself happens
+     * outside the lock, and the rotated entries are only dropped once the new snapshot is in place.
+     */
+    private synchronized <T> void compact(Journal journal, Map<String, T> state, Set<String> dirty, Path file,
+                                          Function<T, String> formatter, boolean force) {
+        if (format == StorageFormat.BINARY) {
+            compactBinary(force);
+            return;
+        }
+        Set<String> written = null;
+        boolean stale = false;
+        try {
+            List<T> snapshot;
+            synchronized (state) {
+                if (!journal.rotate() && !force && !staleJournals.contains(journal)) {
+                    return;
+                }
+                snapshot = new ArrayList<>(state.values());
+                written = takeDirty(dirty);
+                stale = staleJournals.remove(journal);
+            }
+            writeAtomically(file, snapshot, formatter);
+            journal.discardRotated();
         } catch (IOException e) {
-            System.err.println("Error writing properties file: " + e.getMessage());
+            LOG.error("Error compacting " + file.getFileName() + ": " + e.getMessage(), e);
+            restoreDirty(state, dirty, written);
+            if (stale) {
+                staleJournals.add(journal);
+            }
         }
     }
 
-    public void saveRentalAgreements(List<RentalAgreement> agreements) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(RENTAL_AGREEMENTS_FILE))) {
-            for (RentalAgreement agreement : agreements) {
-                writer.write(String.format("%s,%s,%s,%s,%s,%.2f,%s\n",
-                        agreement.getId(),
-                        agreement.getMainTenant().getId(),
-                        agreement.getProperty().getId(),
-                        agreement.getPeriod(),
-                        DateUtil.formatDate(agreement.getContractDate()),
-                        agreement.getRentingFee(),
-                        agreement.getStatus()));
+    private <T> int saveIfChanged(Journal journal, Map<String, T> state, Set<String> dirty, Path file,
+                                  Function<T, String> formatter, SaveListener listener) {
+        int changed = sizeOf(state, dirty);
+        if (!needsRewrite(changed, journal)) {
+            return 0;
+        }
+        listener.saving(file.getFileName().toString(), changed, sizeOf(state, state.keySet()));
+        compact(journal, state, dirty, file, formatter, true);
+        return 1;
+    }
+
+    // SNAPSHOT mode writes through, so changes left over are journal entries replayed at startup
+    private boolean needsRewrite(int changed, Journal... journals) {
+        if (changed == 0) {
+            return false;
+        }
+        if (mode == PersistenceMode.SNAPSHOT) {
+            return true;
+        }
+        for (Journal journal : journals) {
+            if (compactionDue(journal)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean compactionDue(Journal journal) {
+        return journal.getEntryCount() >= compactionThreshold || staleJournals.contains(journal);
+    }
+
+    private static int sizeOf(Map<String, ?> state, Set<String> set) {
+        synchronized (state) {
+            return set.size();
+        }
+    }
+
+    private int countRecords() {
+        return sizeOf(tenantMap, tenantMap.keySet()) + sizeOf(hostMap, hostMap.keySet())
+                + sizeOf(propertyMap, propertyMap.keySet()) + sizeOf(rentalAgreements, rentalAgreements.keySet())
+                + sizeOf(payments, payments.keySet());
+    }
+
+    // Called with the state lock held, at the point the snapshot is taken
+    private static Set<String> takeDirty(Set<String> dirty) {
+        Set<String> taken = new HashSet<>(dirty);
+        dirty.clear();
+        return taken;
+    }
+
+    // Moves the journal to taken if a failed append left it stale; called with its state lock held, as takeDirty is
+    private void takeStale(Journal journal, List<Journal> taken) {
+        if (staleJournals.remove(journal)) {
+            taken.add(journal);
+        }
+    }
+
+    // A failed or skipped write leaves the records dirty for the next save
+    private static void restoreDirty(Map<String, ?> state, Set<String> dirty, Set<String> written) {
+        if (written != null) {
+            synchronized (state) {
+                dirty.addAll(written);
+            }
+        }
+    }
+
+    /**
+     * Binary counterpart of {@link #compact}. The snapshot holds every entity type, so all journals are
+     * rotated (each under its own state lock) and the file is written once.
+     */
+    private synchronized void compactBinary(boolean force) {
+        Set<String> tenantChanges = null;
+        Set<String> hostChanges = null;
+        Set<String> propertyChanges = null;
+        Set<String> agreementChanges = null;
+        Set<String> paymentChanges = null;
+        List<Journal> stale = new ArrayList<>();
+        boolean written = false;
+        try {
+            boolean rotated = false;
+            List<Tenant> tenantSnapshot;
+            List<Host> hostSnapshot;
+            List<Property> propertySnapshot;
+            List<RentalAgreement> agreementSnapshot;
+            List<Payment> paymentSnapshot;
+            synchronized (tenantMap) {
+                rotated |= tenantJournal.rotate();
+                tenantSnapshot = new ArrayList<>(tenantMap.values());
+                tenantChanges = takeDirty(dirtyTenants);
+                takeStale(tenantJournal, stale);
+            }
+            synchronized (hostMap) {
+                rotated |= hostJournal.rotate();
+                hostSnapshot = new ArrayList<>(hostMap.values());
+                hostChanges = takeDirty(dirtyHosts);
+                takeStale(hostJournal, stale);
+            }
+            synchronized (propertyMap) {
+                rotated |= propertyJournal.rotate();
+                propertySnapshot = new ArrayList<>(propertyMap.values());
+                propertyChanges = takeDirty(dirtyProperties);
+                takeStale(propertyJournal, stale);
+            }
+            synchronized (rentalAgreements) {
+                rotated |= rentalAgreementJournal.rotate();
+                agreementSnapshot = new ArrayList<>(rentalAgreements.values());
+                agreementChanges = takeDirty(dirtyRentalAgreements);
+                takeStale(rentalAgreementJournal, stale);
+            }
+            synchronized (payments) {
+                rotated |= paymentJournal.rotate();
+                paymentSnapshot = new ArrayList<>(payments.values());
+                paymentChanges = takeDirty(dirtyPayments);
+                takeStale(paymentJournal, stale);
+            }
+            if (!rotated && !force && stale.isEmpty()) {
+                return;
+            }
+            BinarySnapshot.write(snapshotFile, tenantSnapshot, hostSnapshot, propertySnapshot, agreementSnapshot,
+                    paymentSnapshot);
+            written = true;
+            binaryConversionPending = false;
+            synchronized (snapshotLock) {
+                snapshotReader = null;
+            }
+            for (Journal journal : journals()) {
+                journal.discardRotated();
             }
         } catch (IOException e) {
-            System.err.println("Error writing rental agreements file: " + e.getMessage());
+            LOG.error("Error writing " + snapshotFile.getFileName() + ": " + e.getMessage(), e);
+        } finally {
+            if (!written) {
+                restoreDirty(tenantMap, dirtyTenants, tenantChanges);
+                restoreDirty(hostMap, dirtyHosts, hostChanges);
+                restoreDirty(propertyMap, dirtyProperties, propertyChanges);
+                restoreDirty(rentalAgreements, dirtyRentalAgreements, agreementChanges);
+                restoreDirty(payments, dirtyPayments, paymentChanges);
+                staleJournals.addAll(stale);
+            }
+        }
+    }
+
+    // Writes the current state as CSV files for interchange, whatever the storage format
+    public void exportCsv() {
+        try {
+            writeAtomically(tenantsFile, copyOf(tenantMap), FileHandler::formatTenant);
+            writeAtomically(hostsFile, copyOf(hostMap), FileHandler::formatHost);
+            writeAtomically(propertiesFile, copyOf(propertyMap), FileHandler::formatProperty);
+            writeAtomically(rentalAgreementsFile, copyOf(rentalAgreements), FileHandler::formatRentalAgreement);
+            writeAtomically(paymentsFile, copyOf(payments), FileHandler::formatPayment);
+        } catch (IOException e) {
+            LOG.error("Error exporting CSV files: " + e.getMessage(), e);
         }
     }
 
-    public void saveAllData() {
-        saveTenants(new ArrayList<>(tenantMap.values()));
-        saveHosts(new ArrayList<>(hostMap.values()));
-        saveProperties(new ArrayList<>(propertyMap.values()));
-        saveRentalAgreements(rentalAgreements);
-        savePayments(payments);
+    private static <T> List<T> copyOf(Map<String, T> state) {
+        synchronized (state) {
+            return new ArrayList<>(state.values());
+        }
+    }
+
+    private void compactOversizedJournals() {
+        if (format == StorageFormat.BINARY) {
+            for (Journal journal : journals()) {
+                if (compactionDue(journal)) {
+                    compactBinary(false);
+                    return;
+                }
+            }
+            return;
+        }
+        if (compactionDue(tenantJournal)) {
+            compact(tenantJournal, tenantMap, dirtyTenants, tenantsFile, FileHandler::formatTenant, false);
+        }
+        if (compactionDue(hostJournal)) {
+            compact(hostJournal, hostMap, dirtyHosts, hostsFile, FileHandler::formatHost, false);
+        }
+        if (compactionDue(propertyJournal)) {
+            compact(propertyJournal, propertyMap, dirtyProperties, propertiesFile, FileHandler::formatProperty, false);
+        }
+        if (compactionDue(rentalAgreementJournal)) {
+            compact(rentalAgreementJournal, rentalAgreements, dirtyRentalAgreements, rentalAgreementsFile, FileHandler::formatRentalAgreement, false);
+        }
+        if (compactionDue(paymentJournal)) {
+            compact(paymentJournal, payments, dirtyPayments, paymentsFile, FileHandler::formatPayment, false);
+        }
+    }
+
+    private void syncJournals() {
+        for (Journal journal : journals()) {
+            try {
+                journal.sync();
+            } catch (IOException e) {
+                LOG.error("Error syncing journal: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private Journal[] journals() {
+        return new Journal[]{tenantJournal, hostJournal, propertyJournal, rentalAgreementJournal, paymentJournal};
+    }
+
+    // Writes to a temporary sibling and renames it over the target so readers never see a partial file.
+    // Each write gets its own temporary file, so concurrent saves of the same file cannot interleave.
+    private <T> void writeAtomically(Path file, List<T> items, Function<T, String> formatter) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + "." + TEMP_FILE_IDS.incrementAndGet() + ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (T item : items) {
+                    writer.write(formatter.apply(item));
+                    writer.write('\n');
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
     }
 }
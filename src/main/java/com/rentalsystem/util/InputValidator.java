@@ -7,6 +7,44 @@ public class InputValidator {
     private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@(.+)$");
     private static final Pattern PHONE_PATTERN = Pattern.compile("^\\d{10}$");
     private static final Pattern DATE_PATTERN = Pattern.compile("^\\d{4}-\\d{2}-\\d{2}$");
+    private static final Pattern ID_PATTERN = Pattern.compile("^[A-Za-z0-9_.-]+$");
+
+    // Non-interactive checks behind the prompts below, shared with the batch importer; empty values pass
+
+    public static boolean isValidDate(String date) {
+        return date.isEmpty() || DATE_PATTERN.matcher(date).matches();
+    }
+
+    public static boolean isValidEmail(String email) {
+        return email.isEmpty() || EMAIL_PATTERN.matcher(email).matches();
+    }
+
+    public static boolean isValidPhone(String phone) {
+        return phone.isEmpty() || PHONE_PATTERN.matcher(phone).matches();
+    }
+
+    // IDs name records in URLs, keys and data files, so they are limited to letters, digits, '-', '_' and '.'
+    public static boolean isValidId(String id) {
+        return ID_PATTERN.matcher(id).matches();
+    }
+
+    // Names, addresses and other free text may hold commas and quotes but no line breaks or control characters
+    public static boolean isValidText(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isISOControl(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // "email, phone" as stored for tenants and hosts; either part may be empty but must be well-formed otherwise
+    public static boolean isValidContactInformation(String contact) {
+        int comma = contact.indexOf(',');
+        String email = (comma < 0 ? contact : contact.substring(0, comma)).trim();
+        String phone = comma < 0 ? "" : contact.substring(comma + 1).trim();
+        return isValidEmail(email) && isValidPhone(phone);
+    }
 
     public static int getIntInput(Scanner scanner, String prompt, int min, int max) {
         int input;
@@ -51,7 +89,7 @@ public class InputValidator {
     do {
         System.out.print(prompt);
         date = scanner.nextLine().trim();
-        if (date.isEmpty() || DATE_PATTERN.matcher(date).matches()) {
+        if (isValidDate(date)) {
             return date;
         }
         System.out.println("Invalid date format. Please use YYYY-MM-DD or leave empty.");
@@ -63,7 +101,7 @@ public static String getEmailInput(Scanner scanner, String prompt) {
     do {
         System.out.print(prompt);
         email = scanner.nextLine().trim();
-        if (email.isEmpty() || EMAIL_PATTERN.matcher(email).matches()) {
+        if (isValidEmail(email)) {
             return email;
         }
         System.out.println("Invalid email format. Please try again or leave empty.");
@@ -75,7 +113,7 @@ public static String getPhoneInput(Scanner scanner, String prompt) {
     do {
         System.out.print(prompt);
         phone = scanner.nextLine().trim();
-        if (phone.isEmpty() || PHONE_PATTERN.matcher(phone).matches()) {
+        if (isValidPhone(phone)) {
             return phone;
         }
         System.out.println("Invalid phone format. Please enter 10 digits or leave empty.");
@@ -0,0 +1,256 @@
+package com.rentalsystem.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only mutation log for a single entity file.
+ * Each entry is one line: {@code P|crc|record} for an upsert or {@code D|crc|id} for a delete.
+ * Quoted CSV fields may hold line breaks, so backslashes, CR and LF in a payload are written as
+ * {@code \\}, {@code \r} and {@code \n}. The CRC covers the line as written and lets replay stop
+ * cleanly at a record torn by a crash.
+ */
+public class Journal {
+    private static final Logger LOG = Logger.getLogger(Journal.class);
+    private static final int BATCH_BUFFER_BYTES = 1 << 20;
+
+    public enum Op {
+        PUT, DELETE
+    }
+
+    public interface Visitor {
+        void visit(Op op, String payload) throws IOException;
+    }
+
+    private final Path path;
+    private final Path rotatedPath;
+    private final int syncEvery;
+    private FileChannel channel;
+    private int unsynced;
+    private int entryCount;
+
+    public Journal(Path path, int syncEvery) {
+        this.path = path;
+        this.rotatedPath = path.resolveSibling(path.getFileName() + ".compacting");
+        this.syncEvery = syncEvery;
+    }
+
+    public synchronized void append(Op op, String payload) throws IOException {
+        byte[] body = encode(payload).getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        byte[] header = ((op == Op.PUT ? "P|" : "D|") + Long.toHexString(crc.getValue()) + "|")
+                .getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer buffer = ByteBuffer.allocate(header.length + body.length + 1);
+        buffer.put(header).put(body).put((byte) '\n').flip();
+        FileChannel out = openChannel();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        entryCount++;
+        unsynced++;
+        if (syncEvery > 0 && unsynced >= syncEvery) {
+            sync();
+        }
+    }
+
+    // Appends a batch of entries with one buffered write and a single sync at the end
+    public synchronized void appendAll(Op op, List<String> payloads) throws IOException {
+        if (payloads.isEmpty()) {
+            return;
+        }
+        byte[] prefix = (op == Op.PUT ? "P|" : "D|").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(BATCH_BUFFER_BYTES);
+        FileChannel out = openChannel();
+        CRC32 crc = new CRC32();
+        for (String payload : payloads) {
+            byte[] body = encode(payload).getBytes(StandardCharsets.UTF_8);
+            crc.reset();
+            crc.update(body);
+            byte[] checksum = (Long.toHexString(crc.getValue()) + "|").getBytes(StandardCharsets.UTF_8);
+            int length = prefix.length + checksum.length + body.length + 1;
+            if (length > buffer.remaining()) {
+                drain(out, buffer);
+                if (length > buffer.capacity()) {
+                    buffer = ByteBuffer.allocate(length);
+                }
+            }
+            buffer.put(prefix).put(checksum).put(body).put((byte) '\n');
+        }
+        drain(out, buffer);
+        entryCount += payloads.size();
+        unsynced += payloads.size();
+        sync();
+    }
+
+    // Forces appended entries to disk; called per batch and from the periodic sync task
+    public synchronized void sync() throws IOException {
+        if (channel != null && unsynced > 0) {
+            channel.force(false);
+            unsynced = 0;
+        }
+    }
+
+    // Replays the entries left by an interrupted compaction first, then the live log
+    public synchronized int replay(Visitor visitor) throws IOException {
+        int replayed = replayFile(rotatedPath, visitor);
+        int live = replayFile(path, visitor);
+        entryCount = live;
+        return replayed + live;
+    }
+
+    /**
+     * Moves the live log aside so a compaction can snapshot the current state while new
+     * mutations keep appending to a fresh file. Returns false if there was nothing to compact.
+     */
+    public synchronized boolean rotate() throws IOException {
+        boolean pending = Files.exists(rotatedPath);
+        if (entryCount == 0 && !pending) {
+            return false;
+        }
+        closeChannel();
+        if (Files.exists(path)) {
+            if (pending) {
+                Files.write(rotatedPath, Files.readAllBytes(path), StandardOpenOption.APPEND);
+                Files.delete(path);
+            } else {
+                Files.move(path, rotatedPath, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        entryCount = 0;
+        return true;
+    }
+
+    // Called once the snapshot covering the rotated entries is safely on disk
+    public synchronized void discardRotated() throws IOException {
+        Files.deleteIfExists(rotatedPath);
+    }
+
+    public synchronized int getEntryCount() {
+        return entryCount;
+    }
+
+    public synchronized void close() throws IOException {
+        closeChannel();
+    }
+
+    private FileChannel openChannel() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    private static void drain(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // Keeps an entry on one line; replay reverses it with decode
+    static String encode(String payload) {
+        int i = 0;
+        while (i < payload.length() && payload.charAt(i) != '\\' && payload.charAt(i) != '\n'
+                && payload.charAt(i) != '\r') {
+            i++;
+        }
+        if (i == payload.length()) {
+            return payload;
+        }
+        StringBuilder sb = new StringBuilder(payload.length() + 8).append(payload, 0, i);
+        for (; i < payload.length(); i++) {
+            char c = payload.charAt(i);
+            if (c == '\\') {
+                sb.append("\\\\");
+            } else if (c == '\n') {
+                sb.append("\\n");
+            } else if (c == '\r') {
+                sb.append("\\r");
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    static String decode(String line) {
+        int i = line.indexOf('\\');
+        if (i < 0) {
+            return line;
+        }
+        StringBuilder sb = new StringBuilder(line.length()).append(line, 0, i);
+        for (; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < line.length()) {
+                char next = line.charAt(++i);
+                sb.append(next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+            channel = null;
+            unsynced = 0;
+        }
+    }
+
+    private int replayFile(Path file, Visitor visitor) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        int count = 0;
+        long validBytes = 0;
+        boolean torn = false;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int first = line.indexOf('|');
+                int second = first < 0 ? -1 : line.indexOf('|', first + 1);
+                if (first != 1 || second < 0) {
+                    torn = true;
+                    break;
+                }
+                String payload = line.substring(second + 1);
+                CRC32 crc = new CRC32();
+                crc.update(payload.getBytes(StandardCharsets.UTF_8));
+                if (!Long.toHexString(crc.getValue()).equals(line.substring(first + 1, second))) {
+                    torn = true;
+                    break;
+                }
+                visitor.visit(line.charAt(0) == 'D' ? Op.DELETE : Op.PUT, decode(payload));
+                validBytes += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                count++;
+            }
+        }
+        if (torn) {
+            // Drop the damaged tail so entries appended from now on are not hidden behind it
+            LOG.warn("Discarding torn journal entries in " + file + " after entry " + count);
+            try (FileChannel truncating = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                truncating.truncate(validBytes);
+            }
+        } else if (validBytes > Files.size(file)) {
+            // The last entry is intact but lost its newline; terminate it before appending more
+            Files.write(file, new byte[]{'\n'}, StandardOpenOption.APPEND);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,200 @@
+package com.rentalsystem.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The small subset of JSON the application needs: string escaping for responses and a parser for
+ * flat objects of strings, numbers, booleans and nulls, as sent to the HTTP service or found one per
+ * line in JSONL import files.
+ */
+public final class Json {
+    private Json() {
+    }
+
+    public static StringBuilder appendString(StringBuilder sb, String value) {
+        if (value == null) {
+            return sb.append("null");
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"');
+    }
+
+    // Parses a flat JSON object; values are String, Double, Boolean or null
+    public static Map<String, Object> parseObject(String text) {
+        Parser parser = new Parser(text);
+        Map<String, Object> object = parser.object();
+        parser.skipWhitespace();
+        if (parser.position != text.length()) {
+            throw parser.error("Unexpected content after the object");
+        }
+        return object;
+    }
+
+    private static final class Parser {
+        private final String text;
+        private int position;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Map<String, Object> object() {
+            Map<String, Object> object = new LinkedHashMap<>();
+            expect('{');
+            skipWhitespace();
+            if (peek() == '}') {
+                position++;
+                return object;
+            }
+            while (true) {
+                skipWhitespace();
+                String name = string();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                object.put(name, value());
+                skipWhitespace();
+                char next = next();
+                if (next == '}') {
+                    return object;
+                }
+                if (next != ',') {
+                    throw error("Expected ',' or '}'");
+                }
+            }
+        }
+
+        private Object value() {
+            char c = peek();
+            if (c == '"') {
+                return string();
+            }
+            if (text.startsWith("true", position)) {
+                position += 4;
+                return Boolean.TRUE;
+            }
+            if (text.startsWith("false", position)) {
+                position += 5;
+                return Boolean.FALSE;
+            }
+            if (text.startsWith("null", position)) {
+                position += 4;
+                return null;
+            }
+            if (c == '-' || (c >= '0' && c <= '9')) {
+                int start = position;
+                while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+                    position++;
+                }
+                try {
+                    return Double.parseDouble(text.substring(start, position));
+                } catch (NumberFormatException e) {
+                    throw error("Invalid number");
+                }
+            }
+            throw error("Only strings, numbers, booleans and null are accepted as values");
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                char escaped = next();
+                switch (escaped) {
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'b':
+                        sb.append('\b');
+                        break;
+                    case 'f':
+                        sb.append('\f');
+                        break;
+                    case 'u':
+                        if (position + 4 > text.length()) {
+                            throw error("Truncated escape");
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Invalid escape");
+                        }
+                        position += 4;
+                        break;
+                    default:
+                        sb.append(escaped);
+                }
+            }
+        }
+
+        void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private void expect(char expected) {
+            if (next() != expected) {
+                throw error("Expected '" + expected + "'");
+            }
+        }
+
+        private char peek() {
+            if (position >= text.length()) {
+                throw error("Unexpected end of input");
+            }
+            return text.charAt(position);
+        }
+
+        private char next() {
+            char c = peek();
+            position++;
+            return c;
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at offset " + position);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.rentalsystem.util;
+
+import com.rentalsystem.model.*;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One consistent snapshot of everything read at startup, handed to every manager.
+ */
+public class LoadedData {
+    private final List<Tenant> tenants;
+    private final List<Host> hosts;
+    private final List<Property> properties;
+    private final List<RentalAgreement> rentalAgreements;
+    private final List<Payment> payments;
+    private final Map<String, Long> timingsMillis;
+
+    public LoadedData(List<Tenant> tenants, List<Host> hosts, List<Property> properties,
+                      List<RentalAgreement> rentalAgreements, List<Payment> payments,
+                      Map<String, Long> timingsMillis) {
+        this.tenants = tenants;
+        this.hosts = hosts;
+        this.properties = properties;
+        this.rentalAgreements = rentalAgreements;
+        this.payments = payments;
+        synchronized (timingsMillis) {
+            this.timingsMillis = Collections.unmodifiableMap(new LinkedHashMap<>(timingsMillis));
+        }
+    }
+
+    public List<Tenant> getTenants() {
+        return tenants;
+    }
+
+    public List<Host> getHosts() {
+        return hosts;
+    }
+
+    public List<Property> getProperties() {
+        return properties;
+    }
+
+    public List<RentalAgreement> getRentalAgreements() {
+        return rentalAgreements;
+    }
+
+    public List<Payment> getPayments() {
+        return payments;
+    }
+
+    // Wall-clock load time per file, in the order the loads completed
+    public Map<String, Long> getTimingsMillis() {
+        return timingsMillis;
+    }
+}
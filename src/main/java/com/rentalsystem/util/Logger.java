@@ -0,0 +1,205 @@
+package com.rentalsystem.util;
+
+import java.io.PrintStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Levelled diagnostics for the non-UI layers.
+ * The level comes from -Drental.log.level (TRACE, DEBUG, INFO, WARN, ERROR, OFF; default INFO) and
+ * output goes through a pluggable {@link Appender}, asynchronous by default so callers never wait on
+ * the terminal. Hot loops should guard per-row messages with {@link #isTraceEnabled()} so that no
+ * formatting happens at the default level.
+ */
+public final class Logger {
+    public enum Level {
+        TRACE, DEBUG, INFO, WARN, ERROR, OFF
+    }
+
+    public interface Appender {
+        void append(Level level, String source, String message, Throwable error);
+
+        default void flush() {
+        }
+    }
+
+    private static volatile Level threshold = parseLevel(System.getProperty("rental.log.level", "INFO"));
+    private static volatile Appender appender = new AsyncAppender(new ConsoleAppender());
+
+    private final String source;
+
+    private Logger(String source) {
+        this.source = source;
+    }
+
+    public static Logger getLogger(Class<?> owner) {
+        return new Logger(owner.getSimpleName());
+    }
+
+    public static void setLevel(Level level) {
+        threshold = level;
+    }
+
+    public static Level getLevel() {
+        return threshold;
+    }
+
+    public static void setAppender(Appender newAppender) {
+        Appender previous = appender;
+        appender = newAppender;
+        previous.flush();
+    }
+
+    // Blocks until everything logged so far has been written
+    public static void flush() {
+        appender.flush();
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.compareTo(threshold) >= 0 && level != Level.OFF;
+    }
+
+    public boolean isTraceEnabled() {
+        return isEnabled(Level.TRACE);
+    }
+
+    public boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    public void trace(String message) {
+        log(Level.TRACE, message, null);
+    }
+
+    public void trace(Supplier<String> message) {
+        if (isEnabled(Level.TRACE)) {
+            log(Level.TRACE, message.get(), null);
+        }
+    }
+
+    public void debug(String message) {
+        log(Level.DEBUG, message, null);
+    }
+
+    public void debug(Supplier<String> message) {
+        if (isEnabled(Level.DEBUG)) {
+            log(Level.DEBUG, message.get(), null);
+        }
+    }
+
+    public void info(String message) {
+        log(Level.INFO, message, null);
+    }
+
+    public void warn(String message) {
+        log(Level.WARN, message, null);
+    }
+
+    public void error(String message) {
+        log(Level.ERROR, message, null);
+    }
+
+    public void error(String message, Throwable error) {
+        log(Level.ERROR, message, error);
+    }
+
+    private void log(Level level, String message, Throwable error) {
+        if (isEnabled(level)) {
+            appender.append(level, source, message, error);
+        }
+    }
+
+    private static Level parseLevel(String name) {
+        try {
+            return Level.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return Level.INFO;
+        }
+    }
+
+    /**
+     * Writes WARN and ERROR to stderr and everything else to stdout.
+     */
+    public static class ConsoleAppender implements Appender {
+        @Override
+        public void append(Level level, String source, String message, Throwable error) {
+            PrintStream out = level.compareTo(Level.WARN) >= 0 ? System.err : System.out;
+            out.println("[" + level + "] " + source + ": " + message);
+            if (error != null) {
+                error.printStackTrace(out);
+            }
+        }
+
+        @Override
+        public void flush() {
+            System.out.flush();
+            System.err.flush();
+        }
+    }
+
+    /**
+     * Hands events to a daemon thread that feeds the delegate. The queue is bounded; when it is full
+     * the logging thread waits rather than dropping events, so verbose tracing stays complete.
+     */
+    public static class AsyncAppender implements Appender {
+        private static final int DEFAULT_CAPACITY = 8192;
+
+        private final Appender delegate;
+        private final BlockingQueue<Runnable> queue;
+
+        public AsyncAppender(Appender delegate) {
+            this(delegate, DEFAULT_CAPACITY);
+        }
+
+        public AsyncAppender(Appender delegate, int capacity) {
+            this.delegate = delegate;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            Thread worker = new Thread(this::drain, "log-appender");
+            worker.setDaemon(true);
+            worker.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "log-appender-flush"));
+        }
+
+        @Override
+        public void append(Level level, String source, String message, Throwable error) {
+            enqueue(() -> delegate.append(level, source, message, error));
+        }
+
+        @Override
+        public void flush() {
+            CountDownLatch drained = new CountDownLatch(1);
+            enqueue(() -> {
+                delegate.flush();
+                drained.countDown();
+            });
+            try {
+                drained.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void enqueue(Runnable event) {
+            try {
+                queue.put(event);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                try {
+                    queue.take().run();
+                } catch (InterruptedException e) {
+                    return;
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,953 @@
+package com.rentalsystem.util;
+
+import com.rentalsystem.model.Payment;
+import com.rentalsystem.model.References;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Payments stored column by column instead of as objects: amounts in a double[], payment dates as int
+ * epoch days, and payment methods and agreement IDs as int codes into dictionaries that hold each
+ * distinct value once. IDs of the usual shape are packed into a long ({@link CompactId}); any others are
+ * kept as strings in a column of their own. A stored payment costs a few primitives rather than a
+ * Payment, a Date, three strings and the map entries indexing them, and totals are plain loops over
+ * primitive arrays.
+ * <p>
+ * Payments are read back as flyweight views over their row, made on each access. Views are read-only
+ * and two views of the same row are equal. As a map the table keeps insertion order, like the
+ * LinkedHashMap it stands in for, but {@link #values} is a snapshot rather than a live view. A table that
+ * groups by agreement also keeps each agreement's row numbers; any table can walk its rows in payment
+ * date order, sorted on first use.
+ * <p>
+ * Writers synchronise on the table. Reads take no lock: rows are only ever appended and are published
+ * by a volatile row count, and the arrays holding them are never resized in place but replaced a
+ * generation at a time behind one volatile field, so a reader that reads the count and then the
+ * generation finds every row below that count in it. That holds only for tables that are just added
+ * to: {@link #put} over a stored ID and {@link #remove} change rows and agreement lists in place, which a
+ * lock-free reader may see half done, so a table that uses them is not safe to read without its lock.
+ * FileHandler loads into such a table before anyone reads it; the managers' table only ever adds.
+ */
+public class PaymentTable extends AbstractMap<String, Payment> {
+    /** Epoch day of a payment without a date; it sorts before every real day. */
+    public static final long NO_DAY = Long.MIN_VALUE;
+
+    private static final int MISSING_DAY = Integer.MIN_VALUE;
+    private static final int NULL_CODE = -1;
+    private static final int TOMBSTONE = -1;
+    private static final int INITIAL_ROWS = 64;
+    // Rows added since the date order was last rebuilt are merged into a second, smaller sorted run
+    // until it outgrows this or the square root of the main run
+    private static final int MIN_RECENT_RUN = 1024;
+    private static final int[] NO_ROWS = new int[0];
+
+    /** Receives one total per payment method; see {@link #forEachMethodTotal}. */
+    public interface MethodTotal {
+        void accept(String method, long count, long cents);
+    }
+
+    private final boolean groupByAgreement;
+    private volatile Columns columns;
+
+    public PaymentTable(boolean groupByAgreement) {
+        this.groupByAgreement = groupByAgreement;
+        this.columns = new Columns(groupByAgreement);
+    }
+
+    // Epoch day of the payment, or NO_DAY; stored payments are read from the column without making a Date
+    public static long epochDay(Payment payment) {
+        if (payment instanceof Row) {
+            Row view = (Row) payment;
+            return day(view.columns.generation.days[view.row]);
+        }
+        return payment.getPaymentDate() == null ? NO_DAY : DateUtil.toEpochDay(payment.getPaymentDate());
+    }
+
+    @Override
+    public int size() {
+        return columns.live;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && find(columns, (String) key) >= 0;
+    }
+
+    @Override
+    public Payment get(Object key) {
+        Columns c = columns;
+        int row = key instanceof String ? find(c, (String) key) : -1;
+        return row < 0 ? null : new Row(c, row);
+    }
+
+    // Stores the payment unless its ID is taken; returns whether it was added. A payment read from another
+    // table brings its packed ID along rather than being unpacked and packed again
+    public synchronized boolean add(Payment payment) {
+        long packed;
+        String looseId;
+        if (payment instanceof Row) {
+            Row view = (Row) payment;
+            Generation g = view.columns.generation;
+            packed = g.ids[view.row];
+            looseId = g.looseId(view.row);
+        } else {
+            looseId = payment.getId();
+            packed = CompactId.pack(looseId);
+            if (packed != CompactId.NONE) {
+                looseId = null;
+            }
+        }
+        if (find(columns, packed, looseId) >= 0) {
+            return false;
+        }
+        append(packed, looseId, payment.getAmount(), epochDay(payment), payment.getPaymentMethod(),
+                payment.getRentalAgreementId());
+        return true;
+    }
+
+    @Override
+    public synchronized Payment put(String id, Payment payment) {
+        return put(id, payment.getAmount(), epochDay(payment), payment.getPaymentMethod(),
+                payment.getRentalAgreementId());
+    }
+
+    // Adds or replaces a payment given its fields, for loaders that never build a Payment; returns a
+    // detached copy of the payment it replaced. Replacing is done in place; see the class comment
+    public synchronized Payment put(String id, double amount, long epochDay, String method, String agreementId) {
+        Columns c = columns;
+        int row = find(c, id);
+        if (row < 0) {
+            long packed = CompactId.pack(id);
+            append(packed, packed == CompactId.NONE ? id : null, amount, epochDay, method, agreementId);
+            return null;
+        }
+        Payment previous = copy(c, row);
+        Generation g = c.generation;
+        g.amounts[row] = amount;
+        int day = dayColumn(epochDay);
+        if (g.days[row] != day) {
+            g.days[row] = day;
+            c.order = null;
+        }
+        g.methodCodes[row] = c.methods.encode(method);
+        int agreement = c.agreements.encode(agreementId);
+        if (g.agreementCodes[row] != agreement) {
+            if (groupByAgreement) {
+                c.unlink(row);
+            }
+            g.agreementCodes[row] = agreement;
+            if (groupByAgreement) {
+                c.link(row);
+            }
+        }
+        return previous;
+    }
+
+    // Done in place, so only for tables not read without their lock; see the class comment
+    @Override
+    public synchronized Payment remove(Object key) {
+        Columns c = columns;
+        int slot = key instanceof String ? c.slotOf((String) key) : -1;
+        if (slot < 0) {
+            return null;
+        }
+        Generation g = c.generation;
+        int row = g.slots[slot] - 1;
+        Payment removed = copy(c, row);
+        if (groupByAgreement) {
+            c.unlink(row);
+        }
+        g.slots[slot] = TOMBSTONE;
+        c.removed++;
+        c.live--;
+        return removed;
+    }
+
+    @Override
+    public synchronized void clear() {
+        columns = new Columns(groupByAgreement);
+    }
+
+    // The stored payments as of now, in insertion order; views are made as elements are read
+    public List<Payment> snapshot() {
+        Columns c = columns;
+        int n = c.size;
+        return new RowList(c, c.removed == 0 ? null : liveRows(c, n), n);
+    }
+
+    @Override
+    public Collection<Payment> values() {
+        return snapshot();
+    }
+
+    @Override
+    public Set<Entry<String, Payment>> entrySet() {
+        return new AbstractSet<Entry<String, Payment>>() {
+            @Override
+            public Iterator<Entry<String, Payment>> iterator() {
+                Iterator<Payment> payments = snapshot().iterator();
+                return new Iterator<Entry<String, Payment>>() {
+                    private Payment last;
+
+                    @Override
+                    public boolean hasNext() {
+                        return payments.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, Payment> next() {
+                        last = payments.next();
+                        return new SimpleImmutableEntry<>(last.getId(), last);
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last == null) {
+                            throw new IllegalStateException();
+                        }
+                        PaymentTable.this.remove(last.getId());
+                        last = null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return PaymentTable.this.size();
+            }
+        };
+    }
+
+    // The agreement's payments in the order they were added, viewed as the list is read; needs a table
+    // that groups by agreement
+    public List<Payment> forAgreement(String agreementId) {
+        Columns c = columns;
+        int n = c.size;
+        Generation g = c.generation;
+        int code = agreementCode(c, g, agreementId);
+        if (code == NULL_CODE) {
+            return Collections.emptyList();
+        }
+        int[] links = g.rowsByAgreement.get(code);
+        int count = 0;
+        while (count < links.length && links[count] != 0 && links[count] <= n) {
+            count++;
+        }
+        int[] rows = new int[count];
+        for (int i = 0; i < count; i++) {
+            rows[i] = links[i] - 1;
+        }
+        return new RowList(c, rows, count);
+    }
+
+    public int countForAgreement(String agreementId) {
+        Columns c = columns;
+        Generation g = c.generation;
+        int code = agreementCode(c, g, agreementId);
+        return code == NULL_CODE ? 0 : g.counts[code];
+    }
+
+    // The agreement's payments as the agreement reads them, following the table through clear and reload
+    public References<Payment> agreementView(String agreementId) {
+        return new References<Payment>() {
+            @Override
+            public List<Payment> snapshot() {
+                return forAgreement(agreementId);
+            }
+
+            @Override
+            public int count() {
+                return countForAgreement(agreementId);
+            }
+        };
+    }
+
+    /**
+     * Lazily walks the payments dated from <= day <= to in day then ID order (or the reverse), starting
+     * just past the position (afterDay, afterId) when afterId is not null, with the same meaning as
+     * SortedIndex.walk. Payments without a date have day {@link #NO_DAY}. The first walk sorts the rows;
+     * later ones merge in only the rows added since.
+     */
+    public Stream<Payment> walkByDate(long from, long to, boolean descending, long afterDay, String afterId) {
+        Columns c = columns;
+        DateOrder order = dateOrder(c);
+        Iterator<Payment> walk = new DateWalk(c, c.generation, order, from, to, descending, afterDay, afterId);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(walk,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    // Count and sum in cents of the payments under each method (null for none), from one pass over the
+    // amount and method columns
+    public void forEachMethodTotal(MethodTotal consumer) {
+        Columns c = columns;
+        int n = c.size;
+        Generation g = c.generation;
+        double[] amounts = g.amounts;
+        int[] methodCodes = g.methodCodes;
+        int codes = c.methods.size();
+        long[] counts = new long[codes + 1];
+        long[] cents = new long[codes + 1];
+        boolean allLive = c.removed == 0;
+        for (int row = 0; row < n; row++) {
+            if (allLive || isLive(c, row)) {
+                int slot = methodCodes[row] + 1;
+                counts[slot]++;
+                cents[slot] += Math.round(amounts[row] * 100);
+            }
+        }
+        for (int slot = 0; slot <= codes; slot++) {
+            if (counts[slot] > 0) {
+                consumer.accept(c.methods.decode(slot - 1), counts[slot], cents[slot]);
+            }
+        }
+    }
+
+    private void append(long packedId, String looseId, double amount, long epochDay, String method,
+                        String agreementId) {
+        Columns c = columns;
+        int row = c.size;
+        if (row == c.generation.amounts.length) {
+            c.grow();
+        }
+        c.setId(row, packedId, looseId);
+        Generation g = c.generation;
+        g.amounts[row] = amount;
+        g.days[row] = dayColumn(epochDay);
+        g.methodCodes[row] = c.methods.encode(method);
+        g.agreementCodes[row] = c.agreements.encode(agreementId);
+        if (groupByAgreement) {
+            c.link(row);
+        }
+        c.index(row);
+        c.size = row + 1;
+        c.live++;
+    }
+
+    private int agreementCode(Columns c, Generation g, String agreementId) {
+        if (!groupByAgreement) {
+            throw new IllegalStateException("Payments are not grouped by agreement");
+        }
+        int code = c.agreements.find(agreementId);
+        return code == NULL_CODE || code >= g.counts.length || g.rowsByAgreement.get(code) == null ? NULL_CODE : code;
+    }
+
+    private DateOrder dateOrder(Columns c) {
+        DateOrder order = c.order;
+        if (order != null && order.through == c.size) {
+            return order;
+        }
+        synchronized (this) {
+            int n = c.size;
+            Generation g = c.generation;
+            order = c.order;
+            if (order == null) {
+                order = new DateOrder(sortRows(g, 0, n), NO_ROWS, n);
+            } else if (order.through < n) {
+                int[] recent = merge(g, order.recent, sortRows(g, order.through, n));
+                order = recent.length > Math.max(MIN_RECENT_RUN, (int) Math.sqrt(order.main.length))
+                        ? new DateOrder(merge(g, order.main, recent), NO_ROWS, n)
+                        : new DateOrder(order.main, recent, n);
+            }
+            c.order = order;
+            return order;
+        }
+    }
+
+    private static int find(Columns c, String id) {
+        if (id == null) {
+            return -1;
+        }
+        long packed = CompactId.pack(id);
+        return packed != CompactId.NONE ? find(c, packed, null) : find(c, CompactId.NONE, id);
+    }
+
+    // Row of the ID given as packed, or as looseId when it does not pack
+    private static int find(Columns c, long packed, String looseId) {
+        int n = c.size;
+        Generation g = c.generation;
+        long[] ids = g.ids;
+        int[] slots = g.slots;
+        int mask = slots.length - 1;
+        for (int i = hash(packed, looseId) & mask; ; i = (i + 1) & mask) {
+            int link = slots[i];
+            if (link == 0) {
+                return -1;
+            }
+            if (link > 0 && link <= n && ids[link - 1] == packed
+                    && (looseId == null || looseId.equals(g.looseIds[link - 1]))) {
+                return link - 1;
+            }
+        }
+    }
+
+    private static boolean isLive(Columns c, int row) {
+        if (c.removed == 0) {
+            return true;
+        }
+        Generation g = c.generation;
+        return find(c, g.ids[row], g.looseId(row)) == row;
+    }
+
+    private static int[] liveRows(Columns c, int n) {
+        int[] rows = new int[n];
+        int count = 0;
+        for (int row = 0; row < n; row++) {
+            if (isLive(c, row)) {
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    private static Payment copy(Columns c, int row) {
+        Row view = new Row(c, row);
+        return new Payment(view.getId(), view.getAmount(), view.getPaymentDate(), view.getPaymentMethod(),
+                view.getRentalAgreementId());
+    }
+
+    private static int hash(long packed, String looseId) {
+        if (looseId == null) {
+            return CompactId.hash(packed);
+        }
+        int h = looseId.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static String idOf(Generation g, int row) {
+        long packed = g.ids[row];
+        return packed != CompactId.NONE ? CompactId.unpack(packed) : g.looseIds[row];
+    }
+
+    // Orders two rows by ID without unpacking, unless either ID did not pack
+    private static int compareIds(Generation g, int a, int b) {
+        long packedA = g.ids[a];
+        long packedB = g.ids[b];
+        if (packedA != CompactId.NONE && packedB != CompactId.NONE) {
+            return CompactId.compare(packedA, packedB);
+        }
+        return idOf(g, a).compareTo(idOf(g, b));
+    }
+
+    private static long day(int column) {
+        return column == MISSING_DAY ? NO_DAY : column;
+    }
+
+    private static int dayColumn(long epochDay) {
+        return epochDay == NO_DAY ? MISSING_DAY : Math.toIntExact(epochDay);
+    }
+
+    // Payment date, then ID
+    private static int compare(Generation g, int a, int b) {
+        int order = Integer.compare(g.days[a], g.days[b]);
+        return order != 0 ? order : compareIds(g, a, b);
+    }
+
+    // Compares a row with the position (day, id), where packedId is the packed id or NONE; a null id
+    // stands after every ID of that day when nullLast is set and before them otherwise
+    private static int compare(Generation g, int row, long day, String id, long packedId, boolean nullLast) {
+        long rowDay = day(g.days[row]);
+        if (rowDay != day) {
+            return Long.compare(rowDay, day);
+        }
+        if (id == null) {
+            return nullLast ? -1 : 1;
+        }
+        long packed = g.ids[row];
+        if (packed != CompactId.NONE && packedId != CompactId.NONE) {
+            return CompactId.compare(packed, packedId);
+        }
+        return idOf(g, row).compareTo(id);
+    }
+
+    // Index of the first row in the run past (after) or at the position (day, id)
+    private static int search(Generation g, int[] run, long day, String id, boolean after) {
+        long packedId = id == null ? CompactId.NONE : CompactId.pack(id);
+        int low = 0;
+        int high = run.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int order = compare(g, run[middle], day, id, packedId, after);
+            if (after ? order > 0 : order >= 0) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    private static int[] sortRows(Generation g, int from, int to) {
+        int[] rows = new int[to - from];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = from + i;
+        }
+        sort(g, rows, new int[rows.length], 0, rows.length);
+        return rows;
+    }
+
+    // Merge sort on row numbers; there is no primitive sort that takes a comparator
+    private static void sort(Generation g, int[] rows, int[] buffer, int from, int to) {
+        if (to - from < 16) {
+            for (int i = from + 1; i < to; i++) {
+                int row = rows[i];
+                int j = i - 1;
+                for (; j >= from && compare(g, rows[j], row) > 0; j--) {
+                    rows[j + 1] = rows[j];
+                }
+                rows[j + 1] = row;
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sort(g, rows, buffer, from, middle);
+        sort(g, rows, buffer, middle, to);
+        if (compare(g, rows[middle - 1], rows[middle]) <= 0) {
+            return;
+        }
+        System.arraycopy(rows, from, buffer, from, to - from);
+        int i = from;
+        int j = middle;
+        for (int k = from; k < to; k++) {
+            rows[k] = j >= to || i < middle && compare(g, buffer[i], buffer[j]) <= 0 ? buffer[i++] : buffer[j++];
+        }
+    }
+
+    private static int[] merge(Generation g, int[] a, int[] b) {
+        int[] merged = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < merged.length; k++) {
+            merged[k] = j >= b.length || i < a.length && compare(g, a[i], b[j]) <= 0 ? a[i++] : b[j++];
+        }
+        return merged;
+    }
+
+    /** The columns, replaced as a whole by {@link #clear} so that views and walks keep reading their own. */
+    private static final class Columns {
+        final Dictionary methods = new Dictionary();
+        final Dictionary agreements = new Dictionary();
+        volatile Generation generation;
+        int filled;
+        volatile int size;
+        volatile int live;
+        volatile int removed;
+        volatile DateOrder order;
+
+        Columns(boolean groupByAgreement) {
+            generation = new Generation(new long[INITIAL_ROWS], null, new double[INITIAL_ROWS], new int[INITIAL_ROWS],
+                    new int[INITIAL_ROWS], new int[INITIAL_ROWS], new int[INITIAL_ROWS * 2],
+                    groupByAgreement ? new AtomicReferenceArray<>(16) : null, groupByAgreement ? new int[16] : null);
+        }
+
+        void grow() {
+            Generation g = generation;
+            int capacity = g.amounts.length + (g.amounts.length >> 1);
+            generation = new Generation(Arrays.copyOf(g.ids, capacity),
+                    g.looseIds == null ? null : Arrays.copyOf(g.looseIds, capacity), Arrays.copyOf(g.amounts, capacity),
+                    Arrays.copyOf(g.days, capacity), Arrays.copyOf(g.methodCodes, capacity),
+                    Arrays.copyOf(g.agreementCodes, capacity), g.slots, g.rowsByAgreement, g.counts);
+        }
+
+        // Appends the row to its agreement's list; a full list is copied and the copy set in its place
+        void link(int row) {
+            Generation g = generation;
+            int code = g.agreementCodes[row];
+            if (code == NULL_CODE) {
+                return;
+            }
+            if (code >= g.counts.length) {
+                int capacity = Math.max(code + 1, g.counts.length * 2);
+                AtomicReferenceArray<int[]> lists = new AtomicReferenceArray<>(capacity);
+                for (int i = 0; i < g.counts.length; i++) {
+                    lists.set(i, g.rowsByAgreement.get(i));
+                }
+                g = new Generation(g.ids, g.looseIds, g.amounts, g.days, g.methodCodes, g.agreementCodes, g.slots,
+                        lists, Arrays.copyOf(g.counts, capacity));
+                generation = g;
+            }
+            int[] rows = g.rowsByAgreement.get(code);
+            int count = g.counts[code];
+            if (rows == null || count == rows.length) {
+                rows = rows == null ? new int[4] : Arrays.copyOf(rows, count + (count >> 1) + 1);
+                rows[count] = row + 1;
+                g.rowsByAgreement.set(code, rows);
+            } else {
+                rows[count] = row + 1;
+            }
+            g.counts[code] = count + 1;
+        }
+
+        void unlink(int row) {
+            Generation g = generation;
+            int code = g.agreementCodes[row];
+            if (code == NULL_CODE) {
+                return;
+            }
+            int[] rows = g.rowsByAgreement.get(code);
+            int count = g.counts[code];
+            for (int i = 0; i < count; i++) {
+                if (rows[i] == row + 1) {
+                    System.arraycopy(rows, i + 1, rows, i, count - i - 1);
+                    rows[count - 1] = 0;
+                    g.counts[code] = count - 1;
+                    return;
+                }
+            }
+        }
+
+        void setId(int row, long packed, String looseId) {
+            Generation g = generation;
+            g.ids[row] = packed;
+            if (packed == CompactId.NONE) {
+                if (g.looseIds == null) {
+                    g = new Generation(g.ids, new String[g.ids.length], g.amounts, g.days, g.methodCodes,
+                            g.agreementCodes, g.slots, g.rowsByAgreement, g.counts);
+                    generation = g;
+                }
+                g.looseIds[row] = looseId;
+            } else if (g.looseIds != null) {
+                g.looseIds[row] = null;
+            }
+        }
+
+        void index(int row) {
+            Generation g = generation;
+            if ((filled + 1) * 4 > g.slots.length * 3) {
+                g = rehash(g);
+            }
+            int[] slots = g.slots;
+            int mask = slots.length - 1;
+            int i = hash(g.ids[row], g.looseId(row)) & mask;
+            while (slots[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            slots[i] = row + 1;
+            filled++;
+        }
+
+        int slotOf(String id) {
+            Generation g = generation;
+            long packed = CompactId.pack(id);
+            String looseId = packed == CompactId.NONE ? id : null;
+            int[] slots = g.slots;
+            int mask = slots.length - 1;
+            for (int i = hash(packed, looseId) & mask; slots[i] != 0; i = (i + 1) & mask) {
+                int row = slots[i] - 1;
+                if (row >= 0 && g.ids[row] == packed && (looseId == null || looseId.equals(g.looseIds[row]))) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // Rebuilt into a new array, so readers still probing the old one find what they did before
+        private Generation rehash(Generation g) {
+            int capacity = Integer.highestOneBit(Math.max(live + 1, INITIAL_ROWS) * 2) * 2;
+            int[] rebuilt = new int[capacity];
+            int mask = capacity - 1;
+            for (int link : g.slots) {
+                if (link > 0) {
+                    int i = hash(g.ids[link - 1], g.looseId(link - 1)) & mask;
+                    while (rebuilt[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    rebuilt[i] = link;
+                }
+            }
+            filled = live;
+            generation = new Generation(g.ids, g.looseIds, g.amounts, g.days, g.methodCodes, g.agreementCodes, rebuilt,
+                    g.rowsByAgreement, g.counts);
+            return generation;
+        }
+    }
+
+    /**
+     * One generation of the column arrays. A writer that outgrows an array copies it into a new generation
+     * and publishes that with one volatile write, so a reader never pairs arrays from different generations
+     * and sees the copied rows in full.
+     */
+    private static final class Generation {
+        // Packed IDs, with the ones that do not pack in looseIds, which is only made for the first of them
+        final long[] ids;
+        final String[] looseIds;
+        final double[] amounts;
+        final int[] days;
+        final int[] methodCodes;
+        final int[] agreementCodes;
+        // Open-addressing ID lookup holding row + 1, with TOMBSTONE for removed IDs
+        final int[] slots;
+        // Each agreement's rows in the order added, as row + 1 so that unused trailing entries read as 0;
+        // an atomic array so that a reader sees a list copied by link in full
+        final AtomicReferenceArray<int[]> rowsByAgreement;
+        final int[] counts;
+
+        Generation(long[] ids, String[] looseIds, double[] amounts, int[] days, int[] methodCodes,
+                   int[] agreementCodes, int[] slots, AtomicReferenceArray<int[]> rowsByAgreement, int[] counts) {
+            this.ids = ids;
+            this.looseIds = looseIds;
+            this.amounts = amounts;
+            this.days = days;
+            this.methodCodes = methodCodes;
+            this.agreementCodes = agreementCodes;
+            this.slots = slots;
+            this.rowsByAgreement = rowsByAgreement;
+            this.counts = counts;
+        }
+
+        String looseId(int row) {
+            return ids[row] == CompactId.NONE ? looseIds[row] : null;
+        }
+    }
+
+    /** Distinct strings of one column, coded in order of first appearance; null is {@link #NULL_CODE}. */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+        // Replaced when full, like the columns, so a reader holding a code finds its value in whichever it reads
+        private volatile String[] values = new String[8];
+        private volatile int size;
+
+        int encode(String value) {
+            if (value == null) {
+                return NULL_CODE;
+            }
+            Integer code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            int added = size;
+            if (added == values.length) {
+                values = Arrays.copyOf(values, added * 2);
+            }
+            values[added] = value;
+            size = added + 1;
+            codes.put(value, added);
+            return added;
+        }
+
+        int find(String value) {
+            Integer code = value == null ? null : codes.get(value);
+            return code == null ? NULL_CODE : code;
+        }
+
+        String decode(int code) {
+            return code == NULL_CODE ? null : values[code];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    /** Every row below through, sorted by date then ID: a main run and a run of rows added since it was built. */
+    private static final class DateOrder {
+        final int[] main;
+        final int[] recent;
+        final int through;
+
+        DateOrder(int[] main, int[] recent, int through) {
+            this.main = main;
+            this.recent = recent;
+            this.through = through;
+        }
+    }
+
+    /** Merges the matching range of both runs of a DateOrder, skipping removed rows. */
+    private static final class DateWalk implements Iterator<Payment> {
+        private final Columns columns;
+        private final Generation generation;
+        private final boolean descending;
+        private final int[] main;
+        private final int[] recent;
+        private int mainFrom;
+        private int mainTo;
+        private int recentFrom;
+        private int recentTo;
+        private int nextRow = -1;
+
+        // The generation must be read after the order, so that it holds every row the order lists
+        DateWalk(Columns c, Generation g, DateOrder order, long from, long to, boolean descending, long afterDay,
+                 String afterId) {
+            this.columns = c;
+            this.generation = g;
+            this.descending = descending;
+            this.main = order.main;
+            this.recent = order.recent;
+            int[] mainRange = range(g, main, from, to, descending, afterDay, afterId);
+            int[] recentRange = range(g, recent, from, to, descending, afterDay, afterId);
+            mainFrom = mainRange[0];
+            mainTo = mainRange[1];
+            recentFrom = recentRange[0];
+            recentTo = recentRange[1];
+        }
+
+        private static int[] range(Generation g, int[] run, long from, long to, boolean descending, long afterDay,
+                                   String afterId) {
+            int low = search(g, run, from, null, false);
+            int high = search(g, run, to, null, true);
+            if (afterId != null) {
+                if (descending) {
+                    high = Math.min(high, search(g, run, afterDay, afterId, false));
+                } else {
+                    low = Math.max(low, search(g, run, afterDay, afterId, true));
+                }
+            }
+            return new int[] {low, Math.max(low, high)};
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (nextRow < 0 && (mainFrom < mainTo || recentFrom < recentTo)) {
+                int row = descending ? takeLast() : takeFirst();
+                if (isLive(columns, row)) {
+                    nextRow = row;
+                }
+            }
+            return nextRow >= 0;
+        }
+
+        @Override
+        public Payment next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Payment payment = new Row(columns, nextRow);
+            nextRow = -1;
+            return payment;
+        }
+
+        private int takeFirst() {
+            if (recentFrom >= recentTo
+                    || mainFrom < mainTo && compare(generation, main[mainFrom], recent[recentFrom]) <= 0) {
+                return main[mainFrom++];
+            }
+            return recent[recentFrom++];
+        }
+
+        private int takeLast() {
+            if (recentFrom >= recentTo
+                    || mainFrom < mainTo && compare(generation, main[mainTo - 1], recent[recentTo - 1]) >= 0) {
+                return main[--mainTo];
+            }
+            return recent[--recentTo];
+        }
+    }
+
+    /** Read-only rows: every row below the size, or the listed rows. */
+    private static final class RowList extends AbstractList<Payment> implements RandomAccess {
+        private final Columns columns;
+        private final int[] rows;
+        private final int size;
+
+        RowList(Columns columns, int[] rows, int size) {
+            this.columns = columns;
+            this.rows = rows;
+            this.size = rows == null ? size : rows.length;
+        }
+
+        @Override
+        public Payment get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+            }
+            return new Row(columns, rows == null ? index : rows[index]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /** Flyweight view of one stored payment. */
+    private static final class Row extends Payment {
+        private final Columns columns;
+        private final int row;
+
+        Row(Columns columns, int row) {
+            super(null, 0, null, null, null);
+            this.columns = columns;
+            this.row = row;
+        }
+
+        @Override
+        public String getId() {
+            return idOf(columns.generation, row);
+        }
+
+        @Override
+        public double getAmount() {
+            return columns.generation.amounts[row];
+        }
+
+        @Override
+        public Date getPaymentDate() {
+            int day = columns.generation.days[row];
+            return day == MISSING_DAY ? null : DateUtil.toDate(day);
+        }
+
+        @Override
+        public String getPaymentMethod() {
+            return columns.methods.decode(columns.generation.methodCodes[row]);
+        }
+
+        @Override
+        public String getRentalAgreementId() {
+            return columns.agreements.decode(columns.generation.agreementCodes[row]);
+        }
+
+        @Override
+        public void setId(String id) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setAmount(double amount) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setPaymentDate(Date paymentDate) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setPaymentMethod(String paymentMethod) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setRentalAgreementId(String rentalAgreementId) {
+            throw readOnly();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Row && ((Row) other).columns == columns && ((Row) other).row == row;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(columns) * 31 + row;
+        }
+
+        private static UnsupportedOperationException readOnly() {
+            return new UnsupportedOperationException("Stored payments are read-only");
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.rentalsystem.util;
+
+import com.rentalsystem.model.*;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Reads every data file exactly once at startup.
+ * Tenants, hosts, properties and payments have no foreign keys to resolve while parsing, so they load
+ * in parallel; rental agreements start as soon as the tenants and properties they reference are in.
+ */
+public class StartupLoader {
+    private static final Logger LOG = Logger.getLogger(StartupLoader.class);
+
+    private final FileHandler fileHandler;
+
+    public StartupLoader(FileHandler fileHandler) {
+        this.fileHandler = fileHandler;
+    }
+
+    public LoadedData load() {
+        Map<String, Long> timings = Collections.synchronizedMap(new LinkedHashMap<>());
+        ExecutorService executor = Executors.newFixedThreadPool(4, runnable -> {
+            Thread thread = new Thread(runnable, "startup-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        try {
+            CompletableFuture<List<Tenant>> tenants = timed("tenants", fileHandler::loadTenants, timings, executor);
+            CompletableFuture<List<Host>> hosts = timed("hosts", fileHandler::loadHosts, timings, executor);
+            CompletableFuture<List<Property>> properties = timed("properties", fileHandler::loadProperties, timings, executor);
+            CompletableFuture<List<Payment>> payments = timed("payments", fileHandler::loadPayments, timings, executor);
+            CompletableFuture<List<RentalAgreement>> agreements = CompletableFuture.allOf(tenants, properties)
+                    .thenCompose(ignored -> timed("rentalAgreements", fileHandler::loadRentalAgreements, timings, executor));
+
+            LoadedData data = new LoadedData(tenants.join(), hosts.join(), properties.join(), agreements.join(),
+                    payments.join(), timings);
+            LOG.info("Loaded " + data.getTenants().size() + " tenants, " + data.getHosts().size() + " hosts, "
+                    + data.getProperties().size() + " properties, " + data.getRentalAgreements().size()
+                    + " rental agreements and " + data.getPayments().size() + " payments in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms " + data.getTimingsMillis());
+            return data;
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Failed to load data: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static <T> CompletableFuture<T> timed(String name, Supplier<T> loader, Map<String, Long> timings,
+                                                  ExecutorService executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            T result = loader.get();
+            timings.put(name, (System.nanoTime() - start) / 1_000_000);
+            return result;
+        }, executor);
+    }
+}
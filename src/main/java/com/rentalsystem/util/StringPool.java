@@ -0,0 +1,91 @@
+package com.rentalsystem.util;
+
+/**
+ * Load-time dictionary for field values that repeat across many records, such as payment methods,
+ * owner IDs and business types: each distinct value is kept as one String that every record shares,
+ * instead of a fresh copy per row. Values can be looked up straight from a character buffer, so a value
+ * the pool has already seen costs no allocation at all.
+ * <p>
+ * Unlike String.intern the pool is an ordinary object. A loader keeps one for the length of a load, after
+ * which the values live on only through the records that use them. Not thread-safe.
+ */
+public final class StringPool {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private String[] table = new String[INITIAL_CAPACITY];
+    private int size;
+
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        int mask = table.length - 1;
+        for (int i = spread(value.hashCode()) & mask; ; i = (i + 1) & mask) {
+            String pooled = table[i];
+            if (pooled == null) {
+                return add(i, value);
+            }
+            if (pooled.equals(value)) {
+                return pooled;
+            }
+        }
+    }
+
+    // The pooled copy of chars[start, end), allocating a String only for a new value
+    public String intern(char[] chars, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int mask = table.length - 1;
+        for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+            String pooled = table[i];
+            if (pooled == null) {
+                return add(i, new String(chars, start, end - start));
+            }
+            if (pooled.hashCode() == hash && matches(pooled, chars, start, end)) {
+                return pooled;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private String add(int slot, String value) {
+        table[slot] = value;
+        if (++size * 2 > table.length) {
+            String[] old = table;
+            table = new String[old.length * 2];
+            int mask = table.length - 1;
+            for (String pooled : old) {
+                if (pooled != null) {
+                    int i = spread(pooled.hashCode()) & mask;
+                    while (table[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    table[i] = pooled;
+                }
+            }
+        }
+        return value;
+    }
+
+    private static boolean matches(String pooled, char[] chars, int start, int end) {
+        if (pooled.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < pooled.length(); i++) {
+            if (pooled.charAt(i) != chars[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,195 @@
+package com.rentalsystem.util;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Moves file writes off the threads that make changes. Callers queue the ID of each changed record and
+ * return; one background thread collects the events that arrive within the coalescing window after the
+ * first one and hands each target its distinct IDs as one batch, written as the records stand by then.
+ * The queue is bounded, so callers wait once writing falls that far behind. {@link #flush()} is the
+ * barrier used before saves, reloads and shutdown.
+ * <p>
+ * Submitting and flushing hold the read side of a lock that {@link #close()} takes to set the closed
+ * flag, so nothing is queued once the writer may have stopped: the writer drains the queue before it
+ * exits and close waits for it, and a change submitted after that is handed back to the caller.
+ */
+final class WriteBehindScheduler<K> {
+    private static final Logger LOG = Logger.getLogger(WriteBehindScheduler.class);
+
+    interface BatchWriter<K> {
+        void write(K target, Set<String> ids);
+    }
+
+    private static final class Change<K> {
+        final K target;
+        final String id;
+        final CountDownLatch barrier;
+
+        Change(K target, String id, CountDownLatch barrier) {
+            this.target = target;
+            this.id = id;
+            this.barrier = barrier;
+        }
+    }
+
+    private final BatchWriter<K> writer;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final BlockingQueue<Change<K>> queue;
+    private final Thread thread;
+    private final ReadWriteLock closing = new ReentrantReadWriteLock();
+    private volatile boolean closed;
+
+    WriteBehindScheduler(String name, BatchWriter<K> writer, long windowMillis, int capacity) {
+        this.writer = writer;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = capacity;
+        this.thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Queues a change and returns true, blocking only while the queue is full; returns false once closed,
+    // when the caller has to write the change itself
+    boolean submit(K target, String id) {
+        Change<K> change = new Change<>(target, id, null);
+        closing.readLock().lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            if (!queue.offer(change)) {
+                LOG.debug("Write-behind queue is full; waiting for the writer to catch up.");
+                putUninterruptibly(change);
+            }
+            return true;
+        } finally {
+            closing.readLock().unlock();
+        }
+    }
+
+    // Returns once every change queued before the call has been written
+    void flush() {
+        if (Thread.currentThread() == thread) {
+            return;
+        }
+        CountDownLatch barrier = new CountDownLatch(1);
+        closing.readLock().lock();
+        try {
+            if (closed) {
+                // close() has already waited for the writer to empty the queue
+                return;
+            }
+            putUninterruptibly(new Change<>(null, null, barrier));
+        } finally {
+            closing.readLock().unlock();
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                barrier.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Writes what is queued, then stops the writer thread and waits for it; later submits are refused
+    void close() {
+        closing.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            closing.writeLock().unlock();
+        }
+        // Wakes the writer so it sees the flag; it is not interrupted, which would close a file channel mid-write
+        putUninterruptibly(new Change<>(null, null, new CountDownLatch(1)));
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (!closed || !queue.isEmpty()) {
+            Change<K> change;
+            try {
+                change = queue.take();
+            } catch (InterruptedException e) {
+                continue;
+            }
+            Map<K, Set<String>> batch = new LinkedHashMap<>();
+            CountDownLatch barrier = null;
+            int collected = 0;
+            long deadline = System.nanoTime() + windowNanos;
+            while (change != null) {
+                if (change.barrier != null) {
+                    // Someone is waiting: write what has been collected now rather than at the deadline
+                    barrier = change.barrier;
+                    break;
+                }
+                batch.computeIfAbsent(change.target, target -> new LinkedHashSet<>()).add(change.id);
+                if (++collected >= maxBatch) {
+                    // A full queue's worth: write now rather than keep callers waiting out the window
+                    break;
+                }
+                long remaining = deadline - System.nanoTime();
+                try {
+                    change = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                } catch (InterruptedException e) {
+                    change = null;
+                }
+            }
+            for (Map.Entry<K, Set<String>> entry : batch.entrySet()) {
+                try {
+                    writer.write(entry.getKey(), entry.getValue());
+                } catch (RuntimeException e) {
+                    LOG.error("Error writing queued changes: " + e.getMessage(), e);
+                }
+            }
+            if (barrier != null) {
+                barrier.countDown();
+            }
+        }
+    }
+
+    private void putUninterruptibly(Change<K> change) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(change);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
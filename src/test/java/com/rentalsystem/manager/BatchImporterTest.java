@@ -0,0 +1,172 @@
+package com.rentalsystem.manager;
+
+import com.rentalsystem.model.Tenant;
+import com.rentalsystem.util.FileHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchImporterTest {
+    @TempDir
+    Path directory;
+
+    private FileHandler fileHandler;
+    private TenantManager tenantManager;
+    private HostManager hostManager;
+    private PropertyManager propertyManager;
+    private RentalManager rentalManager;
+
+    @BeforeEach
+    void createManagers() throws IOException {
+        Path data = Files.createDirectory(directory.resolve("data"));
+        fileHandler = new FileHandler(data.toString(), FileHandler.PersistenceMode.SNAPSHOT,
+                FileHandler.StorageFormat.CSV);
+        ReferenceIndex references = new ReferenceIndex();
+        tenantManager = new TenantManagerImpl(fileHandler, references, Collections.emptyList());
+        hostManager = new HostManagerImpl(fileHandler, references, Collections.emptyList());
+        propertyManager = new PropertyManagerImpl(fileHandler, references, Collections.emptyList());
+        rentalManager = new RentalManagerImpl(fileHandler, references, Collections.emptyList(),
+                Collections.emptyList());
+    }
+
+    @AfterEach
+    void shutdown() {
+        fileHandler.shutdown();
+    }
+
+    private void write(String name, String... lines) throws IOException {
+        Files.write(directory.resolve(name), String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Two tenants, each with an agreement on one property and a payment against it
+    private void writeSources() throws IOException {
+        write("tenants.csv", "T1,Ann Lee,1990-01-01,ann@example.com,0123456789", "T2,Bob Ray,,bob@example.com,");
+        write("hosts.csv", "H1,Hal Moe,1970-05-05,hal@example.com,0123456789");
+        write("properties.csv", "R1,\"1 Main St, Springfield\",1500.00,RENTED,H1,3,true,false");
+        write("rental_agreements.csv", "RA1,T1,R1,MONTHLY,2024-01-01,1500.00,ACTIVE",
+                "RA2,T2,R1,MONTHLY,2024-02-01,1500.00,ACTIVE");
+        write("payments.jsonl", "{\"id\":\"PM1\",\"amount\":1500,\"paymentDate\":\"2024-02-01\","
+                + "\"paymentMethod\":\"Cash\",\"rentalAgreementId\":\"RA1\"}",
+                "{\"id\":\"PM2\",\"amount\":1500,\"paymentDate\":\"2024-03-01\","
+                + "\"paymentMethod\":\"Card\",\"rentalAgreementId\":\"RA2\"}");
+    }
+
+    private BatchImporter importer(TenantManager tenants) {
+        return new BatchImporter(tenants, hostManager, propertyManager, rentalManager).sourcesIn(directory);
+    }
+
+    // Stands in for another session that adds tenant T2 just before the import takes its locks
+    private TenantManager racingTenantManager() {
+        return (TenantManager) Proxy.newProxyInstance(TenantManager.class.getClassLoader(),
+                new Class<?>[] {TenantManager.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("exclusive")) {
+                        tenantManager.addTenant(new Tenant("T2", "Other Session", null, ""));
+                    }
+                    try {
+                        return method.invoke(tenantManager, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private List<String> rejects() throws IOException {
+        return Files.readAllLines(directory.resolve("rejects.csv"));
+    }
+
+    @Test
+    void importsEveryTypeParentsFirst() throws IOException {
+        writeSources();
+        BatchImporter.Result result = importer(tenantManager).run(directory.resolve("rejects.csv"), true);
+
+        assertTrue(result.isCommitted());
+        assertEquals(8, result.getTotalImported());
+        assertEquals(2, result.getImported(BatchImporter.Kind.PAYMENTS));
+        assertEquals("1 Main St, Springfield", propertyManager.getProperty("R1").getAddress());
+        assertEquals(2, rentalManager.getRentalAgreementsForHost("H1").size());
+        assertEquals(1, rentalManager.getPaymentsForRentalAgreement("RA2").size());
+        assertEquals(Collections.singletonList("file,line,reason,record"), rejects());
+    }
+
+    @Test
+    void rowsFailingTheInputRulesAreRejectedWithTheirDependents() throws IOException {
+        writeSources();
+        write("tenants.csv", "T1,Ann Lee,1990-01-01,not-an-email,0123456789", "T 2,Bob Ray,,bob@example.com,");
+        write("hosts.jsonl", "{\"id\":\"H1\",\"fullName\":\"Hal\\nMoe\",\"contactInformation\":\"\"}");
+        Files.delete(directory.resolve("hosts.csv"));
+        BatchImporter.Result result = importer(tenantManager).run(directory.resolve("rejects.csv"), false);
+
+        assertTrue(result.isCommitted());
+        assertEquals(0, result.getTotalImported());
+        assertEquals(8, result.getTotalRejected());
+        List<String> rejects = rejects();
+        assertTrue(rejects.get(1).startsWith("tenants.csv,1,Invalid email 'not-an-email',"), rejects.get(1));
+        assertTrue(rejects.get(2).startsWith("tenants.csv,2,\"Invalid id 'T 2',"), rejects.get(2));
+        assertTrue(rejects.get(3).startsWith("hosts.jsonl,1,Line breaks"), rejects.get(3));
+        assertTrue(rejects.get(4).startsWith("properties.csv,1,Unknown owner H1,"), rejects.get(4));
+        assertEquals(0, tenantManager.countTenants());
+    }
+
+    @Test
+    void allOrNothingImportStopsAtTheFirstInvalidRow() throws IOException {
+        writeSources();
+        write("payments.jsonl", "{\"id\":\"PM1\",\"amount\":-5,\"paymentDate\":\"2024-02-01\","
+                + "\"paymentMethod\":\"Cash\",\"rentalAgreementId\":\"RA1\"}");
+        BatchImporter.Result result = importer(tenantManager).run(directory.resolve("rejects.csv"), true);
+
+        assertFalse(result.isCommitted());
+        assertEquals(0, result.getTotalImported());
+        assertEquals(0, tenantManager.countTenants());
+        assertEquals(0, rentalManager.countRentalAgreements());
+        assertEquals(2, rejects().size());
+    }
+
+    @Test
+    void rowsAnotherSessionChangesBeforeTheCommitAreDroppedWithTheirDependents() throws IOException {
+        writeSources();
+        BatchImporter.Result result = importer(racingTenantManager()).run(directory.resolve("rejects.csv"), false);
+
+        assertTrue(result.isCommitted());
+        assertEquals(1, result.getImported(BatchImporter.Kind.TENANTS));
+        assertEquals(1, result.getImported(BatchImporter.Kind.RENTAL_AGREEMENTS));
+        assertEquals(1, result.getImported(BatchImporter.Kind.PAYMENTS));
+        assertEquals("Other Session", tenantManager.getTenant("T2").getFullName());
+        assertNull(rentalManager.getRentalAgreement("RA2"));
+        assertNull(rentalManager.getPayment("PM2"));
+
+        List<String> rejects = rejects();
+        assertEquals(4, rejects.size());
+        assertTrue(rejects.get(1).startsWith("tenants.csv,2,\"Duplicate tenant ID T2, added by another session"),
+                rejects.get(1));
+        assertTrue(rejects.get(2).startsWith("rental_agreements.csv,2,Tenant T2 was not imported"), rejects.get(2));
+        assertTrue(rejects.get(3).startsWith("payments.jsonl,2,Rental agreement RA2 was not imported"),
+                rejects.get(3));
+    }
+
+    @Test
+    void allOrNothingImportAddsNothingWhenAnotherSessionGetsInFirst() throws IOException {
+        writeSources();
+        BatchImporter.Result result = importer(racingTenantManager()).run(directory.resolve("rejects.csv"), true);
+
+        assertFalse(result.isCommitted());
+        assertEquals(0, result.getTotalImported());
+        assertEquals(Collections.singletonList(tenantManager.getTenant("T2")), tenantManager.getAllTenants());
+        assertEquals(0, hostManager.countHosts());
+        assertEquals(0, propertyManager.countProperties());
+        assertEquals(0, rentalManager.countRentalAgreements());
+        assertEquals(0, rentalManager.countPayments());
+        assertEquals(4, rejects().size());
+    }
+}
@@ -0,0 +1,98 @@
+package com.rentalsystem.manager;
+
+import com.rentalsystem.model.*;
+import com.rentalsystem.util.DateUtil;
+import com.rentalsystem.util.PaymentTable;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DashboardAggregatesTest {
+    private final DashboardAggregates aggregates = new DashboardAggregates();
+
+    private static Property property(String id, Property.Status status, String owner) {
+        return new ResidentialProperty(id, "1 Main St", 1000, status, owner, 2, false, true);
+    }
+
+    private static RentalAgreement agreement(String id, Property property, double fee, RentalAgreement.Status status) {
+        return new RentalAgreement(id, new Tenant("T1", "Ann", null, "ann@example.com"), property,
+                RentalAgreement.Period.MONTHLY, DateUtil.parseDate("2024-01-01"), fee, status);
+    }
+
+    @Test
+    void propertyCountsFollowAStatusChangedInPlace() {
+        Property first = property("R1", Property.Status.AVAILABLE, "H1");
+        aggregates.propertyChanged(first);
+        aggregates.propertyChanged(property("R2", Property.Status.AVAILABLE, "H1"));
+        assertEquals(2, aggregates.countProperties(Property.Status.AVAILABLE));
+
+        // The object no longer says what was counted, so the previous status comes from the ID
+        first.setStatus(Property.Status.RENTED);
+        aggregates.propertyChanged(first);
+        assertEquals(1, aggregates.countProperties(Property.Status.AVAILABLE));
+        assertEquals(1, aggregates.countProperties(Property.Status.RENTED));
+
+        aggregates.propertyRemoved("R1");
+        aggregates.propertyRemoved("R9");
+        assertEquals(0, aggregates.countProperties(Property.Status.RENTED));
+        aggregates.clearProperties();
+        assertEquals(0, aggregates.countProperties(Property.Status.AVAILABLE));
+    }
+
+    @Test
+    void activeRentCountsForTheHostAndFeeLastSaved() {
+        Property house = property("R1", Property.Status.RENTED, "H1");
+        RentalAgreement agreement = agreement("RA1", house, 500, RentalAgreement.Status.ACTIVE);
+        aggregates.agreementChanged(agreement);
+        aggregates.agreementChanged(agreement("RA2", property("R2", Property.Status.RENTED, "H2"), 700.25,
+                RentalAgreement.Status.ACTIVE));
+        aggregates.agreementChanged(agreement("RA3", house, 900, RentalAgreement.Status.NEW));
+        assertEquals(2, aggregates.getActiveRent().getCount());
+        assertEquals(1200.25, aggregates.getActiveRent().getAmount());
+        assertEquals(1, aggregates.countRentalAgreements(RentalAgreement.Status.NEW));
+
+        // A new fee and owner replace the old share; completing the agreement takes it out of the rent
+        agreement.setRentingFee(550);
+        agreement.setProperty(property("R1", Property.Status.RENTED, "H2"));
+        aggregates.agreementChanged(agreement);
+        assertEquals(0, aggregates.getActiveRentForHost("H1").getCount());
+        assertEquals(1250.25, aggregates.getActiveRentForHost("H2").getAmount());
+        agreement.setStatus(RentalAgreement.Status.COMPLETED);
+        aggregates.agreementChanged(agreement);
+        assertEquals(1, aggregates.countRentalAgreements(RentalAgreement.Status.COMPLETED));
+        assertEquals(700.25, aggregates.getActiveRent().getAmount());
+
+        aggregates.agreementRemoved("RA2");
+        assertEquals(0, aggregates.getActiveRent().getCount());
+        assertEquals(0, aggregates.countRentalAgreements(RentalAgreement.Status.ACTIVE));
+        assertEquals(0, aggregates.getActiveRentForHost("H9").getCount());
+
+        // Hosts that ever had an active agreement keep an entry
+        aggregates.clearRentalAgreements();
+        assertEquals(0, aggregates.countRentalAgreements(RentalAgreement.Status.NEW));
+        assertEquals(2, aggregates.getActiveRentByHost().size());
+        assertEquals(0, aggregates.getActiveRentByHost().get("H1").getAmount());
+    }
+
+    @Test
+    void paymentsAreTotalledPerMethodAndRecountedOnReload() {
+        aggregates.paymentAdded(new Payment("PM1", 10.10, null, "Cash", "RA1"));
+        aggregates.paymentAdded(new Payment("PM2", 20.20, null, "Card", "RA1"));
+        aggregates.paymentAdded(new Payment("PM3", 5, null, null, "RA1"));
+        assertEquals(3, aggregates.getPayments().getCount());
+        assertEquals(35.30, aggregates.getPayments().getAmount());
+        assertEquals(10.10, aggregates.getPaymentsByMethod().get("Cash").getAmount());
+        assertEquals(2, aggregates.getPaymentsByMethod().size());
+
+        PaymentTable table = new PaymentTable(false);
+        table.add(new Payment("PM4", 1.50, null, "Card", "RA2"));
+        table.add(new Payment("PM5", 2.50, null, "Card", "RA2"));
+        table.add(new Payment("PM6", 4, null, "Transfer", "RA2"));
+        aggregates.paymentsLoaded(table);
+        assertEquals(3, aggregates.getPayments().getCount());
+        assertEquals(8, aggregates.getPayments().getAmount());
+        assertEquals(0, aggregates.getPaymentsByMethod().get("Cash").getCount());
+        assertEquals(2, aggregates.getPaymentsByMethod().get("Card").getCount());
+        assertEquals(4, aggregates.getPaymentsByMethod().get("Transfer").getAmount());
+    }
+}
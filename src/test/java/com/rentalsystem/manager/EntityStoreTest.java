@@ -0,0 +1,124 @@
+package com.rentalsystem.manager;
+
+import com.rentalsystem.model.Tenant;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityStoreTest {
+    private static Tenant tenant(String id, String name) {
+        return new Tenant(id, name, null, "");
+    }
+
+    private static List<String> ids(List<Tenant> tenants) {
+        return tenants.stream().map(Tenant::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void keepsInsertionOrderThroughReplaceAndRemove() {
+        EntityStore<Tenant> store = new EntityStore<>(Tenant::getId);
+        assertTrue(store.add(tenant("T2", "Bob")));
+        assertTrue(store.add(tenant("T1", "Ann")));
+        assertTrue(store.add(tenant("T3", "Cat")));
+        assertFalse(store.add(tenant("T1", "Other")));
+        assertEquals("Ann", store.get("T1").getFullName());
+
+        // A replaced entity keeps its position; a removed one frees its key for a new add at the end
+        assertEquals("Ann", store.replace(tenant("T1", "Ann Lee")).getFullName());
+        assertNull(store.replace(tenant("T9", "Nobody")));
+        assertEquals("Bob", store.remove("T2").getFullName());
+        assertNull(store.remove("T2"));
+        assertTrue(store.add(tenant("T2", "Bob Ray")));
+
+        assertEquals(Arrays.asList("T1", "T3", "T2"), ids(store.getAll()));
+        assertEquals("Ann Lee", store.get("T1").getFullName());
+        assertEquals(3, store.size());
+        assertFalse(store.contains("T9"));
+    }
+
+    @Test
+    void getAllIsAnImmutableSnapshotSharedUntilTheNextChange() {
+        EntityStore<Tenant> store = new EntityStore<>(Tenant::getId, Collections.singletonList(tenant("T1", "Ann")));
+        List<Tenant> first = store.getAll();
+        assertSame(first, store.getAll());
+        assertThrows(UnsupportedOperationException.class, () -> first.add(tenant("T2", "Bob")));
+
+        store.add(tenant("T2", "Bob"));
+        assertEquals(1, first.size());
+        assertEquals(Arrays.asList("T1", "T2"), ids(store.getAll()));
+    }
+
+    @Test
+    void resetKeepsTheLastOfDuplicateKeysInTheFirstPosition() {
+        EntityStore<Tenant> store = new EntityStore<>(Tenant::getId, true);
+        store.add(tenant("T9", "Old"));
+        store.reset(Arrays.asList(tenant("T2", "Bob"), tenant("T1", "Ann"), tenant("T2", "Bob Ray")));
+
+        assertEquals(Arrays.asList("T2", "T1"), ids(store.getAll()));
+        assertEquals("Bob Ray", store.get("T2").getFullName());
+        assertNull(store.get("T9"));
+
+        store.clear();
+        assertEquals(0, store.size());
+        assertTrue(store.getAll().isEmpty());
+    }
+
+    @Test
+    void sortedKeysAnswerPrefixLookups() {
+        EntityStore<Tenant> store = new EntityStore<>(Tenant::getId,
+                Arrays.asList(tenant("T10", "A"), tenant("T2", "B"), tenant("T1", "C"), tenant("H1", "D")), true);
+        assertEquals(Arrays.asList("T1", "T10", "T2"), store.keysStartingWith("T", 10));
+        assertEquals(Arrays.asList("T1", "T10"), store.keysStartingWith("T1", 10));
+        assertEquals(Collections.singletonList("T1"), store.keysStartingWith("T", 1));
+
+        store.remove("T10");
+        assertEquals(Arrays.asList("T1", "T2"), store.keysStartingWith("T", 10));
+        assertThrows(IllegalStateException.class, () -> new EntityStore<>(Tenant::getId).keysStartingWith("T", 1));
+    }
+
+    @Test
+    void concurrentAddsAndRemovesLeaveMatchingKeysAndPositions() throws Exception {
+        EntityStore<Tenant> store = new EntityStore<>(Tenant::getId, true);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                done.add(pool.submit(() -> {
+                    // Every thread races for the same keys; odd keys are removed again
+                    for (int i = 0; i < 2_000; i++) {
+                        store.add(tenant("T" + i, "Tenant " + i));
+                        if (i % 2 == 1) {
+                            store.remove("T" + i);
+                        }
+                        store.getAll();
+                    }
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        List<Tenant> all = store.getAll();
+        assertEquals(store.size(), all.size());
+        assertEquals(all.size(), ids(all).stream().distinct().count());
+        assertEquals(store.size(), store.keysStartingWith("T", Integer.MAX_VALUE).size());
+        for (Tenant tenant : all) {
+            assertSame(tenant, store.get(tenant.getId()));
+        }
+        for (int i = 0; i < 2_000; i += 2) {
+            assertTrue(store.contains("T" + i), "T" + i);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.rentalsystem.manager;
+
+import com.rentalsystem.model.*;
+import com.rentalsystem.util.DateUtil;
+import com.rentalsystem.util.FileHandler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ManagerConcurrencyTest {
+    private static final int THREADS = 6;
+    private static final int STEPS = 1_500;
+    private static final int TENANTS = 20;
+    private static final int PROPERTIES = 10;
+    private static final int AGREEMENTS = 40;
+
+    @TempDir
+    Path directory;
+
+    private final ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final List<Tenant> tenants = new ArrayList<>();
+    private final List<Property> properties = new ArrayList<>();
+    private TenantManager tenantManager;
+    private RentalManager rentalManager;
+
+    // Journal mode with a short autosave window, so writes from every thread go through the write-behind queue
+    private FileHandler fileHandler() {
+        return new FileHandler(directory.toString(), FileHandler.PersistenceMode.JOURNAL,
+                FileHandler.StorageFormat.CSV, 64, 0, 10000, 2, 64);
+    }
+
+    private void createManagers(FileHandler fileHandler) {
+        ReferenceIndex references = new ReferenceIndex();
+        tenantManager = new TenantManagerImpl(fileHandler, references, Collections.emptyList());
+        HostManager hostManager = new HostManagerImpl(fileHandler, references, Collections.emptyList());
+        PropertyManager propertyManager = new PropertyManagerImpl(fileHandler, references, Collections.emptyList());
+        rentalManager = new RentalManagerImpl(fileHandler, references, Collections.emptyList(),
+                Collections.emptyList());
+
+        hostManager.addHost(new Host("H1", "Hal Moe", null, "hal@example.com"));
+        for (int i = 0; i < TENANTS; i++) {
+            Tenant tenant = new Tenant("T" + i, "Tenant " + i, null, "t" + i + "@example.com");
+            tenantManager.addTenant(tenant);
+            tenants.add(tenant);
+        }
+        for (int i = 0; i < PROPERTIES; i++) {
+            Property property = new ResidentialProperty("R" + i, i + " Main St", 1000 + i, Property.Status.RENTED, "H1",
+                    2, false, true);
+            propertyManager.addProperty(property);
+            properties.add(property);
+        }
+        for (int i = 0; i < AGREEMENTS; i++) {
+            rentalManager.addRentalAgreement(new RentalAgreement("RA" + i, tenants.get(i % TENANTS),
+                    properties.get(i % PROPERTIES), RentalAgreement.Period.MONTHLY, DateUtil.parseDate("2024-01-01"),
+                    1000, RentalAgreement.Status.ACTIVE));
+        }
+    }
+
+    @Test
+    void concurrentWritersLeaveTheIndexesAndJournalsInStep() throws Exception {
+        FileHandler fileHandler = fileHandler();
+        createManagers(fileHandler);
+
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long seed = t;
+            Thread worker = new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    start.await();
+                    for (int i = 0; i < STEPS; i++) {
+                        step(random);
+                    }
+                } catch (Exception | AssertionError e) {
+                    errors.add(Thread.currentThread().getName() + ": " + e);
+                }
+            }, "writer-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(Collections.emptyList(), new ArrayList<>(errors));
+
+        checkIndexes();
+        Map<String, Double> fees = rentalManager.getAllRentalAgreements().stream()
+                .collect(Collectors.toMap(RentalAgreement::getId, RentalAgreement::getRentingFee));
+        int payments = rentalManager.countPayments();
+        Set<String> names = tenantManager.getAllTenants().stream().map(Tenant::getFullName).collect(Collectors.toSet());
+        fileHandler.shutdown();
+
+        // A second handler stands in for the restarted process: the journals hold exactly what memory held
+        FileHandler reloaded = fileHandler();
+        try {
+            Map<String, List<?>> data = reloaded.loadAllData();
+            Map<String, Double> reloadedFees = new HashMap<>();
+            for (Object agreement : data.get("rentalAgreements")) {
+                reloadedFees.put(((RentalAgreement) agreement).getId(), ((RentalAgreement) agreement).getRentingFee());
+            }
+            assertEquals(fees, reloadedFees);
+            assertEquals(payments, data.get("payments").size());
+            Set<String> reloadedNames = new HashSet<>();
+            for (Object tenant : data.get("tenants")) {
+                reloadedNames.add(((Tenant) tenant).getFullName());
+            }
+            assertEquals(names, reloadedNames);
+        } finally {
+            reloaded.shutdown();
+        }
+    }
+
+    // A mix of reads, single writes spread over the stripes and batch writes that lock every stripe
+    private void step(Random random) {
+        String agreementId = "RA" + random.nextInt(AGREEMENTS + 20);
+        int choice = random.nextInt(100);
+        if (choice < 25) {
+            for (Payment payment : rentalManager.getPaymentsForRentalAgreement(agreementId)) {
+                expect(agreementId.equals(payment.getRentalAgreementId()),
+                        "payment " + payment.getId() + " indexed under " + agreementId);
+            }
+            Set<String> ids = new HashSet<>();
+            for (RentalAgreement agreement : rentalManager.getAllRentalAgreements()) {
+                expect(ids.add(agreement.getId()), "duplicate " + agreement.getId() + " in snapshot");
+            }
+        } else if (choice < 50) {
+            rentalManager.addPayment(new Payment("PM" + nextId.incrementAndGet(), 100, new Date(), "Cash",
+                    agreementId));
+        } else if (choice < 55) {
+            List<Payment> batch = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                batch.add(new Payment("PM" + nextId.incrementAndGet(), 50, new Date(), "Card",
+                        "RA" + random.nextInt(AGREEMENTS)));
+            }
+            rentalManager.addPayments(batch);
+        } else if (choice < 70) {
+            RentalAgreement current = rentalManager.getRentalAgreement(agreementId);
+            if (current != null) {
+                rentalManager.updateRentalAgreement(new RentalAgreement(current.getId(), current.getMainTenant(),
+                        current.getProperty(), current.getPeriod(), current.getContractDate(),
+                        current.getRentingFee() + 1, current.getStatus()));
+            }
+        } else if (choice < 80) {
+            Tenant tenant = tenants.get(random.nextInt(TENANTS));
+            Property property = properties.get(random.nextInt(PROPERTIES));
+            rentalManager.addRentalAgreement(new RentalAgreement("RA" + (AGREEMENTS + random.nextInt(20)), tenant,
+                    property, RentalAgreement.Period.MONTHLY, new Date(), property.getPrice(),
+                    RentalAgreement.Status.NEW));
+        } else if (choice < 88) {
+            rentalManager.deleteRentalAgreement(agreementId);
+        } else {
+            Tenant current = tenantManager.getTenant("T" + random.nextInt(TENANTS));
+            tenantManager.updateTenant(new Tenant(current.getId(), "Tenant " + nextId.incrementAndGet(),
+                    current.getDateOfBirth(), current.getContactInformation()));
+        }
+    }
+
+    // Every stored agreement and payment sits in exactly the index buckets its keys point to
+    private void checkIndexes() {
+        List<RentalAgreement> agreements = rentalManager.getAllRentalAgreements();
+        assertEquals(rentalManager.countRentalAgreements(), agreements.size());
+        int byTenant = 0;
+        for (int i = 0; i < TENANTS; i++) {
+            byTenant += rentalManager.getRentalAgreementsForTenant("T" + i).size();
+        }
+        int byProperty = 0;
+        for (int i = 0; i < PROPERTIES; i++) {
+            byProperty += rentalManager.getRentalAgreementsForProperty("R" + i).size();
+        }
+        assertEquals(agreements.size(), byTenant);
+        assertEquals(agreements.size(), byProperty);
+        assertEquals(agreements.size(), rentalManager.getRentalAgreementsForHost("H1").size());
+        for (RentalAgreement agreement : agreements) {
+            assertTrue(rentalManager.getRentalAgreementsForTenant(agreement.getMainTenant().getId()).contains(agreement),
+                    agreement.getId());
+        }
+
+        List<Payment> payments = rentalManager.getAllPayments();
+        assertEquals(rentalManager.countPayments(), payments.size());
+        Map<String, Integer> perAgreement = new HashMap<>();
+        for (Payment payment : payments) {
+            perAgreement.merge(payment.getRentalAgreementId(), 1, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> entry : perAgreement.entrySet()) {
+            assertEquals(entry.getValue().intValue(),
+                    rentalManager.getPaymentsForRentalAgreement(entry.getKey()).size(), entry.getKey());
+        }
+    }
+
+    private void expect(boolean condition, String message) {
+        if (!condition) {
+            errors.add(message);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.rentalsystem.manager;
+
+import com.rentalsystem.model.*;
+import com.rentalsystem.util.DateUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReferenceIndexTest {
+    private final ReferenceIndex references = new ReferenceIndex();
+
+    private static Property property(String id, String owner) {
+        return new ResidentialProperty(id, "1 Main St", 1000, Property.Status.RENTED, owner, 2, false, true);
+    }
+
+    private static RentalAgreement agreement(String id, Tenant tenant, Property property, double fee) {
+        return new RentalAgreement(id, tenant, property, RentalAgreement.Period.MONTHLY,
+                DateUtil.parseDate("2024-01-01"), fee, RentalAgreement.Status.ACTIVE);
+    }
+
+    private static List<String> ids(List<RentalAgreement> agreements) {
+        return agreements.stream().map(RentalAgreement::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void attachedModelObjectsFollowTheIndex() {
+        Tenant tenant = new Tenant("T1", "Ann", null, "ann@example.com");
+        Host host = new Host("H1", "Hal", null, "hal@example.com");
+        Property property = property("P1", "H1");
+        references.attach(tenant);
+        references.attach(host);
+        references.addProperty(property);
+        assertEquals(Collections.singletonList(property), host.getManagedProperties());
+
+        RentalAgreement first = agreement("RA1", tenant, property, 500);
+        RentalAgreement second = agreement("RA2", tenant, property, 700);
+        references.addRentalAgreement(first);
+        references.addRentalAgreement(second);
+        assertEquals(Arrays.asList("RA1", "RA2"), ids(tenant.getRentalAgreements()));
+        assertEquals(Arrays.asList("RA1", "RA2"), ids(property.getRentalAgreements()));
+        assertEquals(Arrays.asList("RA1", "RA2"), ids(host.getRentalAgreements()));
+        assertEquals(2, host.countRentalAgreements());
+
+        // A replaced agreement keeps its place; a removed one leaves every view
+        RentalAgreement replaced = agreement("RA1", tenant, property, 550);
+        references.updateRentalAgreement(first, replaced);
+        assertSame(replaced, tenant.getRentalAgreements().get(0));
+        references.removeRentalAgreement(second);
+        assertEquals(Collections.singletonList("RA1"), ids(host.getRentalAgreements()));
+        assertEquals(550, references.getAggregates().getActiveRentForHost("H1").getAmount());
+
+        assertTrue(references.addPayment(new Payment("PM1", 550, null, "Cash", "RA1")));
+        assertFalse(references.addPayment(new Payment("PM1", 1, null, "Cash", "RA1")));
+        assertEquals(1, replaced.countPayments());
+        assertEquals("PM1", replaced.getPayments().get(0).getId());
+    }
+
+    @Test
+    void changingAPropertysOwnerMovesItsAgreementsToTheNewHost() {
+        Host previousOwner = new Host("H1", "Hal", null, "hal@example.com");
+        Host newOwner = new Host("H2", "Hen", null, "hen@example.com");
+        references.attach(previousOwner);
+        references.attach(newOwner);
+        Tenant tenant = new Tenant("T1", "Ann", null, "ann@example.com");
+        Property property = property("P1", "H1");
+        references.addProperty(property);
+        RentalAgreement agreement = agreement("RA1", tenant, property, 500);
+        references.addRentalAgreement(agreement);
+
+        Property moved = property("P1", "H2");
+        references.updateProperty(property, moved);
+
+        assertTrue(previousOwner.getRentalAgreements().isEmpty());
+        assertTrue(previousOwner.getManagedProperties().isEmpty());
+        assertEquals(Collections.singletonList("RA1"), ids(newOwner.getRentalAgreements()));
+        assertEquals(Collections.singletonList(moved), newOwner.getManagedProperties());
+        assertSame(moved, agreement.getProperty());
+        assertEquals(0, references.getAggregates().getActiveRentForHost("H1").getCount());
+        assertEquals(500, references.getAggregates().getActiveRentForHost("H2").getAmount());
+
+        // Later changes to the agreement use the new owner
+        references.removeRentalAgreement(agreement);
+        assertTrue(newOwner.getRentalAgreements().isEmpty());
+    }
+
+    @Test
+    void viewsStayLiveAcrossAReload() {
+        Tenant tenant = new Tenant("T1", "Ann", null, "ann@example.com");
+        references.attach(tenant);
+        Property property = property("P1", "H1");
+        references.addRentalAgreement(agreement("RA1", tenant, property, 500));
+
+        references.resetRentalAgreements(Arrays.asList(agreement("RA2", tenant, property, 600),
+                agreement("RA3", tenant, property, 700)));
+        assertEquals(Arrays.asList("RA2", "RA3"), ids(tenant.getRentalAgreements()));
+        assertEquals(Arrays.asList("RA2", "RA3"), ids(references.getRentalAgreementsForProperty("P1")));
+        assertTrue(references.getRentalAgreementsForTenant("T9").isEmpty());
+    }
+
+    @Test
+    void multiIndexMovesAnEntryWhoseKeyChangedInPlace() {
+        MultiIndex<Payment> index = new MultiIndex<>(Payment::getRentalAgreementId, Payment::getId);
+        Payment payment = new Payment("PM1", 1, null, "Cash", "RA1");
+        index.add(payment);
+        index.add(new Payment("PM2", 1, null, "Cash", "RA1"));
+        index.add(new Payment("PM3", 1, null, "Cash", null));
+
+        payment.setRentalAgreementId("RA2");
+        index.move(payment, "RA1");
+        assertEquals(1, index.count("RA1"));
+        assertEquals(Collections.singletonList(payment), index.find("RA2"));
+        assertEquals(0, index.count("RA3"));
+    }
+}
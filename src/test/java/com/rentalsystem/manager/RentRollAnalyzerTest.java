@@ -0,0 +1,177 @@
+package com.rentalsystem.manager;
+
+import com.rentalsystem.model.*;
+import com.rentalsystem.util.DateUtil;
+import com.rentalsystem.util.FileHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RentRollAnalyzerTest {
+    private static final LocalDate AS_OF = LocalDate.of(2024, 3, 15);
+
+    @TempDir
+    Path directory;
+
+    private FileHandler fileHandler;
+    private PropertyManager propertyManager;
+    private RentalManager rentalManager;
+    private final Tenant tenant = new Tenant("T1", "Ann Lee", null, "ann@example.com");
+
+    @BeforeEach
+    void createManagers() {
+        fileHandler = new FileHandler(directory.toString(), FileHandler.PersistenceMode.SNAPSHOT,
+                FileHandler.StorageFormat.CSV);
+        ReferenceIndex references = new ReferenceIndex();
+        propertyManager = new PropertyManagerImpl(fileHandler, references, Collections.emptyList());
+        rentalManager = new RentalManagerImpl(fileHandler, references, Collections.emptyList(),
+                Collections.emptyList());
+    }
+
+    @AfterEach
+    void shutdown() {
+        fileHandler.shutdown();
+    }
+
+    private Property residential(String id, String owner) {
+        Property property = new ResidentialProperty(id, "1 Main St", 1000, Property.Status.RENTED, owner, 2, false,
+                true);
+        propertyManager.addProperty(property);
+        return property;
+    }
+
+    private void agreement(String id, Property property, RentalAgreement.Period period, String date, double fee,
+                           RentalAgreement.Status status) {
+        rentalManager.addRentalAgreement(new RentalAgreement(id, tenant, property, period, DateUtil.parseDate(date),
+                fee, status));
+    }
+
+    private void payment(String id, double amount, String date, String agreementId) {
+        rentalManager.addPayment(new Payment(id, amount, DateUtil.parseDate(date), "Cash", agreementId));
+    }
+
+    private static void assertLine(String key, double expected, double received, int agreements, int occupied,
+                                   int units, RentRollAnalyzer.Line line) {
+        assertEquals(key, line.getKey());
+        assertEquals(expected, line.getExpected(), key);
+        assertEquals(received, line.getReceived(), key);
+        assertEquals(agreements, line.getAgreements(), key);
+        assertEquals(occupied, line.getOccupied(), key);
+        assertEquals(units, line.getUnits(), key);
+    }
+
+    @Test
+    void rentFallsDueEachPeriodAndIsReceivedUpToTheReportDate() {
+        Property house = residential("R1", "H1");
+        Property flat = residential("R2", "H1");
+        Property shop = new CommercialProperty("C1", "2 High St", 3000, Property.Status.AVAILABLE, "H2", "Retail",
+                2, 800);
+        propertyManager.addProperty(shop);
+
+        // Due on the first of January, February and March; the April payment is after the report date
+        agreement("RA1", house, RentalAgreement.Period.MONTHLY, "2024-01-01", 1000, RentalAgreement.Status.ACTIVE);
+        payment("PM1", 1000, "2024-01-01", "RA1");
+        payment("PM2", 1000, "2024-02-01", "RA1");
+        payment("PM3", 1000, "2024-04-01", "RA1");
+        // Due on the 1st, 8th and 15th of March
+        agreement("RA2", flat, RentalAgreement.Period.WEEKLY, "2024-03-01", 100, RentalAgreement.Status.ACTIVE);
+        // Ran until its last payment in January; a new agreement accrues nothing yet
+        agreement("RA3", shop, RentalAgreement.Period.MONTHLY, "2023-12-01", 2000, RentalAgreement.Status.COMPLETED);
+        payment("PM4", 2000, "2023-12-01", "RA3");
+        payment("PM5", 2000, "2024-01-01", "RA3");
+        agreement("RA4", shop, RentalAgreement.Period.MONTHLY, "2024-01-01", 500, RentalAgreement.Status.NEW);
+
+        RentRollAnalyzer.Report report = new RentRollAnalyzer(propertyManager, rentalManager).analyze(AS_OF, 3);
+
+        assertEquals(AS_OF, report.getAsOf());
+        assertLine("Total", 7300, 6000, 4, 2, 3, report.getTotal());
+        assertEquals(1300, report.getTotal().getArrears());
+        assertEquals(2.0 / 3, report.getTotal().getOccupancy());
+
+        assertEquals(3, report.getProperties().size());
+        assertLine("R1", 3000, 2000, 1, 1, 1, report.getProperties().get(0));
+        assertLine("R2", 300, 0, 1, 1, 1, report.getProperties().get(1));
+        assertLine("C1", 4000, 4000, 2, 0, 1, report.getProperties().get(2));
+
+        assertEquals(2, report.getHosts().size());
+        assertLine("H1", 3300, 2000, 2, 2, 2, report.getHosts().get(0));
+        assertLine("H2", 4000, 4000, 2, 0, 1, report.getHosts().get(1));
+
+        assertEquals(3, report.getMonths().size());
+        assertLine("2024-01", 3000, 3000, 2, 2, 3, report.getMonths().get(0));
+        assertLine("2024-02", 1000, 1000, 1, 1, 3, report.getMonths().get(1));
+        assertLine("2024-03", 1300, 0, 2, 2, 3, report.getMonths().get(2));
+        assertEquals(1300, report.getMonths().get(2).getArrears());
+    }
+
+    @Test
+    void agreementsWhosePropertyIsNotOnFileAreLeftOut() {
+        residential("R1", "H1");
+        Property removed = new ResidentialProperty("R9", "9 Gone St", 1000, Property.Status.RENTED, "H1", 2, false,
+                true);
+        agreement("RA1", removed, RentalAgreement.Period.DAILY, "2024-03-01", 10, RentalAgreement.Status.ACTIVE);
+
+        RentRollAnalyzer.Report report = new RentRollAnalyzer(propertyManager, rentalManager).analyze(AS_OF, 1);
+
+        assertEquals(1, report.getUnassignedAgreements());
+        assertLine("Total", 0, 0, 0, 0, 1, report.getTotal());
+        assertLine("2024-03", 0, 0, 0, 0, 1, report.getMonths().get(0));
+    }
+
+    @Test
+    void totalsDoNotDependOnHowTheWorkIsSplit() {
+        // Enough agreements that the pass splits into several leaves
+        List<RentalAgreement> agreements = new ArrayList<>();
+        for (int p = 0; p < 100; p++) {
+            Property property = residential("R" + p, "H" + (p % 7));
+            for (int a = 0; a < 50; a++) {
+                agreements.add(new RentalAgreement("RA" + p + "-" + a, tenant, property,
+                        RentalAgreement.Period.MONTHLY, DateUtil.parseDate("2024-01-01"), 10.01,
+                        RentalAgreement.Status.ACTIVE));
+            }
+        }
+        rentalManager.addRentalAgreements(agreements);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            RentRollAnalyzer.Report parallel = new RentRollAnalyzer(propertyManager, rentalManager, pool)
+                    .analyze(AS_OF, 3);
+            RentRollAnalyzer.Report serial = new RentRollAnalyzer(propertyManager, rentalManager, single)
+                    .analyze(AS_OF, 3);
+
+            assertLine("Total", 150150, 0, 5000, 100, 100, parallel.getTotal());
+            assertEquals(serial.getTotal().getExpected(), parallel.getTotal().getExpected());
+            for (int m = 0; m < 3; m++) {
+                assertLine(serial.getMonths().get(m).getKey(), 50050, 0, 5000, 100, 100,
+                        parallel.getMonths().get(m));
+            }
+        } finally {
+            pool.shutdown();
+            single.shutdown();
+        }
+    }
+
+    @Test
+    void monthlyRentKeepsTheContractDayOrTheLastDayOfShorterMonths() {
+        int start = (int) LocalDate.of(2024, 1, 31).toEpochDay();
+        assertEquals(1, RentRollAnalyzer.dueCount(start, (int) LocalDate.of(2024, 2, 28).toEpochDay(),
+                RentalAgreement.Period.MONTHLY));
+        assertEquals(2, RentRollAnalyzer.dueCount(start, (int) LocalDate.of(2024, 2, 29).toEpochDay(),
+                RentalAgreement.Period.MONTHLY));
+        assertEquals(3, RentRollAnalyzer.dueCount(start, (int) LocalDate.of(2024, 3, 31).toEpochDay(),
+                RentalAgreement.Period.MONTHLY));
+        assertEquals(0, RentRollAnalyzer.dueCount(start, start - 1, RentalAgreement.Period.DAILY));
+        assertEquals(3, RentRollAnalyzer.dueCount(start, start + 28, RentalAgreement.Period.FORTNIGHTLY));
+    }
+}
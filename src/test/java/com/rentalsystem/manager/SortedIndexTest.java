@@ -0,0 +1,92 @@
+package com.rentalsystem.manager;
+
+import com.rentalsystem.model.Payment;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortedIndexTest {
+    private static SortedIndex<Payment> byAmount(boolean editedInPlace) {
+        return new SortedIndex<>(payment -> SortedIndex.sortable(payment.getAmount()), Payment::getId, editedInPlace);
+    }
+
+    private static Payment payment(String id, double amount) {
+        return new Payment(id, amount, null, "Cash", "RA1");
+    }
+
+    private static List<String> ids(Stream<Payment> payments) {
+        return payments.map(Payment::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void walksInKeyThenIdOrderWithinARange() {
+        SortedIndex<Payment> index = byAmount(false);
+        index.reset(Arrays.asList(payment("PM3", 20), payment("PM1", 20), payment("PM2", -5), payment("PM4", 0),
+                payment("PM5", 100)));
+
+        assertEquals(Arrays.asList("PM2", "PM4", "PM1", "PM3", "PM5"), ids(index.walk(false)));
+        assertEquals(Arrays.asList("PM5", "PM3", "PM1", "PM4", "PM2"), ids(index.walk(true)));
+        assertEquals(Arrays.asList("PM4", "PM1", "PM3"), ids(index.walk(SortedIndex.sortable(0),
+                SortedIndex.sortable(20), false, 0, null)));
+        assertTrue(ids(index.walk(SortedIndex.sortable(50), SortedIndex.sortable(10), false, 0, null)).isEmpty());
+    }
+
+    @Test
+    void walkResumesJustPastTheCursor() {
+        SortedIndex<Payment> index = byAmount(false);
+        index.reset(Arrays.asList(payment("PM1", 10), payment("PM2", 20), payment("PM3", 20), payment("PM4", 30)));
+        long twenty = SortedIndex.sortable(20);
+
+        assertEquals(Arrays.asList("PM3", "PM4"), ids(index.walk(Long.MIN_VALUE, Long.MAX_VALUE, false, twenty,
+                "PM2")));
+        assertEquals(Arrays.asList("PM2", "PM1"), ids(index.walk(Long.MIN_VALUE, Long.MAX_VALUE, true, twenty,
+                "PM3")));
+        // A cursor beyond the end of the range has nothing after it
+        assertTrue(ids(index.walk(Long.MIN_VALUE, twenty, false, SortedIndex.sortable(30), "PM4")).isEmpty());
+    }
+
+    @Test
+    void anEntityEditedInPlaceMovesToItsNewKey() {
+        SortedIndex<Payment> index = byAmount(true);
+        Payment payment = payment("PM1", 10);
+        index.put(payment);
+        index.put(payment("PM2", 20));
+
+        payment.setAmount(30);
+        assertEquals(SortedIndex.sortable(10), index.keyOf(payment));
+        index.put(payment);
+        assertEquals(SortedIndex.sortable(30), index.keyOf(payment));
+        assertEquals(Arrays.asList("PM2", "PM1"), ids(index.walk(false)));
+
+        // The indexed key finds the entry even after the entity changed again
+        payment.setAmount(40);
+        index.remove(payment);
+        assertEquals(Arrays.asList("PM2"), ids(index.walk(false)));
+    }
+
+    @Test
+    void idPrefixesAreFoundWithinOneKey() {
+        SortedIndex<Payment> index = byAmount(false);
+        index.reset(Arrays.asList(payment("PM10", 5), payment("PM11", 5), payment("PM2", 5), payment("PM12", 6)));
+
+        assertEquals(Arrays.asList("PM10", "PM11"), ids(index.withIdPrefix(SortedIndex.sortable(5), "PM1")));
+        assertTrue(ids(index.withIdPrefix(SortedIndex.sortable(7), "PM")).isEmpty());
+        index.clear();
+        assertTrue(ids(index.walk(false)).isEmpty());
+    }
+
+    @Test
+    void sortableKeepsTheOrderOfDoubles() {
+        double[] values = {Double.NEGATIVE_INFINITY, -1e9, -1.5, 0.0, 1e-9, 2.5, 1e12};
+        for (int i = 1; i < values.length; i++) {
+            assertTrue(SortedIndex.sortable(values[i - 1]) < SortedIndex.sortable(values[i]), values[i] + "");
+        }
+        assertEquals(SortedIndex.sortable(-0.0), SortedIndex.sortable(0.0));
+        assertTrue(SortedIndex.sortable(-1.5) < SortedIndex.sortable(-0.0));
+    }
+}
@@ -0,0 +1,128 @@
+package com.rentalsystem.manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedLockTest {
+    private final StripedLock locks = new StripedLock();
+    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @Test
+    void writesToOneKeyNeverOverlap() throws Exception {
+        int[] counter = new int[1];
+        List<Future<?>> done = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            done.add(pool.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    // A plain read-modify-write, which loses updates unless the stripe excludes the others
+                    locks.write("T1", () -> counter[0]++);
+                }
+            }));
+        }
+        for (Future<?> future : done) {
+            future.get();
+        }
+        assertEquals(40_000, counter[0]);
+    }
+
+    @Test
+    void writesToKeysOnOtherStripesDoNotWait() throws Exception {
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = pool.submit(() -> locks.write("A", () -> {
+            holding.countDown();
+            await(release);
+            return null;
+        }));
+        await(holding);
+        try {
+            // "A" and "B" hash to neighbouring stripes
+            assertEquals("done", pool.submit(() -> locks.write("B", () -> "done")).get(5, TimeUnit.SECONDS));
+            Future<String> sameKey = pool.submit(() -> locks.write("A", () -> "done"));
+            assertThrows(TimeoutException.class, () -> sameKey.get(200, TimeUnit.MILLISECONDS));
+            release.countDown();
+            assertEquals("done", sameKey.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            holder.get();
+        }
+    }
+
+    @Test
+    void writeAllWaitsForInFlightWritesAndLocksOutNewOnes() throws Exception {
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean();
+        Future<?> writer = pool.submit(() -> locks.write("T1", () -> {
+            writing.set(true);
+            holding.countDown();
+            await(release);
+            writing.set(false);
+            return null;
+        }));
+        await(holding);
+        try {
+            Future<Boolean> reload = pool.submit(() -> locks.writeAll(() -> !writing.get()));
+            assertThrows(TimeoutException.class, () -> reload.get(200, TimeUnit.MILLISECONDS));
+            release.countDown();
+            assertTrue(reload.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            writer.get();
+        }
+
+        CountDownLatch reloading = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Future<?> reload = pool.submit(() -> locks.writeAll(() -> {
+            reloading.countDown();
+            await(finish);
+        }));
+        await(reloading);
+        try {
+            Future<String> blocked = pool.submit(() -> locks.write("T2", () -> "done"));
+            assertThrows(TimeoutException.class, () -> blocked.get(200, TimeUnit.MILLISECONDS));
+            finish.countDown();
+            assertEquals("done", blocked.get(5, TimeUnit.SECONDS));
+        } finally {
+            finish.countDown();
+            reload.get();
+        }
+    }
+
+    @Test
+    void writesNestInsideWriteAll() {
+        // Batch writes and the import hold writeAll and then call the single-entity writes
+        assertEquals("T1", locks.writeAll(() -> locks.write("T1", () -> locks.writeAll(() -> "T1"))));
+    }
+
+    @Test
+    void smallStripeCountsAndNullKeysAreAccepted() {
+        assertEquals("ok", new StripedLock(1).write(null, () -> "ok"));
+        assertEquals("ok", new StripedLock(3).write("T1", () -> "ok"));
+    }
+}
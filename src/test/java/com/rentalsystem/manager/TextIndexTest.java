@@ -0,0 +1,73 @@
+package com.rentalsystem.manager;
+
+import com.rentalsystem.model.Tenant;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextIndexTest {
+    private final TextIndex<Tenant> index =
+            new TextIndex<>(Tenant::getId, tenant -> new String[] {tenant.getFullName(), tenant.getContactInformation()});
+
+    private static Tenant tenant(String id, String name, String contact) {
+        return new Tenant(id, name, null, contact);
+    }
+
+    @Test
+    void termsMatchTheStartOfAWordOrLongerInfixes() {
+        index.build(Arrays.asList(tenant("T1", "John Smith", "john@example.com"),
+                tenant("T2", "Jane Goldsmith", "0123456789"), tenant("T3", "Mia Jones", "mia@example.com")));
+
+        assertEquals(Arrays.asList("T1", "T2"), index.search("smi", 10));
+        assertEquals(Collections.singletonList("T1"), index.search("john smi", 10));
+        assertEquals(Collections.singletonList("T2"), index.search("01234", 10));
+        // Digits and terms shorter than three letters only match from the start of a word
+        assertTrue(index.search("2345", 10).isEmpty());
+        assertEquals(Collections.singletonList("T3"), index.search("mi jo", 10));
+        assertEquals(Collections.singletonList("T1"), index.search("SMITH", 1));
+        assertTrue(index.search("  ", 10).isEmpty());
+    }
+
+    @Test
+    void changesFollowTheIndexedText() {
+        Tenant tenant = tenant("T1", "John Smith", "");
+        index.build(Collections.singletonList(tenant));
+
+        // Edited in place, then re-indexed: the old words no longer find it
+        tenant.setFullName("John Baker");
+        index.put(tenant);
+        assertTrue(index.search("smith", 10).isEmpty());
+        assertEquals(Collections.singletonList("T1"), index.search("ake", 10));
+
+        index.remove("T1");
+        assertTrue(index.search("john", 10).isEmpty());
+    }
+
+    @Test
+    void wordsLeaveTheInfixIndexWithTheirLastEntity() {
+        index.build(Arrays.asList(tenant("T1", "Smith", ""), tenant("T2", "Smith", "")));
+        assertEquals(3, index.countTrigrams());
+
+        index.remove("T1");
+        assertEquals(Collections.singletonList("T2"), index.search("mit", 10));
+        index.remove("T2");
+        assertEquals(0, index.countTrigrams());
+
+        index.put(tenant("T3", "Smithers", ""));
+        assertEquals(Collections.singletonList("T3"), index.search("mit", 10));
+    }
+
+    @Test
+    void writesBeforeTheFirstBuildAreIgnored() {
+        index.put(tenant("T1", "John Smith", ""));
+        assertFalse(index.isBuilt());
+        index.build(Collections.emptyList());
+        assertTrue(index.search("john", 10).isEmpty());
+
+        index.invalidate();
+        assertFalse(index.isBuilt());
+    }
+}
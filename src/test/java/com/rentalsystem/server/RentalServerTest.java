@@ -0,0 +1,173 @@
+package com.rentalsystem.server;
+
+import com.rentalsystem.manager.*;
+import com.rentalsystem.util.FileHandler;
+import com.rentalsystem.util.Json;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RentalServerTest {
+    private static final String TENANT = "{\"id\":\"T1\",\"fullName\":\"Ann Lee\",\"dateOfBirth\":\"1990-01-01\","
+            + "\"contactInformation\":\"ann@example.com, 0123456789\"}";
+
+    @TempDir
+    Path directory;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private FileHandler fileHandler;
+    private TenantManager tenants;
+    private RentalManager rentals;
+    private final List<RentalServer> servers = new ArrayList<>();
+
+    @BeforeEach
+    void createManagers() {
+        fileHandler = new FileHandler(directory.toString(), FileHandler.PersistenceMode.SNAPSHOT,
+                FileHandler.StorageFormat.CSV);
+        ReferenceIndex references = new ReferenceIndex();
+        tenants = new TenantManagerImpl(fileHandler, references, Collections.emptyList());
+        rentals = new RentalManagerImpl(fileHandler, references, Collections.emptyList(), Collections.emptyList());
+    }
+
+    @AfterEach
+    void stopServers() {
+        servers.forEach(server -> server.stop(0));
+        fileHandler.shutdown();
+    }
+
+    private RentalServer start(int threads, int queue) throws IOException {
+        ReferenceIndex references = new ReferenceIndex();
+        RentalServer server = new RentalServer(tenants, new HostManagerImpl(fileHandler, references,
+                Collections.emptyList()), new PropertyManagerImpl(fileHandler, references, Collections.emptyList()),
+                rentals, 0, threads, queue);
+        servers.add(server);
+        server.start();
+        return server;
+    }
+
+    private HttpResponse<String> send(RentalServer server, String method, String path, String body)
+            throws IOException, InterruptedException {
+        HttpRequest.BodyPublisher publisher = body == null ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(body);
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .method(method, publisher).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void tenantsAreCreatedReadUpdatedAndDeleted() throws Exception {
+        RentalServer server = start(2, 4);
+        assertEquals(201, send(server, "POST", "/api/tenants", TENANT).statusCode());
+        assertEquals(409, send(server, "POST", "/api/tenants", TENANT).statusCode());
+        assertEquals("Ann Lee", Json.parseObject(send(server, "GET", "/api/tenants/T1", null).body()).get("fullName"));
+
+        HttpResponse<String> updated = send(server, "PUT", "/api/tenants/T1", TENANT.replace("Ann Lee", "Ann Smith"));
+        assertEquals(200, updated.statusCode());
+        assertEquals("Ann Smith", Json.parseObject(updated.body()).get("fullName"));
+        assertEquals("Ann Smith", tenants.getTenant("T1").getFullName());
+        assertEquals(404, send(server, "PUT", "/api/tenants/T2", TENANT.replace("T1", "T2")).statusCode());
+        assertEquals(400, send(server, "PUT", "/api/tenants/T1", TENANT.replace("T1", "T2")).statusCode());
+
+        assertEquals(204, send(server, "DELETE", "/api/tenants/T1", null).statusCode());
+        assertEquals(404, send(server, "GET", "/api/tenants/T1", null).statusCode());
+        assertEquals(404, send(server, "DELETE", "/api/tenants/T1", null).statusCode());
+    }
+
+    @Test
+    void malformedFieldsAreRejectedBeforeAnythingIsStored() throws Exception {
+        RentalServer server = start(2, 4);
+        String[] invalid = {
+            TENANT.replace("\"T1\"", "\"T,1\""),
+            TENANT.replace("\"T1\"", "\"T\\\"1\""),
+            TENANT.replace("\"T1\"", "\"T1\\n\""),
+            TENANT.replace("Ann Lee", "Ann\\nLee"),
+            TENANT.replace("Ann Lee", "Ann\\rLee"),
+            TENANT.replace("ann@example.com", "not an email"),
+            TENANT.replace("0123456789", "12345"),
+            TENANT.replace("1990-01-01", "1990-02-30"),
+            TENANT.replace("\"Ann Lee\"", "\"\""),
+        };
+        for (String body : invalid) {
+            HttpResponse<String> response = send(server, "POST", "/api/tenants", body);
+            assertEquals(400, response.statusCode(), body);
+            assertNotNull(Json.parseObject(response.body()).get("error"));
+        }
+        assertEquals(0, tenants.getAllTenants().size());
+
+        HttpResponse<String> payment = send(server, "POST", "/api/payments", "{\"id\":\"P,1\",\"amount\":10,"
+                + "\"paymentDate\":\"2024-01-01\",\"paymentMethod\":\"Cash\",\"rentalAgreementId\":\"RA1\"}");
+        assertEquals(400, payment.statusCode());
+        assertEquals(0, rentals.countPayments());
+    }
+
+    @Test
+    void requestsBeyondTheQueueAreAnsweredWithServiceUnavailable() throws Exception {
+        RentalServer server = start(1, 1);
+        byte[] body = TENANT.getBytes(StandardCharsets.UTF_8);
+        try (Socket stalled = new Socket("localhost", server.getPort())) {
+            // The only worker waits for the rest of this body
+            OutputStream out = stalled.getOutputStream();
+            out.write(("POST /api/tenants HTTP/1.1\r\nHost: localhost\r\nContent-Length: " + body.length
+                    + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(body, 0, 1);
+            out.flush();
+            Thread.sleep(200);
+
+            // One request fits in the queue; the others are turned away at once
+            List<Socket> waiting = new ArrayList<>();
+            try {
+                for (int i = 0; i < 4; i++) {
+                    Socket socket = new Socket("localhost", server.getPort());
+                    waiting.add(socket);
+                    socket.getOutputStream().write(("GET /api/health HTTP/1.1\r\nHost: localhost\r\n"
+                            + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                }
+                int busy = 0;
+                for (Socket socket : waiting) {
+                    socket.setSoTimeout(1000);
+                    try {
+                        if (statusLine(socket).contains(" 503 ")) {
+                            busy++;
+                        }
+                    } catch (IOException e) {
+                        // Still queued behind the stalled request
+                    }
+                }
+                assertTrue(busy >= 2, busy + " requests were turned away");
+            } finally {
+                for (Socket socket : waiting) {
+                    socket.close();
+                }
+            }
+
+            out.write(body, 1, body.length - 1);
+            out.flush();
+            stalled.setSoTimeout(5000);
+            assertTrue(statusLine(stalled).contains(" 201 "));
+        }
+        assertNotNull(tenants.getTenant("T1"));
+        assertEquals(200, send(server, "GET", "/api/health", null).statusCode());
+    }
+
+    private static String statusLine(Socket socket) throws IOException {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII)).readLine();
+    }
+}
@@ -0,0 +1,121 @@
+package com.rentalsystem.util;
+
+import com.rentalsystem.model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinarySnapshotTest {
+    @TempDir
+    Path directory;
+
+    private final Tenant ann = new Tenant("T1", "Ann Lée", DateUtil.parseDate("1990-01-01"), "ann@example.com");
+    private final Tenant bob = new Tenant("T2", "Bob", null, null);
+    private final Host hal = new Host("H1", "Hal", DateUtil.parseDate("1970-05-05"), "hal@example.com");
+    private final Property house = new ResidentialProperty("R1", "1 Main St, Springfield", 1500, Property.Status.RENTED,
+            "H1", 3, true, false);
+    private final Property shop = new CommercialProperty("C1", "2 Market Sq", 4000.5, Property.Status.AVAILABLE, "H1",
+            "Retail", 4, 120.25);
+
+    private Path snapshot() {
+        return directory.resolve("rental_data.bin");
+    }
+
+    private void writeAll(List<RentalAgreement> agreements, List<Payment> payments) throws IOException {
+        BinarySnapshot.write(snapshot(), Arrays.asList(ann, bob), Collections.singletonList(hal),
+                Arrays.asList(house, shop), agreements, payments);
+    }
+
+    @Test
+    void everyEntityTypeRoundTrips() throws IOException {
+        RentalAgreement agreement = new RentalAgreement("RA1", ann, house, RentalAgreement.Period.MONTHLY,
+                DateUtil.parseDate("2024-01-01"), 1500, RentalAgreement.Status.ACTIVE);
+        writeAll(Collections.singletonList(agreement), Arrays.asList(
+                new Payment("PM1", 1500, DateUtil.parseDate("2024-02-01"), "Cash", "RA1"),
+                new Payment("PM2", 99.99, null, null, "RA1")));
+        assertFalse(Files.exists(directory.resolve("rental_data.bin.tmp")));
+
+        BinarySnapshot.Reader reader = BinarySnapshot.Reader.open(snapshot());
+        assertEquals(2, reader.getTenantCount());
+        assertEquals(2, reader.getPaymentCount());
+
+        List<Tenant> tenants = reader.readTenants();
+        assertEquals("Ann Lée", tenants.get(0).getFullName());
+        assertEquals(ann.getDateOfBirth(), tenants.get(0).getDateOfBirth());
+        assertNull(tenants.get(1).getDateOfBirth());
+        assertNull(tenants.get(1).getContactInformation());
+        assertEquals("hal@example.com", reader.readHosts().get(0).getContactInformation());
+
+        List<Property> properties = reader.readProperties();
+        ResidentialProperty readHouse = (ResidentialProperty) properties.get(0);
+        assertEquals("1 Main St, Springfield", readHouse.getAddress());
+        assertEquals(3, readHouse.getNumberOfBedrooms());
+        assertTrue(readHouse.isHasGarden());
+        assertFalse(readHouse.isPetFriendly());
+        CommercialProperty readShop = (CommercialProperty) properties.get(1);
+        assertEquals("Retail", readShop.getBusinessType());
+        assertEquals(4, readShop.getParkingSpaces());
+        assertEquals(120.25, readShop.getSquareFootage());
+        assertEquals(Property.Status.AVAILABLE, readShop.getStatus());
+        // Each distinct value is stored once and decodes to one shared String
+        assertSame(readHouse.getOwner(), readShop.getOwner());
+
+        Map<String, Tenant> tenantsById = new HashMap<>();
+        tenants.forEach(tenant -> tenantsById.put(tenant.getId(), tenant));
+        Map<String, Property> propertiesById = new HashMap<>();
+        properties.forEach(property -> propertiesById.put(property.getId(), property));
+        RentalAgreement readAgreement = reader.readRentalAgreements(tenantsById, propertiesById).get(0);
+        assertSame(tenants.get(0), readAgreement.getMainTenant());
+        assertSame(readHouse, readAgreement.getProperty());
+        assertEquals(agreement.getContractDate(), readAgreement.getContractDate());
+        assertEquals(RentalAgreement.Status.ACTIVE, readAgreement.getStatus());
+
+        PaymentTable payments = new PaymentTable(false);
+        reader.readPayments(payments);
+        assertEquals(1500, payments.get("PM1").getAmount());
+        assertEquals(DateUtil.parseDate("2024-02-01"), payments.get("PM1").getPaymentDate());
+        assertNull(payments.get("PM2").getPaymentDate());
+        assertNull(payments.get("PM2").getPaymentMethod());
+    }
+
+    @Test
+    void agreementsWithAMissingTenantOrPropertyAreSkipped() throws IOException {
+        writeAll(Arrays.asList(
+                new RentalAgreement("RA1", ann, house, RentalAgreement.Period.DAILY, null, 10,
+                        RentalAgreement.Status.NEW),
+                new RentalAgreement("RA2", bob, shop, RentalAgreement.Period.WEEKLY, null, 20,
+                        RentalAgreement.Status.COMPLETED)), Collections.emptyList());
+
+        BinarySnapshot.Reader reader = BinarySnapshot.Reader.open(snapshot());
+        List<RentalAgreement> agreements = reader.readRentalAgreements(Collections.singletonMap("T1", ann),
+                Collections.singletonMap("R1", house));
+        assertEquals(1, agreements.size());
+        assertEquals("RA1", agreements.get(0).getId());
+        assertNull(agreements.get(0).getContractDate());
+    }
+
+    @Test
+    void filesThatAreNotSnapshotsAreRejected() throws IOException {
+        Files.write(snapshot(), new byte[64]);
+        assertThrows(IOException.class, () -> BinarySnapshot.Reader.open(snapshot()));
+
+        // A valid magic number with a version this reader does not know
+        writeAll(Collections.emptyList(), Collections.emptyList());
+        byte[] bytes = Files.readAllBytes(snapshot());
+        ByteBuffer.wrap(bytes).putInt(4, 99);
+        Files.write(snapshot(), bytes);
+        IOException e = assertThrows(IOException.class, () -> BinarySnapshot.Reader.open(snapshot()));
+        assertTrue(e.getMessage().contains("version 99"), e.getMessage());
+    }
+}
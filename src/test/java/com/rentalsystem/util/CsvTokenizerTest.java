@@ -0,0 +1,158 @@
+package com.rentalsystem.util;
+
+import com.rentalsystem.model.Property;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvTokenizerTest {
+    private static List<List<String>> records(String text, int bufferSize) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        try (CsvTokenizer csv = new CsvTokenizer(new StringReader(text), bufferSize)) {
+            while (csv.next()) {
+                List<String> fields = new ArrayList<>();
+                for (int i = 0; i < csv.getFieldCount(); i++) {
+                    fields.add(csv.getString(i));
+                }
+                records.add(fields);
+            }
+        }
+        return records;
+    }
+
+    @Test
+    void splitsPlainFieldsAndKeepsEmptyOnes() throws IOException {
+        assertEquals(Arrays.asList(Arrays.asList("T1", "Ann", "", "x"), Arrays.asList("T2", "", "")),
+                records("T1,Ann,,x\nT2,,\n", 64));
+    }
+
+    @Test
+    void quotedFieldsMayHoldCommasQuotesAndLineBreaks() throws IOException {
+        String text = "R1,\"12 Main St, Springfield\",100\n"
+                + "R2,\"The \"\"Old\"\" Mill\",200\n"
+                + "R3,\"Line one\nLine two\",300\n";
+        assertEquals(Arrays.asList(
+                Arrays.asList("R1", "12 Main St, Springfield", "100"),
+                Arrays.asList("R2", "The \"Old\" Mill", "200"),
+                Arrays.asList("R3", "Line one\nLine two", "300")), records(text, 64));
+    }
+
+    @Test
+    void escapeRoundTripsThroughTheTokenizer() throws IOException {
+        String[] values = {"plain", "a,b", "say \"hi\"", "two\nlines", "", "\"", "cr\r\nlf"};
+        StringBuilder line = new StringBuilder();
+        for (String value : values) {
+            line.append(line.length() == 0 ? "" : ",").append(CsvTokenizer.escape(value));
+        }
+        assertEquals(Arrays.asList(Arrays.asList(values)), records(line + "\n", 16));
+        assertEquals("", CsvTokenizer.escape(null));
+    }
+
+    @Test
+    void crlfLineEndingsAndBlankLinesAreDropped() throws IOException {
+        assertEquals(Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("c", "d"), Arrays.asList("e")),
+                records("a,b\r\n\r\n\nc,d\r\ne", 64));
+    }
+
+    @Test
+    void recordsSpanningABufferRefillAreReadWhole() throws IOException {
+        StringBuilder text = new StringBuilder();
+        List<List<String>> expected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String address = "\"" + i + " Long Road, Unit " + i + "\"";
+            text.append("P").append(i).append(',').append(address).append(",").append(i * 1.5).append("\r\n");
+            expected.add(Arrays.asList("P" + i, i + " Long Road, Unit " + i, String.valueOf(i * 1.5)));
+        }
+        // The smallest buffer forces refills mid-record and growth for records longer than the buffer
+        assertEquals(expected, records(text.toString(), 16));
+        assertEquals(expected, records(text.toString(), 37));
+    }
+
+    @Test
+    void recordNumbersAndRecordText() throws IOException {
+        try (CsvTokenizer csv = new CsvTokenizer(new StringReader("a,b\n\nc,\"d,e\"\n"), 16)) {
+            assertTrue(csv.next());
+            assertEquals(1, csv.getRecordNumber());
+            assertEquals("a,b", csv.getRecord());
+            assertTrue(csv.next());
+            assertEquals("c", csv.getString(0));
+            assertEquals(3, csv.getRecordNumber());
+            assertThrows(IndexOutOfBoundsException.class, () -> csv.getString(2));
+            assertFalse(csv.next());
+        }
+    }
+
+    @Test
+    void intFastPathMatchesIntegerParseInt() throws IOException {
+        String[] values = {"0", "7", "-7", "+42", "000123", "999999999", "-999999999", "2147483647",
+                "-2147483648", "1234567890"};
+        for (String value : values) {
+            CsvTokenizer csv = CsvTokenizer.forLine("x," + value);
+            assertTrue(csv.next());
+            assertEquals(Integer.parseInt(value), csv.getInt(1), value);
+        }
+        for (String value : new String[] {"", "-", "12a", "1.5", "2147483648"}) {
+            CsvTokenizer csv = CsvTokenizer.forLine("x," + value);
+            assertTrue(csv.next());
+            assertThrows(NumberFormatException.class, () -> csv.getInt(1), value);
+        }
+    }
+
+    @Test
+    void doubleFastPathMatchesDoubleParseDouble() throws IOException {
+        String[] values = {"0", "0.0", "1", "-1.5", "+2.25", "1500.00", ".5", "5.", "123456789012345",
+                "0.1", "0.3", "1234567.891", "99999999999999999999", "1e3", "-2.5E-2", "NaN",
+                "0.000000000000000001"};
+        for (String value : values) {
+            CsvTokenizer csv = CsvTokenizer.forLine(value);
+            assertTrue(csv.next());
+            assertEquals(Double.parseDouble(value), csv.getDouble(0), value);
+        }
+        Random random = new Random(11);
+        for (int i = 0; i < 10000; i++) {
+            String value = (random.nextBoolean() ? "-" : "") + random.nextInt(1000000) + "."
+                    + String.format("%02d", random.nextInt(100));
+            CsvTokenizer csv = CsvTokenizer.forLine(value);
+            assertTrue(csv.next());
+            assertEquals(Double.parseDouble(value), csv.getDouble(0), value);
+        }
+        CsvTokenizer csv = CsvTokenizer.forLine("abc");
+        assertTrue(csv.next());
+        assertThrows(NumberFormatException.class, () -> csv.getDouble(0));
+    }
+
+    @Test
+    void booleansEnumsAndDates() throws IOException {
+        CsvTokenizer csv = CsvTokenizer.forLine("TRUE,false,yes,AVAILABLE,2024-02-29,2023-02-29");
+        assertTrue(csv.next());
+        assertTrue(csv.getBoolean(0));
+        assertFalse(csv.getBoolean(1));
+        assertFalse(csv.getBoolean(2));
+        assertEquals(Property.Status.AVAILABLE, csv.getEnum(3, Property.Status.values()));
+        assertThrows(IllegalArgumentException.class, () -> csv.getEnum(2, Property.Status.values()));
+        assertEquals(DateUtil.parseDate("2024-02-29"), csv.getDate(4));
+        assertNull(csv.getDate(5));
+        assertEquals(DateUtil.INVALID, csv.getEpochDay(5));
+    }
+
+    @Test
+    void pooledStringsAreShared() throws IOException {
+        StringPool pool = new StringPool();
+        List<String> methods = new ArrayList<>();
+        try (CsvTokenizer csv = new CsvTokenizer(new StringReader("P1,Cash\nP2,Card\nP3,Cash\n"), 16)) {
+            while (csv.next()) {
+                methods.add(csv.getString(1, pool));
+            }
+        }
+        assertEquals(Arrays.asList("Cash", "Card", "Cash"), methods);
+        assertSame(methods.get(0), methods.get(2));
+        assertEquals(2, pool.size());
+    }
+}
@@ -1 +1,104 @@
- 
+package com.rentalsystem.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DateUtilTest {
+    private static long parse(String text) {
+        return DateUtil.parseEpochDay(text, 0, text.length());
+    }
+
+    @Test
+    void everyDayRoundTripsAndMatchesJavaTime() {
+        long first = LocalDate.of(1900, 1, 1).toEpochDay();
+        long last = LocalDate.of(2100, 12, 31).toEpochDay();
+        for (long day = first; day <= last; day++) {
+            String text = DateUtil.formatEpochDay(day);
+            assertEquals(LocalDate.ofEpochDay(day).toString(), text);
+            assertEquals(day, parse(text), text);
+            assertEquals(day, DateUtil.parseEpochDay(text.toCharArray(), 0, 10), text);
+        }
+    }
+
+    @Test
+    void datesRoundTripAtMidnight() {
+        Date date = DateUtil.parseDate("2024-03-31");
+        assertEquals("2024-03-31", DateUtil.formatDate(date));
+        assertEquals(LocalDate.of(2024, 3, 31).toEpochDay(), DateUtil.toEpochDay(date));
+        assertEquals(date, DateUtil.toDate(DateUtil.toEpochDay(date)));
+        // Any time during the day belongs to the same date
+        assertEquals("2024-03-31", DateUtil.formatDate(new Date(date.getTime() + 86_399_999L)));
+        assertNull(DateUtil.parseDate(null));
+        assertEquals("", DateUtil.formatDate(null));
+    }
+
+    @Test
+    void impossibleOrMalformedDatesAreRejected() {
+        String[] invalid = {"2023-02-30", "2023-04-31", "2023-13-01", "2023-00-10", "2023-01-00", "2023-01-32",
+                "abcd-01-01", "2023-1a-01", "2023-01-0x", "2023/01/01", "20230101", "", "2023-01", "-023-01-01"};
+        for (String text : invalid) {
+            assertEquals(DateUtil.INVALID, parse(text), text);
+            assertEquals(DateUtil.INVALID, DateUtil.parseEpochDay(text.toCharArray(), 0, text.length()), text);
+            assertNull(DateUtil.parseDate(text), text);
+        }
+    }
+
+    @Test
+    void februaryTwentyNinthOnlyInLeapYears() {
+        for (int year : new int[] {1996, 2000, 2004, 2024, 2400}) {
+            assertEquals(LocalDate.of(year, 2, 29).toEpochDay(), parse(year + "-02-29"), "" + year);
+        }
+        for (int year : new int[] {1900, 2001, 2023, 2100, 2200}) {
+            assertEquals(DateUtil.INVALID, parse(year + "-02-29"), "" + year);
+            assertEquals(LocalDate.of(year, 2, 28).toEpochDay(), parse(year + "-02-28"), "" + year);
+        }
+    }
+
+    @Test
+    void unpaddedDatesFallBackToStrictParsing() {
+        long expected = LocalDate.of(2023, 1, 5).toEpochDay();
+        for (String text : new String[] {"2023-1-5", "2023-01-5", "2023-1-05"}) {
+            assertEquals(expected, parse(text), text);
+            assertEquals(expected, DateUtil.parseEpochDay(text.toCharArray(), 0, text.length()), text);
+        }
+        assertEquals(LocalDate.of(2024, 2, 29).toEpochDay(), parse("2024-2-29"));
+        assertEquals(DateUtil.INVALID, parse("2023-2-29"));
+        assertEquals(DateUtil.INVALID, parse("2023-2-30"));
+        assertEquals(DateUtil.INVALID, parse("2023-1-5x"));
+    }
+
+    @Test
+    void parsesADateInsideALongerBuffer() {
+        String line = "RA1,2023-06-15,2023-7-1";
+        assertEquals(LocalDate.of(2023, 6, 15).toEpochDay(), DateUtil.parseEpochDay(line, 4, 14));
+        assertEquals(LocalDate.of(2023, 7, 1).toEpochDay(), DateUtil.parseEpochDay(line, 15, line.length()));
+        char[] chars = line.toCharArray();
+        assertEquals(LocalDate.of(2023, 6, 15).toEpochDay(), DateUtil.parseEpochDay(chars, 4, 14));
+        assertEquals(LocalDate.of(2023, 7, 1).toEpochDay(), DateUtil.parseEpochDay(chars, 15, chars.length));
+    }
+
+    @Test
+    void formatCacheReusesTextAndSurvivesCollisions() {
+        long day = LocalDate.of(2023, 5, 17).toEpochDay();
+        String text = DateUtil.formatEpochDay(day);
+        assertSame(text, DateUtil.formatEpochDay(day));
+
+        // Days 4096 apart share a cache slot; each evicts the other but never returns its text
+        long colliding = day + 4096;
+        assertEquals(LocalDate.ofEpochDay(colliding).toString(), DateUtil.formatEpochDay(colliding));
+        assertEquals("2023-05-17", DateUtil.formatEpochDay(day));
+        assertEquals(LocalDate.ofEpochDay(colliding).toString(), DateUtil.formatEpochDay(colliding));
+    }
+
+    @Test
+    void yearsBeyondFourDigitsUseTheIsoForm() {
+        assertEquals("+10000-01-01", DateUtil.formatEpochDay(LocalDate.of(10000, 1, 1).toEpochDay()));
+        assertEquals("-0001-12-31", DateUtil.formatEpochDay(LocalDate.of(-1, 12, 31).toEpochDay()));
+        assertEquals("0000-01-01", DateUtil.formatEpochDay(LocalDate.of(0, 1, 1).toEpochDay()));
+        assertEquals(LocalDate.of(0, 1, 1).toEpochDay(), parse("0000-01-01"));
+    }
+}
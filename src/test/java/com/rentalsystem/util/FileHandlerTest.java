@@ -1 +1,169 @@
- 
+package com.rentalsystem.util;
+
+import com.rentalsystem.model.Payment;
+import com.rentalsystem.model.Tenant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileHandlerTest {
+    @TempDir
+    Path directory;
+
+    // Journal mode with every entry synced and no background autosave, so each change is on disk on return
+    private FileHandler journaling() {
+        return new FileHandler(directory.toString(), FileHandler.PersistenceMode.JOURNAL,
+                FileHandler.StorageFormat.CSV, 1, 0, 10000, -1, 16);
+    }
+
+    private static List<String> ids(List<Tenant> tenants) {
+        return tenants.stream().map(Tenant::getId).collect(Collectors.toList());
+    }
+
+    private void writeTenantsFile(String... lines) throws IOException {
+        Files.write(directory.resolve("tenants.txt"), String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void journaledChangesAreReplayedAfterACrash() throws IOException {
+        writeTenantsFile("T1,Ann,1990-01-01,ann@example.com", "T2,Bob,1985-02-03,bob@example.com");
+        FileHandler crashed = journaling();
+        try {
+            crashed.loadTenants();
+            crashed.persistTenant(new Tenant("T3", "Cat", DateUtil.parseDate("2000-03-04"), "cat@example.com"));
+            crashed.persistTenantDeletion("T1");
+            crashed.persistTenant(new Tenant("T2", "Bob Jones", DateUtil.parseDate("1985-02-03"), "bob@example.com"));
+
+            // A second handler stands in for the restarted process; the first never saved
+            List<Tenant> reloaded = journaling().loadTenants();
+            assertEquals(Arrays.asList("T2", "T3"), ids(reloaded));
+            assertEquals("Bob Jones", reloaded.get(0).getFullName());
+        } finally {
+            crashed.shutdown();
+        }
+    }
+
+    @Test
+    void recordsWithLineBreaksAndDelimitersAreReplayed() throws IOException {
+        writeTenantsFile("T1,Ann,1990-01-01,ann@example.com");
+        FileHandler crashed = journaling();
+        try {
+            crashed.loadTenants();
+            crashed.persistTenant(new Tenant("T2", "Line\nBreak", DateUtil.parseDate("1985-02-03"), "a,\"b\"\r\n"));
+            crashed.persistTenant(new Tenant("T,3", "Cat", DateUtil.parseDate("2000-03-04"), "cat@example.com"));
+            crashed.persistTenantDeletion("T1");
+
+            List<Tenant> reloaded = journaling().loadTenants();
+            assertEquals(Arrays.asList("T2", "T,3"), ids(reloaded));
+            assertEquals("Line\nBreak", reloaded.get(0).getFullName());
+            assertEquals("a,\"b\"\r\n", reloaded.get(0).getContactInformation());
+
+            // The rewritten data file reads back the same
+            crashed.rewriteAllData();
+            assertFalse(Files.exists(directory.resolve("tenants.txt.journal")));
+            reloaded = journaling().loadTenants();
+            assertEquals(Arrays.asList("T2", "T,3"), ids(reloaded));
+            assertEquals("Line\nBreak", reloaded.get(0).getFullName());
+        } finally {
+            crashed.shutdown();
+        }
+    }
+
+    @Test
+    void tornJournalEntryIsIgnoredOnLoad() throws IOException {
+        writeTenantsFile("T1,Ann,1990-01-01,ann@example.com");
+        FileHandler crashed = journaling();
+        try {
+            crashed.loadTenants();
+            crashed.persistTenant(new Tenant("T2", "Bob", DateUtil.parseDate("1985-02-03"), "bob@example.com"));
+        } finally {
+            crashed.shutdown();
+        }
+        Files.write(directory.resolve("tenants.txt.journal"), "P|0|T3,Cat,2000-01-0".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        assertEquals(Arrays.asList("T1", "T2"), ids(journaling().loadTenants()));
+    }
+
+    @Test
+    void changeTheJournalCouldNotRecordIsWrittenByTheNextSave() throws IOException {
+        writeTenantsFile("T1,Ann,1990-01-01,ann@example.com");
+        FileHandler handler = journaling();
+        try {
+            handler.loadTenants();
+            // A directory in the journal's place makes every append fail
+            Path journal = Files.createDirectory(directory.resolve("tenants.txt.journal"));
+            handler.persistTenant(new Tenant("T2", "Bob", DateUtil.parseDate("1985-02-03"), "bob@example.com"));
+            Files.delete(journal);
+
+            assertEquals(1, handler.saveAllData());
+            assertEquals(Arrays.asList("T1,Ann,1990-01-01,ann@example.com", "T2,Bob,1985-02-03,bob@example.com"),
+                    Files.readAllLines(directory.resolve("tenants.txt")));
+            assertEquals(0, handler.saveAllData());
+        } finally {
+            handler.shutdown();
+        }
+    }
+
+    @Test
+    void interruptedCompactionIsRecovered() throws IOException {
+        // The state as a crash leaves it between rotating the journal and writing the new tenants file
+        writeTenantsFile("T1,Ann,1990-01-01,ann@example.com");
+        Journal journal = new Journal(directory.resolve("tenants.txt.journal"), 1);
+        journal.append(Journal.Op.PUT, "T2,Bob,1985-02-03,bob@example.com");
+        journal.rotate();
+        journal.append(Journal.Op.DELETE, "T1");
+        journal.close();
+
+        FileHandler handler = journaling();
+        try {
+            assertEquals(Collections.singletonList("T2"), ids(handler.loadTenants()));
+            handler.rewriteAllData();
+        } finally {
+            handler.shutdown();
+        }
+        assertFalse(Files.exists(directory.resolve("tenants.txt.journal.compacting")));
+        assertEquals(Collections.singletonList("T2,Bob,1985-02-03,bob@example.com"),
+                Files.readAllLines(directory.resolve("tenants.txt")));
+        assertEquals(Collections.singletonList("T2"), ids(journaling().loadTenants()));
+    }
+
+    @Test
+    void paymentsAreSavedFromTheTableTheyAreSharedIn() throws IOException {
+        Files.write(directory.resolve("payments.txt"), Arrays.asList("PM1,100.00,2024-01-01,Cash,RA1",
+                "PM2,200.00,2024-02-01,Card,RA1"), StandardCharsets.UTF_8);
+        FileHandler handler = journaling();
+        try {
+            PaymentTable shared = new PaymentTable(true);
+            handler.loadPayments().forEach(shared::add);
+            handler.sharePayments(shared);
+
+            Payment added = new Payment("PM3", 300, DateUtil.parseDate("2024-03-01"), "Cash", "RA2");
+            shared.add(added);
+            handler.persistPayment(added);
+            assertEquals(3, shared.size());
+            assertEquals(1, handler.getUnsavedChangeCount());
+
+            handler.rewriteAllData();
+            assertEquals(Arrays.asList("PM1,100.00,2024-01-01,Cash,RA1", "PM2,200.00,2024-02-01,Card,RA1",
+                    "PM3,300.00,2024-03-01,Cash,RA2"), Files.readAllLines(directory.resolve("payments.txt")));
+
+            // Reloading gives the handler a table of its own until the manager shares one again
+            assertEquals(3, handler.loadPayments().size());
+            assertEquals(3, shared.size());
+        } finally {
+            handler.shutdown();
+        }
+    }
+}
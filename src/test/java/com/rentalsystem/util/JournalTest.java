@@ -0,0 +1,171 @@
+package com.rentalsystem.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalTest {
+    @TempDir
+    Path directory;
+
+    private Path log() {
+        return directory.resolve("tenants.txt.journal");
+    }
+
+    private Path rotated() {
+        return directory.resolve("tenants.txt.journal.compacting");
+    }
+
+    private static List<String> replay(Journal journal) throws IOException {
+        List<String> entries = new ArrayList<>();
+        journal.replay((op, payload) -> entries.add((op == Journal.Op.PUT ? "P:" : "D:") + payload));
+        return entries;
+    }
+
+    @Test
+    void replaysEntriesInOrder() throws IOException {
+        Journal journal = new Journal(log(), 1);
+        journal.append(Journal.Op.PUT, "T1,Ann,1990-01-01,ann@example.com");
+        journal.append(Journal.Op.DELETE, "T2");
+        journal.appendAll(Journal.Op.PUT, Arrays.asList("T3,Zoë \"Z\",1985-05-05,\"a,b\"", "T4,Bo,2000-12-31,"));
+        journal.close();
+
+        Journal reopened = new Journal(log(), 1);
+        assertEquals(Arrays.asList("P:T1,Ann,1990-01-01,ann@example.com", "D:T2",
+                "P:T3,Zoë \"Z\",1985-05-05,\"a,b\"", "P:T4,Bo,2000-12-31,"), replay(reopened));
+        assertEquals(4, reopened.getEntryCount());
+    }
+
+    @Test
+    void lineBreaksAndBackslashesInsideARecordSurviveReplay() throws IOException {
+        Journal journal = new Journal(log(), 1);
+        journal.append(Journal.Op.PUT, "T1,\"Line\nBreak\",1990-01-01,");
+        journal.appendAll(Journal.Op.PUT, Arrays.asList("T2,\"C:\\new\r\n\",1990-01-01,", "T3,\\n,1990-01-01,"));
+        journal.append(Journal.Op.DELETE, "T2");
+        journal.close();
+        assertEquals(4, Files.readAllLines(log()).size());
+
+        assertEquals(Arrays.asList("P:T1,\"Line\nBreak\",1990-01-01,", "P:T2,\"C:\\new\r\n\",1990-01-01,",
+                "P:T3,\\n,1990-01-01,", "D:T2"), replay(new Journal(log(), 1)));
+    }
+
+    @Test
+    void batchLargerThanTheWriteBufferIsKeptWhole() throws IOException {
+        char[] filler = new char[(1 << 20) + 10];
+        Arrays.fill(filler, 'x');
+        String large = "T1," + new String(filler);
+        Journal journal = new Journal(log(), 0);
+        journal.appendAll(Journal.Op.PUT, Arrays.asList("T0,small", large, "T2,small"));
+        journal.close();
+
+        assertEquals(Arrays.asList("P:T0,small", "P:" + large, "P:T2,small"), replay(new Journal(log(), 0)));
+    }
+
+    @Test
+    void checksumMismatchStopsReplayAndTruncatesTheTail() throws IOException {
+        Journal journal = new Journal(log(), 1);
+        journal.append(Journal.Op.PUT, "T1,Ann");
+        journal.append(Journal.Op.PUT, "T2,Bob");
+        journal.append(Journal.Op.PUT, "T3,Cat");
+        journal.close();
+        long firstEntryBytes = Files.readAllLines(log()).get(0).length() + 1;
+        String damaged = new String(Files.readAllBytes(log()), StandardCharsets.UTF_8).replace("T2,Bob", "T2,Bib");
+        Files.write(log(), damaged.getBytes(StandardCharsets.UTF_8));
+
+        Journal reopened = new Journal(log(), 1);
+        assertEquals(Collections.singletonList("P:T1,Ann"), replay(reopened));
+        assertEquals(firstEntryBytes, Files.size(log()));
+
+        // New entries land after the last good one rather than behind the discarded tail
+        reopened.append(Journal.Op.PUT, "T4,Dan");
+        reopened.close();
+        assertEquals(Arrays.asList("P:T1,Ann", "P:T4,Dan"), replay(new Journal(log(), 1)));
+    }
+
+    @Test
+    void entryTornByACrashIsDropped() throws IOException {
+        Journal journal = new Journal(log(), 1);
+        journal.append(Journal.Op.PUT, "T1,Ann");
+        journal.append(Journal.Op.DELETE, "T1");
+        journal.close();
+        Files.write(log(), "P|1a2b".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        Journal reopened = new Journal(log(), 1);
+        assertEquals(Arrays.asList("P:T1,Ann", "D:T1"), replay(reopened));
+        reopened.append(Journal.Op.PUT, "T2,Bob");
+        reopened.close();
+        assertEquals(Arrays.asList("P:T1,Ann", "D:T1", "P:T2,Bob"), replay(new Journal(log(), 1)));
+    }
+
+    @Test
+    void intactLastEntryWithoutNewlineIsKeptAndTerminated() throws IOException {
+        Journal journal = new Journal(log(), 1);
+        journal.append(Journal.Op.PUT, "T1,Ann");
+        journal.close();
+        byte[] bytes = Files.readAllBytes(log());
+        Files.write(log(), Arrays.copyOf(bytes, bytes.length - 1));
+
+        Journal reopened = new Journal(log(), 1);
+        assertEquals(Collections.singletonList("P:T1,Ann"), replay(reopened));
+        reopened.append(Journal.Op.PUT, "T2,Bob");
+        reopened.close();
+        assertEquals(Arrays.asList("P:T1,Ann", "P:T2,Bob"), replay(new Journal(log(), 1)));
+    }
+
+    @Test
+    void interruptedCompactionIsReplayedBeforeTheLiveLog() throws IOException {
+        Journal journal = new Journal(log(), 1);
+        journal.append(Journal.Op.PUT, "T1,Ann");
+        assertTrue(journal.rotate());
+        journal.append(Journal.Op.PUT, "T1,Ann Smith");
+        journal.append(Journal.Op.DELETE, "T2");
+        journal.close();
+        assertTrue(Files.exists(rotated()));
+
+        Journal reopened = new Journal(log(), 1);
+        assertEquals(Arrays.asList("P:T1,Ann", "P:T1,Ann Smith", "D:T2"), replay(reopened));
+        // Only the live log counts towards the compaction threshold
+        assertEquals(2, reopened.getEntryCount());
+    }
+
+    @Test
+    void rotateWithACompactionPendingAppendsTheLiveLogToIt() throws IOException {
+        Journal journal = new Journal(log(), 1);
+        journal.append(Journal.Op.PUT, "T1,Ann");
+        assertTrue(journal.rotate());
+        journal.append(Journal.Op.PUT, "T2,Bob");
+        assertTrue(journal.rotate());
+        assertFalse(Files.exists(log()));
+        assertEquals(Arrays.asList("P:T1,Ann", "P:T2,Bob"), replay(journal));
+
+        journal.append(Journal.Op.PUT, "T3,Cat");
+        journal.close();
+        assertEquals(Arrays.asList("P:T1,Ann", "P:T2,Bob", "P:T3,Cat"), replay(new Journal(log(), 1)));
+
+        journal.discardRotated();
+        assertFalse(Files.exists(rotated()));
+        assertEquals(Collections.singletonList("P:T3,Cat"), replay(new Journal(log(), 1)));
+    }
+
+    @Test
+    void rotateWithNothingToCompactReturnsFalse() throws IOException {
+        Journal journal = new Journal(log(), 1);
+        assertFalse(journal.rotate());
+        journal.append(Journal.Op.PUT, "T1,Ann");
+        assertTrue(journal.rotate());
+        journal.discardRotated();
+        assertFalse(journal.rotate());
+        journal.close();
+    }
+}
@@ -0,0 +1,253 @@
+package com.rentalsystem.util;
+
+import com.rentalsystem.model.Payment;
+import com.rentalsystem.model.References;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentTableTest {
+    private static final long DAY = 19_700;
+
+    private static Payment payment(String id, double amount, long day, String method, String agreementId) {
+        return new Payment(id, amount, day == PaymentTable.NO_DAY ? null : DateUtil.toDate(day), method, agreementId);
+    }
+
+    private static List<String> ids(Stream<Payment> payments) {
+        return payments.map(Payment::getId).collect(Collectors.toList());
+    }
+
+    private static List<String> ids(List<Payment> payments) {
+        return ids(payments.stream());
+    }
+
+    @Test
+    void addRefusesATakenIdAndKeepsInsertionOrder() {
+        PaymentTable table = new PaymentTable(false);
+        assertTrue(table.add(payment("P2", 10.5, DAY, "Cash", "RA1")));
+        assertTrue(table.add(payment("P1", 20, PaymentTable.NO_DAY, null, null)));
+        assertTrue(table.add(payment("pay-7", 30, DAY + 1, "Card", "agreement one")));
+        assertFalse(table.add(payment("P2", 99, DAY, "Card", "RA9")));
+
+        assertEquals(3, table.size());
+        assertEquals(Arrays.asList("P2", "P1", "pay-7"), ids(table.snapshot()));
+        Payment stored = table.get("P2");
+        assertEquals(10.5, stored.getAmount());
+        assertEquals(DateUtil.toDate(DAY), stored.getPaymentDate());
+        assertEquals("Cash", stored.getPaymentMethod());
+        assertEquals("RA1", stored.getRentalAgreementId());
+        assertEquals(stored, table.get("P2"));
+        assertThrows(UnsupportedOperationException.class, () -> stored.setAmount(1));
+
+        Payment undated = table.get("P1");
+        assertNull(undated.getPaymentDate());
+        assertEquals(PaymentTable.NO_DAY, PaymentTable.epochDay(undated));
+        assertNull(undated.getPaymentMethod());
+        assertNull(undated.getRentalAgreementId());
+        assertEquals("agreement one", table.get("pay-7").getRentalAgreementId());
+        assertNull(table.get("P3"));
+        assertNull(table.get(null));
+        assertFalse(table.containsKey("P02"));
+    }
+
+    @Test
+    void putReplacesInPlaceAndReturnsADetachedCopy() {
+        PaymentTable table = new PaymentTable(true);
+        assertNull(table.put("P1", payment("P1", 10, DAY, "Cash", "RA1")));
+        table.put("P2", payment("P2", 20, DAY, "Cash", "RA1"));
+
+        Payment previous = table.put("P1", 15, DAY + 3, "Card", "RA2");
+        assertEquals(10, previous.getAmount());
+        assertEquals("RA1", previous.getRentalAgreementId());
+        previous.setAmount(1);
+        assertEquals(15, table.get("P1").getAmount());
+        assertEquals(Arrays.asList("P1", "P2"), ids(table.snapshot()));
+        assertEquals(Collections.singletonList("P2"), ids(table.forAgreement("RA1")));
+        assertEquals(Collections.singletonList("P1"), ids(table.forAgreement("RA2")));
+        assertEquals(Arrays.asList("P2", "P1"),
+                ids(table.walkByDate(PaymentTable.NO_DAY, Long.MAX_VALUE, false, 0, null)));
+    }
+
+    @Test
+    void removedIdsLeaveTombstonesThatLookupsSkip() {
+        PaymentTable table = new PaymentTable(true);
+        for (int i = 0; i < 2000; i++) {
+            table.add(payment("P" + i, i, DAY + i % 10, i % 2 == 0 ? "Cash" : "Card", "RA" + i % 7));
+        }
+        for (int i = 0; i < 2000; i += 2) {
+            Payment removed = table.remove("P" + i);
+            assertEquals(i, removed.getAmount());
+        }
+        assertNull(table.remove("P0"));
+        assertNull(table.remove("missing"));
+
+        assertEquals(1000, table.size());
+        assertNull(table.get("P10"));
+        assertFalse(table.containsKey("P10"));
+        assertEquals(1001, table.get("P1001").getAmount());
+        assertEquals(1000, table.snapshot().size());
+        assertTrue(table.snapshot().stream().allMatch(p -> p.getAmount() % 2 == 1));
+        assertEquals(1000, table.walkByDate(PaymentTable.NO_DAY, Long.MAX_VALUE, false, 0, null).count());
+
+        // Adding a removed ID again stores it as a new row at the end
+        assertTrue(table.add(payment("P10", 10.5, DAY, "Cash", "RA3")));
+        assertEquals(10.5, table.get("P10").getAmount());
+        List<Payment> rows = table.snapshot();
+        assertEquals("P10", rows.get(rows.size() - 1).getId());
+        List<Payment> agreement = table.forAgreement("RA3");
+        assertEquals("P10", agreement.get(agreement.size() - 1).getId());
+
+        table.entrySet().removeIf(entry -> entry.getValue().getAmount() > 100);
+        assertEquals(Arrays.asList("P1", "P3", "P5"), ids(table.snapshot()).subList(0, 3));
+        assertEquals(51, table.size());
+    }
+
+    @Test
+    void forAgreementListsPaymentsInTheOrderAdded() {
+        PaymentTable table = new PaymentTable(true);
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            table.add(payment("P" + i, i, DAY, "Cash", "RA" + i % 300));
+            if (i % 300 == 42) {
+                expected.add("P" + i);
+            }
+        }
+        table.add(payment("P-none", 1, DAY, "Cash", null));
+
+        assertEquals(expected, ids(table.forAgreement("RA42")));
+        assertEquals(10, table.countForAgreement("RA42"));
+        assertTrue(table.forAgreement("RA999").isEmpty());
+        assertEquals(0, table.countForAgreement("RA999"));
+        assertTrue(table.forAgreement(null).isEmpty());
+
+        References<Payment> view = table.agreementView("RA42");
+        table.remove("P42");
+        assertEquals(expected.subList(1, expected.size()), ids(view.snapshot()));
+        assertEquals(9, view.count());
+        table.clear();
+        assertEquals(0, view.count());
+        table.add(payment("P1", 5, DAY, "Cash", "RA42"));
+        assertEquals(Collections.singletonList("P1"), ids(view.snapshot()));
+
+        assertThrows(IllegalStateException.class, () -> new PaymentTable(false).forAgreement("RA1"));
+    }
+
+    @Test
+    void walkByDateOrdersByDayThenIdAndResumesAfterACursor() {
+        PaymentTable table = new PaymentTable(false);
+        table.add(payment("P9", 1, DAY + 1, "Cash", "RA1"));
+        table.add(payment("P10", 1, DAY + 1, "Cash", "RA1"));
+        table.add(payment("P2", 1, DAY, "Cash", "RA1"));
+        table.add(payment("P3", 1, PaymentTable.NO_DAY, "Cash", "RA1"));
+        table.add(payment("x-1", 1, DAY + 2, "Cash", "RA1"));
+        table.add(payment("P1", 1, DAY + 2, "Cash", "RA1"));
+
+        // IDs compare as strings: P10 before P9, and P1 before x-1
+        assertEquals(Arrays.asList("P3", "P2", "P10", "P9", "P1", "x-1"),
+                ids(table.walkByDate(PaymentTable.NO_DAY, Long.MAX_VALUE, false, 0, null)));
+        assertEquals(Arrays.asList("P2", "P10", "P9"), ids(table.walkByDate(DAY, DAY + 1, false, 0, null)));
+        assertEquals(Arrays.asList("x-1", "P1", "P9", "P10"),
+                ids(table.walkByDate(DAY + 1, Long.MAX_VALUE, true, 0, null)));
+
+        assertEquals(Arrays.asList("P9", "P1", "x-1"),
+                ids(table.walkByDate(PaymentTable.NO_DAY, Long.MAX_VALUE, false, DAY + 1, "P10")));
+        assertEquals(Arrays.asList("P10", "P2", "P3"),
+                ids(table.walkByDate(PaymentTable.NO_DAY, Long.MAX_VALUE, true, DAY + 1, "P9")));
+        // A cursor need not name a stored payment
+        assertEquals(Arrays.asList("P9", "P1", "x-1"),
+                ids(table.walkByDate(PaymentTable.NO_DAY, Long.MAX_VALUE, false, DAY + 1, "P5")));
+
+        // Rows added after the first walk are merged in, and a changed date moves its row
+        table.add(payment("P0", 1, DAY + 1, "Cash", "RA1"));
+        table.put("P2", 1, DAY + 3, "Cash", "RA1");
+        assertEquals(Arrays.asList("P3", "P0", "P10", "P9", "P1", "x-1", "P2"),
+                ids(table.walkByDate(PaymentTable.NO_DAY, Long.MAX_VALUE, false, 0, null)));
+    }
+
+    @Test
+    void walkByDateMatchesASortedCopy() {
+        PaymentTable table = new PaymentTable(false);
+        List<Payment> all = new ArrayList<>();
+        Random random = new Random(5);
+        for (int i = 0; i < 5000; i++) {
+            Payment payment = payment("P" + random.nextInt(100000), 1, DAY + random.nextInt(60), "Cash", "RA1");
+            if (table.add(payment)) {
+                all.add(payment);
+            }
+            if (i % 700 == 0) {
+                table.walkByDate(PaymentTable.NO_DAY, Long.MAX_VALUE, false, 0, null).findFirst();
+            }
+        }
+        all.sort((a, b) -> {
+            int order = Long.compare(PaymentTable.epochDay(a), PaymentTable.epochDay(b));
+            return order != 0 ? order : a.getId().compareTo(b.getId());
+        });
+        List<String> sorted = ids(all);
+        assertEquals(sorted, ids(table.walkByDate(PaymentTable.NO_DAY, Long.MAX_VALUE, false, 0, null)));
+        Collections.reverse(sorted);
+        assertEquals(sorted, ids(table.walkByDate(PaymentTable.NO_DAY, Long.MAX_VALUE, true, 0, null)));
+    }
+
+    @Test
+    void forEachMethodTotalCountsAndSumsInCents() {
+        PaymentTable table = new PaymentTable(false);
+        table.add(payment("P1", 10.10, DAY, "Cash", "RA1"));
+        table.add(payment("P2", 0.20, DAY, "Card", "RA1"));
+        table.add(payment("P3", 5.05, DAY, "Cash", "RA1"));
+        table.add(payment("P4", 7, DAY, null, "RA1"));
+        table.add(payment("P5", 100, DAY, "Cheque", "RA1"));
+        table.remove("P5");
+
+        List<String> totals = new ArrayList<>();
+        table.forEachMethodTotal((method, count, cents) -> totals.add(method + ":" + count + ":" + cents));
+        assertEquals(Arrays.asList("null:1:700", "Cash:2:1515", "Card:1:20"), totals);
+    }
+
+    @Test
+    void compactIdsRoundTripAndOrderLikeTheirStrings() {
+        for (String id : new String[] {"T001", "RA00000042", "P1", "P0", "ABC1234567890123", "P000"}) {
+            long packed = CompactId.pack(id);
+            assertNotEquals(CompactId.NONE, packed, id);
+            assertTrue(packed >= 0, id);
+            assertEquals(id, CompactId.unpack(packed));
+        }
+        for (String id : new String[] {"", "P", "ABCD1", "p1", "P1x", "P-1", "P12345678901234", "1A"}) {
+            assertEquals(CompactId.NONE, CompactId.pack(id), id);
+        }
+        assertEquals(CompactId.pack("42"), CompactId.pack(new StringBuilder("42")));
+
+        String[][] pairs = {{"P001", "P1"}, {"P9", "P10"}, {"P9", "PA1"}, {"P1", "RA1"}, {"A9", "AA1"},
+                {"P01", "P1"}, {"P1", "P1"}, {"Z9999", "ZZ0"}, {"1", "A1"}};
+        for (String[] pair : pairs) {
+            assertSameOrder(pair[0], pair[1]);
+            assertSameOrder(pair[1], pair[0]);
+        }
+        Random random = new Random(17);
+        String[] prefixes = {"", "P", "PA", "RA", "ABC", "Z"};
+        for (int i = 0; i < 20000; i++) {
+            assertSameOrder(randomId(random, prefixes), randomId(random, prefixes));
+        }
+    }
+
+    private static String randomId(Random random, String[] prefixes) {
+        StringBuilder id = new StringBuilder(prefixes[random.nextInt(prefixes.length)]);
+        int digits = 1 + random.nextInt(6);
+        for (int i = 0; i < digits; i++) {
+            id.append((char) ('0' + random.nextInt(10)));
+        }
+        return id.toString();
+    }
+
+    private static void assertSameOrder(String a, String b) {
+        assertEquals(Integer.signum(a.compareTo(b)), Integer.signum(CompactId.compare(CompactId.pack(a),
+                CompactId.pack(b))), a + " vs " + b);
+    }
+}
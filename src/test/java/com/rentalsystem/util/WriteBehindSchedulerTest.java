@@ -0,0 +1,78 @@
+package com.rentalsystem.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindSchedulerTest {
+    private final Set<String> written = ConcurrentHashMap.newKeySet();
+
+    private WriteBehindScheduler<String> scheduler(long windowMillis, int capacity) {
+        return new WriteBehindScheduler<>("test-autosave", (target, ids) -> written.addAll(ids), windowMillis,
+                capacity);
+    }
+
+    @Test
+    void flushReturnsOnceEveryQueuedChangeIsWritten() {
+        WriteBehindScheduler<String> scheduler = scheduler(10_000, 16);
+        try {
+            for (int i = 0; i < 100; i++) {
+                assertTrue(scheduler.submit("tenants", "T" + i));
+            }
+            // The window is far longer than the test; the flush cuts it short
+            scheduler.flush();
+            assertEquals(100, written.size());
+        } finally {
+            scheduler.close();
+        }
+    }
+
+    @Test
+    void everyChangeSubmittedWhileClosingIsWrittenOrHandedBack() throws Exception {
+        WriteBehindScheduler<String> scheduler = scheduler(1, 8);
+        Set<String> handedBack = ConcurrentHashMap.newKeySet();
+        AtomicInteger submitted = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(4);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            Thread writer = new Thread(() -> {
+                started.countDown();
+                for (int i = 0; i < 5_000; i++) {
+                    String id = thread + "-" + i;
+                    submitted.incrementAndGet();
+                    if (!scheduler.submit("payments", id)) {
+                        handedBack.add(id);
+                    }
+                    if (i % 100 == 0) {
+                        scheduler.flush();
+                    }
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        started.await();
+        scheduler.close();
+        for (Thread writer : writers) {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+            assertFalse(writer.isAlive(), "a submit or flush hung after close");
+        }
+
+        assertEquals(submitted.get(), written.size() + handedBack.size());
+        for (String id : handedBack) {
+            assertFalse(written.contains(id), id);
+        }
+        assertFalse(scheduler.submit("payments", "late"));
+        scheduler.flush();
+        scheduler.close();
+    }
+}